@@ -0,0 +1,88 @@
+package com.myapp.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.myapp.Application;
+import com.myapp.DatosPrueba;
+import com.myapp.models.Categoria;
+import com.myapp.models.Direccion;
+import com.myapp.models.Pedido;
+import com.myapp.models.Producto;
+import com.myapp.models.Usuario;
+
+/**
+ * Latencia de PedidoService.crearPedido según el número de líneas, contra la H2 en memoria de las pruebas
+ * (src/test/resources/application.properties). Incluye la transacción completa: carga de productos en una
+ * consulta, un UPDATE condicional de stock por línea (ReservaStockService), los INSERT de las líneas en lote
+ * y el commit. Los índices de búsqueda y facetas se actualizan en segundo plano tras cada commit, como en producción.
+ *
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="CheckoutBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CheckoutBenchmark {
+
+    // Stock de sobra para todas las iteraciones: el benchmark no debe medir rechazos por falta de stock
+    private static final int STOCK = 1_000_000_000;
+
+    @Param({ "1", "5", "20", "50" })
+    private int lineas;
+
+    private ConfigurableApplicationContext contexto;
+    private PedidoService pedidoService;
+    private DatosPrueba datos;
+    private Usuario usuario;
+    private Direccion direccion;
+    private List<Producto> productos;
+
+    @Setup
+    public void arrancar() {
+        SpringApplication aplicacion = new SpringApplication(Application.class, DatosPrueba.class);
+        aplicacion.setWebApplicationType(WebApplicationType.NONE);
+        contexto = aplicacion.run("--logging.level.root=WARN",
+            "--spring.jpa.properties.hibernate.generate_statistics=false");
+        pedidoService = contexto.getBean(PedidoService.class);
+
+        datos = contexto.getBean(DatosPrueba.class);
+        Categoria categoria = datos.categoria();
+        usuario = datos.usuario();
+        direccion = datos.direccion(usuario);
+        productos = new ArrayList<>(lineas);
+        for (int i = 0; i < lineas; i++) {
+            productos.add(datos.producto(categoria, STOCK));
+        }
+    }
+
+    @TearDown
+    public void detener() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public Pedido crearPedido() {
+        // Petición nueva en cada llamada: crearPedido no debe reutilizar entidades de la anterior
+        return pedidoService.crearPedido(usuario.getIdUsuario(), datos.peticionPedido(direccion, productos, 1));
+    }
+}
@@ -0,0 +1,76 @@
+package com.myapp.util.busqueda;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.DTOs.ProductoIndexableDTO;
+
+/**
+ * Latencia de IndiceProductos.buscar sobre un catálogo sintético de 100.000 productos (top 20).
+ * Las consultas selectivas tocan pocas postings; las frecuentes ("camiseta", "ropa") recorren una parte grande
+ * del catálogo porque el índice no poda el top-k (ver IndiceProductos).
+ *
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="IndiceProductosBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IndiceProductosBenchmark {
+
+    private static final String[] PRENDAS = { "Camiseta", "Pantalón", "Chaqueta", "Mochila", "Gorra", "Bolso",
+        "Reloj", "Lámpara", "Silla", "Mesa", "Cojín", "Bufanda" };
+    private static final String[] COLORES = { "rojo", "azul", "verde", "negro", "blanco", "gris", "amarillo" };
+    private static final String[] MATERIALES = { "algodón", "cuero", "lana", "madera", "metal", "lino" };
+    private static final String[] CATEGORIAS = { "Ropa", "Hogar", "Accesorios", "Deporte" };
+
+    @Param({ "100000" })
+    private int productos;
+
+    @Param({ "zapatillas trail", "modelo 12345", "zapatila", "trail zapat", "camiseta", "azul algodon", "ropa" })
+    private String consulta;
+
+    private IndiceProductos indice;
+
+    @Setup
+    public void construirCatalogo() {
+        Random aleatorio = new Random(42);
+        List<ProductoIndexableDTO> catalogo = new ArrayList<>(productos + 1);
+        for (int i = 0; i < productos; i++) {
+            String nombre = PRENDAS[aleatorio.nextInt(PRENDAS.length)] + " " + COLORES[aleatorio.nextInt(COLORES.length)]
+                + " de " + MATERIALES[aleatorio.nextInt(MATERIALES.length)] + " modelo " + i;
+            catalogo.add(producto((long) i + 1, "GEN-" + i, nombre, "Artículo generado número " + i,
+                CATEGORIAS[aleatorio.nextInt(CATEGORIAS.length)]));
+        }
+        catalogo.add(producto(1_000_001L, "ZAP-TRL-001", "Zapatillas running Trail Pro",
+            "Zapatillas de montaña con suela de tacos", "Calzado"));
+        indice = IndiceProductos.construir(catalogo);
+    }
+
+    @Benchmark
+    public IndiceProductos.Resultado buscar() {
+        return indice.buscar(consulta, 20);
+    }
+
+    private static ProductoIndexableDTO producto(Long id, String sku, String nombre, String descripcion, String categoria) {
+        return new ProductoIndexableDTO(id, sku, nombre, descripcion, new BigDecimal("1000.00"), 10, null, null,
+            categoria.hashCode(), categoria);
+    }
+}
@@ -0,0 +1,101 @@
+package com.myapp.util.security.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.SecretKey;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.myapp.util.cache.TtlCache;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Coste por petición de verificar un JWT en JwtAuthenticationFilter.
+ * <ul>
+ * <li>anterior: validateToken + getUserIdFromJWT como antes, construyendo clave y parser en cada llamada
+ * (dos verificaciones HMAC por petición; sin los System.out de entonces).</li>
+ * <li>verificarSinCache: una sola verificación con la clave y el parser construidos al arrancar.</li>
+ * <li>verificarConCache: el mismo token repetido se responde desde la caché de tokens verificados.</li>
+ * </ul>
+ *
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="JwtVerificacionBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtVerificacionBenchmark {
+
+    private static final String SECRETO = "clave-de-benchmark-solo-para-pruebas-no-usar-en-produccion-0123456789abcdef";
+
+    private String token;
+    private JwtTokenProvider sinCache;
+    private JwtTokenProvider conCache;
+
+    @Setup
+    public void preparar() {
+        token = Jwts.builder()
+                .setSubject("42")
+                .claim("email", "cliente@pruebas.com")
+                .claim("roles", List.of("ROLE_CLIENTE"))
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 3_600_000))
+                .signWith(claveAnterior(), SignatureAlgorithm.HS512)
+                .compact();
+        sinCache = proveedor(false);
+        conCache = proveedor(true);
+    }
+
+    @Benchmark
+    public Long anterior() {
+        // validateToken: clave y parser nuevos
+        Jwts.parserBuilder().setSigningKey(claveAnterior()).build().parseClaimsJws(token);
+        // getUserIdFromJWT: otra vez clave, parser y verificación
+        Claims claims = Jwts.parserBuilder().setSigningKey(claveAnterior()).build().parseClaimsJws(token).getBody();
+        return Long.parseLong(claims.getSubject());
+    }
+
+    @Benchmark
+    public Long verificarSinCache() {
+        return sinCache.verificarToken(token).map(JwtClaims::idUsuario).orElseThrow();
+    }
+
+    @Benchmark
+    public Long verificarConCache() {
+        return conCache.verificarToken(token).map(JwtClaims::idUsuario).orElseThrow();
+    }
+
+    private static SecretKey claveAnterior() {
+        return Keys.hmacShaKeyFor(SECRETO.getBytes());
+    }
+
+    private static JwtTokenProvider proveedor(boolean cacheHabilitada) {
+        JwtTokenProvider proveedor = new JwtTokenProvider(
+                new TtlCache<>("tokensVerificadosBenchmark", 100, Duration.ofMinutes(5)));
+        ReflectionTestUtils.setField(proveedor, "jwtSecret", SECRETO);
+        ReflectionTestUtils.setField(proveedor, "jwtExpirationInMs", 3_600_000L);
+        ReflectionTestUtils.setField(proveedor, "cacheVerificadosHabilitada", cacheHabilitada);
+        proveedor.inicializarClave();
+        return proveedor;
+    }
+}
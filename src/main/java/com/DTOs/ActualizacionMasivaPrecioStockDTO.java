@@ -0,0 +1,12 @@
+package com.DTOs;
+
+import java.util.List;
+
+import lombok.Data;
+
+// Petición de actualización masiva de precios y stock (POST /api/productos/admin/precio-stock/lote)
+@Data
+public class ActualizacionMasivaPrecioStockDTO {
+
+    private List<AjustePrecioStockDTO> ajustes;
+}
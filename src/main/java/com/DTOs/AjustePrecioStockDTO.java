@@ -0,0 +1,18 @@
+package com.DTOs;
+
+import java.math.BigDecimal;
+
+import lombok.Data;
+
+// Cambio de precio y/o stock de un producto, identificado por idProducto o por sku (uno de los dos).
+// Para cada campo se indica el valor nuevo o la variación (ej. variacionStock = -3), no ambos.
+@Data
+public class AjustePrecioStockDTO {
+
+    private Long idProducto;
+    private String sku;
+    private BigDecimal precio;
+    private BigDecimal variacionPrecio;
+    private Integer cantidadStock;
+    private Integer variacionStock;
+}
@@ -0,0 +1,5 @@
+package com.DTOs;
+
+// Ajuste no aplicado: posición en la petición (desde 0), clave con la que llegó y motivo
+public record AjusteRechazadoDTO(int indice, Long idProducto, String sku, String mensaje) {
+}
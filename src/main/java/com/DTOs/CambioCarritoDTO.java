@@ -0,0 +1,19 @@
+package com.DTOs;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Resultado de modificar el carrito: solo la línea cambiada (null si se eliminó) y los nuevos totales
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CambioCarritoDTO {
+
+    private Long idCarrito;
+    private ItemCarritoDTO item;
+    private BigDecimal montoTotal;
+    private Integer cantidadUnidades;
+}
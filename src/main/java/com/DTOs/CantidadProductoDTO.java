@@ -0,0 +1,15 @@
+package com.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Unidades de un producto sumadas sobre varias líneas de pedido (ej. para devolverlas al stock)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CantidadProductoDTO {
+
+    private Long idProducto;
+    private Long cantidad;
+}
@@ -0,0 +1,20 @@
+package com.DTOs;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Carrito completo (GET /api/carrito), igual para cualquier almacén de carritos
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarritoDTO {
+
+    private Long idCarrito; // null si el carrito vive en el almacén clave-valor o el usuario aún no tiene carrito
+    private List<ItemCarritoDTO> items;
+    private BigDecimal montoTotal;
+    private Integer cantidadUnidades;
+}
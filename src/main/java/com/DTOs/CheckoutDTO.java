@@ -0,0 +1,12 @@
+package com.DTOs;
+
+import lombok.Data;
+
+// Datos del checkout (POST /api/pedidos/checkout): los productos salen del carrito del usuario
+@Data
+public class CheckoutDTO {
+
+    private Long idDireccionEnvio;
+    private Long idMetodoPago;
+    private String observacionCliente;
+}
@@ -0,0 +1,5 @@
+package com.DTOs;
+
+// Identificadores de un producto (para resolver SKU -> ID y saber qué categorías invalidar)
+public record ClaveProductoDTO(Long idProducto, String sku, Integer idCategoria) {
+}
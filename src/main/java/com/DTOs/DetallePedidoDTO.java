@@ -0,0 +1,36 @@
+package com.DTOs;
+
+import java.math.BigDecimal;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Línea de un pedido para el historial (sin la entidad Producto ni su categoría)
+@Data
+@NoArgsConstructor
+public class DetallePedidoDTO {
+
+    private Long idPedido;
+    private Long idDetallePedido;
+    private Long idProducto;
+    private String sku;
+    private String nombreProducto;
+    private String imagenUrl;
+    private Integer cantidad;
+    private BigDecimal precioUnitario;
+    private BigDecimal subtotal;
+
+    // Usado por las consultas JPQL con "SELECT new com.DTOs.DetallePedidoDTO(...)"
+    public DetallePedidoDTO(Long idPedido, Long idDetallePedido, Long idProducto, String sku, String nombreProducto,
+            String imagenUrl, Integer cantidad, BigDecimal precioUnitario, BigDecimal subtotal) {
+        this.idPedido = idPedido;
+        this.idDetallePedido = idDetallePedido;
+        this.idProducto = idProducto;
+        this.sku = sku;
+        this.nombreProducto = nombreProducto;
+        this.imagenUrl = imagenUrl;
+        this.cantidad = cantidad;
+        this.precioUnitario = precioUnitario;
+        this.subtotal = subtotal;
+    }
+}
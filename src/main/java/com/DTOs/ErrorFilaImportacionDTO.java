@@ -0,0 +1,5 @@
+package com.DTOs;
+
+// Fila rechazada de una importación: número de fila en el fichero (la cabecera CSV no cuenta), SKU si se leyó y motivo
+public record ErrorFilaImportacionDTO(long fila, String sku, String mensaje) {
+}
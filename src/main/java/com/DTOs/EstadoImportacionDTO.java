@@ -0,0 +1,30 @@
+package com.DTOs;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Progreso de una importación masiva de productos (respuesta del 202 y de la consulta del trabajo).
+ * 'errores' contiene como mucho las primeras filas rechazadas; 'filasConError' es el total.
+ */
+public record EstadoImportacionDTO(
+        String idTrabajo,
+        Estado estado,
+        FormatoImportacion formato,
+        long filasLeidas,
+        long insertados,
+        long actualizados,
+        long filasConError,
+        double filasPorSegundo,
+        LocalDateTime inicio,
+        LocalDateTime fin,
+        String mensaje,
+        List<ErrorFilaImportacionDTO> errores) {
+
+    public enum Estado {
+        EN_COLA,
+        EN_CURSO,
+        COMPLETADA,
+        FALLIDA
+    }
+}
@@ -0,0 +1,22 @@
+package com.DTOs;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Estado de un pago (respuesta del 202 y de la consulta GET /api/pagos/{idPago})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EstadoPagoDTO {
+
+    private Long idPago;
+    private Long idPedido;
+    private String estado; // 'Pendiente' mientras la pasarela responde; luego 'Aprobado' o 'Rechazado'
+    private BigDecimal monto;
+    private String referenciaTransaccion;
+    private LocalDateTime fechaPago;
+}
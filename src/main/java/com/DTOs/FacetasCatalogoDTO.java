@@ -0,0 +1,15 @@
+package com.DTOs;
+
+import java.util.List;
+
+// Recuentos por faceta para la selección actual y la página de productos que la cumplen (por ID ascendente)
+public record FacetasCatalogoDTO(
+        int total,
+        List<ValorFacetaDTO> categorias,
+        List<ValorFacetaDTO> precios,
+        List<ValorFacetaDTO> disponibilidad,
+        List<ValorFacetaDTO> pesos,
+        List<ProductoResumenDTO> productos,
+        boolean hayMas,
+        Long siguienteId) {
+}
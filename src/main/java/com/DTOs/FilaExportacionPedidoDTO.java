@@ -0,0 +1,51 @@
+package com.DTOs;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Fila plana de la exportación: una línea de pedido con los datos de su pedido repetidos
+@Data
+@NoArgsConstructor
+public class FilaExportacionPedidoDTO {
+
+    private Long idPedido;
+    private LocalDateTime fechaPedido;
+    private Long idUsuario;
+    private String emailUsuario;
+    private String nombreEstado;
+    private String estadoPago;
+    private BigDecimal montoEnvio;
+    private BigDecimal montoTotal;
+    private Long idDetallePedido;
+    private Long idProducto;
+    private String sku;
+    private String nombreProducto;
+    private Integer cantidad;
+    private BigDecimal precioUnitario;
+    private BigDecimal subtotalLinea;
+
+    // Usado por las consultas JPQL con "SELECT new com.DTOs.FilaExportacionPedidoDTO(...)"
+    public FilaExportacionPedidoDTO(Long idPedido, LocalDateTime fechaPedido, Long idUsuario, String emailUsuario,
+            String nombreEstado, String estadoPago, BigDecimal montoEnvio, BigDecimal montoTotal,
+            Long idDetallePedido, Long idProducto, String sku, String nombreProducto, Integer cantidad,
+            BigDecimal precioUnitario, BigDecimal subtotalLinea) {
+        this.idPedido = idPedido;
+        this.fechaPedido = fechaPedido;
+        this.idUsuario = idUsuario;
+        this.emailUsuario = emailUsuario;
+        this.nombreEstado = nombreEstado;
+        this.estadoPago = estadoPago;
+        this.montoEnvio = montoEnvio;
+        this.montoTotal = montoTotal;
+        this.idDetallePedido = idDetallePedido;
+        this.idProducto = idProducto;
+        this.sku = sku;
+        this.nombreProducto = nombreProducto;
+        this.cantidad = cantidad;
+        this.precioUnitario = precioUnitario;
+        this.subtotalLinea = subtotalLinea;
+    }
+}
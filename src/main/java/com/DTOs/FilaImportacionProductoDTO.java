@@ -0,0 +1,20 @@
+package com.DTOs;
+
+import java.math.BigDecimal;
+
+/**
+ * Fila ya validada de una importación de productos, con la categoría resuelta a su ID.
+ * En una actualización los campos null conservan el valor que ya tiene el producto.
+ */
+public record FilaImportacionProductoDTO(
+        String sku,
+        String nombreProducto,
+        String descripcionLarga,
+        BigDecimal precio,
+        Integer cantidadStock,
+        String imagenUrl,
+        BigDecimal pesoKg,
+        String dimensionesCm,
+        Boolean activo,
+        Integer idCategoria) {
+}
@@ -0,0 +1,18 @@
+package com.DTOs;
+
+import java.math.BigDecimal;
+
+/**
+ * Filtros, orden y cursor de una página del catálogo público.
+ * El cursor es la última fila de la página anterior (despuesDeId y, si se ordena por precio, despuesDePrecio).
+ */
+public record FiltroCatalogo(
+        Integer idCategoria,
+        BigDecimal precioMin,
+        BigDecimal precioMax,
+        boolean soloDisponibles,
+        OrdenCatalogo orden,
+        Long despuesDeId,
+        BigDecimal despuesDePrecio,
+        int tamano) {
+}
@@ -0,0 +1,17 @@
+package com.DTOs;
+
+import java.util.Set;
+
+/**
+ * Selección de la navegación por facetas. Dentro de una faceta los valores se combinan con O y entre facetas con Y;
+ * un conjunto vacío (o disponible null) no filtra. Los rangos de precio y peso son los índices que devuelve
+ * la propia respuesta de facetas. El cursor es el último ID de la página anterior.
+ */
+public record FiltroFacetas(
+        Set<Integer> categorias,
+        Set<Integer> rangosPrecio,
+        Boolean disponible,
+        Set<Integer> rangosPeso,
+        Long despuesDeId,
+        int tamano) {
+}
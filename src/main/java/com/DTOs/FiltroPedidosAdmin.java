@@ -0,0 +1,18 @@
+package com.DTOs;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filtros y cursor del listado de pedidos para administración (orden: fechaPedido e idPedido descendentes).
+ * El cursor es el último pedido de la página anterior (despuesDeFecha y despuesDeId).
+ */
+public record FiltroPedidosAdmin(
+        Integer idEstadoPedido,
+        String estadoPago,
+        LocalDateTime desde,
+        LocalDateTime hasta,
+        Long idUsuario,
+        LocalDateTime despuesDeFecha,
+        Long despuesDeId,
+        int tamano) {
+}
@@ -0,0 +1,7 @@
+package com.DTOs;
+
+// Formatos de la exportación de pedidos (una fila por línea de pedido)
+public enum FormatoExportacion {
+    NDJSON,
+    CSV
+}
@@ -0,0 +1,7 @@
+package com.DTOs;
+
+// Formatos de la importación masiva de productos (JSON: un array de objetos o un objeto por línea)
+public enum FormatoImportacion {
+    CSV,
+    JSON
+}
@@ -0,0 +1,22 @@
+package com.DTOs;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Línea del carrito en las respuestas de modificación (sin la entidad Producto)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemCarritoDTO {
+
+    private Long idItemCarrito;
+    private Long idProducto;
+    private String nombreProducto;
+    private String imagenUrl;
+    private BigDecimal precioUnitario;
+    private Integer cantidad;
+    private BigDecimal subtotal;
+}
@@ -0,0 +1,5 @@
+package com.DTOs;
+
+// Nombre de un producto activo y su categoría (lo mínimo para construir las sugerencias de búsqueda)
+public record NombreProductoDTO(Long idProducto, String nombreProducto, Integer idCategoria) {
+}
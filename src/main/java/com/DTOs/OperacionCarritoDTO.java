@@ -0,0 +1,12 @@
+package com.DTOs;
+
+import lombok.Data;
+
+// Una operación del lote: tipo, producto y cantidad (no se usa en ELIMINAR)
+@Data
+public class OperacionCarritoDTO {
+
+    private TipoOperacionCarrito tipo;
+    private Long idProducto;
+    private Integer cantidad;
+}
@@ -0,0 +1,8 @@
+package com.DTOs;
+
+// Criterios de orden soportados por la paginación por cursor del catálogo
+public enum OrdenCatalogo {
+    ID,
+    PRECIO_ASC,
+    PRECIO_DESC
+}
@@ -0,0 +1,18 @@
+package com.DTOs;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Página del catálogo con el cursor para pedir la siguiente (siguienteId/siguientePrecio)
+@Data
+@AllArgsConstructor
+public class PaginaCatalogoDTO {
+
+    private List<ProductoResumenDTO> productos;
+    private boolean hayMas;
+    private Long siguienteId;
+    private BigDecimal siguientePrecio;
+}
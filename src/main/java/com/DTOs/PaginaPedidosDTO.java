@@ -0,0 +1,18 @@
+package com.DTOs;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Página del listado de pedidos con el cursor para pedir la siguiente (siguienteFecha/siguienteId)
+@Data
+@AllArgsConstructor
+public class PaginaPedidosDTO {
+
+    private List<PedidoResumenDTO> pedidos;
+    private boolean hayMas;
+    private LocalDateTime siguienteFecha;
+    private Long siguienteId;
+}
@@ -0,0 +1,54 @@
+package com.DTOs;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Vista plana de un pedido para el historial: sin entidades perezosas que disparen consultas al serializar
+@Data
+@NoArgsConstructor
+public class PedidoResumenDTO {
+
+    private Long idPedido;
+    private LocalDateTime fechaPedido;
+    private Long idUsuario;
+    private String emailUsuario;
+    private Integer idEstadoPedido;
+    private String nombreEstado;
+    private String estadoPago;
+    private String metodoPago;
+    private String nombreDestinatario;
+    private String ciudadEnvio;
+    private String paisEnvio;
+    private BigDecimal subtotal;
+    private BigDecimal montoEnvio;
+    private BigDecimal impuestos;
+    private BigDecimal montoTotal;
+    private List<DetallePedidoDTO> detalles = new ArrayList<>();
+
+    // Usado por las consultas JPQL con "SELECT new com.DTOs.PedidoResumenDTO(...)"; los detalles se cargan aparte
+    public PedidoResumenDTO(Long idPedido, LocalDateTime fechaPedido, Long idUsuario, String emailUsuario,
+            Integer idEstadoPedido, String nombreEstado, String estadoPago, String metodoPago,
+            String nombreDestinatario, String ciudadEnvio, String paisEnvio, BigDecimal subtotal,
+            BigDecimal montoEnvio, BigDecimal impuestos, BigDecimal montoTotal) {
+        this.idPedido = idPedido;
+        this.fechaPedido = fechaPedido;
+        this.idUsuario = idUsuario;
+        this.emailUsuario = emailUsuario;
+        this.idEstadoPedido = idEstadoPedido;
+        this.nombreEstado = nombreEstado;
+        this.estadoPago = estadoPago;
+        this.metodoPago = metodoPago;
+        this.nombreDestinatario = nombreDestinatario;
+        this.ciudadEnvio = ciudadEnvio;
+        this.paisEnvio = paisEnvio;
+        this.subtotal = subtotal;
+        this.montoEnvio = montoEnvio;
+        this.impuestos = impuestos;
+        this.montoTotal = montoTotal;
+    }
+}
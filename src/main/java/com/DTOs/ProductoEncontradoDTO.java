@@ -0,0 +1,5 @@
+package com.DTOs;
+
+// Producto que coincide con una búsqueda, con su puntuación (BM25) y cuántos términos de la consulta contiene
+public record ProductoEncontradoDTO(ProductoResumenDTO producto, double puntuacion, int terminosCoincidentes) {
+}
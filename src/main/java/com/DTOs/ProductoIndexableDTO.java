@@ -0,0 +1,14 @@
+package com.DTOs;
+
+import java.math.BigDecimal;
+
+// Producto activo con los textos que se indexan para la búsqueda (la vista de listado más la descripción larga)
+public record ProductoIndexableDTO(Long idProducto, String sku, String nombreProducto, String descripcionLarga,
+        BigDecimal precio, Integer cantidadStock, String imagenUrl, BigDecimal pesoKg,
+        Integer idCategoria, String nombreCategoria) {
+
+    public ProductoResumenDTO resumen() {
+        return new ProductoResumenDTO(idProducto, sku, nombreProducto, precio, cantidadStock, imagenUrl,
+            pesoKg, idCategoria, nombreCategoria);
+    }
+}
@@ -0,0 +1,36 @@
+package com.DTOs;
+
+import java.math.BigDecimal;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Vista ligera de un producto para listados (sin la descripción larga ni la entidad Categoria)
+@Data
+@NoArgsConstructor
+public class ProductoResumenDTO {
+
+    private Long idProducto;
+    private String sku;
+    private String nombreProducto;
+    private BigDecimal precio;
+    private Integer cantidadStock;
+    private String imagenUrl;
+    private BigDecimal pesoKg;
+    private Integer idCategoria;
+    private String nombreCategoria;
+
+    // Usado por las consultas JPQL con "SELECT new com.DTOs.ProductoResumenDTO(...)"
+    public ProductoResumenDTO(Long idProducto, String sku, String nombreProducto, BigDecimal precio,
+            Integer cantidadStock, String imagenUrl, BigDecimal pesoKg, Integer idCategoria, String nombreCategoria) {
+        this.idProducto = idProducto;
+        this.sku = sku;
+        this.nombreProducto = nombreProducto;
+        this.precio = precio;
+        this.cantidadStock = cantidadStock;
+        this.imagenUrl = imagenUrl;
+        this.pesoKg = pesoKg;
+        this.idCategoria = idCategoria;
+        this.nombreCategoria = nombreCategoria;
+    }
+}
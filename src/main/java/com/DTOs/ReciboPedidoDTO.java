@@ -0,0 +1,26 @@
+package com.DTOs;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Recibo compacto del checkout: lo justo para confirmar la compra sin serializar el pedido con sus entidades
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReciboPedidoDTO {
+
+    private Long idPedido;
+    private LocalDateTime fechaPedido;
+    private String nombreEstado;
+    private String estadoPago;
+    private Integer numeroLineas;
+    private Integer cantidadUnidades;
+    private BigDecimal subtotal;
+    private BigDecimal montoEnvio;
+    private BigDecimal impuestos;
+    private BigDecimal montoTotal;
+}
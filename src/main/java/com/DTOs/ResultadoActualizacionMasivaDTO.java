@@ -0,0 +1,20 @@
+package com.DTOs;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Resumen de una actualización masiva de precios y stock: solo se detallan los ajustes rechazados
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoActualizacionMasivaDTO {
+
+    private int recibidos;
+    private int aplicados;
+    private int rechazados;
+    private int lotes;
+    private List<AjusteRechazadoDTO> rechazos;
+}
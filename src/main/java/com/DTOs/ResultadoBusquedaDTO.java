@@ -0,0 +1,7 @@
+package com.DTOs;
+
+import java.util.List;
+
+// Respuesta de la búsqueda de productos: los mejores resultados y el total de productos con alguna coincidencia
+public record ResultadoBusquedaDTO(String consulta, int totalCoincidencias, List<ProductoEncontradoDTO> productos) {
+}
@@ -0,0 +1,20 @@
+package com.DTOs;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Respuesta del lote del carrito: un resultado por operación y los totales finales del carrito
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoLoteCarritoDTO {
+
+    private Long idCarrito;
+    private List<ResultadoOperacionCarritoDTO> resultados;
+    private BigDecimal montoTotal;
+    private Integer cantidadUnidades;
+}
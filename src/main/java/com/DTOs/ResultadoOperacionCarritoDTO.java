@@ -0,0 +1,19 @@
+package com.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Resultado de una operación del lote (en el mismo orden que la petición); item es null si la línea ya no existe
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoOperacionCarritoDTO {
+
+    private int indice;
+    private TipoOperacionCarrito tipo;
+    private Long idProducto;
+    private boolean exito;
+    private String mensaje;
+    private ItemCarritoDTO item;
+}
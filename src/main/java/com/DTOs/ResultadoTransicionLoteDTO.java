@@ -0,0 +1,21 @@
+package com.DTOs;
+
+import java.util.List;
+
+import com.myapp.models.EstadoPedidoTipo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Resumen de un cambio de estado en lote, con un resultado por pedido (en el orden de la petición)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoTransicionLoteDTO {
+
+    private EstadoPedidoTipo estadoDestino;
+    private int aplicados;
+    private int rechazados;
+    private List<ResultadoTransicionPedidoDTO> resultados;
+}
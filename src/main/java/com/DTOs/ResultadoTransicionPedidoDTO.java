@@ -0,0 +1,19 @@
+package com.DTOs;
+
+import com.myapp.models.EstadoPedidoTipo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Resultado del cambio de estado de un pedido dentro de un lote
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoTransicionPedidoDTO {
+
+    private Long idPedido;
+    private boolean exito;
+    private EstadoPedidoTipo estadoAnterior; // null si el pedido no existe o su estado no es conocido
+    private String mensaje; // motivo del rechazo, o null
+}
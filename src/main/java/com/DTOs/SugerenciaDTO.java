@@ -0,0 +1,10 @@
+package com.DTOs;
+
+// Sugerencia de autocompletado: nombre de producto o de categoría, con su popularidad (unidades vendidas)
+public record SugerenciaDTO(String texto, Tipo tipo, Long id, long popularidad) {
+
+    public enum Tipo {
+        PRODUCTO,
+        CATEGORIA
+    }
+}
@@ -0,0 +1,8 @@
+package com.DTOs;
+
+// Operaciones admitidas en el lote del carrito
+public enum TipoOperacionCarrito {
+    AGREGAR,        // Suma 'cantidad' a la línea (la crea si no existe)
+    FIJAR_CANTIDAD, // Deja la línea exactamente con 'cantidad' unidades
+    ELIMINAR        // Quita la línea del carrito
+}
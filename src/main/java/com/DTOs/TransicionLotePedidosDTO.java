@@ -0,0 +1,15 @@
+package com.DTOs;
+
+import java.util.List;
+
+import com.myapp.models.EstadoPedidoTipo;
+
+import lombok.Data;
+
+// Petición de cambio de estado en lote (POST /api/pedidos/admin/estado/lote)
+@Data
+public class TransicionLotePedidosDTO {
+
+    private List<Long> idsPedido;
+    private EstadoPedidoTipo estadoDestino; // ej. "ENVIADO"
+}
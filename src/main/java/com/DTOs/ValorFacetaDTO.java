@@ -0,0 +1,5 @@
+package com.DTOs;
+
+// Un valor de una faceta con el nº de productos que quedarían al elegirlo (con el resto de filtros aplicados)
+public record ValorFacetaDTO(String clave, String etiqueta, int cantidad, boolean seleccionado) {
+}
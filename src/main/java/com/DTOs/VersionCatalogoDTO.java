@@ -0,0 +1,18 @@
+package com.DTOs;
+
+import java.time.LocalDateTime;
+
+// Versión agregada de una tabla del catálogo: nº de filas y últimas fechas de alta/modificación
+public record VersionCatalogoDTO(Long total, LocalDateTime ultimaCreacion, LocalDateTime ultimaActualizacion) {
+
+    // La fecha más reciente entre altas y modificaciones (null si la tabla está vacía)
+    public LocalDateTime ultimaModificacion() {
+        if (ultimaCreacion == null) {
+            return ultimaActualizacion;
+        }
+        if (ultimaActualizacion == null) {
+            return ultimaCreacion;
+        }
+        return ultimaCreacion.isAfter(ultimaActualizacion) ? ultimaCreacion : ultimaActualizacion;
+    }
+}
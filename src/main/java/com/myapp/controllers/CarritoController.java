@@ -1,5 +1,6 @@
 package com.myapp.controllers;
 
+import java.util.List;
 import java.util.Map;
 
 
@@ -15,17 +16,21 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import com.myapp.models.CarritoCompra;
+import com.DTOs.CambioCarritoDTO;
+import com.DTOs.CarritoDTO;
+import com.DTOs.OperacionCarritoDTO;
+import com.DTOs.ResultadoLoteCarritoDTO;
 import com.myapp.util.security.CustomUserDetails;
-import com.myapp.services.CarritoService;
+import com.myapp.services.AlmacenCarrito;
 
 @RestController
 @RequestMapping("/api/carrito")
 public class CarritoController {
 
-    private final CarritoService carritoService;
+    // JPA o clave-valor según la propiedad carrito.almacen
+    private final AlmacenCarrito carritoService;
 
-    public CarritoController(CarritoService carritoService) {
+    public CarritoController(AlmacenCarrito carritoService) {
         this.carritoService = carritoService;
     }
     
@@ -43,13 +48,10 @@ public class CarritoController {
     
     // GET: /api/carrito - Obtener el carrito del usuario
     @GetMapping
-    public ResponseEntity<CarritoCompra> obtenerMiCarrito() {
+    public ResponseEntity<CarritoDTO> obtenerMiCarrito() {
         Long idUsuario = getAuthenticatedUserId();
-        // Siempre se devuelve el carrito, incluso si está vacío (se crea si no existe)
-        CarritoCompra carrito = carritoService.obtenerOCrearCarrito(idUsuario);
-        return carritoService.obtenerCarritoPorUsuario(idUsuario)
-            .map(ResponseEntity::ok)
-            .orElseGet(() -> ResponseEntity.ok(carrito)); // Fallback: retornar el carrito recién creado/vacío
+        // Siempre se devuelve el carrito, incluso si está vacío
+        return ResponseEntity.ok(carritoService.obtenerCarrito(idUsuario));
     }
 
     // POST: /api/carrito - Agregar un ítem o actualizar cantidad
@@ -60,8 +62,9 @@ public class CarritoController {
             Long idProducto = Long.valueOf(request.get("idProducto").toString());
             Integer cantidad = (Integer) request.get("cantidad");
             
-            CarritoCompra carritoActualizado = carritoService.agregarOActualizarItem(idUsuario, idProducto, cantidad);
-            return new ResponseEntity<>(carritoActualizado, HttpStatus.OK);
+            // Solo se devuelve la línea modificada y los nuevos totales
+            CambioCarritoDTO cambio = carritoService.agregarOActualizarItem(idUsuario, idProducto, cantidad);
+            return new ResponseEntity<>(cambio, HttpStatus.OK);
         } catch (IllegalArgumentException | IllegalStateException e) {
             return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
         } catch (Exception e) {
@@ -69,6 +72,19 @@ public class CarritoController {
         }
     }
 
+    // POST: /api/carrito/lote - Aplicar varias operaciones (AGREGAR, FIJAR_CANTIDAD, ELIMINAR) en una sola petición
+    // Útil para restaurar un carrito guardado o fusionar el de un invitado; devuelve un resultado por operación
+    @PostMapping("/lote")
+    public ResponseEntity<Object> aplicarOperacionesAlCarrito(@RequestBody List<OperacionCarritoDTO> operaciones) {
+        Long idUsuario = getAuthenticatedUserId();
+        try {
+            ResultadoLoteCarritoDTO resultado = carritoService.aplicarOperaciones(idUsuario, operaciones);
+            return new ResponseEntity<>(resultado, HttpStatus.OK);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
     // DELETE: /api/carrito/{idItemCarrito} - Eliminar un ítem específico
     @DeleteMapping("/{idItemCarrito}")
     public ResponseEntity<Void> eliminarItemDelCarrito(@PathVariable Long idItemCarrito) {
@@ -2,13 +2,17 @@ package com.myapp.controllers;
 
 import java.util.List;
 
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import com.DTOs.VersionCatalogoDTO;
 import com.myapp.models.Categoria;
 import com.myapp.services.CategoriaService;
+import com.myapp.util.http.VersionRecurso;
 
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -33,16 +37,39 @@ public class CategoriaController {
     // ----------------------------------------------------
 
     // GET: /api/categorias (Público - para el catálogo)
+    // Responde 304 si la versión agregada (nº de categorías y última modificación) no cambió
     @GetMapping
-    public ResponseEntity<List<Categoria>> obtenerTodasCategorias() {
-        return ResponseEntity.ok(categoriaService.obtenerTodasCategorias());
+    public ResponseEntity<List<Categoria>> obtenerTodasCategorias(WebRequest request) {
+        VersionCatalogoDTO version = categoriaService.obtenerVersionCategorias();
+        String etag = VersionRecurso.etag("cat", version.total(), version.ultimaActualizacion());
+        long ultimaModificacion = VersionRecurso.epochMillis(version.ultimaModificacion());
+        if (request.checkNotModified(etag, ultimaModificacion)) {
+            return null; // Spring ya respondió 304 Not Modified
+        }
+
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(etag)
+                .lastModified(ultimaModificacion)
+                .body(categoriaService.obtenerTodasCategorias());
     }
 
     // GET: /api/categorias/{id} (Público - para el detalle)
     @GetMapping("/{id}")
-    public ResponseEntity<Categoria> obtenerCategoriaPorId(@PathVariable Integer id) {
+    public ResponseEntity<Categoria> obtenerCategoriaPorId(@PathVariable Integer id, WebRequest request) {
         return categoriaService.obtenerCategoriaPorId(id)
-                .map(ResponseEntity::ok)
+                .map(categoria -> {
+                    String etag = VersionRecurso.etag("cat", categoria.getIdCategoria(), categoria.getFechaActualizacion());
+                    long ultimaModificacion = VersionRecurso.epochMillis(categoria.getFechaActualizacion());
+                    if (request.checkNotModified(etag, ultimaModificacion)) {
+                        return null; // 304 Not Modified
+                    }
+                    return ResponseEntity.ok()
+                            .cacheControl(CacheControl.noCache())
+                            .eTag(etag)
+                            .lastModified(ultimaModificacion)
+                            .body(categoria);
+                })
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -0,0 +1,35 @@
+package com.myapp.controllers;
+
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.myapp.services.RegistroDatosReferencia;
+
+@RestController
+@RequestMapping("/api/admin/datos-referencia")
+public class DatosReferenciaController {
+
+    private final RegistroDatosReferencia registroDatosReferencia;
+
+    public DatosReferenciaController(RegistroDatosReferencia registroDatosReferencia) {
+        this.registroDatosReferencia = registroDatosReferencia;
+    }
+
+    // GET: /api/admin/datos-referencia (ADMIN) - Estados de pedido y métodos de pago en memoria
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> obtenerDatosReferencia() {
+        return ResponseEntity.ok(registroDatosReferencia.resumen());
+    }
+
+    // POST: /api/admin/datos-referencia/recargar (ADMIN) - Releer las tablas tras modificarlas
+    @PostMapping("/recargar")
+    public ResponseEntity<Map<String, Object>> recargarDatosReferencia() {
+        registroDatosReferencia.recargar();
+        return ResponseEntity.ok(registroDatosReferencia.resumen());
+    }
+}
@@ -0,0 +1,28 @@
+package com.myapp.controllers;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.myapp.util.cache.TtlCache;
+
+@RestController
+@RequestMapping("/api/admin/metricas")
+public class MetricasController {
+
+    private final List<TtlCache<?, ?>> caches;
+
+    public MetricasController(List<TtlCache<?, ?>> caches) {
+        this.caches = caches;
+    }
+
+    // GET: /api/admin/metricas/caches (ADMIN) - Aciertos, fallos y tamaño de cada caché en memoria
+    @GetMapping("/caches")
+    public ResponseEntity<List<Map<String, Object>>> obtenerMetricasCaches() {
+        return ResponseEntity.ok(caches.stream().map(TtlCache::estadisticas).toList());
+    }
+}
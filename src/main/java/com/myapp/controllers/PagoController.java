@@ -1,16 +1,21 @@
 package com.myapp.controllers;
 
 
+import java.net.URI;
+
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import com.DTOs.EstadoPagoDTO;
 import com.DTOs.PaymentRequest;
-import com.myapp.models.Pago;
 import com.myapp.services.PagoService;
 import com.myapp.util.security.CustomUserDetails;
 
@@ -33,23 +38,33 @@ public class PagoController {
         throw new IllegalStateException("Usuario no autenticado o contexto de seguridad no válido.");
     }
 
-    // POST: /api/pagos/process - Inicia la simulación del pago
+    // POST: /api/pagos/process - Inicia el pago y responde sin esperar a la pasarela
+    // 202 Accepted con el pago en 'Pendiente'; el resultado se consulta en la URL de la cabecera Location
     @PostMapping("/process")
     public ResponseEntity<Object> procesarPago(@RequestBody PaymentRequest request) {
         Long idUsuario = getAuthenticatedUserId();
         
         try {
-            Pago pago = pagoService.procesarPago(idUsuario, request);
-            
-            if ("Aprobado".equals(pago.getEstado())) {
-                return new ResponseEntity<>(pago, HttpStatus.OK); // 200 OK
-            } else {
-                // Si el pago es rechazado, se retorna 402 Payment Required con el detalle
-                return new ResponseEntity<>(pago, HttpStatus.PAYMENT_REQUIRED); // 402
-            }
+            EstadoPagoDTO pago = pagoService.procesarPago(idUsuario, request);
+            return ResponseEntity.accepted()
+                .location(URI.create("/api/pagos/" + pago.getIdPago()))
+                .body(pago); // 202 Accepted
         } catch (IllegalArgumentException | IllegalStateException e) {
-            // Manejo de errores como pedido no encontrado, monto incorrecto o estado inválido
+            // Manejo de errores como pedido no encontrado, monto incorrecto, estado inválido o pago ya en curso
             return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (TaskRejectedException e) {
+            // Pool de pagos saturado: no es culpa de la petición, se puede reintentar
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "5")
+                .body("El servicio de pagos está saturado. Inténtelo de nuevo en unos segundos.");
         }
     }
+
+    // GET: /api/pagos/{idPago} - Consultar el estado de un pago ('Pendiente', 'Aprobado' o 'Rechazado')
+    @GetMapping("/{idPago}")
+    public ResponseEntity<EstadoPagoDTO> obtenerEstadoPago(@PathVariable Long idPago) {
+        Long idUsuario = getAuthenticatedUserId();
+        return pagoService.obtenerEstadoPago(idPago, idUsuario)
+            .map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
 }
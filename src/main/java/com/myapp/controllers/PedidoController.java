@@ -1,7 +1,11 @@
 package com.myapp.controllers;
 
-import java.util.List;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPOutputStream;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -15,18 +19,30 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.DTOs.CheckoutDTO;
+import com.DTOs.FiltroPedidosAdmin;
+import com.DTOs.FormatoExportacion;
+import com.DTOs.PaginaPedidosDTO;
+import com.DTOs.ReciboPedidoDTO;
+import com.DTOs.ResultadoTransicionLoteDTO;
+import com.DTOs.TransicionLotePedidosDTO;
 import com.myapp.models.Pedido;
 import com.myapp.util.security.CustomUserDetails;
+import com.myapp.services.ExportacionPedidosService;
 import com.myapp.services.PedidoService;
 
+import jakarta.servlet.http.HttpServletResponse;
+
 @RestController
 @RequestMapping("/api/pedidos")
 public class PedidoController {
     private final PedidoService pedidoService;
+    private final ExportacionPedidosService exportacionPedidosService;
 
 
-    public PedidoController(PedidoService pedidoService) {
+    public PedidoController(PedidoService pedidoService, ExportacionPedidosService exportacionPedidosService) {
         this.pedidoService = pedidoService;
+        this.exportacionPedidosService = exportacionPedidosService;
     }
 
     // Placeholder para obtener el ID de usuario (debes usar tu lógica de Spring Security)
@@ -49,12 +65,23 @@ public class PedidoController {
         return new ResponseEntity<>(nuevoPedido, HttpStatus.CREATED);
     }
 
-    // GET: /api/pedidos - Obtener historial de pedidos del usuario
+    // POST: /api/pedidos/checkout - Crear el pedido a partir del carrito del usuario y vaciarlo (una sola petición)
+    @PostMapping("/checkout")
+    public ResponseEntity<ReciboPedidoDTO> checkout(@RequestBody CheckoutDTO datos) {
+        Long idUsuario = getAuthenticatedUserId();
+        ReciboPedidoDTO recibo = pedidoService.checkout(idUsuario, datos);
+        return new ResponseEntity<>(recibo, HttpStatus.CREATED);
+    }
+
+    // GET: /api/pedidos - Obtener historial de pedidos del usuario, paginado por cursor (más recientes primero)
+    // Siguiente página: pasar despuesDeFecha/despuesDeId con los valores siguienteFecha/siguienteId de la respuesta
     @GetMapping
-    public ResponseEntity<List<Pedido>> obtenerMisPedidos() {
+    public ResponseEntity<PaginaPedidosDTO> obtenerMisPedidos(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime despuesDeFecha,
+            @RequestParam(required = false) Long despuesDeId,
+            @RequestParam(defaultValue = "0") int tamano) {
         Long idUsuario = getAuthenticatedUserId();
-        List<Pedido> pedidos = pedidoService.obtenerMisPedidos(idUsuario);
-        return ResponseEntity.ok(pedidos);
+        return ResponseEntity.ok(pedidoService.obtenerMisPedidos(idUsuario, despuesDeFecha, despuesDeId, tamano));
     }
     
     // GET: /api/pedidos/{idPedido} - Obtener detalle de un pedido (verificando propiedad)
@@ -79,12 +106,50 @@ public class PedidoController {
     // ENDPOINTS DE ADMINISTRADOR
     // ----------------------------------------------------
 
-    // GET: /api/pedidos/admin/all - Obtener todos los pedidos (ADMIN)
+    // GET: /api/pedidos/admin/all - Listar pedidos paginados por cursor, con filtros opcionales (ADMIN)
+    // Siguiente página: pasar despuesDeFecha/despuesDeId con los valores siguienteFecha/siguienteId de la respuesta
     @GetMapping("/admin/all")
-    public ResponseEntity<List<Pedido>> obtenerTodosLosPedidosAdmin() {
-        return ResponseEntity.ok(pedidoService.obtenerTodosLosPedidos());
+    public ResponseEntity<PaginaPedidosDTO> obtenerTodosLosPedidosAdmin(
+            @RequestParam(required = false) Integer idEstadoPedido,
+            @RequestParam(required = false) String estadoPago,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @RequestParam(required = false) Long idUsuario,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime despuesDeFecha,
+            @RequestParam(required = false) Long despuesDeId,
+            @RequestParam(defaultValue = "0") int tamano) {
+        FiltroPedidosAdmin filtro = new FiltroPedidosAdmin(idEstadoPedido, estadoPago, desde, hasta, idUsuario,
+                despuesDeFecha, despuesDeId, tamano);
+        return ResponseEntity.ok(pedidoService.obtenerPaginaPedidosAdmin(filtro));
     }
     
+    // GET: /api/pedidos/admin/export - Exportar pedidos y sus líneas en streaming (ADMIN)
+    // formato=NDJSON|CSV; gzip=true entrega el fichero comprimido (.gz)
+    @GetMapping("/admin/export")
+    public void exportarPedidosAdmin(
+            @RequestParam(defaultValue = "NDJSON") FormatoExportacion formato,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            HttpServletResponse response) throws IOException {
+        String nombreFichero = "pedidos." + (formato == FormatoExportacion.CSV ? "csv" : "ndjson");
+        String tipoContenido = formato == FormatoExportacion.CSV ? "text/csv; charset=UTF-8" : "application/x-ndjson";
+        if (gzip) {
+            nombreFichero += ".gz";
+            tipoContenido = "application/gzip";
+        }
+        response.setContentType(tipoContenido);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + nombreFichero + "\"");
+
+        if (gzip) {
+            try (GZIPOutputStream salida = new GZIPOutputStream(response.getOutputStream(), 64 * 1024, true)) {
+                exportacionPedidosService.exportar(desde, hasta, formato, salida);
+            }
+        } else {
+            exportacionPedidosService.exportar(desde, hasta, formato, response.getOutputStream());
+        }
+    }
+
     // GET: /api/pedidos/admin/{idPedido} - Obtener cualquier pedido por ID (ADMIN)
     @GetMapping("/admin/{idPedido}")
     public ResponseEntity<Pedido> obtenerPedidoPorIdAdmin(@PathVariable Long idPedido) {
@@ -93,6 +158,13 @@ public class PedidoController {
             .orElseGet(() -> ResponseEntity.notFound().build());
     }
     
+    // POST: /api/pedidos/admin/estado/lote - Cambiar el estado de muchos pedidos a la vez (ADMIN)
+    // Devuelve un resultado por pedido; los que no admiten la transición no impiden cambiar los demás
+    @PostMapping("/admin/estado/lote")
+    public ResponseEntity<ResultadoTransicionLoteDTO> actualizarEstadoEnLoteAdmin(@RequestBody TransicionLotePedidosDTO transicion) {
+        return ResponseEntity.ok(pedidoService.actualizarEstadoEnLote(transicion));
+    }
+
     // PUT: /api/pedidos/admin/{idPedido}/estado - Actualizar el estado del pedido (ADMIN)
     @PutMapping("/admin/{idPedido}/estado")
     public ResponseEntity<Pedido> actualizarEstadoPedidoAdmin(@PathVariable Long idPedido, @RequestParam Integer idEstado) {
@@ -1,6 +1,15 @@
 package com.myapp.controllers;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -10,36 +19,156 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import com.DTOs.ActualizacionMasivaPrecioStockDTO;
+import com.DTOs.EstadoImportacionDTO;
+import com.DTOs.FacetasCatalogoDTO;
+import com.DTOs.FiltroCatalogo;
+import com.DTOs.FiltroFacetas;
+import com.DTOs.FormatoImportacion;
+import com.DTOs.OrdenCatalogo;
+import com.DTOs.PaginaCatalogoDTO;
+import com.DTOs.ResultadoActualizacionMasivaDTO;
+import com.DTOs.ResultadoBusquedaDTO;
+import com.DTOs.SugerenciaDTO;
+import com.DTOs.VersionCatalogoDTO;
 import com.myapp.models.Producto;
+import com.myapp.services.ActualizacionMasivaProductosService;
+import com.myapp.services.BusquedaProductosService;
+import com.myapp.services.FacetasCatalogoService;
+import com.myapp.services.ImportacionProductosService;
 import com.myapp.services.ProductoService;
+import com.myapp.services.SugerenciasService;
+import com.myapp.util.http.VersionRecurso;
 
 @RestController
 @RequestMapping("/api/productos")
 public class ProductoController {
     private final ProductoService productoService;
+    private final BusquedaProductosService busquedaProductosService;
+    private final SugerenciasService sugerenciasService;
+    private final FacetasCatalogoService facetasCatalogoService;
+    private final ImportacionProductosService importacionProductosService;
+    private final ActualizacionMasivaProductosService actualizacionMasivaProductosService;
 
-    public ProductoController(ProductoService productoService) {
+    public ProductoController(ProductoService productoService, BusquedaProductosService busquedaProductosService,
+            SugerenciasService sugerenciasService, FacetasCatalogoService facetasCatalogoService,
+            ImportacionProductosService importacionProductosService,
+            ActualizacionMasivaProductosService actualizacionMasivaProductosService) {
         this.productoService = productoService;
+        this.busquedaProductosService = busquedaProductosService;
+        this.sugerenciasService = sugerenciasService;
+        this.facetasCatalogoService = facetasCatalogoService;
+        this.importacionProductosService = importacionProductosService;
+        this.actualizacionMasivaProductosService = actualizacionMasivaProductosService;
     }
 
     // ----------------------------------------------------
     // ENDPOINTS PÚBLICOS (Catálogo)
     // ----------------------------------------------------
     
-    // GET: /api/productos (Público - catálogo activo)
+    // GET: /api/productos (Público - catálogo activo paginado por cursor)
+    // Ej: /api/productos?idCategoria=2&precioMax=50000&soloDisponibles=true&orden=PRECIO_ASC&tamano=20
+    // Siguiente página: repetir con despuesDeId/despuesDePrecio = siguienteId/siguientePrecio de la respuesta
     @GetMapping
-    public ResponseEntity<List<Producto>> obtenerCatalogoActivo() {
-        return ResponseEntity.ok(productoService.obtenerCatalogoActivo());
+    public ResponseEntity<PaginaCatalogoDTO> obtenerCatalogoActivo(
+            @RequestParam(required = false) Integer idCategoria,
+            @RequestParam(required = false) BigDecimal precioMin,
+            @RequestParam(required = false) BigDecimal precioMax,
+            @RequestParam(defaultValue = "false") boolean soloDisponibles,
+            @RequestParam(defaultValue = "ID") OrdenCatalogo orden,
+            @RequestParam(required = false) Long despuesDeId,
+            @RequestParam(required = false) BigDecimal despuesDePrecio,
+            @RequestParam(defaultValue = "0") int tamano,
+            WebRequest request) {
+        FiltroCatalogo filtro = new FiltroCatalogo(idCategoria, precioMin, precioMax, soloDisponibles,
+                orden, despuesDeId, despuesDePrecio, tamano);
+
+        // Comprobación barata con la versión agregada antes de construir la página (304 si no cambió)
+        // Incluye la de las categorías: renombrar una cambia las páginas sin tocar los productos.
+        // El ETag ya va asociado a la URL (filtros y cursor incluidos), así que solo lleva valores estables de la versión
+        VersionCatalogoDTO version = productoService.obtenerVersionCatalogo();
+        VersionCatalogoDTO versionCategorias = productoService.obtenerVersionCategorias();
+        String etag = VersionRecurso.etag("c", version.total(), version.ultimaCreacion(),
+                version.ultimaActualizacion(), versionCategorias.total(), versionCategorias.ultimaModificacion());
+        long ultimaModificacion = VersionRecurso.epochMillis(
+                VersionRecurso.masReciente(version.ultimaModificacion(), versionCategorias.ultimaModificacion()));
+        if (request.checkNotModified(etag, ultimaModificacion)) {
+            return null; // Spring ya respondió 304 Not Modified
+        }
+
+        return ResponseEntity.ok()
+            .cacheControl(CacheControl.noCache()) // El cliente puede guardarla pero debe revalidar
+            .eTag(etag)
+            .lastModified(ultimaModificacion)
+            .body(productoService.obtenerPaginaCatalogo(filtro));
+    }
+
+    // GET: /api/productos/buscar (Público - búsqueda de texto en el catálogo activo)
+    // Ej: /api/productos/buscar?q=camiseta algodon&tamano=20 (sin acentos, por prefijo y con erratas)
+    @GetMapping("/buscar")
+    public ResponseEntity<ResultadoBusquedaDTO> buscarProductos(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int tamano) {
+        if (!busquedaProductosService.isListo()) {
+            // Solo durante la primera construcción del índice tras arrancar
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "5").build();
+        }
+        return ResponseEntity.ok(busquedaProductosService.buscar(q, tamano));
+    }
+
+    // GET: /api/productos/sugerencias (Público - autocompletado del buscador, una llamada por tecla)
+    // Ej: /api/productos/sugerencias?q=cami&tamano=8
+    @GetMapping("/sugerencias")
+    public ResponseEntity<List<SugerenciaDTO>> obtenerSugerencias(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int tamano) {
+        return ResponseEntity.ok()
+            .cacheControl(CacheControl.maxAge(Duration.ofMinutes(1)))
+            .body(sugerenciasService.sugerir(q, tamano));
+    }
+
+    // GET: /api/productos/facetas (Público - navegación por facetas con recuentos)
+    // Ej: /api/productos/facetas?categoria=2&categoria=5&precio=1&disponible=true&tamano=20
+    // precio y peso son los índices de rango ('clave') que devuelve la propia respuesta
+    @GetMapping("/facetas")
+    public ResponseEntity<FacetasCatalogoDTO> navegarPorFacetas(
+            @RequestParam(required = false) List<Integer> categoria,
+            @RequestParam(required = false) List<Integer> precio,
+            @RequestParam(required = false) Boolean disponible,
+            @RequestParam(required = false) List<Integer> peso,
+            @RequestParam(required = false) Long despuesDeId,
+            @RequestParam(defaultValue = "0") int tamano) {
+        if (!facetasCatalogoService.isListo()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "5").build();
+        }
+        FiltroFacetas filtro = new FiltroFacetas(conjunto(categoria), conjunto(precio), disponible, conjunto(peso),
+                despuesDeId, tamano);
+        return ResponseEntity.ok(facetasCatalogoService.consultar(filtro));
     }
 
     // GET: /api/productos/{id} (Público - detalle de producto)
     @GetMapping("/{id}")
-    public ResponseEntity<Producto> obtenerProductoPorId(@PathVariable Long id) {
+    public ResponseEntity<Producto> obtenerProductoPorId(@PathVariable Long id, WebRequest request) {
         return productoService.obtenerProductoPorId(id)
             .filter(Producto::getActivo) // Solo mostrar si está activo en el catálogo público
-            .map(ResponseEntity::ok)
+            .map(producto -> {
+                LocalDateTime version = producto.getFechaActualizacion() != null
+                    ? producto.getFechaActualizacion() : producto.getFechaCreacion();
+                String etag = VersionRecurso.etag("p", producto.getIdProducto(), version);
+                long ultimaModificacion = VersionRecurso.epochMillis(version);
+                if (request.checkNotModified(etag, ultimaModificacion)) {
+                    return null; // 304 Not Modified
+                }
+                return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noCache())
+                    .eTag(etag)
+                    .lastModified(ultimaModificacion)
+                    .body(producto);
+            })
             .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
@@ -54,6 +183,46 @@ public class ProductoController {
         return ResponseEntity.ok(productoService.obtenerTodosLosProductos());
     }
 
+    // GET: /api/productos/admin/exportar (ADMIN) - Catálogo activo completo sin paginar
+    @GetMapping("/admin/exportar")
+    public ResponseEntity<List<Producto>> exportarCatalogoActivoAdmin() {
+        return ResponseEntity.ok(productoService.obtenerCatalogoActivo());
+    }
+
+    // POST: /api/productos/admin/importaciones?formato=CSV (ADMIN) - Importación masiva (alta o actualización por SKU)
+    // El fichero va tal cual en el cuerpo; 202 Accepted y el progreso se consulta en la URL de la cabecera Location
+    @PostMapping("/admin/importaciones")
+    public ResponseEntity<EstadoImportacionDTO> importarProductosAdmin(
+            @RequestParam(defaultValue = "CSV") FormatoImportacion formato,
+            InputStream contenido) throws IOException {
+        try {
+            EstadoImportacionDTO trabajo = importacionProductosService.iniciarImportacion(formato, contenido);
+            return ResponseEntity.accepted()
+                .location(URI.create("/api/productos/admin/importaciones/" + trabajo.idTrabajo()))
+                .body(trabajo);
+        } catch (IllegalStateException e) {
+            // Cola de importaciones llena
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "60").build();
+        }
+    }
+
+    // GET: /api/productos/admin/importaciones/{idTrabajo} (ADMIN) - Progreso, velocidad y filas rechazadas
+    @GetMapping("/admin/importaciones/{idTrabajo}")
+    public ResponseEntity<EstadoImportacionDTO> obtenerImportacionAdmin(@PathVariable String idTrabajo) {
+        return importacionProductosService.obtenerEstado(idTrabajo)
+            .map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // POST: /api/productos/admin/precio-stock/lote (ADMIN) - Precio y stock de muchos productos a la vez
+    // Ej: {"ajustes": [{"sku": "ABC-1", "variacionStock": -3}, {"idProducto": 7, "precio": 19990}]}
+    // Devuelve contadores y solo los ajustes rechazados; los demás se aplican igualmente
+    @PostMapping("/admin/precio-stock/lote")
+    public ResponseEntity<ResultadoActualizacionMasivaDTO> actualizarPrecioStockEnLoteAdmin(
+            @RequestBody ActualizacionMasivaPrecioStockDTO actualizacion) {
+        return ResponseEntity.ok(actualizacionMasivaProductosService.actualizar(actualizacion.getAjustes()));
+    }
+
     // POST: /api/productos (ADMIN) - Crear
     @PostMapping
     public ResponseEntity<Object> crearProducto(@RequestBody Producto producto) {
@@ -86,4 +255,8 @@ public class ProductoController {
             return ResponseEntity.notFound().build();
         }
     }
+
+    private static <T> Set<T> conjunto(List<T> valores) {
+        return valores == null ? Set.of() : new HashSet<>(valores);
+    }
 }
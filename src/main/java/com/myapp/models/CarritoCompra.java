@@ -22,7 +22,6 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
-import jakarta.persistence.Transient;
 import lombok.Data;
 
 @Entity
@@ -51,7 +50,12 @@ public class CarritoCompra {
     @OneToMany(mappedBy = "carrito", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<ItemCarrito> items = new ArrayList<>();
     
-    // Campo transitorio para el cálculo del total (no se persiste en DB)
-    @Transient 
+    // Total acumulado: cada cambio de línea le suma o resta su diferencia de subtotal, sin recorrer los ítems.
+    // Nulo en carritos anteriores a esta columna; se calcula una vez a partir de los ítems.
+    @Column(name = "monto_total", precision = 12, scale = 2)
     private BigDecimal montoTotal;
+
+    // Unidades totales en el carrito (mantenido igual que el total)
+    @Column(name = "cantidad_unidades")
+    private Integer cantidadUnidades;
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.myapp.models;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -13,6 +14,8 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 
 @Entity
@@ -32,6 +35,27 @@ public class Categoria {
     @Column(name = "descripcion", nullable = true, length = 500)
     private String descripcion;
 
+    // Versión de la categoría para ETag / Last-Modified en el catálogo.
+    // Nulas en las filas anteriores a estas columnas hasta que CategoriaService las completa al arrancar
+    @JsonIgnore
+    @Column(name = "fecha_creacion", nullable = true, updatable = false)
+    private LocalDateTime fechaCreacion;
+
+    @JsonIgnore
+    @Column(name = "fecha_actualizacion", nullable = true)
+    private LocalDateTime fechaActualizacion;
+
+    @PrePersist
+    protected void onCreate() {
+        this.fechaCreacion = LocalDateTime.now();
+        this.fechaActualizacion = this.fechaCreacion;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        this.fechaActualizacion = LocalDateTime.now();
+    }
+
     // Relación Uno-a-Muchos con Productos (El 'mappedBy' indica el dueño de la relación)
     @JsonIgnore
     @OneToMany(mappedBy = "categoria", cascade = CascadeType.ALL, orphanRemoval = true)
@@ -46,6 +70,15 @@ public class Categoria {
         this.descripcion = descripcion;     
     }
 
+    // Copia sin gestionar por JPA y sin la lista de productos (ver Producto.copia)
+    public Categoria copia() {
+        Categoria copia = new Categoria(nombreCategoria, descripcion);
+        copia.idCategoria = idCategoria;
+        copia.fechaCreacion = fechaCreacion;
+        copia.fechaActualizacion = fechaActualizacion;
+        return copia;
+    }
+
     // Getters y Setters
     public Integer getIdCategoria() {
         return idCategoria; 
@@ -66,6 +99,10 @@ public class Categoria {
         this.descripcion = descripcion;
     }
 
+    public LocalDateTime getFechaActualizacion() {
+        return fechaActualizacion;
+    }
+
     public List<Producto> getProducto() {
         return producto;
     }
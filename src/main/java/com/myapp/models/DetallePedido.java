@@ -13,6 +13,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.Data;
 
@@ -21,8 +22,13 @@ import lombok.Data;
 @Data
 public class DetallePedido {
     
+    // Secuencia con asignación por bloques (pooled): Hibernate reserva 50 IDs por viaje a la BD y puede
+    // agrupar los INSERT de las líneas en lotes JDBC, cosa que IDENTITY impide.
+    // En MySQL la secuencia se emula con la tabla detalles_pedido_seq; en una BD con datos previos su
+    // valor debe inicializarse por encima de MAX(id_detalle_pedido) antes del despliegue.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "detalles_pedido_seq")
+    @SequenceGenerator(name = "detalles_pedido_seq", sequenceName = "detalles_pedido_seq", allocationSize = 50)
     @Column(name = "id_detalle_pedido")
     private Long idDetallePedido;
 
@@ -0,0 +1,43 @@
+package com.myapp.models;
+
+import java.util.Optional;
+
+/**
+ * Estados de pedido con significado para la aplicación, por su ID en la tabla estados_pedido.
+ * Sustituye a los IDs "mágicos" y a las comparaciones por nombre.
+ */
+public enum EstadoPedidoTipo {
+
+    PENDIENTE(0),
+    PENDIENTE_PAGO(1),
+    PAGADO(2),
+    CANCELADO(3),
+    ENVIADO(4),
+    ENTREGADO(5);
+
+    private final int id;
+
+    EstadoPedidoTipo(int id) {
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    // ¿La entidad (o su referencia perezosa) es este estado? Leer el ID no inicializa el proxy
+    public boolean corresponde(EstadoPedido estado) {
+        return estado != null && estado.getIdEstadoPedido() != null && estado.getIdEstadoPedido() == id;
+    }
+
+    public static Optional<EstadoPedidoTipo> deId(Integer id) {
+        if (id != null) {
+            for (EstadoPedidoTipo tipo : values()) {
+                if (tipo.id == id) {
+                    return Optional.of(tipo);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -15,8 +15,11 @@ import java.math.BigDecimal;
 @Data
 public class ItemCarrito {
 
+    // Secuencia pooled (como en DetallePedido) para que las operaciones en lote del carrito agrupen los INSERT.
+    // En una BD con datos previos, items_carrito_seq debe inicializarse por encima de MAX(id_item_carrito).
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "items_carrito_seq")
+    @SequenceGenerator(name = "items_carrito_seq", sequenceName = "items_carrito_seq", allocationSize = 50)
     @Column(name = "id_item_carrito")
     private Long idItemCarrito;
 
@@ -36,7 +39,10 @@ public class ItemCarrito {
     @Column(name = "fecha_agregado", nullable = false, updatable = false)
     private LocalDateTime fechaAgregado = LocalDateTime.now();
 
-    // Campo transitorio para el cálculo del subtotal del ítem
-    @Transient 
+    // Precio unitario y subtotal con los que la línea entró en el total acumulado del carrito
+    @Column(name = "precio_unitario", precision = 10, scale = 2)
+    private BigDecimal precioUnitario;
+
+    @Column(name = "subtotal", precision = 12, scale = 2)
     private BigDecimal subtotal;
 }
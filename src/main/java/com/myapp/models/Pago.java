@@ -12,6 +12,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToOne;
@@ -19,10 +20,21 @@ import jakarta.persistence.Table;
 import lombok.Data;
 
 @Entity
-@Table(name = "pagos")
+@Table(name = "pagos", indexes = {
+    // Pagos pendientes más antiguos para la conciliación con la pasarela
+    @Index(name = "idx_pagos_estado_fecha", columnList = "estado_pago, fecha_pago")
+})
 @Data
 public class Pago {
 
+    // Valores de estado_pago
+    public static final String PENDIENTE = "Pendiente";
+    public static final String APROBADO = "Aprobado";
+    public static final String RECHAZADO = "Rechazado";
+    // Cobro aprobado que hay que devolver en la pasarela (pedido pagado cancelado, o aprobación que ya no se podía aplicar)
+    public static final String REEMBOLSO_PENDIENTE = "Reembolso Pendiente";
+    public static final String REEMBOLSADO = "Reembolsado";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "id_pago")
@@ -45,7 +57,7 @@ public class Pago {
     private LocalDateTime fechaPago;
 
     @Column(name = "estado_pago", nullable = false, length = 50)
-    private String estado; // Ej: 'Aprobado', 'Rechazado', 'Pendiente', 'Reembolsado'
+    private String estado; // Uno de los valores de arriba
 
     @Column(name = "id_transaccion_proveedor", length = 255)
     private String referenciaTransaccion; // ID de la transacción en la pasarela de pago (simulado)
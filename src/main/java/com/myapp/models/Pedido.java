@@ -16,6 +16,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
@@ -23,7 +24,13 @@ import jakarta.persistence.Table;
 import lombok.Data;
 
 @Entity
-@Table(name = "pedidos")
+@Table(name = "pedidos", indexes = {
+    // Índices para el listado por cursor (filtro + fecha_pedido, id_pedido): cada página es un rango acotado del índice
+    @Index(name = "idx_pedidos_fecha_id", columnList = "fecha_pedido, id_pedido"),
+    @Index(name = "idx_pedidos_estado_fecha_id", columnList = "id_estado_pedido, fecha_pedido, id_pedido"),
+    @Index(name = "idx_pedidos_estado_pago_fecha_id", columnList = "estado_pago, fecha_pedido, id_pedido"),
+    @Index(name = "idx_pedidos_usuario_fecha_id", columnList = "id_usuario, fecha_pedido, id_pedido")
+})
 @Data
 public class Pedido {
     
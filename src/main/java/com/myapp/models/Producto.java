@@ -2,6 +2,9 @@ package com.myapp.models;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+
+import org.hibernate.annotations.ColumnDefault;
+
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.Column;
@@ -9,13 +12,23 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "productos")
+@Table(name = "productos", indexes = {
+    // Índices para la paginación por cursor del catálogo público (activo + filtro + clave de orden)
+    @Index(name = "idx_productos_activo_id", columnList = "activo, id_producto"),
+    @Index(name = "idx_productos_activo_categoria_id", columnList = "activo, id_categoria, id_producto"),
+    @Index(name = "idx_productos_activo_precio_id", columnList = "activo, precio, id_producto"),
+    @Index(name = "idx_productos_activo_categoria_precio_id", columnList = "activo, id_categoria, precio, id_producto"),
+    // Permiten calcular la versión del catálogo (MAX de fechas) sin recorrer la tabla
+    @Index(name = "idx_productos_fecha_creacion", columnList = "fecha_creacion"),
+    @Index(name = "idx_productos_fecha_actualizacion", columnList = "fecha_actualizacion")
+})
 public class Producto {
 
     @Id
@@ -38,6 +51,12 @@ public class Producto {
     @Column(name = "cantidad_stock", nullable = false)
     private Integer cantidadStock;
 
+    // Unidades apartadas en carritos: la suma de sus filas en reservas_stock. Disponible para la venta =
+    // cantidadStock - cantidadReservada. Solo la cambian los UPDATE de ProductoRepository, nunca el guardado de la entidad
+    @ColumnDefault("0")
+    @Column(name = "cantidad_reservada", nullable = false, updatable = false)
+    private Integer cantidadReservada = 0;
+
     @Column(name = "imagen_principal_url", columnDefinition = "TEXT")
     private String imagenUrl;
 
@@ -89,6 +108,18 @@ public class Producto {
         this.categoria = categoria;
     }
 
+    // Copia sin gestionar por JPA (con su categoría también copiada): la caché del catálogo entrega una a cada
+    // llamador para que nadie modifique la instancia compartida
+    public Producto copia() {
+        Producto copia = new Producto(sku, nombreProducto, descripcionLarga, precio, cantidadStock, imagenUrl, pesoKg,
+                dimensionesCm, activo, categoria != null ? categoria.copia() : null);
+        copia.idProducto = idProducto;
+        copia.cantidadReservada = cantidadReservada;
+        copia.fechaCreacion = fechaCreacion;
+        copia.fechaActualizacion = fechaActualizacion;
+        return copia;
+    }
+
     // Getters y Setters
     public Long getIdProducto() {
         return idProducto;
@@ -134,6 +165,16 @@ public class Producto {
     public void setCantidadStock(Integer cantidadStock) {
         this.cantidadStock = cantidadStock;
     }
+    public Integer getCantidadReservada() {
+        return cantidadReservada;
+    }
+    // Stock disponible para la venta: lo apartado en carritos no cuenta
+    public int getCantidadDisponible() {
+        if (cantidadStock == null) {
+            return 0;
+        }
+        return Math.max(0, cantidadStock - (cantidadReservada != null ? cantidadReservada : 0));
+    }
     public String getImagenUrl() {
         return imagenUrl;
     }   
@@ -0,0 +1,53 @@
+package com.myapp.models;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.OneToOne;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * Reserva temporal de stock de un ítem del carrito.
+ * Mientras existe, sus unidades cuentan en Producto.cantidadReservada (no se restan de cantidadStock);
+ * al expirar, el barrido las libera y borra la fila.
+ */
+@Entity
+@Table(name = "reservas_stock", indexes = {
+    // Rango de reservas vencidas para el barrido (WHERE expira_en < ahora ORDER BY expira_en)
+    @Index(name = "idx_reservas_stock_expira_en", columnList = "expira_en")
+})
+@Data
+public class ReservaStock {
+
+    // Secuencia pooled: las reservas se insertan en lote junto con sus ítems del carrito
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reservas_stock_seq")
+    @SequenceGenerator(name = "reservas_stock_seq", sequenceName = "reservas_stock_seq", allocationSize = 50)
+    @Column(name = "id_reserva")
+    private Long idReserva;
+
+    // Una reserva por ítem del carrito
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "id_item_carrito", nullable = false, unique = true)
+    private ItemCarrito itemCarrito;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "id_producto", nullable = false)
+    private Producto producto;
+
+    @Column(nullable = false)
+    private Integer cantidad;
+
+    @Column(name = "expira_en", nullable = false)
+    private LocalDateTime expiraEn;
+}
@@ -1,10 +1,13 @@
 package com.myapp.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.stereotype.Repository;
 
 import com.myapp.models.CarritoCompra;
 
+import jakarta.persistence.LockModeType;
+
 import java.util.Optional;
 
 @Repository
@@ -12,5 +15,10 @@ public interface CarritoCompraRepository extends JpaRepository<CarritoCompra, Lo
 
     // Obtener el carrito de un usuario específico (relación 1:1)
     Optional<CarritoCompra> findByUsuario_IdUsuario(Long idUsuario);
+
+    // Carrito bloqueado para modificarlo: serializa los cambios concurrentes de un mismo usuario
+    // (el total acumulado y la inserción de líneas no pueden pisarse)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<CarritoCompra> findParaActualizarByUsuario_IdUsuario(Long idUsuario);
 }
 
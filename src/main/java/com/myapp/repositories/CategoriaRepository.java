@@ -4,12 +4,26 @@ package com.myapp.repositories;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import com.DTOs.VersionCatalogoDTO;
 import com.myapp.models.Categoria;
 
 @Repository
 public interface CategoriaRepository extends JpaRepository<Categoria, Integer> {
     // Método personalizado para buscar por el nombre único de la categoría.
     Optional<Categoria> findByNombreCategoria(String nombre);
+
+    // Versión agregada de las categorías (para ETag/Last-Modified) sin cargar filas
+    @Query("SELECT new com.DTOs.VersionCatalogoDTO(COUNT(c), MAX(c.fechaCreacion), MAX(c.fechaActualizacion)) FROM Categoria c")
+    VersionCatalogoDTO obtenerVersionCategorias();
+
+    // Fechas de versión para las categorías creadas antes de que existieran esas columnas
+    @Modifying
+    @Query("UPDATE Categoria c SET c.fechaCreacion = COALESCE(c.fechaCreacion, c.fechaActualizacion, CURRENT_TIMESTAMP), "
+            + "c.fechaActualizacion = COALESCE(c.fechaActualizacion, c.fechaCreacion, CURRENT_TIMESTAMP) "
+            + "WHERE c.fechaCreacion IS NULL OR c.fechaActualizacion IS NULL")
+    int completarFechasVersion();
 }
@@ -0,0 +1,35 @@
+package com.myapp.repositories;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.DTOs.CantidadProductoDTO;
+import com.DTOs.DetallePedidoDTO;
+import com.myapp.models.DetallePedido;
+
+@Repository
+public interface DetallePedidoRepository extends JpaRepository<DetallePedido, Long> {
+
+    // Todas las líneas de varios pedidos en una sola consulta (con los datos del producto ya unidos)
+    @Query("SELECT new com.DTOs.DetallePedidoDTO(d.pedido.idPedido, d.idDetallePedido, pr.idProducto, pr.sku, "
+            + "pr.nombreProducto, pr.imagenUrl, d.cantidad, d.precioUnitario, d.subtotal) "
+            + "FROM DetallePedido d JOIN d.producto pr "
+            + "WHERE d.pedido.idPedido IN :idsPedido ORDER BY d.pedido.idPedido, d.idDetallePedido")
+    List<DetallePedidoDTO> findResumenByIdsPedido(@Param("idsPedido") Collection<Long> idsPedido);
+
+    // Unidades por producto de varios pedidos (para devolverlas al stock al cancelarlos)
+    @Query("SELECT new com.DTOs.CantidadProductoDTO(d.producto.idProducto, SUM(d.cantidad)) "
+            + "FROM DetallePedido d WHERE d.pedido.idPedido IN :idsPedido GROUP BY d.producto.idProducto")
+    List<CantidadProductoDTO> sumarCantidadesPorProducto(@Param("idsPedido") Collection<Long> idsPedido);
+
+    // Unidades vendidas por producto en pedidos no cancelados (popularidad para las sugerencias de búsqueda)
+    @Query("SELECT new com.DTOs.CantidadProductoDTO(d.producto.idProducto, SUM(d.cantidad)) "
+            + "FROM DetallePedido d WHERE d.pedido.estadoPedido.idEstadoPedido <> :idEstadoExcluido "
+            + "GROUP BY d.producto.idProducto")
+    List<CantidadProductoDTO> sumarVentasPorProducto(@Param("idEstadoExcluido") Integer idEstadoExcluido);
+}
@@ -1,8 +1,13 @@
 package com.myapp.repositories;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.myapp.models.ItemCarrito;
@@ -13,6 +18,19 @@ public interface ItemCarritoRepository extends JpaRepository<ItemCarrito, Long>
     // Buscar un ítem por ID de Carrito y ID de Producto (para actualizaciones/existencia)
     Optional<ItemCarrito> findByCarrito_IdCarritoAndProducto_IdProducto(Long idCarrito, Long idProducto);
     
+    // Líneas del carrito para varios productos en una sola consulta (operaciones en lote)
+    List<ItemCarrito> findByCarrito_IdCarritoAndProducto_IdProductoIn(Long idCarrito, Collection<Long> idsProducto);
+
+    // Líneas del carrito con su producto y categoría en una sola consulta (checkout)
+    @Query("SELECT i FROM ItemCarrito i JOIN FETCH i.producto p JOIN FETCH p.categoria "
+            + "WHERE i.carrito.idCarrito = :idCarrito ORDER BY i.idItemCarrito")
+    List<ItemCarrito> findConProductoByIdCarrito(@Param("idCarrito") Long idCarrito);
+
+    // Vaciar el carrito con un único DELETE
+    @Modifying
+    @Query("DELETE FROM ItemCarrito i WHERE i.carrito.idCarrito = :idCarrito")
+    int deleteAllByIdCarrito(@Param("idCarrito") Long idCarrito);
+
     // Eliminar un ítem del carrito (útil para la interfaz)
     void deleteByCarrito_IdCarritoAndIdItemCarrito(Long idCarrito, Long idItemCarrito);
 }
\ No newline at end of file
@@ -1,12 +1,43 @@
 package com.myapp.repositories;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import com.DTOs.EstadoPagoDTO;
 import com.myapp.models.Pago;
 
 
 @Repository
 public interface PagoRepository extends JpaRepository<Pago, Long> {
     Optional<Pago> findByPedido_IdPedido(Long idPedido);
+
+    // ¿Hay un pago del pedido en este estado? (ej. uno 'Pendiente' esperando a la pasarela)
+    boolean existsByPedido_IdPedidoAndEstado(Long idPedido, String estado);
+
+    // Pagos en un estado desde antes de cierta fecha, los más antiguos primero (conciliación de los pendientes)
+    @Query("SELECT p.idPago FROM Pago p WHERE p.estado = :estado AND p.fechaPago < :antesDe ORDER BY p.fechaPago, p.idPago")
+    List<Long> findIdsByEstadoAnterioresA(@Param("estado") String estado, @Param("antesDe") LocalDateTime antesDe, Pageable lote);
+
+    // Pagos en un estado, por orden de alta (ej. los reembolsos pendientes)
+    List<Pago> findByEstadoOrderByIdPago(String estado, Pageable lote);
+
+    // Cambia el estado de los pagos de estos pedidos que están en 'actual' (ej. 'Aprobado' -> 'Reembolso Pendiente')
+    @Modifying
+    @Query("UPDATE Pago p SET p.estado = :nuevo WHERE p.pedido.idPedido IN :idsPedido AND p.estado = :actual")
+    int cambiarEstadoPorPedidos(@Param("idsPedido") Collection<Long> idsPedido, @Param("actual") String actual,
+            @Param("nuevo") String nuevo);
+
+    // Estado de un pago, solo si pertenece a un pedido del usuario
+    @Query("SELECT new com.DTOs.EstadoPagoDTO(p.idPago, p.pedido.idPedido, p.estado, p.monto, p.referenciaTransaccion, p.fechaPago) "
+            + "FROM Pago p WHERE p.idPago = :idPago AND p.pedido.usuario.idUsuario = :idUsuario")
+    Optional<EstadoPagoDTO> findEstadoByIdPagoAndIdUsuario(@Param("idPago") Long idPago, @Param("idUsuario") Long idUsuario);
 }
@@ -1,20 +1,65 @@
 package com.myapp.repositories;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.myapp.models.EstadoPedido;
 import com.myapp.models.Pedido;
 
+import jakarta.persistence.LockModeType;
+
 @Repository
-public interface PedidoRepository extends JpaRepository<Pedido, Long> {
-    
-    // Método para obtener todos los pedidos de un usuario específico
-    List<Pedido> findByUsuario_IdUsuarioOrderByFechaPedidoDesc(Long idUsuario);
+public interface PedidoRepository extends JpaRepository<Pedido, Long>, PedidoRepositoryCustom {
+
+    // Proyección común del historial: un JOIN por relación ManyToOne en lugar de una consulta por pedido
+    String SELECT_RESUMEN = "SELECT new com.DTOs.PedidoResumenDTO(p.idPedido, p.fechaPedido, u.idUsuario, u.email, "
+            + "e.idEstadoPedido, e.nombreEstado, p.estadoPago, mp.nombre, d.nombreDestinatario, d.ciudad, d.pais, "
+            + "p.subtotal, p.montoEnvio, p.impuestos, p.montoTotal) "
+            + "FROM Pedido p JOIN p.usuario u JOIN p.estadoPedido e JOIN p.metodoPago mp JOIN p.direccionEnvio d ";
 
     // Método para obtener un pedido por ID y verificar que pertenezca al usuario
     Optional<Pedido> findByIdPedidoAndUsuario_IdUsuario(Long idPedido, Long idUsuario);
-    
+
+    // Pedido bloqueado para registrar un pago: serializa dos intentos de pago simultáneos del mismo pedido
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Pedido> findParaActualizarByIdPedidoAndUsuario_IdUsuario(Long idPedido, Long idUsuario);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Pedido> findParaActualizarByIdPedido(Long idPedido);
+
+    // Bloquea un lote de pedidos (en orden de ID, para no interbloquearse con otro lote) antes de cambiar su estado
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<Pedido> findParaActualizarByIdPedidoInOrderByIdPedido(Collection<Long> idsPedido);
+
+    // Cambio de estado en bloque: solo los pedidos que siguen en el estado de origen
+    @Modifying
+    @Query("UPDATE Pedido p SET p.estadoPedido = :destino "
+            + "WHERE p.idPedido IN :idsPedido AND p.estadoPedido.idEstadoPedido = :idEstadoOrigen")
+    int actualizarEstadoEnLote(@Param("idsPedido") Collection<Long> idsPedido,
+            @Param("idEstadoOrigen") Integer idEstadoOrigen, @Param("destino") EstadoPedido destino);
+
+    // Estado de pago de los pedidos que están en 'actual' (los pedidos pagados que se cancelan en lote)
+    @Modifying
+    @Query("UPDATE Pedido p SET p.estadoPago = :nuevo WHERE p.idPedido IN :idsPedido AND p.estadoPago = :actual")
+    int cambiarEstadoPagoEnLote(@Param("idsPedido") Collection<Long> idsPedido, @Param("actual") String actual,
+            @Param("nuevo") String nuevo);
+
+    // Detalle de un pedido con todas sus relaciones en una sola consulta (para serializar la entidad)
+    @EntityGraph(attributePaths = {"usuario", "direccionEnvio", "direccionFacturacion", "metodoPago",
+            "estadoPedido", "detalles", "detalles.producto"})
+    Optional<Pedido> findDetalleByIdPedidoAndUsuario_IdUsuario(Long idPedido, Long idUsuario);
+
+    @EntityGraph(attributePaths = {"usuario", "direccionEnvio", "direccionFacturacion", "metodoPago",
+            "estadoPedido", "detalles", "detalles.producto"})
+    Optional<Pedido> findDetalleByIdPedido(Long idPedido);
+
 }
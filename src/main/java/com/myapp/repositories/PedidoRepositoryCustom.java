@@ -0,0 +1,20 @@
+package com.myapp.repositories;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.DTOs.FilaExportacionPedidoDTO;
+import com.DTOs.FiltroPedidosAdmin;
+import com.DTOs.PedidoResumenDTO;
+
+// Consultas de pedidos que se construyen dinámicamente según los filtros presentes
+public interface PedidoRepositoryCustom {
+
+    // Página por cursor (keyset) sobre (fechaPedido, idPedido) con solo los predicados de los filtros informados
+    List<PedidoResumenDTO> buscarPaginaAdmin(FiltroPedidosAdmin filtro, int limite);
+
+    // Cursor de solo avance con las líneas de pedido del rango (desde/hasta opcionales); debe cerrarse y
+    // consumirse dentro de una transacción
+    Stream<FilaExportacionPedidoDTO> streamExportacion(LocalDateTime desde, LocalDateTime hasta, int fetchSize);
+}
@@ -0,0 +1,101 @@
+package com.myapp.repositories;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+
+import com.DTOs.FilaExportacionPedidoDTO;
+import com.DTOs.FiltroPedidosAdmin;
+import com.DTOs.PedidoResumenDTO;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+public class PedidoRepositoryCustomImpl implements PedidoRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<PedidoResumenDTO> buscarPaginaAdmin(FiltroPedidosAdmin filtro, int limite) {
+        StringBuilder jpql = new StringBuilder(PedidoRepository.SELECT_RESUMEN).append("WHERE 1 = 1");
+
+        if (filtro.idEstadoPedido() != null) {
+            jpql.append(" AND e.idEstadoPedido = :idEstadoPedido");
+        }
+        if (filtro.estadoPago() != null) {
+            jpql.append(" AND p.estadoPago = :estadoPago");
+        }
+        if (filtro.idUsuario() != null) {
+            jpql.append(" AND u.idUsuario = :idUsuario");
+        }
+        if (filtro.desde() != null) {
+            jpql.append(" AND p.fechaPedido >= :desde");
+        }
+        if (filtro.hasta() != null) {
+            jpql.append(" AND p.fechaPedido < :hasta");
+        }
+
+        // Cursor: continuar justo después del último pedido entregado (orden descendente)
+        boolean conCursor = filtro.despuesDeId() != null;
+        if (conCursor) {
+            jpql.append(" AND (p.fechaPedido < :cursorFecha OR (p.fechaPedido = :cursorFecha AND p.idPedido < :cursorId))");
+        }
+        jpql.append(" ORDER BY p.fechaPedido DESC, p.idPedido DESC");
+
+        TypedQuery<PedidoResumenDTO> query = entityManager.createQuery(jpql.toString(), PedidoResumenDTO.class);
+        if (filtro.idEstadoPedido() != null) {
+            query.setParameter("idEstadoPedido", filtro.idEstadoPedido());
+        }
+        if (filtro.estadoPago() != null) {
+            query.setParameter("estadoPago", filtro.estadoPago());
+        }
+        if (filtro.idUsuario() != null) {
+            query.setParameter("idUsuario", filtro.idUsuario());
+        }
+        if (filtro.desde() != null) {
+            query.setParameter("desde", filtro.desde());
+        }
+        if (filtro.hasta() != null) {
+            query.setParameter("hasta", filtro.hasta());
+        }
+        if (conCursor) {
+            query.setParameter("cursorFecha", filtro.despuesDeFecha());
+            query.setParameter("cursorId", filtro.despuesDeId());
+        }
+
+        return query.setMaxResults(limite).getResultList();
+    }
+
+    @Override
+    public Stream<FilaExportacionPedidoDTO> streamExportacion(LocalDateTime desde, LocalDateTime hasta, int fetchSize) {
+        StringBuilder jpql = new StringBuilder("""
+                SELECT new com.DTOs.FilaExportacionPedidoDTO(p.idPedido, p.fechaPedido, u.idUsuario, u.email,
+                    e.nombreEstado, p.estadoPago, p.montoEnvio, p.montoTotal, d.idDetallePedido, pr.idProducto,
+                    pr.sku, pr.nombreProducto, d.cantidad, d.precioUnitario, d.subtotal)
+                FROM DetallePedido d JOIN d.pedido p JOIN p.usuario u JOIN p.estadoPedido e JOIN d.producto pr
+                WHERE 1 = 1""");
+        if (desde != null) {
+            jpql.append(" AND p.fechaPedido >= :desde");
+        }
+        if (hasta != null) {
+            jpql.append(" AND p.fechaPedido < :hasta");
+        }
+        jpql.append(" ORDER BY p.fechaPedido, p.idPedido, d.idDetallePedido");
+
+        TypedQuery<FilaExportacionPedidoDTO> query = entityManager.createQuery(jpql.toString(), FilaExportacionPedidoDTO.class)
+                // Con MySQL el driver solo trae las filas por bloques si la URL lleva useCursorFetch=true
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true);
+        if (desde != null) {
+            query.setParameter("desde", desde);
+        }
+        if (hasta != null) {
+            query.setParameter("hasta", hasta);
+        }
+        return query.getResultStream();
+    }
+}
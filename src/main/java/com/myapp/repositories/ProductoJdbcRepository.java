@@ -0,0 +1,140 @@
+package com.myapp.repositories;
+
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.DTOs.AjustePrecioStockDTO;
+import com.DTOs.FilaImportacionProductoDTO;
+
+/**
+ * Escrituras masivas de productos con JDBC directo, en lotes (addBatch/executeBatch).
+ * Con JPA cada alta pasaría por el contexto de persistencia y, al usar IDENTITY, Hibernate no agrupa los INSERT.
+ * Estas escrituras no pasan por la entidad: quien las llama debe publicar CatalogoModificadoEvent.
+ * En MySQL conviene 'rewriteBatchedStatements=true' en la URL para que cada lote viaje en una sola sentencia.
+ */
+@Repository
+public class ProductoJdbcRepository {
+
+    private static final String INSERTAR = """
+            INSERT INTO productos (sku, nombre_producto, descripcion_larga, precio, cantidad_stock, imagen_principal_url,
+                peso_kg, dimensiones_cm, activo, id_categoria, fecha_creacion)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)""";
+
+    private static final int[] TIPOS_INSERTAR = {
+        Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.DECIMAL, Types.INTEGER, Types.VARCHAR,
+        Types.DECIMAL, Types.VARCHAR, Types.BOOLEAN, Types.INTEGER, Types.TIMESTAMP };
+
+    // Solo se sobrescriben los campos que trae la fila. Un stock menor que lo apartado en carritos
+    // (cantidad_reservada) no se aplica: la fila no cambia y se informa como rechazada
+    private static final String ACTUALIZAR_POR_SKU = """
+            UPDATE productos SET
+                nombre_producto = COALESCE(?, nombre_producto),
+                descripcion_larga = COALESCE(?, descripcion_larga),
+                precio = COALESCE(?, precio),
+                cantidad_stock = COALESCE(?, cantidad_stock),
+                imagen_principal_url = COALESCE(?, imagen_principal_url),
+                peso_kg = COALESCE(?, peso_kg),
+                dimensiones_cm = COALESCE(?, dimensiones_cm),
+                activo = COALESCE(?, activo),
+                id_categoria = COALESCE(?, id_categoria),
+                fecha_actualizacion = ?
+            WHERE sku = ?
+                AND COALESCE(?, cantidad_stock) >= cantidad_reservada""";
+
+    private static final int[] TIPOS_ACTUALIZAR = {
+        Types.VARCHAR, Types.VARCHAR, Types.DECIMAL, Types.INTEGER, Types.VARCHAR,
+        Types.DECIMAL, Types.VARCHAR, Types.BOOLEAN, Types.INTEGER, Types.TIMESTAMP, Types.VARCHAR, Types.INTEGER };
+
+    // Valor nuevo (COALESCE) o variación sobre el actual; la fila no cambia si el resultado queda fuera de rango
+    // o si el stock quedaría por debajo de lo apartado en carritos (no se liberan reservas de otros usuarios)
+    private static final String AJUSTAR_PRECIO_STOCK = """
+            UPDATE productos SET
+                precio = COALESCE(?, precio + ?),
+                cantidad_stock = COALESCE(?, cantidad_stock + ?),
+                fecha_actualizacion = ?
+            WHERE id_producto = ?
+                AND COALESCE(?, precio + ?) BETWEEN 0 AND 99999999.99
+                AND COALESCE(?, cantidad_stock + ?) >= cantidad_reservada""";
+
+    private static final int[] TIPOS_AJUSTAR = {
+        Types.DECIMAL, Types.DECIMAL, Types.INTEGER, Types.INTEGER, Types.TIMESTAMP, Types.BIGINT,
+        Types.DECIMAL, Types.DECIMAL, Types.INTEGER, Types.INTEGER };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProductoJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Todos los SKU existentes (activos o no) para decidir alta o actualización sin consultar fila a fila
+    public Set<String> cargarSkus() {
+        Set<String> skus = new HashSet<>();
+        jdbcTemplate.query("SELECT sku FROM productos", fila -> {
+            skus.add(fila.getString(1));
+        });
+        return skus;
+    }
+
+    public void insertarLote(List<FilaImportacionProductoDTO> filas, LocalDateTime fecha) {
+        if (filas.isEmpty()) {
+            return;
+        }
+        List<Object[]> parametros = new ArrayList<>(filas.size());
+        for (FilaImportacionProductoDTO fila : filas) {
+            parametros.add(new Object[] {
+                fila.sku(), fila.nombreProducto(), fila.descripcionLarga(), fila.precio(), fila.cantidadStock(),
+                fila.imagenUrl(), fila.pesoKg(), fila.dimensionesCm(), fila.activo() != null ? fila.activo() : Boolean.TRUE,
+                fila.idCategoria(), fecha });
+        }
+        jdbcTemplate.batchUpdate(INSERTAR, parametros, TIPOS_INSERTAR);
+    }
+
+    /**
+     * Actualiza por SKU los productos del lote.
+     *
+     * @return filas afectadas por cada producto, en el orden recibido: 0 si el SKU no existe o el stock nuevo
+     *         es menor que lo reservado en carritos; puede ser Statement.SUCCESS_NO_INFO
+     */
+    public int[] actualizarLotePorSku(List<FilaImportacionProductoDTO> filas, LocalDateTime fecha) {
+        if (filas.isEmpty()) {
+            return new int[0];
+        }
+        List<Object[]> parametros = new ArrayList<>(filas.size());
+        for (FilaImportacionProductoDTO fila : filas) {
+            parametros.add(new Object[] {
+                fila.nombreProducto(), fila.descripcionLarga(), fila.precio(), fila.cantidadStock(), fila.imagenUrl(),
+                fila.pesoKg(), fila.dimensionesCm(), fila.activo(), fila.idCategoria(), fecha, fila.sku(),
+                fila.cantidadStock() });
+        }
+        return jdbcTemplate.batchUpdate(ACTUALIZAR_POR_SKU, parametros, TIPOS_ACTUALIZAR);
+    }
+
+    /**
+     * Aplica a cada producto (por idProducto) su precio y stock nuevos o sus variaciones.
+     *
+     * @return filas afectadas por ajuste, en el orden recibido: 0 si el producto no existe, el precio quedaría
+     *         fuera de rango o el stock por debajo de lo reservado en carritos; puede ser Statement.SUCCESS_NO_INFO
+     */
+    public int[] ajustarPrecioStockLote(List<AjustePrecioStockDTO> ajustes, LocalDateTime fecha) {
+        if (ajustes.isEmpty()) {
+            return new int[0];
+        }
+        List<Object[]> parametros = new ArrayList<>(ajustes.size());
+        for (AjustePrecioStockDTO ajuste : ajustes) {
+            BigDecimal variacionPrecio = ajuste.getVariacionPrecio() != null ? ajuste.getVariacionPrecio() : BigDecimal.ZERO;
+            int variacionStock = ajuste.getVariacionStock() != null ? ajuste.getVariacionStock() : 0;
+            parametros.add(new Object[] {
+                ajuste.getPrecio(), variacionPrecio, ajuste.getCantidadStock(), variacionStock, fecha, ajuste.getIdProducto(),
+                ajuste.getPrecio(), variacionPrecio, ajuste.getCantidadStock(), variacionStock });
+        }
+        return jdbcTemplate.batchUpdate(AJUSTAR_PRECIO_STOCK, parametros, TIPOS_AJUSTAR);
+    }
+}
@@ -1,21 +1,117 @@
 package com.myapp.repositories;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.DTOs.ClaveProductoDTO;
+import com.DTOs.NombreProductoDTO;
+import com.DTOs.ProductoIndexableDTO;
+import com.DTOs.ProductoResumenDTO;
+import com.DTOs.VersionCatalogoDTO;
 import com.myapp.models.Producto;
 
 @Repository
-public interface ProductoRepository extends JpaRepository<Producto, Long> {
+public interface ProductoRepository extends JpaRepository<Producto, Long>, ProductoRepositoryCustom {
+    // Producto con su categoría cargada (para poder guardarlo en caché y serializarlo fuera de la sesión)
+    @EntityGraph(attributePaths = "categoria")
+    Optional<Producto> findConCategoriaByIdProducto(Long idProducto);
+
     // Método personalizado para buscar por el SKU único del producto.
     Optional<Producto> findBySku(String sku);
     
     // Método para obtener solo productos activos (para el catálogo público)
     List<Producto> findAllByActivoTrue();
-    
-    // Método para buscar productos dentro de una categoría específica
-    List<Producto> findByCategoriaIdCategoria(Long idCategoria);
+
+    // Descuento atómico de una compra: solo se aplica si el disponible (stock menos lo apartado en carritos) alcanza.
+    // Las unidades que el comprador tenía apartadas (deReservas) dejan de contar como apartadas y cuentan como suyas.
+    // Devuelve 0 si no había stock suficiente (o no existe el producto)
+    @Modifying
+    @Query("UPDATE Producto p SET p.cantidadStock = p.cantidadStock - :cantidad, "
+            + "p.cantidadReservada = p.cantidadReservada - :deReservas, p.fechaActualizacion = CURRENT_TIMESTAMP "
+            + "WHERE p.idProducto = :idProducto AND p.cantidadStock - p.cantidadReservada + :deReservas >= :cantidad")
+    int descontarStock(@Param("idProducto") Long idProducto, @Param("cantidad") int cantidad,
+            @Param("deReservas") int deReservas);
+
+    @Modifying
+    @Query("UPDATE Producto p SET p.cantidadStock = p.cantidadStock + :cantidad, p.fechaActualizacion = CURRENT_TIMESTAMP "
+            + "WHERE p.idProducto = :idProducto")
+    int reponerStock(@Param("idProducto") Long idProducto, @Param("cantidad") int cantidad);
+
+    // Aparta unidades para un carrito sin tocar cantidadStock, con la misma condición atómica que descontarStock
+    @Modifying
+    @Query("UPDATE Producto p SET p.cantidadReservada = p.cantidadReservada + :cantidad, p.fechaActualizacion = CURRENT_TIMESTAMP "
+            + "WHERE p.idProducto = :idProducto AND p.cantidadStock - p.cantidadReservada >= :cantidad")
+    int apartarStock(@Param("idProducto") Long idProducto, @Param("cantidad") int cantidad);
+
+    @Modifying
+    @Query("UPDATE Producto p SET p.cantidadReservada = p.cantidadReservada - :cantidad, p.fechaActualizacion = CURRENT_TIMESTAMP "
+            + "WHERE p.idProducto = :idProducto")
+    int liberarStockApartado(@Param("idProducto") Long idProducto, @Param("cantidad") int cantidad);
+
+    // Stock disponible para la venta (puede ser negativo si se fijó un stock menor que lo ya apartado)
+    @Query("SELECT p.cantidadStock - p.cantidadReservada FROM Producto p WHERE p.idProducto = :idProducto")
+    Optional<Integer> findDisponibleByIdProducto(@Param("idProducto") Long idProducto);
+
+    // Categorías de varios productos (para invalidar la caché del catálogo sin cargar los productos)
+    @Query("SELECT DISTINCT p.categoria.idCategoria FROM Producto p WHERE p.idProducto IN :ids")
+    List<Integer> findIdsCategoriaByIdsProducto(@Param("ids") Collection<Long> ids);
+
+    // Versión agregada del catálogo (para ETag/Last-Modified) sin cargar filas
+    @Query("SELECT new com.DTOs.VersionCatalogoDTO(COUNT(p), MAX(p.fechaCreacion), MAX(p.fechaActualizacion)) FROM Producto p")
+    VersionCatalogoDTO obtenerVersionCatalogo();
+
+    // Productos activos para el índice de búsqueda, por tramos de ID (keyset) para no cargar el catálogo de golpe
+    @Query("""
+            SELECT new com.DTOs.ProductoIndexableDTO(p.idProducto, p.sku, p.nombreProducto, p.descripcionLarga, p.precio,
+                greatest(p.cantidadStock - p.cantidadReservada, 0), p.imagenUrl, p.pesoKg, c.idCategoria, c.nombreCategoria)
+            FROM Producto p JOIN p.categoria c
+            WHERE p.activo = true AND p.idProducto > :despuesDeId
+            ORDER BY p.idProducto""")
+    List<ProductoIndexableDTO> findIndexablesDespuesDe(@Param("despuesDeId") Long despuesDeId, Pageable tramo);
+
+    // Los productos indicados que siguen activos (los que falten deben salir del índice)
+    @Query("""
+            SELECT new com.DTOs.ProductoIndexableDTO(p.idProducto, p.sku, p.nombreProducto, p.descripcionLarga, p.precio,
+                greatest(p.cantidadStock - p.cantidadReservada, 0), p.imagenUrl, p.pesoKg, c.idCategoria, c.nombreCategoria)
+            FROM Producto p JOIN p.categoria c
+            WHERE p.activo = true AND p.idProducto IN :ids""")
+    List<ProductoIndexableDTO> findIndexablesByIdsProducto(@Param("ids") Collection<Long> ids);
+
+    // Nombres de los productos activos con su categoría (para las sugerencias de búsqueda)
+    @Query("SELECT new com.DTOs.NombreProductoDTO(p.idProducto, p.nombreProducto, p.categoria.idCategoria) "
+            + "FROM Producto p WHERE p.activo = true")
+    List<NombreProductoDTO> findNombresActivos();
+
+    // Vista de listado de los productos activos por tramos de ID (para construir las facetas del catálogo)
+    @Query("""
+            SELECT new com.DTOs.ProductoResumenDTO(p.idProducto, p.sku, p.nombreProducto, p.precio,
+                greatest(p.cantidadStock - p.cantidadReservada, 0), p.imagenUrl, p.pesoKg, c.idCategoria, c.nombreCategoria)
+            FROM Producto p JOIN p.categoria c
+            WHERE p.activo = true AND p.idProducto > :despuesDeId
+            ORDER BY p.idProducto""")
+    List<ProductoResumenDTO> findResumenActivosDespuesDe(@Param("despuesDeId") Long despuesDeId, Pageable tramo);
+
+    // Vista de listado de los productos indicados que siguen activos
+    @Query("""
+            SELECT new com.DTOs.ProductoResumenDTO(p.idProducto, p.sku, p.nombreProducto, p.precio,
+                greatest(p.cantidadStock - p.cantidadReservada, 0), p.imagenUrl, p.pesoKg, c.idCategoria, c.nombreCategoria)
+            FROM Producto p JOIN p.categoria c
+            WHERE p.activo = true AND p.idProducto IN :ids""")
+    List<ProductoResumenDTO> findResumenActivosByIdsProducto(@Param("ids") Collection<Long> ids);
+
+    // ID, SKU y categoría de los productos indicados (actualizaciones masivas por ID o por SKU)
+    @Query("SELECT new com.DTOs.ClaveProductoDTO(p.idProducto, p.sku, p.categoria.idCategoria) FROM Producto p WHERE p.idProducto IN :ids")
+    List<ClaveProductoDTO> findClavesByIdsProducto(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.DTOs.ClaveProductoDTO(p.idProducto, p.sku, p.categoria.idCategoria) FROM Producto p WHERE p.sku IN :skus")
+    List<ClaveProductoDTO> findClavesBySkus(@Param("skus") Collection<String> skus);
 }
@@ -0,0 +1,13 @@
+package com.myapp.repositories;
+
+import java.util.List;
+
+import com.DTOs.FiltroCatalogo;
+import com.DTOs.ProductoResumenDTO;
+
+// Consultas del catálogo que se construyen dinámicamente según los filtros presentes
+public interface ProductoRepositoryCustom {
+
+    // Página por cursor (keyset): solo añade los predicados de los filtros informados para aprovechar los índices
+    List<ProductoResumenDTO> buscarPaginaCatalogo(FiltroCatalogo filtro, int limite);
+}
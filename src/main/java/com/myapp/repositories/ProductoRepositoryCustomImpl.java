@@ -0,0 +1,83 @@
+package com.myapp.repositories;
+
+import java.util.List;
+
+import com.DTOs.FiltroCatalogo;
+import com.DTOs.OrdenCatalogo;
+import com.DTOs.ProductoResumenDTO;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+public class ProductoRepositoryCustomImpl implements ProductoRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ProductoResumenDTO> buscarPaginaCatalogo(FiltroCatalogo filtro, int limite) {
+        OrdenCatalogo orden = filtro.orden() != null ? filtro.orden() : OrdenCatalogo.ID;
+
+        StringBuilder jpql = new StringBuilder("""
+                SELECT new com.DTOs.ProductoResumenDTO(p.idProducto, p.sku, p.nombreProducto, p.precio,
+                    greatest(p.cantidadStock - p.cantidadReservada, 0), p.imagenUrl, p.pesoKg, c.idCategoria, c.nombreCategoria)
+                FROM Producto p JOIN p.categoria c
+                WHERE p.activo = true""");
+
+        if (filtro.idCategoria() != null) {
+            jpql.append(" AND c.idCategoria = :idCategoria");
+        }
+        if (filtro.precioMin() != null) {
+            jpql.append(" AND p.precio >= :precioMin");
+        }
+        if (filtro.precioMax() != null) {
+            jpql.append(" AND p.precio <= :precioMax");
+        }
+        if (filtro.soloDisponibles()) {
+            jpql.append(" AND p.cantidadStock > p.cantidadReservada");
+        }
+
+        // Cursor: continuar justo después de la última fila entregada
+        boolean conCursor = filtro.despuesDeId() != null;
+        switch (orden) {
+            case PRECIO_ASC -> {
+                if (conCursor) {
+                    jpql.append(" AND (p.precio > :cursorPrecio OR (p.precio = :cursorPrecio AND p.idProducto > :cursorId))");
+                }
+                jpql.append(" ORDER BY p.precio ASC, p.idProducto ASC");
+            }
+            case PRECIO_DESC -> {
+                if (conCursor) {
+                    jpql.append(" AND (p.precio < :cursorPrecio OR (p.precio = :cursorPrecio AND p.idProducto < :cursorId))");
+                }
+                jpql.append(" ORDER BY p.precio DESC, p.idProducto DESC");
+            }
+            default -> {
+                if (conCursor) {
+                    jpql.append(" AND p.idProducto > :cursorId");
+                }
+                jpql.append(" ORDER BY p.idProducto ASC");
+            }
+        }
+
+        TypedQuery<ProductoResumenDTO> query = entityManager.createQuery(jpql.toString(), ProductoResumenDTO.class);
+        if (filtro.idCategoria() != null) {
+            query.setParameter("idCategoria", filtro.idCategoria());
+        }
+        if (filtro.precioMin() != null) {
+            query.setParameter("precioMin", filtro.precioMin());
+        }
+        if (filtro.precioMax() != null) {
+            query.setParameter("precioMax", filtro.precioMax());
+        }
+        if (conCursor) {
+            query.setParameter("cursorId", filtro.despuesDeId());
+            if (orden != OrdenCatalogo.ID) {
+                query.setParameter("cursorPrecio", filtro.despuesDePrecio());
+            }
+        }
+
+        return query.setMaxResults(limite).getResultList();
+    }
+}
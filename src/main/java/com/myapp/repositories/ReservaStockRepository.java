@@ -0,0 +1,54 @@
+package com.myapp.repositories;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.myapp.models.ReservaStock;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface ReservaStockRepository extends JpaRepository<ReservaStock, Long> {
+
+    // Reserva de un ítem, bloqueada para que el barrido y el usuario no la modifiquen a la vez
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM ReservaStock r WHERE r.itemCarrito.idItemCarrito = :idItemCarrito")
+    Optional<ReservaStock> findParaActualizarByIdItemCarrito(@Param("idItemCarrito") Long idItemCarrito);
+
+    // Reservas del usuario para ciertos productos (al comprarlos se consumen)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM ReservaStock r WHERE r.itemCarrito.carrito.usuario.idUsuario = :idUsuario "
+            + "AND r.producto.idProducto IN :idsProducto")
+    List<ReservaStock> findParaActualizarByUsuarioAndProductos(@Param("idUsuario") Long idUsuario,
+            @Param("idsProducto") Collection<Long> idsProducto);
+
+    // Todas las reservas de un carrito (al vaciarlo)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM ReservaStock r WHERE r.itemCarrito.carrito.idCarrito = :idCarrito")
+    List<ReservaStock> findParaActualizarByIdCarrito(@Param("idCarrito") Long idCarrito);
+
+    // Reservas de un carrito para ciertos productos (operaciones en lote sobre el carrito)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM ReservaStock r WHERE r.itemCarrito.carrito.idCarrito = :idCarrito "
+            + "AND r.producto.idProducto IN :idsProducto")
+    List<ReservaStock> findParaActualizarByIdCarritoAndProductos(@Param("idCarrito") Long idCarrito,
+            @Param("idsProducto") Collection<Long> idsProducto);
+
+    // Lote de reservas vencidas por rango del índice de expira_en.
+    // SKIP LOCKED (timeout -2): las filas que otra transacción tiene bloqueadas se saltan en lugar de esperar.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT r FROM ReservaStock r WHERE r.expiraEn < :ahora ORDER BY r.expiraEn")
+    List<ReservaStock> findVencidasParaBarrido(@Param("ahora") LocalDateTime ahora, Pageable lote);
+}
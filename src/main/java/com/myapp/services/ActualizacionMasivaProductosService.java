@@ -0,0 +1,215 @@
+package com.myapp.services;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.DTOs.AjustePrecioStockDTO;
+import com.DTOs.AjusteRechazadoDTO;
+import com.DTOs.ClaveProductoDTO;
+import com.DTOs.ResultadoActualizacionMasivaDTO;
+import com.myapp.repositories.ProductoJdbcRepository;
+import com.myapp.repositories.ProductoRepository;
+import com.myapp.util.eventos.CatalogoModificadoEvent;
+
+/**
+ * Cambia el precio y el stock de muchos productos a la vez (repreciado, sincronización con el almacén).
+ * Los ajustes se validan en memoria y se aplican en trozos de tamanoLote con su propia transacción: una consulta
+ * resuelve las claves (ID o SKU) del trozo, un UPDATE por lotes JDBC aplica los valores o variaciones y se publica
+ * un solo CatalogoModificadoEvent. Un ajuste no válido, de un producto inexistente o que dejaría el precio
+ * en negativo o el stock por debajo de las unidades reservadas en carritos se rechaza sin afectar a los demás:
+ * las reservas de los clientes no se liberan por un ajuste de stock.
+ */
+@Service
+public class ActualizacionMasivaProductosService {
+
+    private static final BigDecimal PRECIO_MAXIMO = new BigDecimal("99999999.99");
+
+    private final ProductoRepository productoRepository;
+    private final ProductoJdbcRepository productoJdbcRepository;
+    private final ReservaStockService reservaStockService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int tamanoLote;
+    private final int maximoAjustes;
+
+    public ActualizacionMasivaProductosService(ProductoRepository productoRepository,
+            ProductoJdbcRepository productoJdbcRepository, ReservaStockService reservaStockService,
+            ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager,
+            @Value("${productos.actualizacion-masiva.tamano-lote:1000}") int tamanoLote,
+            @Value("${productos.actualizacion-masiva.maximo-ajustes:50000}") int maximoAjustes) {
+        this.productoRepository = productoRepository;
+        this.productoJdbcRepository = productoJdbcRepository;
+        this.reservaStockService = reservaStockService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tamanoLote = tamanoLote;
+        this.maximoAjustes = maximoAjustes;
+    }
+
+    /**
+     * Aplica los ajustes y devuelve el resumen con los rechazados (ordenados por su posición en la petición).
+     * Un producto que aparece varias veces recibe los ajustes en el orden de la petición.
+     */
+    public ResultadoActualizacionMasivaDTO actualizar(List<AjustePrecioStockDTO> ajustes) {
+        if (ajustes == null || ajustes.isEmpty()) {
+            throw new IllegalArgumentException("La petición debe contener al menos un ajuste.");
+        }
+        if (ajustes.size() > maximoAjustes) {
+            throw new IllegalArgumentException("La petición admite como máximo " + maximoAjustes + " ajustes.");
+        }
+
+        List<AjusteRechazadoDTO> rechazos = new ArrayList<>();
+        List<Integer> validos = new ArrayList<>(ajustes.size());
+        for (int i = 0; i < ajustes.size(); i++) {
+            AjustePrecioStockDTO ajuste = ajustes.get(i);
+            String error = validar(ajuste);
+            if (error != null) {
+                rechazos.add(new AjusteRechazadoDTO(i, ajuste != null ? ajuste.getIdProducto() : null,
+                    ajuste != null ? ajuste.getSku() : null, error));
+            } else {
+                validos.add(i);
+            }
+        }
+
+        int aplicados = 0;
+        int lotes = 0;
+        for (int desde = 0; desde < validos.size(); desde += tamanoLote) {
+            List<Integer> trozo = validos.subList(desde, Math.min(desde + tamanoLote, validos.size()));
+            ResultadoTrozo resultado = transactionTemplate.execute(estado -> aplicarTrozo(ajustes, trozo));
+            aplicados += resultado.aplicados();
+            rechazos.addAll(resultado.rechazos());
+            lotes++;
+            // Ya confirmado: los contadores de "flash sale" se releen con el stock nuevo
+            reservaStockService.invalidarContadores(resultado.idsConStockCambiado());
+        }
+
+        rechazos.sort(Comparator.comparingInt(AjusteRechazadoDTO::indice));
+        return new ResultadoActualizacionMasivaDTO(ajustes.size(), aplicados, rechazos.size(), lotes, rechazos);
+    }
+
+    // Motivo por el que el ajuste no se puede aplicar, o null. Deja el SKU sin espacios y los precios con 2 decimales
+    private static String validar(AjustePrecioStockDTO ajuste) {
+        if (ajuste == null) {
+            return "Ajuste vacío.";
+        }
+        if (ajuste.getSku() != null) {
+            ajuste.setSku(ajuste.getSku().isBlank() ? null : ajuste.getSku().strip());
+        }
+        if ((ajuste.getIdProducto() == null) == (ajuste.getSku() == null)) {
+            return "Indique idProducto o sku (uno de los dos).";
+        }
+        if (ajuste.getPrecio() != null && ajuste.getVariacionPrecio() != null) {
+            return "Indique el precio nuevo o su variación, no ambos.";
+        }
+        if (ajuste.getCantidadStock() != null && ajuste.getVariacionStock() != null) {
+            return "Indique el stock nuevo o su variación, no ambos.";
+        }
+        if (ajuste.getPrecio() == null && ajuste.getVariacionPrecio() == null
+                && ajuste.getCantidadStock() == null && ajuste.getVariacionStock() == null) {
+            return "El ajuste no cambia ni el precio ni el stock.";
+        }
+        if (ajuste.getPrecio() != null) {
+            ajuste.setPrecio(ajuste.getPrecio().setScale(2, RoundingMode.HALF_UP));
+            if (ajuste.getPrecio().signum() < 0 || ajuste.getPrecio().compareTo(PRECIO_MAXIMO) > 0) {
+                return "El precio debe estar entre 0 y " + PRECIO_MAXIMO.toPlainString() + ".";
+            }
+        }
+        if (ajuste.getVariacionPrecio() != null) {
+            ajuste.setVariacionPrecio(ajuste.getVariacionPrecio().setScale(2, RoundingMode.HALF_UP));
+        }
+        if (ajuste.getCantidadStock() != null && ajuste.getCantidadStock() < 0) {
+            return "El stock no puede ser negativo.";
+        }
+        return null;
+    }
+
+    // Un trozo en una transacción: resolución de claves + UPDATE por lotes + un evento
+    private ResultadoTrozo aplicarTrozo(List<AjustePrecioStockDTO> ajustes, List<Integer> indices) {
+        Set<Long> ids = new HashSet<>();
+        Set<String> skus = new HashSet<>();
+        for (int i : indices) {
+            AjustePrecioStockDTO ajuste = ajustes.get(i);
+            if (ajuste.getIdProducto() != null) {
+                ids.add(ajuste.getIdProducto());
+            } else {
+                skus.add(ajuste.getSku());
+            }
+        }
+        Map<Long, ClaveProductoDTO> porId = new HashMap<>();
+        Map<String, ClaveProductoDTO> porSku = new HashMap<>();
+        if (!ids.isEmpty()) {
+            productoRepository.findClavesByIdsProducto(ids).forEach(clave -> porId.put(clave.idProducto(), clave));
+        }
+        if (!skus.isEmpty()) {
+            productoRepository.findClavesBySkus(skus).forEach(clave -> porSku.put(clave.sku(), clave));
+        }
+
+        List<AjusteRechazadoDTO> rechazos = new ArrayList<>();
+        List<Integer> resueltos = new ArrayList<>(indices.size());
+        Map<Integer, ClaveProductoDTO> clavePorIndice = new HashMap<>();
+        for (int i : indices) {
+            AjustePrecioStockDTO ajuste = ajustes.get(i);
+            ClaveProductoDTO clave = ajuste.getIdProducto() != null ? porId.get(ajuste.getIdProducto()) : porSku.get(ajuste.getSku());
+            if (clave == null) {
+                rechazos.add(new AjusteRechazadoDTO(i, ajuste.getIdProducto(), ajuste.getSku(), "Producto no encontrado."));
+                continue;
+            }
+            resueltos.add(i);
+            clavePorIndice.put(i, clave);
+        }
+        // En orden de ID, como las reservas de stock, para bloquear las filas en el mismo orden que los pedidos.
+        // La ordenación es estable: los ajustes repetidos de un producto conservan el orden de la petición
+        resueltos.sort(Comparator.comparingLong(i -> clavePorIndice.get(i).idProducto()));
+
+        List<AjustePrecioStockDTO> ordenados = new ArrayList<>(resueltos.size());
+        for (int i : resueltos) {
+            AjustePrecioStockDTO ajuste = ajustes.get(i);
+            ajuste.setIdProducto(clavePorIndice.get(i).idProducto());
+            ordenados.add(ajuste);
+        }
+        int[] afectadas = productoJdbcRepository.ajustarPrecioStockLote(ordenados, LocalDateTime.now());
+
+        int aplicados = 0;
+        Set<Long> idsProducto = new HashSet<>();
+        Set<Integer> idsCategoria = new HashSet<>();
+        Set<Long> idsConStockCambiado = new HashSet<>();
+        for (int k = 0; k < afectadas.length; k++) {
+            int i = resueltos.get(k);
+            AjustePrecioStockDTO ajuste = ordenados.get(k);
+            if (afectadas[k] == 0) {
+                rechazos.add(new AjusteRechazadoDTO(i, ajuste.getIdProducto(), ajuste.getSku(),
+                    "El ajuste dejaría el precio en negativo o fuera de rango, o el stock por debajo de las unidades reservadas en carritos."));
+                continue;
+            }
+            aplicados++;
+            idsProducto.add(ajuste.getIdProducto());
+            idsCategoria.add(clavePorIndice.get(i).idCategoria());
+            if (ajuste.getCantidadStock() != null || ajuste.getVariacionStock() != null) {
+                idsConStockCambiado.add(ajuste.getIdProducto());
+            }
+        }
+
+        if (!idsProducto.isEmpty()) {
+            // Un solo aviso por trozo; las cachés se invalidan al confirmar la transacción
+            eventPublisher.publishEvent(CatalogoModificadoEvent.de(idsProducto, idsCategoria));
+        }
+        return new ResultadoTrozo(aplicados, rechazos, idsConStockCambiado);
+    }
+
+    private record ResultadoTrozo(int aplicados, List<AjusteRechazadoDTO> rechazos, Set<Long> idsConStockCambiado) {
+    }
+}
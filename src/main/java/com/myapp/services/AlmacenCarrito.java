@@ -0,0 +1,64 @@
+package com.myapp.services;
+
+import java.util.List;
+
+import com.DTOs.CambioCarritoDTO;
+import com.DTOs.CarritoDTO;
+import com.DTOs.OperacionCarritoDTO;
+import com.DTOs.ResultadoLoteCarritoDTO;
+import com.DTOs.TipoOperacionCarrito;
+import com.myapp.models.Producto;
+
+/**
+ * Persistencia del carrito de compra. Se elige con la propiedad carrito.almacen:
+ * 'jpa' (por defecto, tablas carrito_compra/ItemsCarrito con reservas de stock) o
+ * 'clave-valor' (un hash por usuario con TTL; solo se escribe en la BD al hacer checkout).
+ */
+public interface AlmacenCarrito {
+
+    CarritoDTO obtenerCarrito(Long idUsuario);
+
+    CambioCarritoDTO agregarOActualizarItem(Long idUsuario, Long idProducto, Integer cantidad);
+
+    void eliminarItem(Long idUsuario, Long idItemCarrito);
+
+    void limpiarCarrito(Long idUsuario);
+
+    ResultadoLoteCarritoDTO aplicarOperaciones(Long idUsuario, List<OperacionCarritoDTO> operaciones);
+
+    /**
+     * Deja el carrito del usuario escrito en carrito_compra/ItemsCarrito para hacer el checkout desde la BD.
+     * En el almacén JPA ya lo está; el clave-valor lo vuelca aquí (write-behind).
+     */
+    void materializar(Long idUsuario);
+
+    /**
+     * Se llama después de confirmar el pedido creado desde el carrito. Las tablas ya se vaciaron
+     * en la misma transacción del pedido; el almacén clave-valor borra aquí su copia.
+     */
+    default void descartarTrasCheckout(Long idUsuario) {
+    }
+
+    // Motivo por el que una operación del lote no se puede aplicar, o null si es válida (común a los almacenes)
+    static String validarOperacion(OperacionCarritoDTO operacion, Producto producto, boolean enCarrito) {
+        if (operacion == null || operacion.getTipo() == null) {
+            return "El tipo de operación es obligatorio.";
+        }
+        if (operacion.getIdProducto() == null) {
+            return "El producto es obligatorio.";
+        }
+        if (operacion.getTipo() == TipoOperacionCarrito.ELIMINAR) {
+            return enCarrito ? null : "El producto no está en el carrito.";
+        }
+        if (operacion.getCantidad() == null || operacion.getCantidad() <= 0) {
+            return "La cantidad debe ser mayor que cero.";
+        }
+        if (producto == null) {
+            return "Producto no encontrado.";
+        }
+        if (!producto.getActivo()) {
+            return "El producto no está activo y no se puede agregar al carrito.";
+        }
+        return null;
+    }
+}
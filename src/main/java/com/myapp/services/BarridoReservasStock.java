@@ -0,0 +1,46 @@
+package com.myapp.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tarea periódica que libera las reservas de carrito vencidas.
+ * Cada pasada procesa como mucho lotesPorPasada lotes (cada uno en su propia transacción corta),
+ * así su coste queda acotado aunque se acumulen muchas reservas; lo que falte se recoge en la siguiente.
+ */
+@Component
+public class BarridoReservasStock {
+
+    private static final Logger log = LoggerFactory.getLogger(BarridoReservasStock.class);
+
+    private final ReservaCarritoService reservaCarritoService;
+    private final int tamanoLote;
+    private final int lotesPorPasada;
+
+    public BarridoReservasStock(ReservaCarritoService reservaCarritoService,
+            @Value("${carrito.reservas.barrido.tamano-lote:500}") int tamanoLote,
+            @Value("${carrito.reservas.barrido.lotes-por-pasada:20}") int lotesPorPasada) {
+        this.reservaCarritoService = reservaCarritoService;
+        this.tamanoLote = tamanoLote;
+        this.lotesPorPasada = lotesPorPasada;
+    }
+
+    @Scheduled(fixedDelayString = "${carrito.reservas.barrido.intervalo-ms:30000}",
+            initialDelayString = "${carrito.reservas.barrido.intervalo-ms:30000}")
+    public void barrer() {
+        int total = 0;
+        for (int lote = 0; lote < lotesPorPasada; lote++) {
+            int procesadas = reservaCarritoService.barrerVencidas(tamanoLote);
+            total += procesadas;
+            if (procesadas < tamanoLote) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("Barrido de reservas de stock: {} reservas vencidas liberadas", total);
+        }
+    }
+}
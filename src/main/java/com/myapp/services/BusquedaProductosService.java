@@ -0,0 +1,176 @@
+package com.myapp.services;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.DTOs.ProductoIndexableDTO;
+import com.DTOs.ResultadoBusquedaDTO;
+import com.myapp.repositories.ProductoRepository;
+import com.myapp.util.busqueda.IndiceProductos;
+import com.myapp.util.eventos.CatalogoModificadoEvent;
+
+/**
+ * Búsqueda de texto sobre el catálogo activo (nombre, SKU, descripción y categoría) con un índice en memoria.
+ * El índice se construye en segundo plano al arrancar y se mantiene con CatalogoModificadoEvent: los productos
+ * cambiados se acumulan y el hilo 'ejecutorBusqueda' los relee de la BD en una sola consulta por tramo.
+ * Las consultas leen la versión publicada (volatile) sin bloqueos.
+ */
+@Service
+public class BusquedaProductosService {
+
+    private static final Logger log = LoggerFactory.getLogger(BusquedaProductosService.class);
+
+    private final ProductoRepository productoRepository;
+    private final ThreadPoolTaskExecutor ejecutorBusqueda;
+    private final int tamanoDefecto;
+    private final int tamanoMaximo;
+    private final int tamanoTramo;
+    private final int umbralFusion;
+
+    private volatile IndiceProductos indice = IndiceProductos.vacio();
+    private volatile boolean listo;
+
+    // Productos modificados pendientes de reindexar; 'drenajeProgramado' evita encolar una tarea por evento
+    private final Set<Long> pendientes = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean drenajeProgramado = new AtomicBoolean();
+    private final AtomicBoolean reconstruccionProgramada = new AtomicBoolean();
+
+    public BusquedaProductosService(ProductoRepository productoRepository,
+            @Qualifier("ejecutorBusqueda") ThreadPoolTaskExecutor ejecutorBusqueda,
+            @Value("${busqueda.tamano-defecto:20}") int tamanoDefecto,
+            @Value("${busqueda.tamano-maximo:100}") int tamanoMaximo,
+            @Value("${busqueda.indice.tamano-tramo:2000}") int tamanoTramo,
+            @Value("${busqueda.indice.umbral-fusion:5000}") int umbralFusion) {
+        this.productoRepository = productoRepository;
+        this.ejecutorBusqueda = ejecutorBusqueda;
+        this.tamanoDefecto = tamanoDefecto;
+        this.tamanoMaximo = tamanoMaximo;
+        this.tamanoTramo = tamanoTramo;
+        this.umbralFusion = umbralFusion;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void construirAlArrancar() {
+        programarReconstruccion();
+    }
+
+    /**
+     * Los productos activos que mejor coinciden con la consulta. Mientras el índice se construye por primera vez
+     * lanza IllegalStateException.
+     */
+    public ResultadoBusquedaDTO buscar(String consulta, int tamano) {
+        if (consulta == null || consulta.isBlank()) {
+            throw new IllegalArgumentException("La consulta de búsqueda no puede estar vacía.");
+        }
+        if (!listo) {
+            throw new IllegalStateException("El índice de búsqueda se está construyendo. Inténtelo de nuevo en unos segundos.");
+        }
+        int limite = tamano <= 0 ? tamanoDefecto : Math.min(tamano, tamanoMaximo);
+        IndiceProductos.Resultado resultado = indice.buscar(consulta, limite);
+        return new ResultadoBusquedaDTO(consulta, resultado.totalCoincidencias(), resultado.productos());
+    }
+
+    public boolean isListo() {
+        return listo;
+    }
+
+    // Tras confirmar la transacción (como CatalogoCache): así el hilo del índice ya lee los datos nuevos
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificarCatalogo(CatalogoModificadoEvent evento) {
+        if (evento.todo()) {
+            programarReconstruccion();
+            return;
+        }
+        if (evento.idsProducto().isEmpty()) {
+            return;
+        }
+        pendientes.addAll(evento.idsProducto());
+        if (drenajeProgramado.compareAndSet(false, true)) {
+            ejecutorBusqueda.execute(this::aplicarPendientes);
+        }
+    }
+
+    private void programarReconstruccion() {
+        if (reconstruccionProgramada.compareAndSet(false, true)) {
+            ejecutorBusqueda.execute(this::reconstruir);
+        }
+    }
+
+    // Relee todo el catálogo activo por tramos de ID y publica un índice nuevo
+    private void reconstruir() {
+        reconstruccionProgramada.set(false);
+        long inicio = System.nanoTime();
+        try {
+            List<ProductoIndexableDTO> productos = new ArrayList<>();
+            long despuesDeId = 0;
+            List<ProductoIndexableDTO> tramo;
+            do {
+                tramo = productoRepository.findIndexablesDespuesDe(despuesDeId, PageRequest.of(0, tamanoTramo));
+                productos.addAll(tramo);
+                if (!tramo.isEmpty()) {
+                    despuesDeId = tramo.get(tramo.size() - 1).idProducto();
+                }
+            } while (tramo.size() == tamanoTramo);
+
+            IndiceProductos nuevo = IndiceProductos.construir(productos);
+            indice = nuevo;
+            listo = true;
+            log.info("Índice de búsqueda construido: {} productos, {} términos en {} ms",
+                    nuevo.totalDocumentos(), nuevo.totalTerminos(), (System.nanoTime() - inicio) / 1_000_000);
+        } catch (RuntimeException ex) {
+            // Se conserva el índice anterior; el siguiente cambio completo del catálogo lo volverá a intentar
+            log.error("No se pudo construir el índice de búsqueda", ex);
+        }
+    }
+
+    // Reindexa los productos acumulados: los que siguen activos se actualizan, el resto sale del índice
+    private void aplicarPendientes() {
+        drenajeProgramado.set(false);
+        Set<Long> ids = new HashSet<>();
+        for (Iterator<Long> it = pendientes.iterator(); it.hasNext(); ) {
+            ids.add(it.next());
+            it.remove();
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Long> todos = new ArrayList<>(ids);
+        try {
+            List<ProductoIndexableDTO> activos = new ArrayList<>();
+            for (int desde = 0; desde < todos.size(); desde += tamanoTramo) {
+                activos.addAll(productoRepository.findIndexablesByIdsProducto(
+                    todos.subList(desde, Math.min(desde + tamanoTramo, todos.size()))));
+            }
+            for (ProductoIndexableDTO producto : activos) {
+                ids.remove(producto.idProducto());
+            }
+
+            IndiceProductos nuevo = indice.conCambios(activos, ids);
+            if (nuevo.pendientesDeFusion() > umbralFusion) {
+                nuevo = nuevo.fusionado();
+            }
+            indice = nuevo;
+        } catch (RuntimeException ex) {
+            // Vuelven a la cola: se reintentan con el siguiente cambio del catálogo
+            pendientes.addAll(todos);
+            log.error("No se pudieron reindexar {} productos en la búsqueda", todos.size(), ex);
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.myapp.services;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.DTOs.CambioCarritoDTO;
+import com.DTOs.CarritoDTO;
+import com.DTOs.ItemCarritoDTO;
+import com.DTOs.OperacionCarritoDTO;
+import com.DTOs.ResultadoLoteCarritoDTO;
+import com.DTOs.ResultadoOperacionCarritoDTO;
+import com.DTOs.TipoOperacionCarrito;
+import com.myapp.models.CarritoCompra;
+import com.myapp.models.ItemCarrito;
+import com.myapp.models.Producto;
+import com.myapp.models.Usuario;
+import com.myapp.repositories.CarritoCompraRepository;
+import com.myapp.repositories.ItemCarritoRepository;
+import com.myapp.repositories.ProductoRepository;
+import com.myapp.repositories.UsuarioRepository;
+import com.myapp.util.clavevalor.ClienteClaveValor;
+
+/**
+ * Almacén de carritos clave-valor (carrito.almacen=clave-valor): un hash por usuario "carrito:{idUsuario}"
+ * con un campo por producto (idProducto -> cantidad) y TTL renovado en cada escritura.
+ * Las modificaciones no tocan la BD; el carrito se vuelca a carrito_compra/ItemsCarrito solo en el checkout.
+ * No aparta stock: se valida contra el catálogo al modificar y se reserva de forma atómica al crear el pedido.
+ * En este almacén el ID de cada línea es el ID del producto.
+ */
+@Service
+@ConditionalOnProperty(name = "carrito.almacen", havingValue = "clave-valor")
+public class CarritoClaveValorService implements AlmacenCarrito {
+
+    private static final String PREFIJO_CLAVE = "carrito:";
+
+    private final ClienteClaveValor clienteClaveValor;
+    private final ProductoService productoService;
+    private final ProductoRepository productoRepository;
+    private final CarritoCompraRepository carritoRepository;
+    private final ItemCarritoRepository itemCarritoRepository;
+    private final UsuarioRepository usuarioRepository;
+    private final ReservaCarritoService reservaCarritoService;
+    private final Duration ttl;
+    private final int maximoOperacionesLote;
+
+    public CarritoClaveValorService(ClienteClaveValor clienteClaveValor, ProductoService productoService, ProductoRepository productoRepository,
+            CarritoCompraRepository carritoRepository, ItemCarritoRepository itemCarritoRepository, UsuarioRepository usuarioRepository,
+            ReservaCarritoService reservaCarritoService,
+            @Value("${carrito.clave-valor.ttl-minutos:10080}") long ttlMinutos,
+            @Value("${carrito.lote.maximo-operaciones:100}") int maximoOperacionesLote) {
+        this.clienteClaveValor = clienteClaveValor;
+        this.productoService = productoService;
+        this.productoRepository = productoRepository;
+        this.carritoRepository = carritoRepository;
+        this.itemCarritoRepository = itemCarritoRepository;
+        this.usuarioRepository = usuarioRepository;
+        this.reservaCarritoService = reservaCarritoService;
+        this.ttl = Duration.ofMinutes(ttlMinutos);
+        this.maximoOperacionesLote = maximoOperacionesLote;
+    }
+
+    /**
+     * Carrito del usuario con los precios actuales del catálogo (en caché).
+     * Los productos que ya no existen o se desactivaron no se muestran ni suman.
+     */
+    @Override
+    public CarritoDTO obtenerCarrito(Long idUsuario) {
+        Map<Long, Integer> cantidades = leerCantidades(idUsuario);
+
+        List<ItemCarritoDTO> items = new ArrayList<>(cantidades.size());
+        BigDecimal total = BigDecimal.ZERO;
+        int unidades = 0;
+        for (Map.Entry<Long, Integer> linea : cantidades.entrySet()) {
+            Optional<Producto> producto = productoService.obtenerProductoPorId(linea.getKey());
+            if (producto.isEmpty() || !producto.get().getActivo()) {
+                continue;
+            }
+            ItemCarritoDTO item = aDTO(producto.get(), linea.getValue());
+            items.add(item);
+            total = total.add(item.getSubtotal());
+            unidades += item.getCantidad();
+        }
+        return new CarritoDTO(null, items, total.setScale(2, RoundingMode.HALF_UP), unidades);
+    }
+
+    /**
+     * Suma la cantidad al producto con un HINCRBY atómico; si supera el stock disponible se deshace el incremento.
+     */
+    @Override
+    public CambioCarritoDTO agregarOActualizarItem(Long idUsuario, Long idProducto, Integer cantidad) {
+        if (cantidad == null || cantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad debe ser mayor que cero.");
+        }
+
+        Producto producto = productoService.obtenerProductoPorId(idProducto)
+            .orElseThrow(() -> new IllegalArgumentException("Producto no encontrado."));
+
+        if (!producto.getActivo()) {
+            throw new IllegalStateException("El producto no está activo y no se puede agregar al carrito.");
+        }
+
+        String clave = clave(idUsuario);
+        String campo = idProducto.toString();
+        long cantidadNueva = clienteClaveValor.hincrBy(clave, campo, cantidad);
+        // El TTL se fija antes de comprobar el stock: si el HINCRBY creó la clave y después se compensa,
+        // la clave no debe quedarse sin expiración
+        clienteClaveValor.expire(clave, ttl);
+        if (cantidadNueva > producto.getCantidadDisponible()) {
+            // Se compensa con otro HINCRBY (no con HDEL) para no perder un incremento concurrente;
+            // una línea que quede a 0 se ignora al leer el carrito y caduca con la clave
+            clienteClaveValor.hincrBy(clave, campo, -cantidad);
+            throw new IllegalStateException("Stock insuficiente. Solo hay " + producto.getCantidadDisponible() + " unidades disponibles.");
+        }
+
+        CarritoDTO carrito = obtenerCarrito(idUsuario);
+        return new CambioCarritoDTO(null, aDTO(producto, (int) cantidadNueva), carrito.getMontoTotal(), carrito.getCantidadUnidades());
+    }
+
+    /**
+     * Elimina una línea del carrito; idItemCarrito es el ID del producto.
+     */
+    @Override
+    public void eliminarItem(Long idUsuario, Long idItemCarrito) {
+        if (clienteClaveValor.hdel(clave(idUsuario), idItemCarrito.toString()) == 0) {
+            throw new IllegalArgumentException("Ítem de carrito no encontrado o no pertenece a este carrito.");
+        }
+    }
+
+    @Override
+    public void limpiarCarrito(Long idUsuario) {
+        clienteClaveValor.del(clave(idUsuario));
+    }
+
+    /**
+     * Aplica las operaciones del lote sobre el hash del usuario, con las mismas reglas que el almacén JPA:
+     * una operación inválida o sin stock se informa en su resultado y no anula las demás.
+     */
+    @Override
+    public ResultadoLoteCarritoDTO aplicarOperaciones(Long idUsuario, List<OperacionCarritoDTO> operaciones) {
+        if (operaciones == null || operaciones.isEmpty()) {
+            throw new IllegalArgumentException("El lote debe contener al menos una operación.");
+        }
+        if (operaciones.size() > maximoOperacionesLote) {
+            throw new IllegalArgumentException("El lote admite como máximo " + maximoOperacionesLote + " operaciones.");
+        }
+
+        String clave = clave(idUsuario);
+        Map<Long, Integer> cantidades = leerCantidades(idUsuario);
+        Map<Long, Optional<Producto>> productos = new HashMap<>();
+
+        List<ResultadoOperacionCarritoDTO> resultados = new ArrayList<>(operaciones.size());
+        for (int i = 0; i < operaciones.size(); i++) {
+            OperacionCarritoDTO operacion = operaciones.get(i);
+            TipoOperacionCarrito tipo = operacion != null ? operacion.getTipo() : null;
+            Long idProducto = operacion != null ? operacion.getIdProducto() : null;
+
+            Producto producto = idProducto == null ? null
+                : productos.computeIfAbsent(idProducto, productoService::obtenerProductoPorId).orElse(null);
+            String error = AlmacenCarrito.validarOperacion(operacion, producto, cantidades.containsKey(idProducto));
+            if (error != null) {
+                resultados.add(new ResultadoOperacionCarritoDTO(i, tipo, idProducto, false, error, null));
+                continue;
+            }
+
+            String campo = idProducto.toString();
+            if (tipo == TipoOperacionCarrito.ELIMINAR) {
+                clienteClaveValor.hdel(clave, campo);
+                cantidades.remove(idProducto);
+                resultados.add(new ResultadoOperacionCarritoDTO(i, tipo, idProducto, true, null, null));
+                continue;
+            }
+
+            int cantidadAnterior = cantidades.getOrDefault(idProducto, 0);
+            int cantidadNueva = tipo == TipoOperacionCarrito.AGREGAR ? cantidadAnterior + operacion.getCantidad() : operacion.getCantidad();
+            if (cantidadNueva > producto.getCantidadDisponible()) {
+                resultados.add(new ResultadoOperacionCarritoDTO(i, tipo, idProducto, false,
+                    "Stock insuficiente. Solo hay " + producto.getCantidadDisponible() + " unidades disponibles.",
+                    cantidadAnterior > 0 ? aDTO(producto, cantidadAnterior) : null));
+                continue;
+            }
+
+            if (tipo == TipoOperacionCarrito.AGREGAR) {
+                cantidadNueva = (int) clienteClaveValor.hincrBy(clave, campo, operacion.getCantidad());
+            } else {
+                clienteClaveValor.hset(clave, campo, Integer.toString(cantidadNueva));
+            }
+            cantidades.put(idProducto, cantidadNueva);
+            resultados.add(new ResultadoOperacionCarritoDTO(i, tipo, idProducto, true, null, aDTO(producto, cantidadNueva)));
+        }
+        clienteClaveValor.expire(clave, ttl);
+
+        CarritoDTO carrito = obtenerCarrito(idUsuario);
+        return new ResultadoLoteCarritoDTO(null, resultados, carrito.getMontoTotal(), carrito.getCantidadUnidades());
+    }
+
+    /**
+     * Vuelca el carrito del hash a carrito_compra/ItemsCarrito (write-behind) con los precios actuales.
+     * Sustituye lo que hubiera en la BD: un DELETE de las líneas anteriores y los INSERT en lote.
+     */
+    @Override
+    @Transactional
+    public void materializar(Long idUsuario) {
+        Map<Long, Integer> cantidades = leerCantidades(idUsuario);
+
+        CarritoCompra carrito = carritoRepository.findParaActualizarByUsuario_IdUsuario(idUsuario)
+            .orElseGet(() -> {
+                Usuario usuario = usuarioRepository.findById(idUsuario)
+                    .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado."));
+
+                CarritoCompra nuevoCarrito = new CarritoCompra();
+                nuevoCarrito.setUsuario(usuario);
+                return carritoRepository.save(nuevoCarrito);
+            });
+
+        // Reservas y líneas que quedaran de cuando el carrito vivía en la BD
+        reservaCarritoService.liberarCarrito(carrito.getIdCarrito());
+        itemCarritoRepository.deleteAllByIdCarrito(carrito.getIdCarrito());
+
+        BigDecimal total = BigDecimal.ZERO;
+        int unidades = 0;
+        List<ItemCarrito> items = new ArrayList<>(cantidades.size());
+        if (!cantidades.isEmpty()) {
+            for (Producto producto : productoRepository.findAllById(cantidades.keySet())) {
+                if (!producto.getActivo()) {
+                    continue;
+                }
+                int cantidad = cantidades.get(producto.getIdProducto());
+                ItemCarrito item = new ItemCarrito();
+                item.setCarrito(carrito);
+                item.setProducto(producto);
+                item.setCantidad(cantidad);
+                item.setPrecioUnitario(producto.getPrecio());
+                item.setSubtotal(producto.getPrecio().multiply(new BigDecimal(cantidad)).setScale(2, RoundingMode.HALF_UP));
+                items.add(item);
+                total = total.add(item.getSubtotal());
+                unidades += cantidad;
+            }
+            itemCarritoRepository.saveAll(items);
+        }
+
+        carrito.setMontoTotal(total.setScale(2, RoundingMode.HALF_UP));
+        carrito.setCantidadUnidades(unidades);
+    }
+
+    // Solo tras confirmar el pedido: si la transacción fallara, el carrito seguiría intacto
+    @Override
+    public void descartarTrasCheckout(Long idUsuario) {
+        clienteClaveValor.del(clave(idUsuario));
+    }
+
+    // Cantidades por producto, ordenadas por ID para que el carrito se devuelva siempre en el mismo orden
+    private Map<Long, Integer> leerCantidades(Long idUsuario) {
+        Map<Long, Integer> cantidades = new TreeMap<>();
+        clienteClaveValor.hgetAll(clave(idUsuario)).forEach((campo, valor) -> {
+            int cantidad = Integer.parseInt(valor);
+            if (cantidad > 0) {
+                cantidades.put(Long.valueOf(campo), cantidad);
+            }
+        });
+        return cantidades;
+    }
+
+    private static String clave(Long idUsuario) {
+        return PREFIJO_CLAVE + idUsuario;
+    }
+
+    private static ItemCarritoDTO aDTO(Producto producto, int cantidad) {
+        BigDecimal subtotal = producto.getPrecio().multiply(new BigDecimal(cantidad)).setScale(2, RoundingMode.HALF_UP);
+        return new ItemCarritoDTO(producto.getIdProducto(), producto.getIdProducto(), producto.getNombreProducto(),
+            producto.getImagenUrl(), producto.getPrecio(), cantidad, subtotal);
+    }
+}
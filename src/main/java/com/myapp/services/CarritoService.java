@@ -2,34 +2,56 @@ package com.myapp.services;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.DTOs.CambioCarritoDTO;
+import com.DTOs.CarritoDTO;
+import com.DTOs.ItemCarritoDTO;
+import com.DTOs.OperacionCarritoDTO;
+import com.DTOs.ResultadoLoteCarritoDTO;
+import com.DTOs.ResultadoOperacionCarritoDTO;
+import com.DTOs.TipoOperacionCarrito;
 import com.myapp.models.CarritoCompra;
 import com.myapp.models.ItemCarrito;
 import com.myapp.models.Producto;
+import com.myapp.models.ReservaStock;
 import com.myapp.models.Usuario;
 import com.myapp.repositories.CarritoCompraRepository;
 import com.myapp.repositories.ItemCarritoRepository;
 import com.myapp.repositories.ProductoRepository;
 import com.myapp.repositories.UsuarioRepository;
 
-import jakarta.transaction.Transactional;
-
+// Almacén de carritos por defecto: tablas carrito_compra/ItemsCarrito, con reserva de stock por ítem
 @Service
-public class CarritoService {
+@ConditionalOnProperty(name = "carrito.almacen", havingValue = "jpa", matchIfMissing = true)
+public class CarritoService implements AlmacenCarrito {
 
     private final CarritoCompraRepository carritoRepository;
     private final ItemCarritoRepository itemCarritoRepository;
     private final UsuarioRepository usuarioRepository;
     private final ProductoRepository productoRepository;
+    private final ReservaCarritoService reservaCarritoService;
+    private final int maximoOperacionesLote;
 
-    public CarritoService(CarritoCompraRepository carritoRepository, ItemCarritoRepository itemCarritoRepository, UsuarioRepository usuarioRepository, ProductoRepository productoRepository) {
+    public CarritoService(CarritoCompraRepository carritoRepository, ItemCarritoRepository itemCarritoRepository, UsuarioRepository usuarioRepository, ProductoRepository productoRepository, ReservaCarritoService reservaCarritoService,
+            @Value("${carrito.lote.maximo-operaciones:100}") int maximoOperacionesLote) {
         this.carritoRepository = carritoRepository;
         this.itemCarritoRepository = itemCarritoRepository;
         this.usuarioRepository = usuarioRepository;
         this.productoRepository = productoRepository;
+        this.reservaCarritoService = reservaCarritoService;
+        this.maximoOperacionesLote = maximoOperacionesLote;
     }
 
     /**
@@ -54,31 +76,62 @@ public class CarritoService {
    private CarritoCompra calcularTotales(CarritoCompra carrito) {
         if (carrito.getItems() == null || carrito.getItems().isEmpty()) {
             carrito.setMontoTotal(BigDecimal.ZERO);
+            carrito.setCantidadUnidades(0);
             return carrito;
         }
 
         BigDecimal total = BigDecimal.ZERO;
+        int unidades = 0;
         for (ItemCarrito item : carrito.getItems()) {
             BigDecimal precioUnitario = item.getProducto().getPrecio();
             BigDecimal subtotal = precioUnitario.multiply(new BigDecimal(item.getCantidad()));
             
+            item.setPrecioUnitario(precioUnitario);
             item.setSubtotal(subtotal.setScale(2, RoundingMode.HALF_UP));
             total = total.add(subtotal);
+            unidades += item.getCantidad();
         }
         carrito.setMontoTotal(total.setScale(2, RoundingMode.HALF_UP));
+        carrito.setCantidadUnidades(unidades);
+        return carrito;
+    }
+
+    /**
+     * Carrito del usuario bloqueado para modificarlo (o uno nuevo si no tiene).
+     * Los carritos creados antes del total acumulado lo calculan aquí una única vez.
+     */
+    private CarritoCompra obtenerCarritoParaModificar(Long idUsuario) {
+        CarritoCompra carrito = carritoRepository.findParaActualizarByUsuario_IdUsuario(idUsuario)
+            .orElseGet(() -> {
+                Usuario usuario = usuarioRepository.findById(idUsuario)
+                    .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado."));
+
+                CarritoCompra nuevoCarrito = new CarritoCompra();
+                nuevoCarrito.setUsuario(usuario);
+                nuevoCarrito.setMontoTotal(BigDecimal.ZERO);
+                nuevoCarrito.setCantidadUnidades(0);
+                return carritoRepository.save(nuevoCarrito);
+            });
+
+        if (carrito.getMontoTotal() == null || carrito.getCantidadUnidades() == null) {
+            calcularTotales(carrito);
+        }
         return carrito;
     }
 
     /**
      * Agrega o actualiza un producto en el carrito.
+     * Solo toca la línea afectada: el total del carrito se ajusta con la diferencia de su subtotal,
+     * así el coste no depende del número de ítems del carrito.
      */
+    @Override
     @Transactional
-    public CarritoCompra agregarOActualizarItem(Long idUsuario, Long idProducto, Integer cantidad) {
+    public CambioCarritoDTO agregarOActualizarItem(Long idUsuario, Long idProducto, Integer cantidad) {
         if (cantidad == null || cantidad <= 0) {
             throw new IllegalArgumentException("La cantidad debe ser mayor que cero.");
         }
         
-        CarritoCompra carrito = obtenerOCrearCarrito(idUsuario);
+        CarritoCompra carrito = obtenerCarritoParaModificar(idUsuario);
 
         Producto producto = productoRepository.findById(idProducto)
             .orElseThrow(() -> new IllegalArgumentException("Producto no encontrado."));
@@ -87,72 +140,244 @@ public class CarritoService {
             throw new IllegalStateException("El producto no está activo y no se puede agregar al carrito.");
         }
 
-        // Buscar si el ítem ya existe en el carrito
-        Optional<ItemCarrito> itemExistenteOpt = itemCarritoRepository.findByCarrito_IdCarritoAndProducto_IdProducto(
-            carrito.getIdCarrito(), idProducto);
-
-        ItemCarrito item;
-        if (itemExistenteOpt.isPresent()) {
-            item = itemExistenteOpt.get();
-            item.setCantidad(item.getCantidad() + cantidad);
-        } else {
-            item = new ItemCarrito();
-            item.setCarrito(carrito);
-            item.setProducto(producto);
-            item.setCantidad(cantidad);
-            // Añadir el nuevo item a la colección en memoria para mantener la consistencia
-            carrito.getItems().add(item);
-        }
-        
-        // Validación de Stock (Importante)
-        if (producto.getCantidadStock() < item.getCantidad()) {
-            throw new IllegalStateException("Stock insuficiente. Solo hay " + producto.getCantidadStock() + " unidades disponibles.");
-        }
+        // Upsert por la clave única (id_carrito, id_producto); el bloqueo del carrito evita inserciones duplicadas
+        ItemCarrito item = itemCarritoRepository.findByCarrito_IdCarritoAndProducto_IdProducto(
+            carrito.getIdCarrito(), idProducto)
+            .orElseGet(() -> {
+                ItemCarrito nuevoItem = new ItemCarrito();
+                nuevoItem.setCarrito(carrito);
+                nuevoItem.setProducto(producto);
+                nuevoItem.setCantidad(0);
+                return nuevoItem;
+            });
+
+        int cantidadAnterior = item.getCantidad();
+        BigDecimal subtotalAnterior = item.getSubtotal() != null ? item.getSubtotal() : BigDecimal.ZERO;
+
+        item.setCantidad(cantidadAnterior + cantidad);
+        item.setPrecioUnitario(producto.getPrecio());
+        item.setSubtotal(producto.getPrecio().multiply(new BigDecimal(item.getCantidad())).setScale(2, RoundingMode.HALF_UP));
+        itemCarritoRepository.save(item);
+
+        // Validación y reserva de Stock (Importante): las unidades quedan apartadas durante un tiempo limitado.
+        // Si no hay stock suficiente se lanza IllegalStateException y el rollback deshace el cambio del ítem.
+        reservaCarritoService.reservar(item, item.getCantidad());
 
-        itemCarritoRepository.saveAndFlush(item); // Usar saveAndFlush para forzar la sincronización
+        carrito.setMontoTotal(carrito.getMontoTotal().add(item.getSubtotal().subtract(subtotalAnterior)));
+        carrito.setCantidadUnidades(carrito.getCantidadUnidades() + item.getCantidad() - cantidadAnterior);
 
-        // Forzar la recarga del carrito desde la base de datos dentro de la misma transacción
-        // para asegurar que la lista de items esté actualizada antes de calcular los totales.
-        CarritoCompra carritoActualizado = carritoRepository.findById(carrito.getIdCarrito()).get();
-        return calcularTotales(carritoActualizado);
+        return new CambioCarritoDTO(carrito.getIdCarrito(), aDTO(item), carrito.getMontoTotal(), carrito.getCantidadUnidades());
     }
 
     /**
      * Elimina un ítem del carrito.
      */
+    @Override
     @Transactional
     public void eliminarItem(Long idUsuario, Long idItemCarrito) {
-        CarritoCompra carrito = obtenerOCrearCarrito(idUsuario);
+        CarritoCompra carrito = obtenerCarritoParaModificar(idUsuario);
         
         // Verificar que el ítem pertenece al carrito del usuario
-        Optional<ItemCarrito> itemOpt = carrito.getItems().stream()
-            .filter(i -> i.getIdItemCarrito().equals(idItemCarrito))
-            .findFirst();
+        ItemCarrito item = itemCarritoRepository.findById(idItemCarrito)
+            .filter(i -> i.getCarrito().getIdCarrito().equals(carrito.getIdCarrito()))
+            .orElseThrow(() -> new IllegalArgumentException("Ítem de carrito no encontrado o no pertenece a este carrito."));
 
-        if (itemOpt.isEmpty()) {
-            throw new IllegalArgumentException("Ítem de carrito no encontrado o no pertenece a este carrito.");
-        }
-        
-        itemCarritoRepository.delete(itemOpt.get());
+        BigDecimal subtotal = item.getSubtotal() != null ? item.getSubtotal() : BigDecimal.ZERO;
+        carrito.setMontoTotal(carrito.getMontoTotal().subtract(subtotal));
+        carrito.setCantidadUnidades(carrito.getCantidadUnidades() - item.getCantidad());
+
+        reservaCarritoService.liberar(idItemCarrito);
+        itemCarritoRepository.delete(item);
     }
     
     /**
      * Limpia completamente el carrito del usuario.
      */
+    @Override
     @Transactional
     public void limpiarCarrito(Long idUsuario) {
-        CarritoCompra carrito = obtenerOCrearCarrito(idUsuario);
-        carrito.getItems().clear(); // El orphanRemoval=true y CascadeType.ALL en CarritoCompra se encargará de eliminar los ítems
-        carritoRepository.save(carrito);
+        CarritoCompra carrito = obtenerCarritoParaModificar(idUsuario);
+        reservaCarritoService.liberarCarrito(carrito.getIdCarrito());
+        itemCarritoRepository.deleteAllByIdCarrito(carrito.getIdCarrito()); // Un solo DELETE, sin cargar los ítems
+        carrito.setMontoTotal(BigDecimal.ZERO);
+        carrito.setCantidadUnidades(0);
     }
-    
+
     /**
-     * Obtiene el carrito del usuario con los totales calculados.
+     * Aplica una lista de operaciones (agregar, fijar cantidad, eliminar) en una sola transacción.
+     * Los productos, líneas y reservas implicados se cargan con una consulta IN cada uno y las escrituras
+     * de ItemsCarrito/reservas se envían en lotes JDBC al final. Una operación inválida o sin stock no
+     * anula las demás: se informa en su resultado. Las líneas que se quedan a 0 se borran al terminar el lote,
+     * así eliminar y volver a agregar un producto en el mismo lote reutiliza su línea y su reserva
+     * (Hibernate ejecuta los INSERT antes que los DELETE y una línea nueva chocaría con la borrada).
      */
-    public Optional<CarritoCompra> obtenerCarritoPorUsuario(Long idUsuario) {
-        Optional<CarritoCompra> carritoOpt = carritoRepository.findByUsuario_IdUsuario(idUsuario);
-        return carritoOpt.map(this::calcularTotales);
+    @Override
+    @Transactional
+    public ResultadoLoteCarritoDTO aplicarOperaciones(Long idUsuario, List<OperacionCarritoDTO> operaciones) {
+        if (operaciones == null || operaciones.isEmpty()) {
+            throw new IllegalArgumentException("El lote debe contener al menos una operación.");
+        }
+        if (operaciones.size() > maximoOperacionesLote) {
+            throw new IllegalArgumentException("El lote admite como máximo " + maximoOperacionesLote + " operaciones.");
+        }
+
+        CarritoCompra carrito = obtenerCarritoParaModificar(idUsuario);
+
+        Set<Long> idsProducto = new HashSet<>();
+        for (OperacionCarritoDTO operacion : operaciones) {
+            if (operacion != null && operacion.getIdProducto() != null) {
+                idsProducto.add(operacion.getIdProducto());
+            }
+        }
+
+        Map<Long, Producto> productos = new HashMap<>();
+        Map<Long, ItemCarrito> items = new HashMap<>();
+        Map<Long, ReservaStock> reservas = new HashMap<>();
+        if (!idsProducto.isEmpty()) {
+            for (Producto producto : productoRepository.findAllById(idsProducto)) {
+                productos.put(producto.getIdProducto(), producto);
+            }
+            for (ItemCarrito item : itemCarritoRepository.findByCarrito_IdCarritoAndProducto_IdProductoIn(carrito.getIdCarrito(), idsProducto)) {
+                items.put(item.getProducto().getIdProducto(), item);
+            }
+            reservas.putAll(reservaCarritoService.reservasDelCarrito(carrito.getIdCarrito(), idsProducto));
+        }
+
+        // Líneas eliminadas en este lote: se borran al final salvo que otra operación vuelva a agregar el producto
+        Map<Long, ItemCarrito> eliminados = new HashMap<>();
+        List<ResultadoOperacionCarritoDTO> resultados = new ArrayList<>(operaciones.size());
+        Set<Long> productosCambiados = new HashSet<>();
+        for (int i = 0; i < operaciones.size(); i++) {
+            OperacionCarritoDTO operacion = operaciones.get(i);
+            TipoOperacionCarrito tipo = operacion != null ? operacion.getTipo() : null;
+            Long idProducto = operacion != null ? operacion.getIdProducto() : null;
+
+            String error = AlmacenCarrito.validarOperacion(operacion, productos.get(idProducto), items.containsKey(idProducto));
+            if (error != null) {
+                resultados.add(new ResultadoOperacionCarritoDTO(i, tipo, idProducto, false, error, null));
+                continue;
+            }
+
+            Producto producto = productos.get(idProducto);
+            ItemCarrito item = items.get(idProducto);
+            boolean itemNuevo = item == null;
+            if (itemNuevo) {
+                item = eliminados.remove(idProducto);
+            }
+            boolean sinGuardar = item == null;
+            if (sinGuardar) {
+                item = new ItemCarrito();
+                item.setCarrito(carrito);
+                item.setProducto(producto);
+                item.setCantidad(0);
+                // La reserva apunta al ítem: tiene que estar persistido antes (el INSERT igualmente espera al flush)
+                itemCarritoRepository.save(item);
+            }
+
+            int cantidadAnterior = item.getCantidad();
+            int cantidadNueva = switch (tipo) {
+                case AGREGAR -> cantidadAnterior + operacion.getCantidad();
+                case FIJAR_CANTIDAD -> operacion.getCantidad();
+                case ELIMINAR -> 0;
+            };
+
+            ReservaStock reserva = reservas.get(idProducto);
+            if (reserva == null) {
+                reserva = reservaCarritoService.nuevaReserva(item);
+            }
+            int reservadaAntes = reserva.getCantidad();
+            if (!reservaCarritoService.ajustar(reserva, cantidadNueva)) {
+                if (itemNuevo) {
+                    // El producto sigue fuera del carrito: la línea (nueva o eliminada antes en el lote) se borra al final
+                    eliminados.put(idProducto, item);
+                    reservas.put(idProducto, reserva);
+                }
+                int disponible = Math.max(0, productoRepository.findDisponibleByIdProducto(idProducto).orElse(0) + reservadaAntes);
+                resultados.add(new ResultadoOperacionCarritoDTO(i, tipo, idProducto, false,
+                    "Stock insuficiente. Solo hay " + disponible + " unidades disponibles.", itemNuevo ? null : aDTO(item)));
+                continue;
+            }
+            if (cantidadNueva != reservadaAntes) {
+                productosCambiados.add(idProducto);
+            }
+
+            BigDecimal subtotalAnterior = item.getSubtotal() != null ? item.getSubtotal() : BigDecimal.ZERO;
+            if (cantidadNueva == 0) {
+                items.remove(idProducto);
+                eliminados.put(idProducto, item);
+                reservas.put(idProducto, reserva);
+                item.setCantidad(0);
+                item.setSubtotal(BigDecimal.ZERO);
+                carrito.setMontoTotal(carrito.getMontoTotal().subtract(subtotalAnterior));
+                carrito.setCantidadUnidades(carrito.getCantidadUnidades() - cantidadAnterior);
+                resultados.add(new ResultadoOperacionCarritoDTO(i, tipo, idProducto, true, null, null));
+                continue;
+            }
+
+            item.setCantidad(cantidadNueva);
+            item.setPrecioUnitario(producto.getPrecio());
+            item.setSubtotal(producto.getPrecio().multiply(new BigDecimal(cantidadNueva)).setScale(2, RoundingMode.HALF_UP));
+            items.put(idProducto, item);
+            reservas.put(idProducto, reserva);
+
+            carrito.setMontoTotal(carrito.getMontoTotal().add(item.getSubtotal().subtract(subtotalAnterior)));
+            carrito.setCantidadUnidades(carrito.getCantidadUnidades() + cantidadNueva - cantidadAnterior);
+            resultados.add(new ResultadoOperacionCarritoDTO(i, tipo, idProducto, true, null, aDTO(item)));
+        }
+
+        // Primero las reservas, que referencian a las líneas
+        List<ReservaStock> reservasEliminadas = new ArrayList<>(eliminados.size());
+        for (Long idProducto : eliminados.keySet()) {
+            reservasEliminadas.add(reservas.get(idProducto));
+        }
+        reservaCarritoService.borrarVacias(reservasEliminadas);
+        itemCarritoRepository.deleteAll(eliminados.values());
+
+        if (!productosCambiados.isEmpty()) {
+            reservaCarritoService.publicarCambio(productosCambiados);
+        }
+        return new ResultadoLoteCarritoDTO(carrito.getIdCarrito(), resultados, carrito.getMontoTotal(), carrito.getCantidadUnidades());
     }
 
+    private ItemCarritoDTO aDTO(ItemCarrito item) {
+        Producto producto = item.getProducto();
+        return new ItemCarritoDTO(item.getIdItemCarrito(), producto.getIdProducto(), producto.getNombreProducto(),
+            producto.getImagenUrl(), item.getPrecioUnitario(), item.getCantidad(), item.getSubtotal());
+    }
+    
+    /**
+     * Obtiene el carrito del usuario con los totales a precios actuales.
+     * Es solo lectura: los totales se calculan sobre los DTO, sin tocar las entidades ni tomar el bloqueo
+     * del carrito (los totales guardados solo los cambian las modificaciones, que sí lo toman).
+     * Si el usuario aún no tiene carrito se devuelve uno vacío sin crearlo.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CarritoDTO obtenerCarrito(Long idUsuario) {
+        Optional<CarritoCompra> carrito = carritoRepository.findByUsuario_IdUsuario(idUsuario);
+        if (carrito.isEmpty()) {
+            if (!usuarioRepository.existsById(idUsuario)) {
+                throw new IllegalArgumentException("Usuario no encontrado.");
+            }
+            return new CarritoDTO(null, List.of(), BigDecimal.ZERO, 0);
+        }
 
+        BigDecimal total = BigDecimal.ZERO;
+        int unidades = 0;
+        List<ItemCarritoDTO> items = new ArrayList<>();
+        for (ItemCarrito item : itemCarritoRepository.findConProductoByIdCarrito(carrito.get().getIdCarrito())) {
+            Producto producto = item.getProducto();
+            BigDecimal subtotal = producto.getPrecio().multiply(new BigDecimal(item.getCantidad()));
+            items.add(new ItemCarritoDTO(item.getIdItemCarrito(), producto.getIdProducto(), producto.getNombreProducto(),
+                producto.getImagenUrl(), producto.getPrecio(), item.getCantidad(), subtotal.setScale(2, RoundingMode.HALF_UP)));
+            total = total.add(subtotal);
+            unidades += item.getCantidad();
+        }
+        return new CarritoDTO(carrito.get().getIdCarrito(), items, total.setScale(2, RoundingMode.HALF_UP), unidades);
+    }
+
+    // El carrito ya está en la BD: el checkout lo lee directamente
+    @Override
+    public void materializar(Long idUsuario) {
+    }
 }
@@ -0,0 +1,91 @@
+package com.myapp.services;
+
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.DTOs.FiltroCatalogo;
+import com.DTOs.PaginaCatalogoDTO;
+import com.DTOs.VersionCatalogoDTO;
+import com.myapp.models.Producto;
+import com.myapp.util.cache.TtlCache;
+import com.myapp.util.eventos.CatalogoModificadoEvent;
+import com.myapp.util.eventos.StockReservadoModificadoEvent;
+
+/**
+ * Caché de lectura del catálogo público: productos por ID y páginas del catálogo.
+ * Se invalida con CatalogoModificadoEvent (o StockReservadoModificadoEvent, si solo cambió lo apartado en carritos)
+ * una vez confirmada la transacción que cambió los datos.
+ */
+@Component
+public class CatalogoCache {
+
+    private static final String CLAVE_VERSION = "catalogo";
+    private static final String CLAVE_VERSION_CATEGORIAS = "categorias"; // cacheVersionCatalogo tiene capacidad para ambas
+
+    private final TtlCache<Long, Producto> cacheProductos;
+    private final TtlCache<FiltroCatalogo, PaginaCatalogoDTO> cachePaginasCatalogo;
+    private final TtlCache<String, VersionCatalogoDTO> cacheVersionCatalogo;
+
+    public CatalogoCache(TtlCache<Long, Producto> cacheProductos,
+            TtlCache<FiltroCatalogo, PaginaCatalogoDTO> cachePaginasCatalogo,
+            TtlCache<String, VersionCatalogoDTO> cacheVersionCatalogo) {
+        this.cacheProductos = cacheProductos;
+        this.cachePaginasCatalogo = cachePaginasCatalogo;
+        this.cacheVersionCatalogo = cacheVersionCatalogo;
+    }
+
+    // La entidad cacheada no sale de aquí: cada llamador recibe su propia copia y puede modificarla sin afectar a los demás
+    public Optional<Producto> obtenerProducto(Long idProducto, Function<Long, Optional<Producto>> cargador) {
+        return Optional.ofNullable(cacheProductos.obtenerOCargar(idProducto, id -> cargador.apply(id).orElse(null)))
+                .map(Producto::copia);
+    }
+
+    public PaginaCatalogoDTO obtenerPagina(FiltroCatalogo filtro, Function<FiltroCatalogo, PaginaCatalogoDTO> cargador) {
+        return cachePaginasCatalogo.obtenerOCargar(filtro, cargador);
+    }
+
+    public VersionCatalogoDTO obtenerVersion(Supplier<VersionCatalogoDTO> cargador) {
+        return cacheVersionCatalogo.obtenerOCargar(CLAVE_VERSION, clave -> cargador.get());
+    }
+
+    // Los cambios de categoría que afectan al catálogo (renombrar, borrar) publican CatalogoModificadoEvent.completo()
+    public VersionCatalogoDTO obtenerVersionCategorias(Supplier<VersionCatalogoDTO> cargador) {
+        return cacheVersionCatalogo.obtenerOCargar(CLAVE_VERSION_CATEGORIAS, clave -> cargador.get());
+    }
+
+    // fallbackExecution: también se aplica cuando el evento se publica fuera de una transacción
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificarCatalogo(CatalogoModificadoEvent evento) {
+        cacheVersionCatalogo.invalidarTodo();
+
+        if (evento.todo()) {
+            cacheProductos.invalidarTodo();
+            cachePaginasCatalogo.invalidarTodo();
+            return;
+        }
+
+        evento.idsProducto().forEach(cacheProductos::invalidar);
+
+        // Las páginas sin filtro de categoría pueden contener cualquier producto;
+        // las filtradas solo se ven afectadas si son de una categoría tocada
+        cachePaginasCatalogo.invalidarSi(filtro ->
+                filtro.idCategoria() == null || evento.idsCategoria().contains(filtro.idCategoria()));
+    }
+
+    /**
+     * Solo cambió el disponible de estos productos: se invalidan las páginas que los muestran y las filtradas
+     * por disponibilidad (en ellas un producto puede aparecer o desaparecer). El resto de páginas sigue valiendo.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificarStockReservado(StockReservadoModificadoEvent evento) {
+        cacheVersionCatalogo.invalidarTodo();
+        evento.idsProducto().forEach(cacheProductos::invalidar);
+        cachePaginasCatalogo.invalidarEntradasSi((filtro, pagina) -> filtro.soloDisponibles()
+                || pagina.getProductos().stream().anyMatch(producto -> evento.idsProducto().contains(producto.getIdProducto())));
+    }
+}
@@ -2,17 +2,39 @@ package com.myapp.services;
 
 import java.util.List;
 import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import com.DTOs.VersionCatalogoDTO;
 import com.myapp.models.Categoria;
 import com.myapp.repositories.CategoriaRepository;
+import com.myapp.util.eventos.CatalogoModificadoEvent;
 
 @Service
 public class CategoriaService {
 
+    private static final Logger log = LoggerFactory.getLogger(CategoriaService.class);
+
     private final CategoriaRepository categoriaRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public CategoriaService(CategoriaRepository categoriaRepository) {
+    public CategoriaService(CategoriaRepository categoriaRepository, ApplicationEventPublisher eventPublisher) {
         this.categoriaRepository = categoriaRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // Las categorías sin fechas de versión darían un Last-Modified vacío en el catálogo: se completan una vez al arrancar
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void completarFechasVersion() {
+        int completadas = categoriaRepository.completarFechasVersion();
+        if (completadas > 0) {
+            log.info("Fechas de versión completadas en {} categorías.", completadas);
+        }
     }
 
     // CREATE (C) - Crear una nueva categoría
@@ -31,6 +53,11 @@ public class CategoriaService {
         return categoriaRepository.findAll();
     }
 
+    // Versión agregada de las categorías (para respuestas condicionales ETag / Last-Modified)
+    public VersionCatalogoDTO obtenerVersionCategorias() {
+        return categoriaRepository.obtenerVersionCategorias();
+    }
+
     // READ BY ID (R) - Obtener una categoría por ID
     public Optional<Categoria> obtenerCategoriaPorId(Integer id) {
         return categoriaRepository.findById(id);
@@ -50,7 +77,10 @@ public class CategoriaService {
 
             categoria.setNombreCategoria(categoriaDetalles.getNombreCategoria());
             categoria.setDescripcion(categoriaDetalles.getDescripcion());
-            return categoriaRepository.save(categoria);
+            Categoria categoriaGuardada = categoriaRepository.save(categoria);
+            // Los productos en caché llevan el nombre de la categoría
+            eventPublisher.publishEvent(CatalogoModificadoEvent.completo());
+            return categoriaGuardada;
             }).orElseThrow(() -> new IllegalArgumentException("Categoría no encontrada con ID: " + id));
     }
 
@@ -61,5 +91,7 @@ public class CategoriaService {
         }
         
         categoriaRepository.deleteById(id);
+        // El borrado se propaga en cascada a los productos de la categoría
+        eventPublisher.publishEvent(CatalogoModificadoEvent.completo());
     }
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.myapp.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tarea periódica que concilia con la pasarela los pagos que siguen en 'Pendiente' sin respuesta
+ * y devuelve los cobros en 'Reembolso Pendiente'. Una sola pasada por lote: un pago que la pasarela no puede responder ahora se reintenta en la siguiente.
+ */
+@Component
+public class ConciliacionPagos {
+
+    private static final Logger log = LoggerFactory.getLogger(ConciliacionPagos.class);
+
+    private final PagoService pagoService;
+    private final int tamanoLote;
+
+    public ConciliacionPagos(PagoService pagoService,
+            @Value("${pagos.conciliacion.tamano-lote:100}") int tamanoLote) {
+        this.pagoService = pagoService;
+        this.tamanoLote = tamanoLote;
+    }
+
+    @Scheduled(fixedDelayString = "${pagos.conciliacion.intervalo-ms:60000}",
+            initialDelayString = "${pagos.conciliacion.intervalo-ms:60000}")
+    public void conciliar() {
+        int revisados = pagoService.conciliarPendientes(tamanoLote);
+        if (revisados > 0) {
+            log.info("Conciliación de pagos: {} pagos pendientes revisados con la pasarela", revisados);
+        }
+        int reembolsos = pagoService.reembolsarPendientes(tamanoLote);
+        if (reembolsos > 0) {
+            log.info("Conciliación de pagos: {} reembolsos pendientes enviados a la pasarela", reembolsos);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.myapp.services;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.DTOs.FilaExportacionPedidoDTO;
+import com.DTOs.FormatoExportacion;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myapp.repositories.PedidoRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Exporta pedidos y sus líneas escribiendo cada fila directamente en la salida a medida que llega de la BD.
+ * La memoria usada no depende del número de pedidos exportados.
+ */
+@Service
+public class ExportacionPedidosService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportacionPedidosService.class);
+
+    private static final String CABECERA_CSV = "id_pedido,fecha_pedido,id_usuario,email_usuario,estado_pedido,estado_pago,"
+            + "monto_envio,monto_total,id_detalle_pedido,id_producto,sku,nombre_producto,cantidad,precio_unitario,subtotal_linea";
+
+    private final PedidoRepository pedidoRepository;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+    private final int filasPorLote;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ExportacionPedidosService(PedidoRepository pedidoRepository, ObjectMapper objectMapper,
+            @Value("${pedidos.exportacion.fetch-size:1000}") int fetchSize,
+            @Value("${pedidos.exportacion.filas-por-lote:1000}") int filasPorLote) {
+        this.pedidoRepository = pedidoRepository;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+        this.filasPorLote = filasPorLote;
+    }
+
+    /**
+     * Escribe las líneas de pedido del rango indicado en la salida (que no se cierra aquí).
+     * Cada lote se vuelca al cliente y se limpia el contexto de persistencia para no acumular estado.
+     *
+     * @return número de filas escritas
+     */
+    @Transactional(readOnly = true)
+    public long exportar(LocalDateTime desde, LocalDateTime hasta, FormatoExportacion formato, OutputStream salida)
+            throws IOException {
+        if (desde != null && hasta != null && !desde.isBefore(hasta)) {
+            throw new IllegalArgumentException("La fecha 'desde' debe ser anterior a 'hasta'.");
+        }
+
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8), 64 * 1024);
+        if (formato == FormatoExportacion.CSV) {
+            escritor.write(CABECERA_CSV);
+            escritor.write('\n');
+        }
+
+        long filas = 0;
+        try (Stream<FilaExportacionPedidoDTO> stream = pedidoRepository.streamExportacion(desde, hasta, fetchSize)) {
+            Iterator<FilaExportacionPedidoDTO> iterador = stream.iterator();
+            while (iterador.hasNext()) {
+                FilaExportacionPedidoDTO fila = iterador.next();
+                if (formato == FormatoExportacion.CSV) {
+                    escribirCsv(escritor, fila);
+                } else {
+                    escritor.write(objectMapper.writeValueAsString(fila));
+                }
+                escritor.write('\n');
+
+                if (++filas % filasPorLote == 0) {
+                    escritor.flush();
+                    entityManager.clear();
+                }
+            }
+        }
+        escritor.flush();
+
+        log.info("Exportación de pedidos completada: {} filas en formato {} (desde={}, hasta={})", filas, formato, desde, hasta);
+        return filas;
+    }
+
+    private void escribirCsv(Writer escritor, FilaExportacionPedidoDTO fila) throws IOException {
+        escritor.write(String.join(",",
+                texto(fila.getIdPedido()),
+                texto(fila.getFechaPedido()),
+                texto(fila.getIdUsuario()),
+                campoCsv(fila.getEmailUsuario()),
+                campoCsv(fila.getNombreEstado()),
+                campoCsv(fila.getEstadoPago()),
+                texto(fila.getMontoEnvio() != null ? fila.getMontoEnvio().toPlainString() : null),
+                texto(fila.getMontoTotal() != null ? fila.getMontoTotal().toPlainString() : null),
+                texto(fila.getIdDetallePedido()),
+                texto(fila.getIdProducto()),
+                campoCsv(fila.getSku()),
+                campoCsv(fila.getNombreProducto()),
+                texto(fila.getCantidad()),
+                texto(fila.getPrecioUnitario() != null ? fila.getPrecioUnitario().toPlainString() : null),
+                texto(fila.getSubtotalLinea() != null ? fila.getSubtotalLinea().toPlainString() : null)));
+    }
+
+    private static String texto(Object valor) {
+        return valor == null ? "" : valor.toString();
+    }
+
+    // Entre comillas solo si contiene separadores, comillas o saltos de línea (RFC 4180)
+    private static String campoCsv(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+            return valor;
+        }
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,191 @@
+package com.myapp.services;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.DTOs.FacetasCatalogoDTO;
+import com.DTOs.FiltroFacetas;
+import com.DTOs.ProductoResumenDTO;
+import com.myapp.repositories.ProductoRepository;
+import com.myapp.util.busqueda.IndiceFacetas;
+import com.myapp.util.eventos.CatalogoModificadoEvent;
+import com.myapp.util.eventos.StockReservadoModificadoEvent;
+
+/**
+ * Navegación del catálogo por facetas (categoría, precio, disponibilidad y peso) con recuentos, resuelta en memoria
+ * con IndiceFacetas: ni los filtros (incluido "productos de la categoría X") ni los recuentos consultan la BD.
+ * El índice se construye al arrancar y se mantiene con CatalogoModificadoEvent igual que la búsqueda (y también con
+ * StockReservadoModificadoEvent, porque la disponibilidad descuenta lo apartado en carritos): los productos
+ * cambiados se acumulan y el hilo 'ejecutorBusqueda' los relee por tramos y publica una versión nueva.
+ */
+@Service
+public class FacetasCatalogoService {
+
+    private static final Logger log = LoggerFactory.getLogger(FacetasCatalogoService.class);
+
+    private final ProductoRepository productoRepository;
+    private final ThreadPoolTaskExecutor ejecutorBusqueda;
+    private final BigDecimal[] limitesPrecio;
+    private final BigDecimal[] limitesPeso;
+    private final int tamanoPaginaDefecto;
+    private final int tamanoPaginaMaximo;
+    private final int tamanoTramo;
+
+    private volatile IndiceFacetas indice;
+    private volatile boolean listo;
+
+    private final Set<Long> pendientes = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean drenajeProgramado = new AtomicBoolean();
+    private final AtomicBoolean reconstruccionProgramada = new AtomicBoolean();
+
+    public FacetasCatalogoService(ProductoRepository productoRepository,
+            @Qualifier("ejecutorBusqueda") ThreadPoolTaskExecutor ejecutorBusqueda,
+            @Value("${catalogo.facetas.limites-precio:20000,50000,100000,200000,500000}") BigDecimal[] limitesPrecio,
+            @Value("${catalogo.facetas.limites-peso:0.5,1,5,20}") BigDecimal[] limitesPeso,
+            @Value("${catalogo.pagina.tamano-defecto:20}") int tamanoPaginaDefecto,
+            @Value("${catalogo.pagina.tamano-maximo:100}") int tamanoPaginaMaximo,
+            @Value("${busqueda.indice.tamano-tramo:2000}") int tamanoTramo) {
+        this.productoRepository = productoRepository;
+        this.ejecutorBusqueda = ejecutorBusqueda;
+        this.limitesPrecio = ordenados(limitesPrecio);
+        this.limitesPeso = ordenados(limitesPeso);
+        this.tamanoPaginaDefecto = tamanoPaginaDefecto;
+        this.tamanoPaginaMaximo = tamanoPaginaMaximo;
+        this.tamanoTramo = tamanoTramo;
+        this.indice = IndiceFacetas.vacio(this.limitesPrecio, this.limitesPeso);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void construirAlArrancar() {
+        programarReconstruccion();
+    }
+
+    public boolean isListo() {
+        return listo;
+    }
+
+    /**
+     * Recuentos por faceta y la página de productos de la selección (por ID, con cursor).
+     */
+    public FacetasCatalogoDTO consultar(FiltroFacetas filtro) {
+        if (!listo) {
+            throw new IllegalStateException("Las facetas del catálogo se están construyendo. Inténtelo de nuevo en unos segundos.");
+        }
+        int tamano = filtro.tamano() <= 0 ? tamanoPaginaDefecto : Math.min(filtro.tamano(), tamanoPaginaMaximo);
+        return indice.consultar(filtro, tamano);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificarCatalogo(CatalogoModificadoEvent evento) {
+        if (evento.todo()) {
+            programarReconstruccion();
+            return;
+        }
+        programarCambios(evento.idsProducto());
+    }
+
+    // La faceta de disponibilidad usa stock - reservado: apartar o liberar en un carrito la cambia
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificarStockReservado(StockReservadoModificadoEvent evento) {
+        programarCambios(evento.idsProducto());
+    }
+
+    private void programarCambios(Set<Long> idsProducto) {
+        if (idsProducto.isEmpty()) {
+            return;
+        }
+        pendientes.addAll(idsProducto);
+        if (drenajeProgramado.compareAndSet(false, true)) {
+            ejecutorBusqueda.execute(this::aplicarPendientes);
+        }
+    }
+
+    private void programarReconstruccion() {
+        if (reconstruccionProgramada.compareAndSet(false, true)) {
+            ejecutorBusqueda.execute(this::reconstruir);
+        }
+    }
+
+    private void reconstruir() {
+        reconstruccionProgramada.set(false);
+        long inicio = System.nanoTime();
+        try {
+            List<ProductoResumenDTO> productos = new ArrayList<>();
+            long despuesDeId = 0;
+            List<ProductoResumenDTO> tramo;
+            do {
+                tramo = productoRepository.findResumenActivosDespuesDe(despuesDeId, PageRequest.of(0, tamanoTramo));
+                productos.addAll(tramo);
+                if (!tramo.isEmpty()) {
+                    despuesDeId = tramo.get(tramo.size() - 1).getIdProducto();
+                }
+            } while (tramo.size() == tamanoTramo);
+
+            IndiceFacetas nuevo = IndiceFacetas.construir(productos, limitesPrecio, limitesPeso);
+            indice = nuevo;
+            listo = true;
+            log.info("Facetas del catálogo construidas: {} productos en {} ms",
+                    nuevo.totalActivos(), (System.nanoTime() - inicio) / 1_000_000);
+        } catch (RuntimeException ex) {
+            log.error("No se pudieron construir las facetas del catálogo", ex);
+        }
+    }
+
+    // Un solo cambio de versión para todos los productos acumulados; se compacta si hay muchas bajas
+    private void aplicarPendientes() {
+        drenajeProgramado.set(false);
+        Set<Long> ids = new HashSet<>();
+        for (Iterator<Long> it = pendientes.iterator(); it.hasNext(); ) {
+            ids.add(it.next());
+            it.remove();
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Long> todos = new ArrayList<>(ids);
+        try {
+            List<ProductoResumenDTO> activos = new ArrayList<>();
+            for (int desde = 0; desde < todos.size(); desde += tamanoTramo) {
+                activos.addAll(productoRepository.findResumenActivosByIdsProducto(
+                    todos.subList(desde, Math.min(desde + tamanoTramo, todos.size()))));
+            }
+            for (ProductoResumenDTO producto : activos) {
+                ids.remove(producto.getIdProducto());
+            }
+
+            IndiceFacetas nuevo = indice.conCambios(activos, ids);
+            if (nuevo.huecos() > Math.max(1000, nuevo.totalActivos() / 4)) {
+                nuevo = nuevo.compactado();
+            }
+            indice = nuevo;
+        } catch (RuntimeException ex) {
+            pendientes.addAll(todos);
+            log.error("No se pudieron actualizar {} productos en las facetas del catálogo", todos.size(), ex);
+        }
+    }
+
+    private static BigDecimal[] ordenados(BigDecimal[] limites) {
+        BigDecimal[] copia = limites.clone();
+        Arrays.sort(copia);
+        return copia;
+    }
+}
@@ -0,0 +1,526 @@
+package com.myapp.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.DTOs.ErrorFilaImportacionDTO;
+import com.DTOs.EstadoImportacionDTO;
+import com.DTOs.FilaImportacionProductoDTO;
+import com.DTOs.FormatoImportacion;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myapp.models.Categoria;
+import com.myapp.repositories.CategoriaRepository;
+import com.myapp.repositories.ProductoJdbcRepository;
+import com.myapp.util.eventos.CatalogoModificadoEvent;
+import com.myapp.util.ids.GeneradorReferencias;
+import com.myapp.util.importacion.LectorCsv;
+
+/**
+ * Importación masiva de productos desde CSV o JSON: cada fila da de alta el producto o, si su SKU ya existe,
+ * lo actualiza con los campos que trae. El fichero se lee en streaming y se escribe en lotes JDBC, cada lote
+ * en su propia transacción, así la memoria no depende del tamaño del fichero.
+ * La unicidad del SKU y las categorías se comprueban contra un conjunto y un mapa cargados al empezar,
+ * sin consultas por fila. Las filas no válidas no detienen la importación: se anotan en el estado del trabajo.
+ */
+@Service
+public class ImportacionProductosService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportacionProductosService.class);
+
+    // Límites de las columnas de 'productos' (precio DECIMAL(10,2), peso_kg DECIMAL(6,3))
+    private static final BigDecimal PRECIO_MAXIMO = new BigDecimal("99999999.99");
+    private static final BigDecimal PESO_MAXIMO = new BigDecimal("999.999");
+
+    private static final Set<String> CAMPOS = Set.of("sku", "nombreproducto", "descripcionlarga", "precio",
+        "cantidadstock", "imagenurl", "pesokg", "dimensionescm", "activo", "idcategoria", "categoria");
+
+    private final ProductoJdbcRepository productoJdbcRepository;
+    private final CategoriaRepository categoriaRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final GeneradorReferencias generadorReferencias;
+    private final ThreadPoolTaskExecutor ejecutorImportacion;
+    private final TransactionTemplate transactionTemplate;
+    private final int tamanoLote;
+    private final int maximoErrores;
+    private final int trabajosRetenidos;
+
+    // Últimos trabajos por ID, del más antiguo al más reciente
+    private final Map<String, Trabajo> trabajos = new LinkedHashMap<>();
+
+    public ImportacionProductosService(ProductoJdbcRepository productoJdbcRepository,
+            CategoriaRepository categoriaRepository, ApplicationEventPublisher eventPublisher,
+            ObjectMapper objectMapper, GeneradorReferencias generadorReferencias,
+            @Qualifier("ejecutorImportacion") ThreadPoolTaskExecutor ejecutorImportacion,
+            PlatformTransactionManager transactionManager,
+            @Value("${importacion.tamano-lote:1000}") int tamanoLote,
+            @Value("${importacion.maximo-errores:1000}") int maximoErrores,
+            @Value("${importacion.trabajos-retenidos:20}") int trabajosRetenidos) {
+        this.productoJdbcRepository = productoJdbcRepository;
+        this.categoriaRepository = categoriaRepository;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.generadorReferencias = generadorReferencias;
+        this.ejecutorImportacion = ejecutorImportacion;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tamanoLote = tamanoLote;
+        this.maximoErrores = maximoErrores;
+        this.trabajosRetenidos = trabajosRetenidos;
+    }
+
+    /**
+     * Guarda el fichero recibido y encola su importación. Devuelve sin esperar a que se procese.
+     * El fichero se vuelca antes a disco porque el cuerpo de la petición deja de estar disponible al responder.
+     */
+    public EstadoImportacionDTO iniciarImportacion(FormatoImportacion formato, InputStream contenido) throws IOException {
+        Path fichero = Files.createTempFile("importacion-productos-", ".tmp");
+        try {
+            Files.copy(contenido, fichero, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            Files.deleteIfExists(fichero);
+            throw ex;
+        }
+
+        Trabajo trabajo = new Trabajo(generadorReferencias.nueva("IMP"), formato);
+        registrar(trabajo);
+        try {
+            ejecutorImportacion.execute(() -> ejecutar(trabajo, fichero));
+        } catch (TaskRejectedException ex) {
+            synchronized (trabajos) {
+                trabajos.remove(trabajo.id);
+            }
+            Files.deleteIfExists(fichero);
+            throw new IllegalStateException("Hay demasiadas importaciones en cola. Inténtelo de nuevo más tarde.");
+        }
+        return trabajo.aDTO();
+    }
+
+    public Optional<EstadoImportacionDTO> obtenerEstado(String idTrabajo) {
+        synchronized (trabajos) {
+            return Optional.ofNullable(trabajos.get(idTrabajo)).map(Trabajo::aDTO);
+        }
+    }
+
+    private void ejecutar(Trabajo trabajo, Path fichero) {
+        trabajo.empezar();
+        try (Reader lector = Files.newBufferedReader(fichero, StandardCharsets.UTF_8)) {
+            Importacion importacion = new Importacion(trabajo);
+            if (trabajo.formato == FormatoImportacion.CSV) {
+                importarCsv(new LectorCsv(lector), importacion);
+            } else {
+                importarJson(lector, importacion);
+            }
+            importacion.escribirLote();
+            trabajo.terminar(EstadoImportacionDTO.Estado.COMPLETADA, null);
+            log.info("Importación {} completada: {} filas ({} altas, {} actualizaciones, {} con error) a {} filas/s",
+                    trabajo.id, trabajo.filasLeidas, trabajo.insertados, trabajo.actualizados, trabajo.filasConError,
+                    Math.round(trabajo.filasPorSegundo()));
+        } catch (IOException | RuntimeException ex) {
+            // Los lotes ya escritos se quedan: el mismo fichero puede volver a importarse (las filas repetidas actualizan)
+            trabajo.terminar(EstadoImportacionDTO.Estado.FALLIDA, ex.getMessage());
+            log.error("Importación {} interrumpida tras {} filas", trabajo.id, trabajo.filasLeidas, ex);
+        } finally {
+            try {
+                Files.deleteIfExists(fichero);
+            } catch (IOException ex) {
+                log.warn("No se pudo borrar el fichero temporal {}", fichero, ex);
+            }
+            if (trabajo.insertados + trabajo.actualizados > 0) {
+                // Un solo aviso para toda la importación: las cachés e índices del catálogo se reconstruyen una vez
+                eventPublisher.publishEvent(CatalogoModificadoEvent.completo());
+            }
+        }
+    }
+
+    private void importarCsv(LectorCsv lector, Importacion importacion) throws IOException {
+        List<String> cabecera = lector.siguienteRegistro();
+        if (cabecera == null) {
+            return;
+        }
+        Map<String, Integer> columnas = new HashMap<>();
+        for (int i = 0; i < cabecera.size(); i++) {
+            String campo = nombreCampo(cabecera.get(i));
+            if (!CAMPOS.contains(campo)) {
+                throw new IllegalArgumentException("Columna desconocida en la cabecera: '" + cabecera.get(i) + "'.");
+            }
+            columnas.put(campo, i);
+        }
+        if (!columnas.containsKey("sku")) {
+            throw new IllegalArgumentException("La cabecera debe incluir la columna 'sku'.");
+        }
+
+        long fila = 0;
+        List<String> registro;
+        while ((registro = lector.siguienteRegistro()) != null) {
+            fila++;
+            if (registro.size() != cabecera.size()) {
+                importacion.rechazar(fila, "La fila tiene " + registro.size()
+                    + " columnas y la cabecera " + cabecera.size() + " (línea " + lector.lineaRegistro() + ").");
+                continue;
+            }
+            List<String> valores = registro;
+            importacion.procesar(fila, campo -> {
+                Integer columna = columnas.get(campo);
+                return columna != null ? valores.get(columna) : null;
+            });
+        }
+    }
+
+    // Admite un array de objetos o un objeto por línea (NDJSON); solo se tiene en memoria el objeto actual
+    private void importarJson(Reader lector, Importacion importacion) throws IOException {
+        try (MappingIterator<JsonNode> iterador = objectMapper.readerFor(JsonNode.class).readValues(lector)) {
+            long fila = 0;
+            while (iterador.hasNextValue()) {
+                JsonNode nodo = iterador.nextValue();
+                fila++;
+                if (!nodo.isObject()) {
+                    importacion.rechazar(fila, "Se esperaba un objeto JSON por producto.");
+                    continue;
+                }
+                Map<String, String> valores = new HashMap<>();
+                for (Iterator<Map.Entry<String, JsonNode>> it = nodo.fields(); it.hasNext(); ) {
+                    Map.Entry<String, JsonNode> campo = it.next();
+                    JsonNode valor = campo.getValue();
+                    if (!valor.isNull()) {
+                        valores.put(nombreCampo(campo.getKey()),
+                            valor.isNumber() ? valor.decimalValue().toPlainString() : valor.asText());
+                    }
+                }
+                importacion.procesar(fila, valores::get);
+            }
+        }
+    }
+
+    // "nombre_producto", "nombreProducto" y "Nombre Producto" son el mismo campo
+    private static String nombreCampo(String nombre) {
+        return nombre == null ? "" : nombre.replace("_", "").replace(" ", "").toLowerCase(Locale.ROOT);
+    }
+
+    private void registrar(Trabajo trabajo) {
+        synchronized (trabajos) {
+            trabajos.put(trabajo.id, trabajo);
+            Iterator<Trabajo> it = trabajos.values().iterator();
+            while (trabajos.size() > trabajosRetenidos && it.hasNext()) {
+                if (it.next().terminado()) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Estado de una ejecución: SKU conocidos, categorías y el lote en curso. Solo lo usa el hilo de la importación.
+     */
+    private final class Importacion {
+
+        private final Trabajo trabajo;
+        private final Set<String> skus;
+        private final Set<Integer> idsCategoria = new HashSet<>();
+        private final Map<String, Integer> categoriasPorNombre = new HashMap<>();
+
+        private final List<FilaImportacionProductoDTO> altas = new ArrayList<>();
+        private final List<Long> filasAltas = new ArrayList<>();
+        private final Set<String> skusEnAlta = new HashSet<>();
+        private final List<FilaImportacionProductoDTO> cambios = new ArrayList<>();
+        private final List<Long> filasCambios = new ArrayList<>();
+
+        private Importacion(Trabajo trabajo) {
+            this.trabajo = trabajo;
+            this.skus = productoJdbcRepository.cargarSkus();
+            for (Categoria categoria : categoriaRepository.findAll()) {
+                idsCategoria.add(categoria.getIdCategoria());
+                categoriasPorNombre.put(categoria.getNombreCategoria().trim().toLowerCase(Locale.ROOT), categoria.getIdCategoria());
+            }
+        }
+
+        private void procesar(long fila, Function<String, String> valor) {
+            trabajo.filasLeidas++;
+            String sku = null;
+            try {
+                sku = texto(valor, "sku", 100);
+                if (sku == null) {
+                    throw new IllegalArgumentException("El SKU es obligatorio.");
+                }
+                // Un SKU repetido en el fichero actualiza con lo que traiga la fila posterior
+                boolean alta = !skus.contains(sku) && !skusEnAlta.contains(sku);
+                FilaImportacionProductoDTO producto = validar(sku, valor, alta);
+                if (alta) {
+                    altas.add(producto);
+                    filasAltas.add(fila);
+                    skusEnAlta.add(sku);
+                } else {
+                    cambios.add(producto);
+                    filasCambios.add(fila);
+                }
+            } catch (IllegalArgumentException ex) {
+                trabajo.anotarError(fila, sku, ex.getMessage());
+            }
+            if (altas.size() + cambios.size() >= tamanoLote) {
+                escribirLote();
+            }
+        }
+
+        // Fila que no se puede ni interpretar (columnas que no cuadran, JSON que no es un objeto)
+        private void rechazar(long fila, String motivo) {
+            trabajo.filasLeidas++;
+            trabajo.anotarError(fila, null, motivo);
+        }
+
+        // En un alta son obligatorios nombre, precio, stock y categoría; en una actualización, ninguno
+        private FilaImportacionProductoDTO validar(String sku, Function<String, String> valor, boolean alta) {
+            String nombre = texto(valor, "nombreproducto", 255);
+            BigDecimal precio = decimal(valor, "precio", PRECIO_MAXIMO, 2);
+            Integer stock = entero(valor, "cantidadstock");
+            Integer idCategoria = categoria(valor);
+            if (alta && (nombre == null || precio == null || stock == null || idCategoria == null)) {
+                throw new IllegalArgumentException(
+                    "Para dar de alta un producto son obligatorios nombre_producto, precio, cantidad_stock y la categoría.");
+            }
+            return new FilaImportacionProductoDTO(sku, nombre, texto(valor, "descripcionlarga", Integer.MAX_VALUE),
+                precio, stock, texto(valor, "imagenurl", Integer.MAX_VALUE), decimal(valor, "pesokg", PESO_MAXIMO, 3),
+                texto(valor, "dimensionescm", 100), booleano(valor, "activo"), idCategoria);
+        }
+
+        private Integer categoria(Function<String, String> valor) {
+            Integer idCategoria = entero(valor, "idcategoria");
+            if (idCategoria != null) {
+                if (!idsCategoria.contains(idCategoria)) {
+                    throw new IllegalArgumentException("Categoría no encontrada con ID: " + idCategoria);
+                }
+                return idCategoria;
+            }
+            String nombre = texto(valor, "categoria", Integer.MAX_VALUE);
+            if (nombre == null) {
+                return null;
+            }
+            Integer porNombre = categoriasPorNombre.get(nombre.toLowerCase(Locale.ROOT));
+            if (porNombre == null) {
+                throw new IllegalArgumentException("Categoría no encontrada: " + nombre);
+            }
+            return porNombre;
+        }
+
+        // Un lote por transacción; si falla (ej. un SKU dado de alta por otro proceso) se repite fila a fila
+        private void escribirLote() {
+            if (altas.isEmpty() && cambios.isEmpty()) {
+                return;
+            }
+            LocalDateTime ahora = LocalDateTime.now();
+            try {
+                int[] afectadas = transactionTemplate.execute(estado -> {
+                    productoJdbcRepository.insertarLote(altas, ahora);
+                    return productoJdbcRepository.actualizarLotePorSku(cambios, ahora);
+                });
+                trabajo.insertados += altas.size();
+                skus.addAll(skusEnAlta);
+                anotarActualizaciones(afectadas, filasCambios, cambios);
+            } catch (DataAccessException ex) {
+                log.warn("Importación {}: lote rechazado por la BD, se reintenta fila a fila ({})",
+                        trabajo.id, ex.getMostSpecificCause().getMessage());
+                escribirFilaAFila(ahora);
+            }
+            altas.clear();
+            filasAltas.clear();
+            skusEnAlta.clear();
+            cambios.clear();
+            filasCambios.clear();
+        }
+
+        private void escribirFilaAFila(LocalDateTime ahora) {
+            for (int i = 0; i < altas.size(); i++) {
+                FilaImportacionProductoDTO producto = altas.get(i);
+                try {
+                    transactionTemplate.executeWithoutResult(
+                        estado -> productoJdbcRepository.insertarLote(List.of(producto), ahora));
+                    trabajo.insertados++;
+                    skus.add(producto.sku());
+                } catch (DataAccessException ex) {
+                    trabajo.anotarError(filasAltas.get(i), producto.sku(), ex.getMostSpecificCause().getMessage());
+                }
+            }
+            for (int i = 0; i < cambios.size(); i++) {
+                FilaImportacionProductoDTO producto = cambios.get(i);
+                try {
+                    int[] afectadas = transactionTemplate.execute(
+                        estado -> productoJdbcRepository.actualizarLotePorSku(List.of(producto), ahora));
+                    anotarActualizaciones(afectadas, filasCambios.subList(i, i + 1), List.of(producto));
+                } catch (DataAccessException ex) {
+                    trabajo.anotarError(filasCambios.get(i), producto.sku(), ex.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+
+        // 0 filas afectadas: el stock es menor que lo reservado en carritos, o el SKU era de una alta de este fichero que falló
+        private void anotarActualizaciones(int[] afectadas, List<Long> filas, List<FilaImportacionProductoDTO> productos) {
+            for (int i = 0; i < afectadas.length; i++) {
+                String sku = productos.get(i).sku();
+                if (afectadas[i] == 0) {
+                    trabajo.anotarError(filas.get(i), sku, skus.contains(sku)
+                        ? "La cantidad_stock es menor que las unidades reservadas en carritos."
+                        : "No existe ningún producto con el SKU: " + sku);
+                } else {
+                    trabajo.actualizados++;
+                }
+            }
+        }
+    }
+
+    // Texto sin espacios en los extremos; vacío = no informado
+    private static String texto(Function<String, String> valor, String campo, int longitudMaxima) {
+        String texto = valor.apply(campo);
+        if (texto == null || texto.isBlank()) {
+            return null;
+        }
+        texto = texto.strip();
+        if (texto.length() > longitudMaxima) {
+            throw new IllegalArgumentException("El campo '" + campo + "' supera los " + longitudMaxima + " caracteres.");
+        }
+        return texto;
+    }
+
+    private static BigDecimal decimal(Function<String, String> valor, String campo, BigDecimal maximo, int decimales) {
+        String texto = texto(valor, campo, 40);
+        if (texto == null) {
+            return null;
+        }
+        BigDecimal numero;
+        try {
+            numero = new BigDecimal(texto).setScale(decimales, RoundingMode.HALF_UP);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("El campo '" + campo + "' no es un número: " + texto);
+        }
+        if (numero.signum() < 0 || numero.compareTo(maximo) > 0) {
+            throw new IllegalArgumentException("El campo '" + campo + "' debe estar entre 0 y " + maximo.toPlainString() + ".");
+        }
+        return numero;
+    }
+
+    private static Integer entero(Function<String, String> valor, String campo) {
+        String texto = texto(valor, campo, 20);
+        if (texto == null) {
+            return null;
+        }
+        try {
+            int numero = Integer.parseInt(texto);
+            if (numero < 0) {
+                throw new IllegalArgumentException("El campo '" + campo + "' no puede ser negativo.");
+            }
+            return numero;
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("El campo '" + campo + "' no es un número entero: " + texto);
+        }
+    }
+
+    private static Boolean booleano(Function<String, String> valor, String campo) {
+        String texto = texto(valor, campo, 10);
+        if (texto == null) {
+            return null;
+        }
+        return switch (texto.toLowerCase(Locale.ROOT)) {
+            case "true", "1", "si", "sí" -> Boolean.TRUE;
+            case "false", "0", "no" -> Boolean.FALSE;
+            default -> throw new IllegalArgumentException("El campo '" + campo + "' debe ser true/false: " + texto);
+        };
+    }
+
+    /**
+     * Progreso de un trabajo. Los contadores solo los escribe el hilo de la importación; las consultas los leen.
+     */
+    private final class Trabajo {
+
+        private final String id;
+        private final FormatoImportacion formato;
+        private volatile EstadoImportacionDTO.Estado estado = EstadoImportacionDTO.Estado.EN_COLA;
+        private volatile long filasLeidas;
+        private volatile long insertados;
+        private volatile long actualizados;
+        private volatile long filasConError;
+        private volatile LocalDateTime inicio;
+        private volatile LocalDateTime fin;
+        private volatile long inicioNanos;
+        private volatile long finNanos;
+        private volatile String mensaje;
+        private final List<ErrorFilaImportacionDTO> errores = new ArrayList<>();
+
+        private Trabajo(String id, FormatoImportacion formato) {
+            this.id = id;
+            this.formato = formato;
+        }
+
+        private void empezar() {
+            inicio = LocalDateTime.now();
+            inicioNanos = System.nanoTime();
+            estado = EstadoImportacionDTO.Estado.EN_CURSO;
+        }
+
+        private void terminar(EstadoImportacionDTO.Estado estadoFinal, String mensajeFinal) {
+            fin = LocalDateTime.now();
+            finNanos = System.nanoTime();
+            mensaje = mensajeFinal;
+            estado = estadoFinal;
+        }
+
+        private boolean terminado() {
+            return estado == EstadoImportacionDTO.Estado.COMPLETADA || estado == EstadoImportacionDTO.Estado.FALLIDA;
+        }
+
+        private void anotarError(long fila, String sku, String motivo) {
+            filasConError++;
+            synchronized (errores) {
+                if (errores.size() < maximoErrores) {
+                    errores.add(new ErrorFilaImportacionDTO(fila, sku, motivo));
+                }
+            }
+        }
+
+        private double filasPorSegundo() {
+            if (inicio == null) {
+                return 0;
+            }
+            long nanos = (terminado() ? finNanos : System.nanoTime()) - inicioNanos;
+            return nanos <= 0 ? 0 : filasLeidas * 1_000_000_000.0 / nanos;
+        }
+
+        private EstadoImportacionDTO aDTO() {
+            List<ErrorFilaImportacionDTO> copiaErrores;
+            synchronized (errores) {
+                copiaErrores = List.copyOf(errores);
+            }
+            return new EstadoImportacionDTO(id, estado, formato, filasLeidas, insertados, actualizados, filasConError,
+                Math.round(filasPorSegundo() * 10) / 10.0, inicio, fin, mensaje, copiaErrores);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.myapp.services;
+
+import static com.myapp.models.EstadoPedidoTipo.CANCELADO;
+import static com.myapp.models.EstadoPedidoTipo.ENTREGADO;
+import static com.myapp.models.EstadoPedidoTipo.ENVIADO;
+import static com.myapp.models.EstadoPedidoTipo.PAGADO;
+import static com.myapp.models.EstadoPedidoTipo.PENDIENTE;
+import static com.myapp.models.EstadoPedidoTipo.PENDIENTE_PAGO;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.myapp.models.EstadoPedidoTipo;
+
+/**
+ * Transiciones permitidas entre estados de pedido, declaradas en un único sitio.
+ * Cualquier cambio de estado (admin, cancelación del cliente, pago, lote) se valida aquí.
+ */
+public final class MaquinaEstadosPedido {
+
+    private static final Map<EstadoPedidoTipo, Set<EstadoPedidoTipo>> TRANSICIONES = new EnumMap<>(EstadoPedidoTipo.class);
+
+    static {
+        permitir(PENDIENTE, PENDIENTE_PAGO, CANCELADO);
+        permitir(PENDIENTE_PAGO, PAGADO, CANCELADO);
+        permitir(PAGADO, ENVIADO, CANCELADO);
+        permitir(ENVIADO, ENTREGADO);
+        permitir(ENTREGADO);
+        permitir(CANCELADO);
+    }
+
+    // Destinos que devuelven al stock las unidades del pedido (efecto de la transición)
+    private static final Set<EstadoPedidoTipo> REPONEN_STOCK = EnumSet.of(CANCELADO);
+
+    // Estados desde los que el propio cliente puede cancelar. Un pedido pagado solo lo cancela la tienda
+    private static final Set<EstadoPedidoTipo> CANCELABLES_POR_CLIENTE = EnumSet.of(PENDIENTE, PENDIENTE_PAGO);
+
+    // Orígenes cuyo cobro se devuelve al cancelar (efecto de la transición): el pago pasa a 'Reembolso Pendiente'
+    private static final Set<EstadoPedidoTipo> REEMBOLSAN_AL_CANCELAR = EnumSet.of(PAGADO);
+
+    private MaquinaEstadosPedido() {
+    }
+
+    public static boolean permitida(EstadoPedidoTipo origen, EstadoPedidoTipo destino) {
+        return destinos(origen).contains(destino);
+    }
+
+    public static Set<EstadoPedidoTipo> destinos(EstadoPedidoTipo origen) {
+        return TRANSICIONES.getOrDefault(origen, Set.of());
+    }
+
+    public static boolean reponeStock(EstadoPedidoTipo destino) {
+        return REPONEN_STOCK.contains(destino);
+    }
+
+    public static boolean cancelablePorCliente(EstadoPedidoTipo origen) {
+        return CANCELABLES_POR_CLIENTE.contains(origen);
+    }
+
+    public static boolean reembolsaPago(EstadoPedidoTipo origen, EstadoPedidoTipo destino) {
+        return destino == CANCELADO && REEMBOLSAN_AL_CANCELAR.contains(origen);
+    }
+
+    private static void permitir(EstadoPedidoTipo origen, EstadoPedidoTipo... destinos) {
+        Set<EstadoPedidoTipo> permitidos = EnumSet.noneOf(EstadoPedidoTipo.class);
+        Collections.addAll(permitidos, destinos);
+        TRANSICIONES.put(origen, Collections.unmodifiableSet(permitidos));
+    }
+}
@@ -1,108 +1,292 @@
 package com.myapp.services;
 
+import static com.myapp.models.Pago.APROBADO;
+import static com.myapp.models.Pago.PENDIENTE;
+import static com.myapp.models.Pago.RECHAZADO;
+import static com.myapp.models.Pago.REEMBOLSADO;
+import static com.myapp.models.Pago.REEMBOLSO_PENDIENTE;
+
+import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.Random;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.DTOs.EstadoPagoDTO;
 import com.DTOs.PaymentRequest;
-import com.myapp.models.EstadoPedido;
+import com.myapp.models.EstadoPedidoTipo;
 import com.myapp.models.MetodoPago;
 import com.myapp.models.Pago;
 import com.myapp.models.Pedido;
-import com.myapp.repositories.EstadoPedidoRepository;
-import com.myapp.repositories.MetodoPagoRepository;
 import com.myapp.repositories.PagoRepository;
 import com.myapp.repositories.PedidoRepository;
 
+/**
+ * Pago en dos fases para no retener una conexión de la BD (ni el bloqueo del pedido) durante la llamada externa:
+ * 1. aceptarPago: transacción corta que valida y guarda el Pago en 'Pendiente'; el cliente recibe 202 al momento.
+ * 2. La pasarela se llama en el pool 'ejecutorPagos' y, al responder, completarPago actualiza Pago y Pedido
+ *    en otra transacción corta. El cliente consulta el resultado con obtenerEstadoPago.
+ * Sin respuesta no se sabe si se cobró, así que el pago nunca se da por rechazado a ciegas: sigue en 'Pendiente'
+ * (el pedido no admite otro pago) hasta que llega la respuesta o conciliarPendientes pregunta a la pasarela.
+ * Un cobro aprobado que ya no se puede aplicar (el pago se cerró como fallido, el pedido se canceló) y el de un
+ * pedido pagado que la tienda cancela quedan en 'Reembolso Pendiente' hasta que reembolsarPendientes los devuelve.
+ */
 @Service
 public class PagoService {
 
+    private static final Logger log = LoggerFactory.getLogger(PagoService.class);
+
     private final PedidoRepository pedidoRepository;
     private final PagoRepository pagoRepository;
-    private final MetodoPagoRepository metodoPagoRepository;
-    private final EstadoPedidoRepository estadoPedidoRepository;
+    private final RegistroDatosReferencia registroDatosReferencia;
+    private final TransicionEstadoPedidoService transicionEstadoPedidoService;
+    private final PasarelaPago pasarelaPago;
+    private final ThreadPoolTaskExecutor ejecutorPagos;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration timeoutPasarela;
 
-    public PagoService(PedidoRepository pedidoRepository, PagoRepository pagoRepository, 
-                       MetodoPagoRepository metodoPagoRepository, EstadoPedidoRepository estadoPedidoRepository) {
+    public PagoService(PedidoRepository pedidoRepository, PagoRepository pagoRepository,
+                       RegistroDatosReferencia registroDatosReferencia, TransicionEstadoPedidoService transicionEstadoPedidoService,
+                       PasarelaPago pasarelaPago, @Qualifier("ejecutorPagos") ThreadPoolTaskExecutor ejecutorPagos,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${pagos.pasarela.timeout-ms:30000}") long timeoutPasarelaMs) {
         this.pedidoRepository = pedidoRepository;
         this.pagoRepository = pagoRepository;
-        this.metodoPagoRepository = metodoPagoRepository;
-        this.estadoPedidoRepository = estadoPedidoRepository;
+        this.registroDatosReferencia = registroDatosReferencia;
+        this.transicionEstadoPedidoService = transicionEstadoPedidoService;
+        this.pasarelaPago = pasarelaPago;
+        this.ejecutorPagos = ejecutorPagos;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.timeoutPasarela = Duration.ofMillis(timeoutPasarelaMs);
     }
 
     /**
-     * Procesa el pago simulado para un pedido.
+     * Acepta el pago de un pedido: lo registra en 'Pendiente' y lanza la llamada a la pasarela en segundo plano.
+     * Devuelve sin esperar a la pasarela. Si el pool de pagos está saturado el pago se rechaza y se lanza
+     * TaskRejectedException (el cliente puede reintentar).
      */
-    @Transactional
-    public Pago procesarPago(Long idUsuario, PaymentRequest request) {
-        
-        // --- 1. Validar el Pedido ---
-        Pedido pedido = pedidoRepository.findByIdPedidoAndUsuario_IdUsuario(
+    public EstadoPagoDTO procesarPago(Long idUsuario, PaymentRequest request) {
+        Pago pago = transactionTemplate.execute(estado -> aceptarPago(idUsuario, request));
+
+        Long idPago = pago.getIdPago();
+        Long idPedido = request.getIdPedido();
+        BigDecimal monto = pago.getMonto();
+        try {
+            // Sin orTimeout: la respuesta se aplica llegue cuando llegue (una tardía no se pierde) y de los pagos que
+            // tardan más de timeoutPasarela se encarga la conciliación. La continuación va al pool de pagos
+            CompletableFuture
+                .supplyAsync(() -> pasarelaPago.autorizar(idPago, idPedido, monto, request.getTokenPagoExterno()), ejecutorPagos)
+                .whenCompleteAsync((resultado, error) -> {
+                    if (error != null) {
+                        // Error de red o de la pasarela: el cobro pudo hacerse o no, lo resuelve la conciliación
+                        log.warn("Pago {} del pedido {} sin respuesta válida de la pasarela, queda para conciliar: {}",
+                                idPago, idPedido, error.toString());
+                    } else {
+                        completarPago(idPago, resultado.aprobado(), resultado.referencia(), null);
+                    }
+                }, ejecutorPagos);
+        } catch (TaskRejectedException ex) {
+            // Pool y cola llenos: el pago no llega a la pasarela y el pedido sigue esperando pago
+            // El controlador responde 503 con Retry-After (no es un error de la petición)
+            completarPago(idPago, false, null, "Pasarela de pago saturada.");
+            throw ex;
+        }
+
+        return aDTO(pago, idPedido);
+    }
+
+    // Fase 1 (transacción corta): validaciones y registro del Pago en 'Pendiente'
+    private Pago aceptarPago(Long idUsuario, PaymentRequest request) {
+
+        // --- 1. Validar el Pedido (bloqueado hasta el final de esta transacción corta) ---
+        Pedido pedido = pedidoRepository.findParaActualizarByIdPedidoAndUsuario_IdUsuario(
             request.getIdPedido(), idUsuario)
             .orElseThrow(() -> new IllegalArgumentException("Pedido no encontrado o no pertenece al usuario."));
-            
-        // Validar que el pedido esté en estado "Pendiente Pago" (Asumimos ID 1)
-        if (!pedido.getEstadoPedido().getIdEstadoPedido().equals(1)) { // ID 1 para 'Pendiente Pago'
-            throw new IllegalStateException("El pedido no está en estado de 'Pendiente Pago'. Estado actual: " + pedido.getEstadoPedido().getNombreEstado());
+
+        // Validar que el pedido esté en estado "Pendiente Pago"
+        if (!EstadoPedidoTipo.PENDIENTE_PAGO.corresponde(pedido.getEstadoPedido())) {
+            throw new IllegalStateException("El pedido no está en estado de 'Pendiente Pago'. Estado actual: " + registroDatosReferencia.nombreEstado(pedido.getEstadoPedido()));
+        }
+
+        // Un solo pago en curso por pedido (los reintentos del cliente no llaman dos veces a la pasarela)
+        if (pagoRepository.existsByPedido_IdPedidoAndEstado(pedido.getIdPedido(), PENDIENTE)) {
+            throw new IllegalStateException("El pedido ya tiene un pago en proceso.");
         }
-        
+
         // Validar que el monto del pago coincida con el monto total del pedido
         if (pedido.getMontoTotal().compareTo(request.getMonto().setScale(2, RoundingMode.HALF_UP)) != 0) {
             throw new IllegalArgumentException("El monto del pago (" + request.getMonto() + ") no coincide con el monto total del pedido (" + pedido.getMontoTotal() + ").");
         }
 
         // --- 2. Validar Método de Pago ---
-        MetodoPago metodoPago = metodoPagoRepository.findById(request.getIdMetodoPago())
-            .orElseThrow(() -> new IllegalArgumentException("Método de pago no válido."));
-            
-        // --- 3. Simulación de la Transacción Externa ---
-        boolean pagoExitoso = simularTransaccion(); // Lógica de simulación
-
-        // --- 4. Determinar Estado y Referencia ---
-        String estadoPago;
-        String referencia = "REF-" + System.currentTimeMillis();
-        Integer idNuevoEstadoPedido;
-        
-        if (pagoExitoso) {
-            estadoPago = "Aprobado";
-            idNuevoEstadoPedido = 2; // ID 2 = Pagado
-        } else {
-            estadoPago = "Rechazado";
-            idNuevoEstadoPedido = 1; // ID 1 = Pendiente Pago (mantiene el estado)
-            referencia = "FALLO-" + System.currentTimeMillis();
-        }
-        
-        // --- 5. Crear el Registro de Pago ---
+        MetodoPago metodoPago = registroDatosReferencia.referenciaMetodoPago(request.getIdMetodoPago());
+
+        // --- 3. Crear el Registro de Pago (pendiente de la pasarela) ---
         Pago nuevoPago = new Pago();
         nuevoPago.setPedido(pedido);
         nuevoPago.setMetodoPago(metodoPago);
         nuevoPago.setMonto(request.getMonto().setScale(2, RoundingMode.HALF_UP));
-        nuevoPago.setEstado(estadoPago);
-        nuevoPago.setReferenciaTransaccion(referencia);
-        
-        Pago pagoGuardado = pagoRepository.save(nuevoPago);
-
-        // --- 6. Actualizar el Pedido ---
-        EstadoPedido nuevoEstado = estadoPedidoRepository.findById(idNuevoEstadoPedido)
-            .orElseThrow(() -> new IllegalStateException("Estado de pedido ID " + idNuevoEstadoPedido + " no encontrado."));
-            
-        pedido.setEstadoPedido(nuevoEstado);
-        pedido.setEstadoPago(estadoPago); // Actualiza el campo de estado de pago en el pedido
-        pedido.setReferenciaPago(referencia); // Guarda la referencia de la transacción
-        
-        pedidoRepository.save(pedido);
-
-        return pagoGuardado;
+        nuevoPago.setEstado(PENDIENTE);
+
+        return pagoRepository.save(nuevoPago);
     }
-    
+
     /**
-     * Simula la llamada a una pasarela de pago externa. 
-     * Retorna true (éxito) o false (fallo).
+     * Fase 2 (transacción corta): aplica la respuesta de la pasarela al Pago y al Pedido.
+     * Es idempotente: un pago que ya no está en 'Pendiente' no se vuelve a tocar, salvo un cobro aprobado que llega
+     * cuando el pago ya se había cerrado como fallido, que pasa a 'Reembolso Pendiente'.
      */
-    private boolean simularTransaccion() {
-        // Simulación: 80% de probabilidad de éxito
-        return new Random().nextInt(100) < 80;
+    private void completarPago(Long idPago, boolean aprobado, String referencia, String detalleError) {
+        try {
+            transactionTemplate.executeWithoutResult(estado -> {
+                Pago pago = pagoRepository.findById(idPago)
+                    .orElseThrow(() -> new IllegalStateException("Pago ID " + idPago + " no encontrado."));
+                if (!PENDIENTE.equals(pago.getEstado())) {
+                    if (aprobado && RECHAZADO.equals(pago.getEstado())) {
+                        marcarParaReembolso(pago, referencia, "Cobro aprobado después de dar el pago por fallido.");
+                    }
+                    return;
+                }
+
+                Pedido pedido = pedidoRepository.findParaActualizarByIdPedido(pago.getPedido().getIdPedido())
+                    .orElseThrow(() -> new IllegalStateException("Pedido del pago " + idPago + " no encontrado."));
+                if (aprobado && !EstadoPedidoTipo.PENDIENTE_PAGO.corresponde(pedido.getEstadoPedido())) {
+                    // El pedido cambió mientras se cobraba (ej. la tienda lo canceló): el cobro no se aplica, se devuelve
+                    marcarParaReembolso(pago, referencia, "Cobro aprobado con el pedido en estado '"
+                        + registroDatosReferencia.nombreEstado(pedido.getEstadoPedido()) + "'.");
+                    return;
+                }
+
+                // --- 4. Determinar Estado ---
+                String estadoPago = aprobado ? APROBADO : RECHAZADO;
+                pago.setEstado(estadoPago);
+                pago.setReferenciaTransaccion(referencia);
+                pago.setDatosAdicionales(detalleError);
+                if (!EstadoPedidoTipo.PENDIENTE_PAGO.corresponde(pedido.getEstadoPedido())) {
+                    // Rechazado con el pedido ya fuera de 'Pendiente Pago': no hay nada que cambiar en él
+                    return;
+                }
+
+                // --- 5. Actualizar el Pedido ---
+                // Rechazado: se mantiene en 'Pendiente Pago' para poder reintentar
+                if (aprobado) {
+                    transicionEstadoPedidoService.transicionar(pedido, EstadoPedidoTipo.PAGADO);
+                }
+                pedido.setEstadoPago(estadoPago); // Actualiza el campo de estado de pago en el pedido
+                pedido.setReferenciaPago(referencia); // Guarda la referencia de la transacción
+            });
+        } catch (RuntimeException ex) {
+            // Se ejecuta en un hilo del pool: sin este log el fallo se perdería
+            log.error("No se pudo completar el pago {}", idPago, ex);
+        }
+    }
+
+    private static void marcarParaReembolso(Pago pago, String referencia, String motivo) {
+        log.warn("Pago {}: {} Queda pendiente de reembolso (ref. {})", pago.getIdPago(), motivo, referencia);
+        pago.setEstado(REEMBOLSO_PENDIENTE);
+        pago.setReferenciaTransaccion(referencia);
+        pago.setDatosAdicionales(motivo);
+    }
+
+    /**
+     * Resuelve un lote de pagos que llevan en 'Pendiente' más que el tiempo de espera de la pasarela
+     * (respuesta perdida por un error de red, caída de la aplicación entre las dos fases...) preguntando
+     * a la pasarela por cada uno. Si la pasarela no lo recibió, el pago se rechaza y el pedido admite otro.
+     *
+     * @return número de pagos revisados (si es igual al lote, probablemente queden más)
+     */
+    public int conciliarPendientes(int tamanoLote) {
+        List<Long> idsPago = pagoRepository.findIdsByEstadoAnterioresA(PENDIENTE,
+            LocalDateTime.now().minus(timeoutPasarela), PageRequest.of(0, tamanoLote));
+        for (Long idPago : idsPago) {
+            Optional<PasarelaPago.Resultado> resultado;
+            try {
+                resultado = pasarelaPago.consultar(idPago);
+            } catch (RuntimeException ex) {
+                log.warn("No se pudo consultar el pago {} en la pasarela, se reintentará: {}", idPago, ex.toString());
+                continue;
+            }
+            if (resultado.isPresent()) {
+                completarPago(idPago, resultado.get().aprobado(), resultado.get().referencia(), null);
+            } else {
+                completarPago(idPago, false, null, "El pago no llegó a la pasarela.");
+            }
+        }
+        return idsPago.size();
+    }
+
+    /**
+     * Devuelve en la pasarela un lote de cobros en 'Reembolso Pendiente' (pedido pagado cancelado por la tienda,
+     * cobro aprobado que ya no se podía aplicar) y los deja en 'Reembolsado'. Si la pasarela falla, el pago sigue
+     * pendiente con el error anotado y se reintenta en la siguiente pasada: esos pagos son los que hay que revisar.
+     *
+     * @return número de pagos revisados (si es igual al lote, probablemente queden más)
+     */
+    public int reembolsarPendientes(int tamanoLote) {
+        List<Pago> pagos = pagoRepository.findByEstadoOrderByIdPago(REEMBOLSO_PENDIENTE, PageRequest.of(0, tamanoLote));
+        for (Pago pago : pagos) {
+            Long idPago = pago.getIdPago();
+            String fallo = anularEnPasarela(pago);
+            try {
+                transactionTemplate.executeWithoutResult(estado -> {
+                    Pago actual = pagoRepository.findById(idPago).orElse(null);
+                    if (actual == null || !REEMBOLSO_PENDIENTE.equals(actual.getEstado())) {
+                        return;
+                    }
+                    if (fallo != null) {
+                        actual.setDatosAdicionales(fallo);
+                        return;
+                    }
+                    actual.setEstado(REEMBOLSADO);
+                    // El estado de pago del pedido solo cambia si era este cobro el que lo tenía pendiente de reembolso
+                    Pedido pedido = actual.getPedido();
+                    if (REEMBOLSO_PENDIENTE.equals(pedido.getEstadoPago())) {
+                        pedido.setEstadoPago(REEMBOLSADO);
+                    }
+                });
+            } catch (RuntimeException ex) {
+                log.error("No se pudo registrar el reembolso del pago {}", idPago, ex);
+            }
+        }
+        return pagos.size();
+    }
+
+    // Fuera de la transacción: es una llamada externa (idempotente por idPago, repetirla es seguro).
+    // Devuelve null si la pasarela devolvió el cobro, o la nota del fallo
+    private String anularEnPasarela(Pago pago) {
+        try {
+            pasarelaPago.anular(pago.getIdPago(), pago.getReferenciaTransaccion());
+            return null;
+        } catch (RuntimeException ex) {
+            log.warn("No se pudo reembolsar el pago {} en la pasarela, se reintentará: {}", pago.getIdPago(), ex.toString());
+            return "Reembolso fallido, se reintentará: " + ex.getMessage();
+        }
+    }
+
+    /**
+     * Estado actual de un pago del usuario (para consultar el resultado tras el 202).
+     */
+    @Transactional(readOnly = true)
+    public Optional<EstadoPagoDTO> obtenerEstadoPago(Long idPago, Long idUsuario) {
+        return pagoRepository.findEstadoByIdPagoAndIdUsuario(idPago, idUsuario);
+    }
+
+    private static EstadoPagoDTO aDTO(Pago pago, Long idPedido) {
+        return new EstadoPagoDTO(pago.getIdPago(), idPedido, pago.getEstado(), pago.getMonto(),
+            pago.getReferenciaTransaccion(), pago.getFechaPago());
     }
 }
@@ -0,0 +1,28 @@
+package com.myapp.services;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+/**
+ * Llamada a la pasarela de pago externa. Es bloqueante y puede tardar: PagoService la ejecuta
+ * fuera de cualquier transacción, en su propio pool de hilos. Cada implementación aplica sus propios
+ * tiempos de espera de conexión y lectura.
+ *
+ * El ID del pago es la referencia del comercio: autorizar es idempotente por ese ID (una repetición devuelve
+ * el resultado del primer cobro) y permite consultar después un cobro cuya respuesta no llegó.
+ */
+public interface PasarelaPago {
+
+    Resultado autorizar(Long idPago, Long idPedido, BigDecimal monto, String tokenPagoExterno);
+
+    // Resultado del cobro de ese pago, o vacío si la pasarela no lo recibió
+    Optional<Resultado> consultar(Long idPago);
+
+    // Anula o reembolsa un cobro aprobado (pedido pagado que se cancela, cobro que ya no se podía aplicar).
+    // Idempotente por idPago, como autorizar
+    void anular(Long idPago, String referencia);
+
+    // Respuesta de la pasarela: si se aprobó y su identificador de la transacción
+    record Resultado(boolean aprobado, String referencia) {
+    }
+}
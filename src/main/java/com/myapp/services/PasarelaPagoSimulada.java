@@ -0,0 +1,74 @@
+package com.myapp.services;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.myapp.util.cache.TtlCache;
+import com.myapp.util.ids.GeneradorReferencias;
+
+/**
+ * Pasarela local de pruebas: aprueba un porcentaje configurable de pagos tras una latencia configurable
+ * (base + variación aleatoria), para reproducir en pruebas de carga el tiempo de respuesta de una pasarela real.
+ * Recuerda los cobros de las últimas 24 horas para poder consultarlos y anularlos.
+ */
+@Component
+public class PasarelaPagoSimulada implements PasarelaPago {
+
+    private final GeneradorReferencias generadorReferencias;
+    private final int porcentajeAprobados;
+    private final long latenciaMs;
+    private final long variacionLatenciaMs;
+    private final TtlCache<Long, Resultado> cobros = new TtlCache<>("cobrosPasarelaSimulada", 100_000, Duration.ofDays(1));
+
+    public PasarelaPagoSimulada(GeneradorReferencias generadorReferencias,
+            @Value("${pagos.pasarela.simulada.porcentaje-aprobados:80}") int porcentajeAprobados,
+            @Value("${pagos.pasarela.simulada.latencia-ms:0}") long latenciaMs,
+            @Value("${pagos.pasarela.simulada.variacion-latencia-ms:0}") long variacionLatenciaMs) {
+        this.generadorReferencias = generadorReferencias;
+        this.porcentajeAprobados = porcentajeAprobados;
+        this.latenciaMs = latenciaMs;
+        this.variacionLatenciaMs = variacionLatenciaMs;
+    }
+
+    @Override
+    public Resultado autorizar(Long idPago, Long idPedido, BigDecimal monto, String tokenPagoExterno) {
+        Optional<Resultado> anterior = cobros.obtener(idPago);
+        if (anterior.isPresent()) {
+            return anterior.get();
+        }
+
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        long espera = latenciaMs + (variacionLatenciaMs > 0 ? aleatorio.nextLong(variacionLatenciaMs + 1) : 0);
+        if (espera > 0) {
+            try {
+                Thread.sleep(espera);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Llamada a la pasarela de pago interrumpida.", ex);
+            }
+        }
+
+        // Simulación: porcentajeAprobados% de probabilidad de éxito
+        boolean aprobado = aleatorio.nextInt(100) < porcentajeAprobados;
+        // Única y ordenada por tiempo aunque lleguen muchos pagos en el mismo milisegundo
+        String referencia = generadorReferencias.nueva(aprobado ? "REF" : "FALLO");
+        Resultado resultado = new Resultado(aprobado, referencia);
+        // Si dos llamadas del mismo pago se cruzan, gana la primera
+        return cobros.ponerSiAusente(idPago, resultado).orElse(resultado);
+    }
+
+    @Override
+    public Optional<Resultado> consultar(Long idPago) {
+        return cobros.obtener(idPago);
+    }
+
+    @Override
+    public void anular(Long idPago, String referencia) {
+        cobros.poner(idPago, new Resultado(false, referencia));
+    }
+}
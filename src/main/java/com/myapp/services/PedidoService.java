@@ -1,66 +1,216 @@
 package com.myapp.services;
 
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.DTOs.CheckoutDTO;
+import com.DTOs.DetallePedidoDTO;
+import com.DTOs.FiltroPedidosAdmin;
+import com.DTOs.PaginaPedidosDTO;
+import com.DTOs.PedidoResumenDTO;
+import com.DTOs.ReciboPedidoDTO;
+import com.DTOs.ResultadoTransicionLoteDTO;
+import com.DTOs.TransicionLotePedidosDTO;
+import com.myapp.models.CarritoCompra;
 import com.myapp.models.DetallePedido;
 import com.myapp.models.Direccion;
 import com.myapp.models.EstadoPedido;
+import com.myapp.models.EstadoPedidoTipo;
+import com.myapp.models.ItemCarrito;
 import com.myapp.models.MetodoPago;
+import com.myapp.models.Pago;
 import com.myapp.models.Pedido;
 import com.myapp.models.Producto;
 import com.myapp.models.Usuario;
+import com.myapp.repositories.CarritoCompraRepository;
+import com.myapp.repositories.DetallePedidoRepository;
 import com.myapp.repositories.DireccionRepository;
-import com.myapp.repositories.EstadoPedidoRepository;
-import com.myapp.repositories.MetodoPagoRepository;
+import com.myapp.repositories.ItemCarritoRepository;
+import com.myapp.repositories.PagoRepository;
 import com.myapp.repositories.PedidoRepository;
 import com.myapp.repositories.ProductoRepository;
 import com.myapp.repositories.UsuarioRepository;
+import com.myapp.util.concurrencia.EjecutorConReintentos;
+import com.myapp.util.eventos.CatalogoModificadoEvent;
 import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class PedidoService {
 
     private final PedidoRepository pedidoRepository;
+    private final DetallePedidoRepository detallePedidoRepository;
+    private final PagoRepository pagoRepository;
     private final ProductoRepository productoRepository;
     private final DireccionRepository direccionRepository;
-    private final MetodoPagoRepository metodoPagoRepository;
-    private final EstadoPedidoRepository estadoPedidoRepository;
+    private final RegistroDatosReferencia registroDatosReferencia;
+    private final TransicionEstadoPedidoService transicionEstadoPedidoService;
     private final UsuarioRepository usuarioRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ReservaStockService reservaStockService;
+    private final ReservaCarritoService reservaCarritoService;
+    private final AlmacenCarrito almacenCarrito;
+    private final CarritoCompraRepository carritoRepository;
+    private final ItemCarritoRepository itemCarritoRepository;
+    private final EjecutorConReintentos reintentos;
+    private final TransactionTemplate transactionTemplate;
+    private final int tamanoPaginaDefecto;
+    private final int tamanoPaginaMaximo;
 
-    public PedidoService(PedidoRepository pedidoRepository, ProductoRepository productoRepository, DireccionRepository direccionRepository, MetodoPagoRepository metodoPagoRepository, EstadoPedidoRepository estadoPedidoRepository, UsuarioRepository usuarioRepository) {
+    public PedidoService(PedidoRepository pedidoRepository, DetallePedidoRepository detallePedidoRepository, PagoRepository pagoRepository, ProductoRepository productoRepository, DireccionRepository direccionRepository, RegistroDatosReferencia registroDatosReferencia, TransicionEstadoPedidoService transicionEstadoPedidoService, UsuarioRepository usuarioRepository, ApplicationEventPublisher eventPublisher,
+            ReservaStockService reservaStockService, ReservaCarritoService reservaCarritoService,
+            AlmacenCarrito almacenCarrito, CarritoCompraRepository carritoRepository, ItemCarritoRepository itemCarritoRepository, EjecutorConReintentos reintentos, PlatformTransactionManager transactionManager,
+            @Value("${pedidos.admin.pagina.tamano-defecto:50}") int tamanoPaginaDefecto,
+            @Value("${pedidos.admin.pagina.tamano-maximo:200}") int tamanoPaginaMaximo) {
         this.pedidoRepository = pedidoRepository;
+        this.detallePedidoRepository = detallePedidoRepository;
+        this.pagoRepository = pagoRepository;
         this.productoRepository = productoRepository;
         this.direccionRepository = direccionRepository;
-        this.metodoPagoRepository = metodoPagoRepository;
-        this.estadoPedidoRepository = estadoPedidoRepository;
+        this.registroDatosReferencia = registroDatosReferencia;
+        this.transicionEstadoPedidoService = transicionEstadoPedidoService;
         this.usuarioRepository = usuarioRepository;
+        this.eventPublisher = eventPublisher;
+        this.reservaStockService = reservaStockService;
+        this.reservaCarritoService = reservaCarritoService;
+        this.almacenCarrito = almacenCarrito;
+        this.carritoRepository = carritoRepository;
+        this.itemCarritoRepository = itemCarritoRepository;
+        this.reintentos = reintentos;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tamanoPaginaDefecto = tamanoPaginaDefecto;
+        this.tamanoPaginaMaximo = tamanoPaginaMaximo;
     }
 
     /**
      * Proceso de creación de un nuevo pedido. 
      * Incluye validaciones críticas y lógica transaccional.
+     * Cada intento es una transacción nueva: si choca con otra compra (interbloqueo, timeout de bloqueo)
+     * se reintenta entero tras una espera, en lugar de devolver un error al cliente.
      */
-    @Transactional
     public Pedido crearPedido(Long idUsuario, Pedido pedidoRequest) {
+        return reintentos.ejecutar("crearPedido",
+            () -> transactionTemplate.execute(estado -> crearPedidoEnTransaccion(idUsuario, pedidoRequest)));
+    }
+
+    private Pedido crearPedidoEnTransaccion(Long idUsuario, Pedido pedidoRequest) {
+        if (pedidoRequest.getDetalles() == null || pedidoRequest.getDetalles().isEmpty()) {
+            throw new IllegalArgumentException("El pedido debe contener al menos un producto.");
+        }
+
+        // Cantidades por producto (las líneas repetidas del mismo producto se suman en una sola)
+        Map<Long, Integer> cantidadesPorProducto = new LinkedHashMap<>();
+        for (DetallePedido detalleRequest : pedidoRequest.getDetalles()) {
+            if (detalleRequest.getProducto() == null || detalleRequest.getProducto().getIdProducto() == null) {
+                throw new IllegalArgumentException("Cada línea del pedido debe indicar un producto.");
+            }
+            Integer cantidad = detalleRequest.getCantidad();
+            if (cantidad == null || cantidad <= 0) {
+                throw new IllegalArgumentException("La cantidad debe ser positiva.");
+            }
+            cantidadesPorProducto.merge(detalleRequest.getProducto().getIdProducto(), cantidad, Integer::sum);
+        }
+
+        // Una sola consulta para todos los productos (precio, nombre y categoría)
+        Map<Long, Producto> productosPorId = new HashMap<>();
+        for (Producto producto : productoRepository.findAllById(cantidadesPorProducto.keySet())) {
+            productosPorId.put(producto.getIdProducto(), producto);
+        }
+        for (Long idProducto : cantidadesPorProducto.keySet()) {
+            if (!productosPorId.containsKey(idProducto)) {
+                throw new IllegalArgumentException("Producto no encontrado con ID: " + idProducto);
+            }
+        }
+
+        return registrarPedido(idUsuario, pedidoRequest.getDireccionEnvio().getIdDireccion(),
+            pedidoRequest.getMetodoPago().getIdMetodoPago(), pedidoRequest.getObservacionCliente(),
+            cantidadesPorProducto, productosPorId);
+    }
+
+    /**
+     * Checkout desde el carrito: convierte el carrito del usuario en un pedido en una sola transacción
+     * (con los mismos reintentos que crearPedido) y devuelve un recibo compacto.
+     * Las líneas se leen con sus productos en una consulta, el stock se descuenta con un UPDATE condicional por
+     * producto (aprovechando lo ya reservado en el carrito) y el carrito se vacía con un único DELETE.
+     */
+    public ReciboPedidoDTO checkout(Long idUsuario, CheckoutDTO datos) {
+        if (datos == null || datos.getIdDireccionEnvio() == null || datos.getIdMetodoPago() == null) {
+            throw new IllegalArgumentException("La dirección de envío y el método de pago son obligatorios.");
+        }
+
+        ReciboPedidoDTO recibo = reintentos.ejecutar("checkout",
+            () -> transactionTemplate.execute(estado -> checkoutEnTransaccion(idUsuario, datos)));
+        almacenCarrito.descartarTrasCheckout(idUsuario);
+        return recibo;
+    }
+
+    private ReciboPedidoDTO checkoutEnTransaccion(Long idUsuario, CheckoutDTO datos) {
+        // Con el almacén clave-valor el carrito se escribe ahora en las tablas (en esta misma transacción)
+        almacenCarrito.materializar(idUsuario);
+
+        // El bloqueo del carrito impide que se modifique mientras se convierte en pedido
+        CarritoCompra carrito = carritoRepository.findParaActualizarByUsuario_IdUsuario(idUsuario)
+            .orElseThrow(() -> new IllegalStateException("El carrito está vacío."));
+        List<ItemCarrito> items = itemCarritoRepository.findConProductoByIdCarrito(carrito.getIdCarrito());
+        if (items.isEmpty()) {
+            throw new IllegalStateException("El carrito está vacío.");
+        }
+
+        Map<Long, Integer> cantidadesPorProducto = new LinkedHashMap<>();
+        Map<Long, Producto> productosPorId = new HashMap<>();
+        for (ItemCarrito item : items) {
+            Producto producto = item.getProducto();
+            if (!producto.getActivo()) {
+                throw new IllegalStateException("El producto '" + producto.getNombreProducto()
+                    + "' ya no está disponible. Elimínalo del carrito para continuar.");
+            }
+            cantidadesPorProducto.merge(producto.getIdProducto(), item.getCantidad(), Integer::sum);
+            productosPorId.put(producto.getIdProducto(), producto);
+        }
+
+        Pedido pedido = registrarPedido(idUsuario, datos.getIdDireccionEnvio(), datos.getIdMetodoPago(),
+            datos.getObservacionCliente(), cantidadesPorProducto, productosPorId);
+
+        // Las reservas del carrito ya se consumieron al descontar el stock; las líneas se borran de una vez
+        itemCarritoRepository.deleteAllByIdCarrito(carrito.getIdCarrito());
+        carrito.setMontoTotal(BigDecimal.ZERO);
+        carrito.setCantidadUnidades(0);
+
+        int unidades = cantidadesPorProducto.values().stream().mapToInt(Integer::intValue).sum();
+        return new ReciboPedidoDTO(pedido.getIdPedido(), pedido.getFechaPedido(), registroDatosReferencia.nombreEstado(pedido.getEstadoPedido()),
+            pedido.getEstadoPago(), pedido.getDetalles().size(), unidades, pedido.getSubtotal(), pedido.getMontoEnvio(),
+            pedido.getImpuestos(), pedido.getMontoTotal());
+    }
+
+    /**
+     * Crea y guarda el pedido con sus líneas a partir de las cantidades por producto (productos ya cargados),
+     * descontando el stock. Común a crearPedido y checkout; debe llamarse dentro de una transacción.
+     */
+    private Pedido registrarPedido(Long idUsuario, Long idDireccionEnvio, Long idMetodoPago, String observacionCliente,
+            Map<Long, Integer> cantidadesPorProducto, Map<Long, Producto> productosPorId) {
         // --- 1. Validar Entidades y Obtener Datos de Referencia ---
         Usuario usuario = usuarioRepository.findById(idUsuario)
             .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado."));
 
         // Se usa la dirección proporcionada por el usuario, asegurando que le pertenezca
-        Direccion direccionEnvio = direccionRepository.findByIdDireccionAndUsuario_IdUsuario(
-            pedidoRequest.getDireccionEnvio().getIdDireccion(), idUsuario)
+        Direccion direccionEnvio = direccionRepository.findByIdDireccionAndUsuario_IdUsuario(idDireccionEnvio, idUsuario)
             .orElseThrow(() -> new IllegalArgumentException("Dirección de envío no válida o no pertenece al usuario."));
         
-        MetodoPago metodoPago = metodoPagoRepository.findById(pedidoRequest.getMetodoPago().getIdMetodoPago())
-            .orElseThrow(() -> new IllegalArgumentException("Método de pago no válido."));
-
-         // Estado inicial del pedido (ej. ID 0 = "Pendiente")
-        EstadoPedido estadoInicial = estadoPedidoRepository.findById(0) 
-            .orElseThrow(() -> new IllegalStateException("Estado inicial del pedido (ID 0) no encontrado."));
+        // Método de pago y estado inicial desde el registro en memoria (referencias, sin SELECT)
+        MetodoPago metodoPago = registroDatosReferencia.referenciaMetodoPago(idMetodoPago);
+        EstadoPedido estadoInicial = registroDatosReferencia.referenciaEstado(EstadoPedidoTipo.PENDIENTE);
 
         // --- 2. Inicializar Pedido ---
         Pedido nuevoPedido = new Pedido();
@@ -69,29 +219,21 @@ public class PedidoService {
         nuevoPedido.setDireccionFacturacion(direccionEnvio); // Asignar la misma dirección para facturación
         nuevoPedido.setMetodoPago(metodoPago);
         nuevoPedido.setEstadoPedido(estadoInicial);
-        nuevoPedido.setEstadoPago("Pendiente");
+        nuevoPedido.setEstadoPago(Pago.PENDIENTE);
+        nuevoPedido.setObservacionCliente(observacionCliente);
         nuevoPedido.setImpuestos(new BigDecimal("0.00")); // Asignar valor para impuestos
         nuevoPedido.setMontoEnvio(new BigDecimal("6000.00")); // Ejemplo de costo de envío fijo
 
         BigDecimal subtotalGeneral = BigDecimal.ZERO;
+        Set<Long> productosAfectados = new HashSet<>();
+        Set<Integer> categoriasAfectadas = new HashSet<>();
         
-        // --- 3. Procesar Detalles del Pedido, Validar Stock y Calcular Totales ---
-        if (pedidoRequest.getDetalles() == null || pedidoRequest.getDetalles().isEmpty()) {
-            throw new IllegalArgumentException("El pedido debe contener al menos un producto.");
-        }
-
-        for (DetallePedido detalleRequest : pedidoRequest.getDetalles()) {
-            Producto producto = productoRepository.findById(detalleRequest.getProducto().getIdProducto())
-                .orElseThrow(() -> new IllegalArgumentException("Producto no encontrado con ID: " + detalleRequest.getProducto().getIdProducto()));
-            
-            Integer cantidad = detalleRequest.getCantidad();
-            if (cantidad == null || cantidad <= 0) {
-                throw new IllegalArgumentException("La cantidad debe ser positiva.");
-            }
-            
-            // Validación de Stock
-            if (producto.getCantidadStock() < cantidad) {
-                throw new IllegalStateException("Stock insuficiente para el producto: " + producto.getNombreProducto());
+        // --- 3. Crear los Detalles del Pedido y Calcular Totales ---
+        for (Map.Entry<Long, Integer> linea : cantidadesPorProducto.entrySet()) {
+            Producto producto = productosPorId.get(linea.getKey());
+            int cantidad = linea.getValue();
+            if (!Boolean.TRUE.equals(producto.getActivo())) {
+                throw new IllegalStateException("El producto '" + producto.getNombreProducto() + "' ya no está disponible.");
             }
 
             // Crear DetallePedido
@@ -107,87 +249,147 @@ public class PedidoService {
             
             nuevoPedido.addDetalle(detalle); // Añade el detalle al pedido y asigna la referencia bidireccional
             subtotalGeneral = subtotalGeneral.add(subtotalDetalle);
-
-            // Actualizar Stock del Producto (Operación Crítica)
-            producto.setCantidadStock(producto.getCantidadStock() - cantidad);
-            productoRepository.save(producto);
+            productosAfectados.add(producto.getIdProducto());
+            categoriasAfectadas.add(producto.getCategoria().getIdCategoria());
         }
 
+        // Validación y descuento de Stock (Operación Crítica): UPDATE condicional y atómico por producto.
+        // Si alguno no alcanza se lanza IllegalStateException y el rollback deshace todo el pedido.
+        // Lo que el usuario ya tenía apartado en su carrito no tiene que volver a estar disponible.
+        reservaStockService.reservar(cantidadesPorProducto,
+            reservaCarritoService.consumirReservasDeUsuario(idUsuario, cantidadesPorProducto));
+
         // --- 4. Calcular Monto Total del Pedido ---
         nuevoPedido.setSubtotal(subtotalGeneral.setScale(2, RoundingMode.HALF_UP));
         BigDecimal montoTotal = subtotalGeneral.add(nuevoPedido.getMontoEnvio());
         nuevoPedido.setMontoTotal(montoTotal.setScale(2, RoundingMode.HALF_UP));
 
         // --- 5. Guardar el Pedido Completo (cascada guarda los detalles) ---
-        return pedidoRepository.save(nuevoPedido);
+        Pedido pedidoGuardado = pedidoRepository.save(nuevoPedido);
+
+        // El stock cambió: la caché del catálogo se invalida al confirmar la transacción
+        eventPublisher.publishEvent(CatalogoModificadoEvent.de(productosAfectados, categoriasAfectadas));
+        return pedidoGuardado;
     }
     
-    // READ ALL (Usuario autenticado)
-    public List<Pedido> obtenerMisPedidos(Long idUsuario) {
-        return pedidoRepository.findByUsuario_IdUsuarioOrderByFechaPedidoDesc(idUsuario);
+    // READ ALL (Usuario autenticado) - Página por cursor, como el listado de administración
+    // Dos consultas por página de historial (pedidos + todas sus líneas), sin importar cuántos pedidos tenga el usuario
+    @Transactional(readOnly = true)
+    public PaginaPedidosDTO obtenerMisPedidos(Long idUsuario, LocalDateTime despuesDeFecha, Long despuesDeId, int tamano) {
+        return paginar(normalizarFiltro(new FiltroPedidosAdmin(null, null, null, null, idUsuario,
+            despuesDeFecha, despuesDeId, tamano)));
     }
     
     // READ BY ID (Usuario autenticado - verificación de propiedad)
+    @Transactional(readOnly = true)
     public Optional<Pedido> obtenerPedidoPorIdYUsuario(Long idPedido, Long idUsuario) {
-        return pedidoRepository.findByIdPedidoAndUsuario_IdUsuario(idPedido, idUsuario);
+        return pedidoRepository.findDetalleByIdPedidoAndUsuario_IdUsuario(idPedido, idUsuario);
+    }
+
+    // READ ALL (Administrador) - Página por cursor con filtros opcionales; nunca carga la tabla completa
+    @Transactional(readOnly = true)
+    public PaginaPedidosDTO obtenerPaginaPedidosAdmin(FiltroPedidosAdmin filtro) {
+        return paginar(normalizarFiltro(filtro));
     }
 
-    // READ ALL (Administrador)
-    public List<Pedido> obtenerTodosLosPedidos() {
-        return pedidoRepository.findAll();
+    // Una página del filtro ya normalizado, con el cursor de la siguiente
+    private PaginaPedidosDTO paginar(FiltroPedidosAdmin filtroNormalizado) {
+        int tamano = filtroNormalizado.tamano();
+
+        // Se pide una fila de más para saber si existe una página siguiente
+        List<PedidoResumenDTO> filas = pedidoRepository.buscarPaginaAdmin(filtroNormalizado, tamano + 1);
+        boolean hayMas = filas.size() > tamano;
+        List<PedidoResumenDTO> pedidos = completarDetalles(hayMas ? filas.subList(0, tamano) : filas);
+
+        LocalDateTime siguienteFecha = null;
+        Long siguienteId = null;
+        if (hayMas) {
+            PedidoResumenDTO ultimo = pedidos.get(pedidos.size() - 1);
+            siguienteFecha = ultimo.getFechaPedido();
+            siguienteId = ultimo.getIdPedido();
+        }
+        return new PaginaPedidosDTO(List.copyOf(pedidos), hayMas, siguienteFecha, siguienteId);
+    }
+
+    // Aplica el tamaño por defecto y valida rango de fechas y cursor
+    private FiltroPedidosAdmin normalizarFiltro(FiltroPedidosAdmin filtro) {
+        int tamano = filtro.tamano() <= 0 ? tamanoPaginaDefecto : Math.min(filtro.tamano(), tamanoPaginaMaximo);
+
+        if (filtro.desde() != null && filtro.hasta() != null && !filtro.desde().isBefore(filtro.hasta())) {
+            throw new IllegalArgumentException("La fecha 'desde' debe ser anterior a 'hasta'.");
+        }
+        if ((filtro.despuesDeId() == null) != (filtro.despuesDeFecha() == null)) {
+            throw new IllegalArgumentException("El cursor requiere 'despuesDeFecha' y 'despuesDeId' a la vez.");
+        }
+
+        String estadoPago = filtro.estadoPago() == null || filtro.estadoPago().isBlank() ? null : filtro.estadoPago().trim();
+        return new FiltroPedidosAdmin(filtro.idEstadoPedido(), estadoPago, filtro.desde(), filtro.hasta(),
+                filtro.idUsuario(), filtro.despuesDeFecha(), filtro.despuesDeId(), tamano);
     }
     
     // READ BY ID (Administrador)
+    @Transactional(readOnly = true)
     public Optional<Pedido> obtenerPedidoPorId(Long idPedido) {
-        return pedidoRepository.findById(idPedido);
+        return pedidoRepository.findDetalleByIdPedido(idPedido);
+    }
+
+    // Carga las líneas de todos los pedidos con una única consulta IN y las reparte por pedido
+    private List<PedidoResumenDTO> completarDetalles(List<PedidoResumenDTO> pedidos) {
+        if (pedidos.isEmpty()) {
+            return pedidos;
+        }
+
+        Map<Long, PedidoResumenDTO> porId = new HashMap<>();
+        for (PedidoResumenDTO pedido : pedidos) {
+            porId.put(pedido.getIdPedido(), pedido);
+        }
+        for (DetallePedidoDTO detalle : detallePedidoRepository.findResumenByIdsPedido(porId.keySet())) {
+            porId.get(detalle.getIdPedido()).getDetalles().add(detalle);
+        }
+        return pedidos;
     }
     
     // Método de Negocio: Cambiar Estado (Solo para Admin)
+    // Solo se admiten las transiciones de MaquinaEstadosPedido; sus efectos (ej. reponer stock) se aplican aquí
     @Transactional
-    public Pedido actualizarEstado(
-        Long idPedido, 
-        Integer idNuevoEstado
-        
-        ) {
-        Pedido pedido = pedidoRepository.findById(idPedido)
+    public Pedido actualizarEstado(Long idPedido, Integer idNuevoEstado) {
+        EstadoPedidoTipo destino = EstadoPedidoTipo.deId(idNuevoEstado)
+            .orElseThrow(() -> new IllegalArgumentException("Estado de pedido no válido."));
+
+        Pedido pedido = pedidoRepository.findParaActualizarByIdPedido(idPedido)
             .orElseThrow(() -> new IllegalArgumentException("Pedido no encontrado con ID: " + idPedido));
 
-        EstadoPedido nuevoEstado = estadoPedidoRepository.findById(idNuevoEstado.intValue())
-            .orElseThrow(() -> new IllegalArgumentException("Estado de pedido no válido."));
-            
-        pedido.setEstadoPedido(nuevoEstado);
-        
-        // Se podría agregar lógica adicional aquí (ej. enviar email al cliente, manejar devoluciones, etc.)
+        transicionEstadoPedidoService.transicionar(pedido, destino);
+        return pedido;
+    }
 
-        return pedidoRepository.save(pedido);
+    // Método de Negocio: Cambiar Estado en lote (Solo para Admin), ej. marcar como enviados los pedidos de una ruta
+    public ResultadoTransicionLoteDTO actualizarEstadoEnLote(TransicionLotePedidosDTO transicion) {
+        return transicionEstadoPedidoService.transicionarLote(transicion.getIdsPedido(), transicion.getEstadoDestino());
     }
     
     // Método de Negocio: Cancelar Pedido (Usuario)
+    // Regla de Negocio: el cliente solo cancela lo que aún no ha pagado (un pedido pagado lo cancela la tienda, que
+    // reembolsa el cobro) ni tiene un pago en curso. El stock se repone una vez (el pedido queda bloqueado,
+    // dos cancelaciones simultáneas no lo devuelven dos veces)
     @Transactional
     public Pedido cancelarPedido(Long idPedido, Long idUsuario) {
-        Pedido pedido = pedidoRepository.findByIdPedidoAndUsuario_IdUsuario(idPedido, idUsuario)
+        Pedido pedido = pedidoRepository.findParaActualizarByIdPedidoAndUsuario_IdUsuario(idPedido, idUsuario)
             .orElseThrow(() -> new IllegalArgumentException("Pedido no encontrado o no pertenece al usuario."));
 
-        String estadoActual = pedido.getEstadoPedido().getNombreEstado();
-        
-        // Regla de Negocio: Solo se puede cancelar si está 'Pendiente Pago' o 'Pagado'
-        if ("Pendiente".equals(estadoActual) || "Aprobado".equals(estadoActual)) {
-            // Revertir Stock (Operación Crítica)
-            for (DetallePedido detalle : pedido.getDetalles()) {
-                Producto producto = detalle.getProducto();
-                producto.setCantidadStock(producto.getCantidadStock() + detalle.getCantidad());
-                productoRepository.save(producto);
-            }
-            
-            // Asignar el estado de Cancelado (asumo ID 3 para 'Anulado')
-            EstadoPedido estadoCancelado = estadoPedidoRepository.findById(3)
-                .orElseThrow(() -> new IllegalStateException("Estado 'Cancelado' no encontrado."));
-                
-            pedido.setEstadoPedido(estadoCancelado);
-            return pedidoRepository.save(pedido);
-        } else {
-            throw new IllegalStateException("El pedido con estado " + estadoActual + " no puede ser cancelado.");
+        if (EstadoPedidoTipo.CANCELADO.corresponde(pedido.getEstadoPedido())) {
+            throw new IllegalStateException("El pedido ya está cancelado.");
+        }
+        EstadoPedidoTipo estadoActual = EstadoPedidoTipo.deId(pedido.getEstadoPedido().getIdEstadoPedido()).orElse(null);
+        if (estadoActual == null || !MaquinaEstadosPedido.cancelablePorCliente(estadoActual)) {
+            throw new IllegalStateException("Un pedido en estado '" + registroDatosReferencia.nombreEstado(pedido.getEstadoPedido())
+                + "' no se puede cancelar desde la cuenta: contacte con la tienda.");
+        }
+        // Con el cobro en curso la cancelación se adelantaría a un pago que puede aprobarse
+        if (pagoRepository.existsByPedido_IdPedidoAndEstado(idPedido, Pago.PENDIENTE)) {
+            throw new IllegalStateException("El pedido tiene un pago en proceso. Inténtelo cuando termine.");
         }
+        transicionEstadoPedidoService.transicionar(pedido, EstadoPedidoTipo.CANCELADO);
+        return pedido;
     }
 }
-   
\ No newline at end of file
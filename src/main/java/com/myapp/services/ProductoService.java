@@ -1,23 +1,45 @@
 package com.myapp.services;
 
+import java.math.BigDecimal;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import com.DTOs.FiltroCatalogo;
+import com.DTOs.OrdenCatalogo;
+import com.DTOs.PaginaCatalogoDTO;
+import com.DTOs.ProductoResumenDTO;
+import com.DTOs.VersionCatalogoDTO;
 import com.myapp.models.Categoria;
 import com.myapp.models.Producto;
 import com.myapp.repositories.CategoriaRepository;
 import com.myapp.repositories.ProductoRepository;
+import com.myapp.util.eventos.CatalogoModificadoEvent;
 
 @Service
 public class ProductoService {
     private final ProductoRepository productoRepository;
     private final CategoriaRepository categoriaRepository;
+    private final CatalogoCache catalogoCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int tamanoPaginaDefecto;
+    private final int tamanoPaginaMaximo;
 
-    public ProductoService(ProductoRepository productoRepository, CategoriaRepository categoriaRepository) {
+    public ProductoService(ProductoRepository productoRepository, CategoriaRepository categoriaRepository,
+            CatalogoCache catalogoCache, ApplicationEventPublisher eventPublisher,
+            @Value("${catalogo.pagina.tamano-defecto:20}") int tamanoPaginaDefecto,
+            @Value("${catalogo.pagina.tamano-maximo:100}") int tamanoPaginaMaximo) {
         this.productoRepository = productoRepository;
         this.categoriaRepository = categoriaRepository;
+        this.catalogoCache = catalogoCache;
+        this.eventPublisher = eventPublisher;
+        this.tamanoPaginaDefecto = tamanoPaginaDefecto;
+        this.tamanoPaginaMaximo = tamanoPaginaMaximo;
     }
 
     // CREATE (C) - Crear un nuevo producto
@@ -33,12 +55,67 @@ public class ProductoService {
         
         producto.setCategoria(categoria);
         
-        return productoRepository.save(producto);
+        Producto productoGuardado = productoRepository.save(producto);
+        eventPublisher.publishEvent(CatalogoModificadoEvent.de(
+            Set.of(productoGuardado.getIdProducto()), Set.of(categoria.getIdCategoria())));
+        return productoGuardado;
     }
 
-    // READ ALL (R) - Obtener todos los productos (Catálogo Público)
+    // READ PAGE (R) - Página del catálogo público (paginación por cursor, sin descripción larga)
+    public PaginaCatalogoDTO obtenerPaginaCatalogo(FiltroCatalogo filtro) {
+        // El filtro normalizado es la clave de la caché (mismos parámetros efectivos, misma entrada)
+        return catalogoCache.obtenerPagina(normalizarFiltro(filtro), this::cargarPaginaCatalogo);
+    }
+
+    private PaginaCatalogoDTO cargarPaginaCatalogo(FiltroCatalogo filtroNormalizado) {
+        int tamano = filtroNormalizado.tamano();
+
+        // Se pide una fila de más para saber si existe una página siguiente
+        List<ProductoResumenDTO> filas = productoRepository.buscarPaginaCatalogo(filtroNormalizado, tamano + 1);
+        boolean hayMas = filas.size() > tamano;
+        List<ProductoResumenDTO> productos = hayMas ? filas.subList(0, tamano) : filas;
+
+        Long siguienteId = null;
+        BigDecimal siguientePrecio = null;
+        if (hayMas) {
+            ProductoResumenDTO ultimo = productos.get(productos.size() - 1);
+            siguienteId = ultimo.getIdProducto();
+            siguientePrecio = filtroNormalizado.orden() == OrdenCatalogo.ID ? null : ultimo.getPrecio();
+        }
+        return new PaginaCatalogoDTO(List.copyOf(productos), hayMas, siguienteId, siguientePrecio);
+    }
+
+    // Versión agregada del catálogo (para respuestas condicionales ETag / Last-Modified)
+    public VersionCatalogoDTO obtenerVersionCatalogo() {
+        return catalogoCache.obtenerVersion(productoRepository::obtenerVersionCatalogo);
+    }
+
+    // Versión de las categorías: las páginas del catálogo muestran su nombre
+    public VersionCatalogoDTO obtenerVersionCategorias() {
+        return catalogoCache.obtenerVersionCategorias(categoriaRepository::obtenerVersionCategorias);
+    }
+
+    // Aplica valores por defecto y valida rangos y cursor
+    private FiltroCatalogo normalizarFiltro(FiltroCatalogo filtro) {
+        OrdenCatalogo orden = filtro.orden() != null ? filtro.orden() : OrdenCatalogo.ID;
+
+        int tamano = filtro.tamano() <= 0 ? tamanoPaginaDefecto : Math.min(filtro.tamano(), tamanoPaginaMaximo);
+
+        if (filtro.precioMin() != null && filtro.precioMax() != null
+                && filtro.precioMin().compareTo(filtro.precioMax()) > 0) {
+            throw new IllegalArgumentException("El precio mínimo no puede ser mayor que el precio máximo.");
+        }
+        if (orden != OrdenCatalogo.ID && filtro.despuesDeId() != null && filtro.despuesDePrecio() == null) {
+            throw new IllegalArgumentException("Al ordenar por precio, el cursor requiere 'despuesDePrecio' además de 'despuesDeId'.");
+        }
+
+        return new FiltroCatalogo(filtro.idCategoria(), filtro.precioMin(), filtro.precioMax(),
+                filtro.soloDisponibles(), orden, filtro.despuesDeId(), filtro.despuesDePrecio(), tamano);
+    }
+
+    // READ ALL (R) - Exportar el catálogo activo completo (Admin, sin paginar)
     public List<Producto> obtenerCatalogoActivo() {
-        // Retornar solo productos activos, ideal para el catálogo
+        // Retornar solo productos activos
         return productoRepository.findAllByActivoTrue();
     }
     
@@ -48,15 +125,20 @@ public class ProductoService {
         return productoRepository.findAll();
     }
 
-    // READ BY ID (R) - Obtener un producto por ID
+    // READ BY ID (R) - Obtener un producto por ID (desde la caché del catálogo).
+    // Devuelve una copia no gestionada: modificarla no cambia la caché ni la BD, para editar usar actualizarProducto.
     public Optional<Producto> obtenerProductoPorId(Long id) {
-        return productoRepository.findById(id);
+        return catalogoCache.obtenerProducto(id, productoRepository::findConCategoriaByIdProducto);
     }
 
     // UPDATE (U) - Actualizar un producto existente
     public Producto actualizarProducto(Long id, Producto productoDetalles) {
         return productoRepository.findById(id)
             .map(productoExistente -> {
+                // Categorías afectadas: la anterior y, si cambia, la nueva
+                Set<Integer> categoriasAfectadas = new HashSet<>();
+                categoriasAfectadas.add(productoExistente.getCategoria().getIdCategoria());
+
                 // 1. Actualizar y validar SKU si se proporciona y es diferente
                 if (productoDetalles.getSku() != null && !productoExistente.getSku().equals(productoDetalles.getSku())) {
                     Optional<Producto> existingSku = productoRepository.findBySku(productoDetalles.getSku());
@@ -71,6 +153,7 @@ public class ProductoService {
                     Categoria categoria = categoriaRepository.findById(productoDetalles.getCategoria().getIdCategoria())
                         .orElseThrow(() -> new IllegalArgumentException("Categoría no encontrada con ID: " + productoDetalles.getCategoria().getIdCategoria()));
                     productoExistente.setCategoria(categoria);
+                    categoriasAfectadas.add(categoria.getIdCategoria());
                 }
 
                 // 3. Actualizar otros campos solo si se proporcionan (no son null)
@@ -90,7 +173,9 @@ public class ProductoService {
                     productoExistente.setActivo(productoDetalles.getActivo());
                 }
                 
-                return productoRepository.save(productoExistente);
+                Producto productoGuardado = productoRepository.save(productoExistente);
+                eventPublisher.publishEvent(CatalogoModificadoEvent.de(Set.of(id), categoriasAfectadas));
+                return productoGuardado;
             }).orElseThrow(() -> new IllegalArgumentException("Producto no encontrado con ID: " + id));
     }
 
@@ -102,5 +187,7 @@ public class ProductoService {
         // Estrategia de Soft Delete (desactivar) en lugar de Hard Delete
         producto.setActivo(false);
         productoRepository.save(producto);
+        eventPublisher.publishEvent(CatalogoModificadoEvent.de(
+            Set.of(id), Set.of(producto.getCategoria().getIdCategoria())));
     }
 }
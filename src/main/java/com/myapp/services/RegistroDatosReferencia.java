@@ -0,0 +1,138 @@
+package com.myapp.services;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.myapp.models.EstadoPedido;
+import com.myapp.models.EstadoPedidoTipo;
+import com.myapp.models.MetodoPago;
+import com.myapp.repositories.EstadoPedidoRepository;
+import com.myapp.repositories.MetodoPagoRepository;
+
+/**
+ * Tablas de referencia pequeñas y casi inmutables (estados de pedido y métodos de pago) en memoria.
+ * Se cargan al arrancar y se recargan con recargar() (endpoint de administración) cuando cambian.
+ * Para asignarlas a un pedido se usan referencias JPA (getReferenceById): validar y cambiar de estado
+ * no ejecuta ningún SELECT sobre estas tablas.
+ * Las entidades guardadas aquí son compartidas: no deben modificarse.
+ */
+@Component
+public class RegistroDatosReferencia {
+
+    private static final Logger log = LoggerFactory.getLogger(RegistroDatosReferencia.class);
+
+    private final EstadoPedidoRepository estadoPedidoRepository;
+    private final MetodoPagoRepository metodoPagoRepository;
+
+    // Se sustituye entera en cada recarga: los lectores ven siempre una versión completa
+    private volatile Instantanea instantanea;
+
+    public RegistroDatosReferencia(EstadoPedidoRepository estadoPedidoRepository, MetodoPagoRepository metodoPagoRepository) {
+        this.estadoPedidoRepository = estadoPedidoRepository;
+        this.metodoPagoRepository = metodoPagoRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarAlArrancar() {
+        recargar();
+    }
+
+    /**
+     * Vuelve a leer ambas tablas (dos consultas) y publica la nueva versión.
+     */
+    public synchronized void recargar() {
+        Map<Integer, EstadoPedido> estados = new LinkedHashMap<>();
+        for (EstadoPedido estado : estadoPedidoRepository.findAll()) {
+            estados.put(estado.getIdEstadoPedido(), estado);
+        }
+        Map<Long, MetodoPago> metodosPago = new LinkedHashMap<>();
+        for (MetodoPago metodoPago : metodoPagoRepository.findAll()) {
+            metodosPago.put(metodoPago.getIdMetodoPago(), metodoPago);
+        }
+
+        for (EstadoPedidoTipo tipo : EstadoPedidoTipo.values()) {
+            if (!estados.containsKey(tipo.getId())) {
+                log.warn("El estado de pedido {} (ID {}) no existe en estados_pedido", tipo, tipo.getId());
+            }
+        }
+        instantanea = new Instantanea(Map.copyOf(estados), Map.copyOf(metodosPago), LocalDateTime.now());
+        log.info("Datos de referencia cargados: {} estados de pedido, {} métodos de pago", estados.size(), metodosPago.size());
+    }
+
+    // Estado de pedido completo (para mostrar su nombre sin consultar la BD)
+    public EstadoPedido estado(EstadoPedidoTipo tipo) {
+        EstadoPedido estado = actual().estados().get(tipo.getId());
+        if (estado == null) {
+            throw new IllegalStateException("Estado de pedido " + tipo + " (ID " + tipo.getId() + ") no encontrado.");
+        }
+        return estado;
+    }
+
+    public Optional<EstadoPedido> estadoPorId(Integer idEstadoPedido) {
+        return Optional.ofNullable(actual().estados().get(idEstadoPedido));
+    }
+
+    // Nombre del estado de un pedido, aunque el pedido solo tenga una referencia sin inicializar
+    public String nombreEstado(EstadoPedido estado) {
+        Integer id = estado.getIdEstadoPedido();
+        return estadoPorId(id).map(EstadoPedido::getNombreEstado).orElse("ID " + id);
+    }
+
+    // Referencia para asignar a un pedido (sin SELECT)
+    public EstadoPedido referenciaEstado(EstadoPedidoTipo tipo) {
+        estado(tipo);
+        return estadoPedidoRepository.getReferenceById(tipo.getId());
+    }
+
+    public EstadoPedido referenciaEstado(Integer idEstadoPedido) {
+        if (idEstadoPedido == null || !actual().estados().containsKey(idEstadoPedido)) {
+            throw new IllegalArgumentException("Estado de pedido no válido.");
+        }
+        return estadoPedidoRepository.getReferenceById(idEstadoPedido);
+    }
+
+    public MetodoPago referenciaMetodoPago(Long idMetodoPago) {
+        if (idMetodoPago == null || !actual().metodosPago().containsKey(idMetodoPago)) {
+            throw new IllegalArgumentException("Método de pago no válido.");
+        }
+        return metodoPagoRepository.getReferenceById(idMetodoPago);
+    }
+
+    /**
+     * Contenido actual del registro (para el endpoint de administración).
+     */
+    public Map<String, Object> resumen() {
+        Instantanea actual = actual();
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("cargadoEn", actual.cargadoEn());
+        datos.put("estadosPedido", List.copyOf(actual.estados().values()));
+        datos.put("metodosPago", List.copyOf(actual.metodosPago().values()));
+        return datos;
+    }
+
+    // Carga perezosa por si se usa antes de ApplicationReadyEvent (ej. otro listener de arranque)
+    private Instantanea actual() {
+        Instantanea actual = instantanea;
+        if (actual == null) {
+            synchronized (this) {
+                if (instantanea == null) {
+                    recargar();
+                }
+                actual = instantanea;
+            }
+        }
+        return actual;
+    }
+
+    private record Instantanea(Map<Integer, EstadoPedido> estados, Map<Long, MetodoPago> metodosPago, LocalDateTime cargadoEn) {
+    }
+}
@@ -0,0 +1,209 @@
+package com.myapp.services;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.myapp.models.ItemCarrito;
+import com.myapp.models.ReservaStock;
+import com.myapp.repositories.ProductoRepository;
+import com.myapp.repositories.ReservaStockRepository;
+import com.myapp.util.eventos.StockReservadoModificadoEvent;
+
+/**
+ * Reservas temporales de stock para los ítems del carrito.
+ * Al añadir al carrito se apartan unidades (así otro usuario no puede venderlas) durante un tiempo limitado;
+ * si el carrito no se compra, el barrido libera las vencidas. Las reservas viven solo en reservas_stock y su suma
+ * en Producto.cantidadReservada: Producto.cantidadStock no se toca hasta la compra, y el disponible para la venta
+ * es cantidadStock - cantidadReservada.
+ */
+@Service
+public class ReservaCarritoService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservaCarritoService.class);
+
+    private final ReservaStockRepository reservaStockRepository;
+    private final ProductoRepository productoRepository;
+    private final ReservaStockService reservaStockService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration duracionReserva;
+
+    public ReservaCarritoService(ReservaStockRepository reservaStockRepository, ProductoRepository productoRepository,
+            ReservaStockService reservaStockService, ApplicationEventPublisher eventPublisher,
+            @Value("${carrito.reservas.minutos:15}") long minutosReserva) {
+        this.reservaStockRepository = reservaStockRepository;
+        this.productoRepository = productoRepository;
+        this.reservaStockService = reservaStockService;
+        this.eventPublisher = eventPublisher;
+        this.duracionReserva = Duration.ofMinutes(minutosReserva);
+    }
+
+    /**
+     * Ajusta la reserva del ítem a la cantidad indicada y renueva su expiración.
+     * Solo se aparta o libera la diferencia con lo ya reservado.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reservar(ItemCarrito item, int cantidad) {
+        Long idProducto = item.getProducto().getIdProducto();
+        ReservaStock reserva = reservaStockRepository.findParaActualizarByIdItemCarrito(item.getIdItemCarrito())
+            .orElseGet(() -> nuevaReserva(item));
+        int reservadaAntes = reserva.getCantidad();
+
+        if (!ajustar(reserva, cantidad)) {
+            int disponible = Math.max(0, productoRepository.findDisponibleByIdProducto(idProducto).orElse(0) + reservadaAntes);
+            throw new IllegalStateException("Stock insuficiente. Solo hay " + disponible + " unidades disponibles.");
+        }
+        borrarVacias(List.of(reserva));
+        if (cantidad != reservadaAntes) {
+            publicarCambio(List.of(idProducto));
+        }
+    }
+
+    /**
+     * Reservas ya existentes de un carrito para ciertos productos, bloqueadas (para operaciones en lote).
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<Long, ReservaStock> reservasDelCarrito(Long idCarrito, Collection<Long> idsProducto) {
+        Map<Long, ReservaStock> porProducto = new HashMap<>();
+        for (ReservaStock reserva : reservaStockRepository.findParaActualizarByIdCarritoAndProductos(idCarrito, idsProducto)) {
+            porProducto.put(reserva.getProducto().getIdProducto(), reserva);
+        }
+        return porProducto;
+    }
+
+    // Reserva vacía (aún sin guardar) para un ítem que todavía no tiene
+    public ReservaStock nuevaReserva(ItemCarrito item) {
+        ReservaStock nueva = new ReservaStock();
+        nueva.setItemCarrito(item);
+        nueva.setProducto(item.getProducto());
+        nueva.setCantidad(0);
+        return nueva;
+    }
+
+    /**
+     * Lleva la reserva a la cantidad indicada sin lanzar excepciones ni publicar eventos.
+     * Devuelve false, sin cambiar nada, si no hay stock para la diferencia; quien llama decide si eso
+     * anula toda la operación o solo una línea de un lote. Una reserva que queda a 0 no se borra aquí sino
+     * con borrarVacias: un lote que elimina y vuelve a agregar un producto reutiliza la misma fila.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean ajustar(ReservaStock reserva, int cantidad) {
+        Long idProducto = reserva.getProducto().getIdProducto();
+        int diferencia = cantidad - reserva.getCantidad();
+        if (diferencia > 0 && !reservaStockService.intentarApartar(idProducto, diferencia)) {
+            return false;
+        }
+        if (diferencia < 0) {
+            reservaStockService.liberarApartadas(Map.of(idProducto, -diferencia));
+        }
+
+        reserva.setCantidad(cantidad);
+        if (cantidad == 0) {
+            return true;
+        }
+        reserva.setExpiraEn(LocalDateTime.now().plus(duracionReserva));
+        reservaStockRepository.save(reserva);
+        return true;
+    }
+
+    /**
+     * Borra las reservas que ajustar dejó a 0 (las de los ítems que se eliminan del carrito).
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void borrarVacias(Collection<ReservaStock> reservas) {
+        for (ReservaStock reserva : reservas) {
+            if (reserva.getCantidad() == 0 && reserva.getIdReserva() != null) {
+                reservaStockRepository.delete(reserva);
+            }
+        }
+    }
+
+    /**
+     * Libera la reserva del ítem (si la tiene) y la borra. Se llama antes de eliminar el ítem.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void liberar(Long idItemCarrito) {
+        reservaStockRepository.findParaActualizarByIdItemCarrito(idItemCarrito)
+            .ifPresent(reserva -> liberarTodas(List.of(reserva)));
+    }
+
+    /**
+     * Libera todas las reservas del carrito y las borra. Se llama antes de vaciarlo.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void liberarCarrito(Long idCarrito) {
+        liberarTodas(reservaStockRepository.findParaActualizarByIdCarrito(idCarrito));
+    }
+
+    /**
+     * Al comprar, las unidades que el usuario tenía reservadas en su carrito pasan al pedido.
+     * Borra esas reservas y devuelve cuántas unidades tenía apartadas de cada producto, para que
+     * ReservaStockService.reservar las deje de contar como apartadas en el mismo UPDATE que descuenta la compra
+     * (si reservó más de lo que compra, el sobrante vuelve a estar disponible).
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<Long, Integer> consumirReservasDeUsuario(Long idUsuario, Map<Long, Integer> cantidadesPorProducto) {
+        Map<Long, Integer> apartadas = new HashMap<>();
+        List<ReservaStock> reservas = reservaStockRepository.findParaActualizarByUsuarioAndProductos(
+            idUsuario, cantidadesPorProducto.keySet());
+        if (reservas.isEmpty()) {
+            return apartadas;
+        }
+        for (ReservaStock reserva : reservas) {
+            apartadas.merge(reserva.getProducto().getIdProducto(), reserva.getCantidad(), Integer::sum);
+        }
+        reservaStockRepository.deleteAllInBatch(reservas);
+        return apartadas;
+    }
+
+    /**
+     * Libera un lote de reservas vencidas y las borra. Las filas bloqueadas por otra
+     * transacción (un usuario tocando su carrito) se saltan y se procesan en la siguiente pasada.
+     *
+     * @return número de reservas procesadas (si es igual al lote, probablemente queden más)
+     */
+    @Transactional
+    public int barrerVencidas(int tamanoLote) {
+        List<ReservaStock> vencidas = reservaStockRepository.findVencidasParaBarrido(
+            LocalDateTime.now(), PageRequest.of(0, tamanoLote));
+        if (!vencidas.isEmpty()) {
+            liberarTodas(vencidas);
+            log.debug("Barrido de reservas: {} reservas vencidas liberadas", vencidas.size());
+        }
+        return vencidas.size();
+    }
+
+    // Un UPDATE por producto (en orden de ID) y un único DELETE ... WHERE id_reserva IN (...)
+    private void liberarTodas(List<ReservaStock> reservas) {
+        if (reservas.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> cantidadesPorProducto = new HashMap<>();
+        for (ReservaStock reserva : reservas) {
+            cantidadesPorProducto.merge(reserva.getProducto().getIdProducto(), reserva.getCantidad(), Integer::sum);
+        }
+        reservaStockService.liberarApartadas(cantidadesPorProducto);
+        reservaStockRepository.deleteAllInBatch(reservas);
+        publicarCambio(cantidadesPorProducto.keySet());
+    }
+
+    /**
+     * El stock disponible de estos productos cambió: la caché del catálogo se invalida al confirmar la transacción.
+     * Es un evento propio y no CatalogoModificadoEvent, que reindexaría la búsqueda y las facetas en cada cambio de carrito.
+     */
+    public void publicarCambio(Collection<Long> idsProducto) {
+        eventPublisher.publishEvent(StockReservadoModificadoEvent.de(idsProducto));
+    }
+}
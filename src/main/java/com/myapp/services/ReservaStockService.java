@@ -0,0 +1,181 @@
+package com.myapp.services;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.myapp.repositories.ProductoRepository;
+import com.myapp.util.cache.TtlCache;
+
+/**
+ * Reserva y repone stock sin leer-comprobar-escribir en Java.
+ * Cada descuento es un UPDATE condicional (stock - apartado >= cantidad) que la BD aplica de forma atómica, así dos
+ * compras simultáneas del mismo producto nunca dejan el stock en negativo y no hace falta bloquear antes.
+ * Lo apartado en carritos se cuenta en Producto.cantidadReservada y no se resta de cantidadStock, que sigue siendo
+ * el stock real: un stock fijado a mano (admin, importación) no se infla cuando luego se liberan las reservas.
+ *
+ * Para los productos marcados como "flash sale" se lleva además un contador en memoria que rechaza
+ * al instante las compras cuando ya no queda stock, sin llegar a la BD. Es solo un filtro de admisión:
+ * la BD sigue siendo la que decide, y el contador se vuelve a leer de la BD cada pocos segundos.
+ */
+@Service
+public class ReservaStockService {
+
+    private final ProductoRepository productoRepository;
+    private final TtlCache<Long, AtomicInteger> cacheStockFlash;
+    private final Set<Long> idsFlashSale;
+
+    public ReservaStockService(ProductoRepository productoRepository, TtlCache<Long, AtomicInteger> cacheStockFlash,
+            @Value("${stock.flash-sale.ids:}") Set<Long> idsFlashSale) {
+        this.productoRepository = productoRepository;
+        this.cacheStockFlash = cacheStockFlash;
+        this.idsFlashSale = Set.copyOf(idsFlashSale);
+    }
+
+    /**
+     * Descuenta las cantidades indicadas (ID de producto -> unidades) dentro de la transacción en curso.
+     * Los UPDATE se lanzan en orden de ID para que dos pedidos con productos comunes bloqueen las filas
+     * en el mismo orden. Si algún producto no tiene stock suficiente se lanza IllegalStateException y
+     * el rollback deshace los descuentos ya aplicados.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reservar(Map<Long, Integer> cantidadesPorProducto) {
+        reservar(cantidadesPorProducto, Map.of());
+    }
+
+    /**
+     * Igual que reservar, para una compra que consume reservas del carrito: deReservas son las unidades que el
+     * comprador tenía apartadas de cada producto (ya borradas de reservas_stock). Esas dejan de contar como
+     * apartadas y solo lo que falte por encima de ellas tiene que estar disponible.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reservar(Map<Long, Integer> cantidadesPorProducto, Map<Long, Integer> deReservas) {
+        for (Map.Entry<Long, Integer> linea : new TreeMap<>(cantidadesPorProducto).entrySet()) {
+            if (!descontar(linea.getKey(), linea.getValue(), deReservas.getOrDefault(linea.getKey(), 0))) {
+                throw new IllegalStateException("Stock insuficiente para el producto con ID: " + linea.getKey());
+            }
+        }
+    }
+
+    /**
+     * Aparta unidades para un carrito (sin descontarlas del stock) si hay disponibles. Devuelve false en lugar
+     * de lanzar una excepción, para que quien llama pueda rechazar solo esa operación sin marcar la transacción
+     * para rollback.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean intentarApartar(Long idProducto, int cantidad) {
+        AtomicInteger disponibleFlash = idsFlashSale.contains(idProducto) ? contadorFlashSale(idProducto) : null;
+        if (disponibleFlash != null && !admitirFlashSale(disponibleFlash, cantidad)) {
+            return false;
+        }
+        if (productoRepository.apartarStock(idProducto, cantidad) == 0) {
+            if (disponibleFlash != null) {
+                disponibleFlash.addAndGet(cantidad);
+            }
+            return false;
+        }
+        if (disponibleFlash != null) {
+            devolverSiNoSeConfirma(disponibleFlash, cantidad);
+        }
+        return true;
+    }
+
+    /**
+     * Deja de contar como apartadas las cantidades indicadas (reservas de carrito liberadas o vencidas), en orden de ID.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void liberarApartadas(Map<Long, Integer> cantidadesPorProducto) {
+        for (Map.Entry<Long, Integer> linea : new TreeMap<>(cantidadesPorProducto).entrySet()) {
+            productoRepository.liberarStockApartado(linea.getKey(), linea.getValue());
+            invalidarContadores(Set.of(linea.getKey()));
+        }
+    }
+
+    /**
+     * Devuelve al stock las cantidades indicadas (ej. al cancelar un pedido), en orden de ID.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reponer(Map<Long, Integer> cantidadesPorProducto) {
+        for (Map.Entry<Long, Integer> linea : new TreeMap<>(cantidadesPorProducto).entrySet()) {
+            productoRepository.reponerStock(linea.getKey(), linea.getValue());
+            invalidarContadores(Set.of(linea.getKey()));
+        }
+    }
+
+    /**
+     * Olvida los contadores en memoria de estos productos porque su stock se cambió directamente en la BD
+     * (ej. una actualización masiva). Llamar después de confirmar el cambio.
+     */
+    public void invalidarContadores(Collection<Long> idsProducto) {
+        for (Long idProducto : idsProducto) {
+            if (idsFlashSale.contains(idProducto)) {
+                cacheStockFlash.invalidar(idProducto);
+            }
+        }
+    }
+
+    // Solo lo que no venía apartado pasa por el contador en memoria; lo apartado ya se descontó de él al apartarlo
+    private boolean descontar(Long idProducto, int cantidad, int deReservas) {
+        int nuevas = Math.max(0, cantidad - deReservas);
+        AtomicInteger disponibleFlash = idsFlashSale.contains(idProducto) ? contadorFlashSale(idProducto) : null;
+        if (disponibleFlash != null && nuevas > 0 && !admitirFlashSale(disponibleFlash, nuevas)) {
+            return false;
+        }
+        if (productoRepository.descontarStock(idProducto, cantidad, deReservas) == 0) {
+            if (disponibleFlash != null) {
+                disponibleFlash.addAndGet(nuevas);
+            }
+            return false;
+        }
+        if (disponibleFlash != null) {
+            devolverSiNoSeConfirma(disponibleFlash, nuevas);
+            if (deReservas > cantidad) {
+                // Sobraron unidades apartadas: vuelven a estar disponibles
+                invalidarContadores(Set.of(idProducto));
+            }
+        }
+        return true;
+    }
+
+    // Un solo contador por producto: si dos hilos lo cargan a la vez, el segundo usa el que guardó el primero
+    // (con obtenerOCargar cada uno descontaría de su propia copia y el contador guardado no vería las otras ventas)
+    private AtomicInteger contadorFlashSale(Long idProducto) {
+        return cacheStockFlash.obtener(idProducto).orElseGet(() -> {
+            AtomicInteger cargado = new AtomicInteger(productoRepository.findDisponibleByIdProducto(idProducto).orElse(0));
+            return cacheStockFlash.ponerSiAusente(idProducto, cargado).orElse(cargado);
+        });
+    }
+
+    // Descuenta del contador en memoria o rechaza sin ir a la BD
+    private static boolean admitirFlashSale(AtomicInteger disponible, int cantidad) {
+        int actual;
+        do {
+            actual = disponible.get();
+            if (actual < cantidad) {
+                return false;
+            }
+        } while (!disponible.compareAndSet(actual, actual - cantidad));
+        return true;
+    }
+
+    // Si la transacción no se confirma, las unidades vuelven al contador en memoria
+    private static void devolverSiNoSeConfirma(AtomicInteger disponible, int cantidad) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int estado) {
+                if (estado != STATUS_COMMITTED) {
+                    disponible.addAndGet(cantidad);
+                }
+            }
+        });
+    }
+}
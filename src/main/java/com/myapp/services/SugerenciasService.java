@@ -0,0 +1,144 @@
+package com.myapp.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.DTOs.CantidadProductoDTO;
+import com.DTOs.NombreProductoDTO;
+import com.DTOs.SugerenciaDTO;
+import com.myapp.models.Categoria;
+import com.myapp.models.EstadoPedidoTipo;
+import com.myapp.repositories.CategoriaRepository;
+import com.myapp.repositories.DetallePedidoRepository;
+import com.myapp.repositories.ProductoRepository;
+import com.myapp.util.busqueda.TrieSugerencias;
+import com.myapp.util.eventos.CatalogoModificadoEvent;
+
+/**
+ * Autocompletado del buscador: nombres de productos activos y de sus categorías, ordenados por unidades vendidas.
+ * Se sirve desde un TrieSugerencias inmutable. El trie se reconstruye entero en el hilo 'ejecutorBusqueda'
+ * y se publica de una vez (volatile), así las lecturas nunca esperan. Se reconstruye al arrancar, cuando cambia
+ * el catálogo (como mucho una vez por intervalo) y cada 'vigencia' para recoger las ventas nuevas.
+ */
+@Service
+public class SugerenciasService {
+
+    private static final Logger log = LoggerFactory.getLogger(SugerenciasService.class);
+
+    private final ProductoRepository productoRepository;
+    private final CategoriaRepository categoriaRepository;
+    private final DetallePedidoRepository detallePedidoRepository;
+    private final ThreadPoolTaskExecutor ejecutorBusqueda;
+    private final int maximo;
+    private final long vigenciaMs;
+
+    private volatile TrieSugerencias trie = TrieSugerencias.vacio();
+    private volatile long ultimaConstruccion;
+    private final AtomicBoolean catalogoModificado = new AtomicBoolean();
+    private final AtomicBoolean construccionProgramada = new AtomicBoolean();
+
+    public SugerenciasService(ProductoRepository productoRepository, CategoriaRepository categoriaRepository,
+            DetallePedidoRepository detallePedidoRepository,
+            @Qualifier("ejecutorBusqueda") ThreadPoolTaskExecutor ejecutorBusqueda,
+            @Value("${sugerencias.maximo:10}") int maximo,
+            @Value("${sugerencias.reconstruccion.vigencia-ms:600000}") long vigenciaMs) {
+        this.productoRepository = productoRepository;
+        this.categoriaRepository = categoriaRepository;
+        this.detallePedidoRepository = detallePedidoRepository;
+        this.ejecutorBusqueda = ejecutorBusqueda;
+        this.maximo = maximo;
+        this.vigenciaMs = vigenciaMs;
+    }
+
+    /**
+     * Hasta 'tamano' sugerencias para el texto escrito (vacío mientras se construye el primer trie).
+     */
+    public List<SugerenciaDTO> sugerir(String consulta, int tamano) {
+        if (consulta == null || consulta.isBlank()) {
+            return List.of();
+        }
+        int limite = tamano <= 0 ? maximo : Math.min(tamano, maximo);
+        return trie.sugerir(consulta, limite);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void construirAlArrancar() {
+        programarConstruccion();
+    }
+
+    // Solo se anota: la reconstrucción se agrupa en la siguiente comprobación periódica
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificarCatalogo(CatalogoModificadoEvent evento) {
+        catalogoModificado.set(true);
+    }
+
+    @Scheduled(fixedDelayString = "${sugerencias.reconstruccion.intervalo-ms:30000}",
+            initialDelayString = "${sugerencias.reconstruccion.intervalo-ms:30000}")
+    public void comprobarVigencia() {
+        boolean caducado = System.currentTimeMillis() - ultimaConstruccion >= vigenciaMs;
+        if (catalogoModificado.get() || caducado) {
+            programarConstruccion();
+        }
+    }
+
+    private void programarConstruccion() {
+        if (construccionProgramada.compareAndSet(false, true)) {
+            ejecutorBusqueda.execute(this::construir);
+        }
+    }
+
+    // Tres consultas (nombres, categorías, ventas) y el trie se monta en memoria
+    private void construir() {
+        construccionProgramada.set(false);
+        catalogoModificado.set(false);
+        long inicio = System.nanoTime();
+        try {
+            Map<Long, Long> ventasPorProducto = new HashMap<>();
+            for (CantidadProductoDTO fila : detallePedidoRepository.sumarVentasPorProducto(EstadoPedidoTipo.CANCELADO.getId())) {
+                ventasPorProducto.put(fila.getIdProducto(), fila.getCantidad());
+            }
+
+            List<SugerenciaDTO> sugerencias = new ArrayList<>();
+            // Una categoría se sugiere si tiene productos activos; su popularidad es la suma de sus productos
+            Map<Integer, Long> ventasPorCategoria = new HashMap<>();
+            for (NombreProductoDTO producto : productoRepository.findNombresActivos()) {
+                long ventas = ventasPorProducto.getOrDefault(producto.idProducto(), 0L);
+                sugerencias.add(new SugerenciaDTO(producto.nombreProducto(), SugerenciaDTO.Tipo.PRODUCTO,
+                    producto.idProducto(), ventas));
+                ventasPorCategoria.merge(producto.idCategoria(), ventas, Long::sum);
+            }
+            for (Categoria categoria : categoriaRepository.findAll()) {
+                Long ventas = ventasPorCategoria.get(categoria.getIdCategoria());
+                if (ventas != null) {
+                    sugerencias.add(new SugerenciaDTO(categoria.getNombreCategoria(), SugerenciaDTO.Tipo.CATEGORIA,
+                        categoria.getIdCategoria().longValue(), ventas));
+                }
+            }
+
+            TrieSugerencias nuevo = TrieSugerencias.construir(sugerencias, maximo);
+            trie = nuevo;
+            ultimaConstruccion = System.currentTimeMillis();
+            log.info("Sugerencias de búsqueda construidas: {} textos, {} nodos en {} ms",
+                    nuevo.totalSugerencias(), nuevo.totalNodos(), (System.nanoTime() - inicio) / 1_000_000);
+        } catch (RuntimeException ex) {
+            // Se sigue sirviendo el trie anterior; la siguiente comprobación lo vuelve a intentar
+            catalogoModificado.set(true);
+            log.error("No se pudieron construir las sugerencias de búsqueda", ex);
+        }
+    }
+}
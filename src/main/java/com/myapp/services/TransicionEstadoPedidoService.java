@@ -0,0 +1,215 @@
+package com.myapp.services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.DTOs.CantidadProductoDTO;
+import com.DTOs.ResultadoTransicionLoteDTO;
+import com.DTOs.ResultadoTransicionPedidoDTO;
+import com.myapp.models.EstadoPedido;
+import com.myapp.models.EstadoPedidoTipo;
+import com.myapp.models.Pago;
+import com.myapp.models.Pedido;
+import com.myapp.repositories.PagoRepository;
+import com.myapp.repositories.DetallePedidoRepository;
+import com.myapp.repositories.PedidoRepository;
+import com.myapp.repositories.ProductoRepository;
+import com.myapp.util.eventos.CatalogoModificadoEvent;
+
+/**
+ * Aplica cambios de estado de pedido validados con MaquinaEstadosPedido, junto con sus efectos
+ * (ej. devolver el stock al cancelar y, si estaba pagado, dejar su cobro en 'Reembolso Pendiente' para que
+ * PagoService lo devuelva en la pasarela). Un pedido suelto se cambia sobre su entidad; los lotes se validan
+ * en memoria y se aplican con un UPDATE ... WHERE id IN (...) AND estado = origen por estado de origen,
+ * en trozos de tamanoLote pedidos con su propia transacción.
+ */
+@Service
+public class TransicionEstadoPedidoService {
+
+    private final PedidoRepository pedidoRepository;
+    private final DetallePedidoRepository detallePedidoRepository;
+    private final PagoRepository pagoRepository;
+    private final ProductoRepository productoRepository;
+    private final ReservaStockService reservaStockService;
+    private final RegistroDatosReferencia registroDatosReferencia;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int tamanoLote;
+    private final int maximoPedidos;
+
+    public TransicionEstadoPedidoService(PedidoRepository pedidoRepository, DetallePedidoRepository detallePedidoRepository,
+            PagoRepository pagoRepository, ProductoRepository productoRepository, ReservaStockService reservaStockService, RegistroDatosReferencia registroDatosReferencia,
+            ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager,
+            @Value("${pedidos.transiciones.tamano-lote:500}") int tamanoLote,
+            @Value("${pedidos.transiciones.maximo-pedidos:5000}") int maximoPedidos) {
+        this.pedidoRepository = pedidoRepository;
+        this.detallePedidoRepository = detallePedidoRepository;
+        this.pagoRepository = pagoRepository;
+        this.productoRepository = productoRepository;
+        this.reservaStockService = reservaStockService;
+        this.registroDatosReferencia = registroDatosReferencia;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tamanoLote = tamanoLote;
+        this.maximoPedidos = maximoPedidos;
+    }
+
+    /**
+     * Cambia el estado de un pedido ya cargado (y bloqueado por quien llama) y aplica los efectos de la transición.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void transicionar(Pedido pedido, EstadoPedidoTipo destino) {
+        String error = validar(pedido.getEstadoPedido(), destino);
+        if (error != null) {
+            throw new IllegalStateException(error);
+        }
+        if (destino.corresponde(pedido.getEstadoPedido())) {
+            return;
+        }
+        EstadoPedidoTipo origen = EstadoPedidoTipo.deId(pedido.getEstadoPedido().getIdEstadoPedido()).orElseThrow();
+        pedido.setEstadoPedido(registroDatosReferencia.referenciaEstado(destino));
+        if (MaquinaEstadosPedido.reembolsaPago(origen, destino)) {
+            marcarPagosParaReembolso(List.of(pedido.getIdPedido()));
+            if (Pago.APROBADO.equals(pedido.getEstadoPago())) {
+                pedido.setEstadoPago(Pago.REEMBOLSO_PENDIENTE);
+            }
+        }
+        aplicarEfectos(List.of(pedido.getIdPedido()), destino);
+    }
+
+    /**
+     * Cambia el estado de muchos pedidos. Un pedido inexistente o con una transición no permitida no anula
+     * a los demás: se informa en su resultado. Los pedidos que ya están en el destino cuentan como aplicados
+     * (sin efectos), así repetir un lote a medio aplicar es seguro.
+     */
+    public ResultadoTransicionLoteDTO transicionarLote(List<Long> idsPedido, EstadoPedidoTipo destino) {
+        if (destino == null) {
+            throw new IllegalArgumentException("El estado de destino es obligatorio.");
+        }
+        if (idsPedido == null || idsPedido.isEmpty()) {
+            throw new IllegalArgumentException("El lote debe contener al menos un pedido.");
+        }
+        if (idsPedido.size() > maximoPedidos) {
+            throw new IllegalArgumentException("El lote admite como máximo " + maximoPedidos + " pedidos.");
+        }
+        // Falla antes de empezar si el estado de destino no existe en la BD
+        registroDatosReferencia.estado(destino);
+
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(idsPedido));
+        ids.removeIf(id -> id == null);
+
+        List<ResultadoTransicionPedidoDTO> resultados = new ArrayList<>(ids.size());
+        for (int desde = 0; desde < ids.size(); desde += tamanoLote) {
+            List<Long> trozo = ids.subList(desde, Math.min(desde + tamanoLote, ids.size()));
+            resultados.addAll(transactionTemplate.execute(estado -> aplicarTrozo(trozo, destino)));
+        }
+
+        int aplicados = (int) resultados.stream().filter(ResultadoTransicionPedidoDTO::isExito).count();
+        return new ResultadoTransicionLoteDTO(destino, aplicados, resultados.size() - aplicados, resultados);
+    }
+
+    // Un trozo en una transacción: bloqueo + validación en memoria + un UPDATE por estado de origen + efectos
+    private List<ResultadoTransicionPedidoDTO> aplicarTrozo(List<Long> ids, EstadoPedidoTipo destino) {
+        Map<Long, Pedido> pedidos = new HashMap<>();
+        for (Pedido pedido : pedidoRepository.findParaActualizarByIdPedidoInOrderByIdPedido(ids)) {
+            pedidos.put(pedido.getIdPedido(), pedido);
+        }
+
+        List<ResultadoTransicionPedidoDTO> resultados = new ArrayList<>(ids.size());
+        Map<EstadoPedidoTipo, List<Long>> idsPorOrigen = new EnumMap<>(EstadoPedidoTipo.class);
+        for (Long idPedido : ids) {
+            Pedido pedido = pedidos.get(idPedido);
+            if (pedido == null) {
+                resultados.add(new ResultadoTransicionPedidoDTO(idPedido, false, null, "Pedido no encontrado."));
+                continue;
+            }
+            EstadoPedido estadoActual = pedido.getEstadoPedido();
+            EstadoPedidoTipo origen = EstadoPedidoTipo.deId(estadoActual.getIdEstadoPedido()).orElse(null);
+            String error = validar(estadoActual, destino);
+            if (error != null) {
+                resultados.add(new ResultadoTransicionPedidoDTO(idPedido, false, origen, error));
+                continue;
+            }
+            resultados.add(new ResultadoTransicionPedidoDTO(idPedido, true, origen, null));
+            if (origen != destino) {
+                idsPorOrigen.computeIfAbsent(origen, o -> new ArrayList<>()).add(idPedido);
+            }
+        }
+
+        List<Long> cambiados = new ArrayList<>();
+        EstadoPedido referenciaDestino = registroDatosReferencia.referenciaEstado(destino);
+        for (Map.Entry<EstadoPedidoTipo, List<Long>> grupo : idsPorOrigen.entrySet()) {
+            int actualizados = pedidoRepository.actualizarEstadoEnLote(grupo.getValue(), grupo.getKey().getId(), referenciaDestino);
+            if (actualizados != grupo.getValue().size()) {
+                // No debería ocurrir con las filas bloqueadas; se deshace el trozo para no aplicar efectos a medias
+                throw new IllegalStateException("Otros cambios alteraron los pedidos del lote. Vuelva a intentarlo.");
+            }
+            if (MaquinaEstadosPedido.reembolsaPago(grupo.getKey(), destino)) {
+                marcarPagosParaReembolso(grupo.getValue());
+                pedidoRepository.cambiarEstadoPagoEnLote(grupo.getValue(), Pago.APROBADO, Pago.REEMBOLSO_PENDIENTE);
+            }
+            cambiados.addAll(grupo.getValue());
+        }
+
+        // Efectos solo sobre los pedidos que el UPDATE cambió de verdad
+        aplicarEfectos(cambiados, destino);
+        return resultados;
+    }
+
+    // Motivo por el que el pedido no puede pasar al destino, o null si puede (o ya está en él)
+    private String validar(EstadoPedido estadoActual, EstadoPedidoTipo destino) {
+        Optional<EstadoPedidoTipo> origen = EstadoPedidoTipo.deId(estadoActual.getIdEstadoPedido());
+        if (origen.isEmpty()) {
+            return "El estado actual del pedido (" + registroDatosReferencia.nombreEstado(estadoActual) + ") no admite transiciones.";
+        }
+        if (origen.get() == destino || MaquinaEstadosPedido.permitida(origen.get(), destino)) {
+            return null;
+        }
+        return "No se puede pasar de '" + registroDatosReferencia.nombreEstado(estadoActual) + "' a '"
+            + registroDatosReferencia.estado(destino).getNombreEstado() + "'.";
+    }
+
+    private void aplicarEfectos(Collection<Long> idsPedido, EstadoPedidoTipo destino) {
+        if (idsPedido.isEmpty()) {
+            return;
+        }
+        if (MaquinaEstadosPedido.reponeStock(destino)) {
+            reponerStock(idsPedido);
+        }
+    }
+
+    // El cobro de un pedido pagado que se cancela se devuelve: PagoService.reembolsarPendientes lo anula en la pasarela
+    private void marcarPagosParaReembolso(Collection<Long> idsPedido) {
+        pagoRepository.cambiarEstadoPorPedidos(idsPedido, Pago.APROBADO, Pago.REEMBOLSO_PENDIENTE);
+    }
+
+    // Devuelve al stock las unidades de los pedidos: una consulta de suma, un UPDATE por producto y un evento
+    private void reponerStock(Collection<Long> idsPedido) {
+        Map<Long, Integer> cantidadesPorProducto = new HashMap<>();
+        for (CantidadProductoDTO fila : detallePedidoRepository.sumarCantidadesPorProducto(idsPedido)) {
+            cantidadesPorProducto.put(fila.getIdProducto(), fila.getCantidad().intValue());
+        }
+        if (cantidadesPorProducto.isEmpty()) {
+            return;
+        }
+        reservaStockService.reponer(cantidadesPorProducto);
+
+        // El stock cambió: la caché del catálogo se invalida al confirmar la transacción
+        eventPublisher.publishEvent(CatalogoModificadoEvent.de(cantidadesPorProducto.keySet(),
+            productoRepository.findIdsCategoriaByIdsProducto(cantidadesPorProducto.keySet())));
+    }
+}
@@ -14,6 +14,8 @@ import com.myapp.models.Rol;
 import com.myapp.models.Usuario;
 import com.myapp.repositories.RolRepository;
 import com.myapp.repositories.UsuarioRepository;
+import com.myapp.util.cache.TtlCache;
+import com.myapp.util.security.CustomUserDetails;
 
 @Service
 public class UsuarioServices {
@@ -21,13 +23,15 @@ public class UsuarioServices {
     private UsuarioRepository usuarioRepository;
     private RolRepository rolRepository;
     private PasswordEncoder passwordEncoder;
+    private TtlCache<Long, CustomUserDetails> cachePrincipales;
 
 
     public UsuarioServices(UsuarioRepository usuarioRepository, RolRepository rolRepository,
-            PasswordEncoder passwordEncoder) {
+            PasswordEncoder passwordEncoder, TtlCache<Long, CustomUserDetails> cachePrincipales) {
         this.usuarioRepository = usuarioRepository;
         this.rolRepository = rolRepository;
         this.passwordEncoder = passwordEncoder;
+        this.cachePrincipales = cachePrincipales;
     }
 
     // 1. Crear un nuevo usuario
@@ -99,7 +103,9 @@ public class UsuarioServices {
             usuarioExistente.setApellidos(detalleUsuario.getApellidos());
             usuarioExistente.setTelefono(detalleUsuario.getTelefono());
             // No actualizar la contraseña aquí por simplicidad
-            return usuarioRepository.save(usuarioExistente);
+            Usuario usuarioGuardado = usuarioRepository.save(usuarioExistente);
+            cachePrincipales.invalidar(id); // El filtro JWT debe ver los datos nuevos
+            return usuarioGuardado;
         } else {
             throw new RuntimeException("Usuario no encontrado con ID: " + id);
         }
@@ -112,6 +118,7 @@ public class UsuarioServices {
             Usuario usuarioExistente = usuarioOpt.get();
             usuarioExistente.setActivo(false);
             usuarioRepository.save(usuarioExistente);
+            cachePrincipales.invalidar(id); // El filtro JWT rechaza a los usuarios desactivados
         } else {
             throw new RuntimeException("Usuario no encontrado con ID: " + id);
         }
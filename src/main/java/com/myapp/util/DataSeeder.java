@@ -5,6 +5,8 @@ import java.util.HashSet;
 import java.util.Optional;
 import java.util.Set;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
@@ -19,6 +21,8 @@ import com.myapp.repositories.UsuarioRepository;
 // La interfaz CommandLineRunner garantiza que el método run se ejecute al inicio
 public class DataSeeder implements CommandLineRunner {
 
+    private static final Logger log = LoggerFactory.getLogger(DataSeeder.class);
+
     //Inyección de dependencias de repositorios si es necesario
     private final RolRepository rolRepository;
     private final UsuarioRepository usuarioRepository;
@@ -38,7 +42,7 @@ public class DataSeeder implements CommandLineRunner {
 
         //Solo se ejecuta si no hay roles en la base de datos (para evitar duplicados en reinicios)
         if (rolRepository.count() == 0) {
-            System.out.println("Iniciando Data Seeding: Creando Roles y Usuario Inicial...");
+            log.info("Iniciando Data Seeding: Creando Roles y Usuario Inicial...");
         }
 
         //1. Crear roles predeterminados si no existen
@@ -48,7 +52,7 @@ public class DataSeeder implements CommandLineRunner {
         //2. Crear un usuario administrador inicial si no existe
         createAdminUser(adminRol);
 
-        System.out.println("Data Seeding completado.");
+        log.info("Data Seeding completado.");
     }
 
     private Rol createRoleIfNotFound(String nombreRol) {
@@ -75,7 +79,7 @@ public class DataSeeder implements CommandLineRunner {
             admin.setRoles(adminRoles);
 
             usuarioRepository.save(admin);
-            System.out.println("Usuario Administrador 'admin@connectshop.com' creado.");
+            log.info("Usuario Administrador 'admin@connectshop.com' creado.");
             
         }
     }
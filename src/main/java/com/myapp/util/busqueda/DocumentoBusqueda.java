@@ -0,0 +1,63 @@
+package com.myapp.util.busqueda;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.DTOs.ProductoIndexableDTO;
+import com.DTOs.ProductoResumenDTO;
+
+/**
+ * Un producto ya tokenizado: sus términos con la frecuencia ponderada por campo (BM25F simplificado,
+ * una coincidencia en el SKU o el nombre vale más que en la descripción) y la vista que se devuelve.
+ * Los términos se guardan en arrays y no en un mapa para que 100k documentos ocupen poco.
+ */
+final class DocumentoBusqueda {
+
+    static final float PESO_SKU = 4f;
+    static final float PESO_NOMBRE = 3f;
+    static final float PESO_CATEGORIA = 1.5f;
+    static final float PESO_DESCRIPCION = 1f;
+
+    final ProductoResumenDTO producto;
+    final String[] terminos;
+    final float[] frecuencias;
+    // Longitud ponderada (suma de los pesos de todos sus términos), para la normalización de BM25
+    final float longitud;
+
+    private DocumentoBusqueda(ProductoResumenDTO producto, String[] terminos, float[] frecuencias, float longitud) {
+        this.producto = producto;
+        this.terminos = terminos;
+        this.frecuencias = frecuencias;
+        this.longitud = longitud;
+    }
+
+    static DocumentoBusqueda de(ProductoIndexableDTO fila) {
+        Map<String, Float> porTermino = new HashMap<>();
+        float longitud = 0;
+        longitud += sumar(porTermino, TokenizadorEspanol.tokenizarCodigo(fila.sku()), PESO_SKU);
+        longitud += sumar(porTermino, TokenizadorEspanol.tokenizar(fila.nombreProducto()), PESO_NOMBRE);
+        longitud += sumar(porTermino, TokenizadorEspanol.tokenizar(fila.nombreCategoria()), PESO_CATEGORIA);
+        longitud += sumar(porTermino, TokenizadorEspanol.tokenizar(fila.descripcionLarga()), PESO_DESCRIPCION);
+
+        String[] terminos = new String[porTermino.size()];
+        float[] frecuencias = new float[porTermino.size()];
+        int i = 0;
+        for (Map.Entry<String, Float> entrada : porTermino.entrySet()) {
+            terminos[i] = entrada.getKey();
+            frecuencias[i++] = entrada.getValue();
+        }
+        return new DocumentoBusqueda(fila.resumen(), terminos, frecuencias, longitud);
+    }
+
+    Long id() {
+        return producto.getIdProducto();
+    }
+
+    private static float sumar(Map<String, Float> porTermino, List<String> terminos, float peso) {
+        for (String termino : terminos) {
+            porTermino.merge(termino, peso, Float::sum);
+        }
+        return terminos.size() * peso;
+    }
+}
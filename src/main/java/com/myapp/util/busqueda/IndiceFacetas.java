@@ -0,0 +1,394 @@
+package com.myapp.util.busqueda;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import com.DTOs.FacetasCatalogoDTO;
+import com.DTOs.FiltroFacetas;
+import com.DTOs.ProductoResumenDTO;
+import com.DTOs.ValorFacetaDTO;
+
+/**
+ * Facetas del catálogo activo en memoria. Cada valor de faceta (categoría, rango de precio, disponibilidad y
+ * rango de peso) tiene un bitset sobre las posiciones de los productos, que están ordenados por ID.
+ * Filtrar y contar son operaciones Y/O entre bitsets, sin consultar la BD.
+ * Es inmutable: conCambios() copia solo los bitsets que toca y comparte el resto con la versión anterior.
+ * Un producto dado de baja conserva su posición fuera de 'activos' hasta que se compacta el índice.
+ */
+public final class IndiceFacetas {
+
+    private static final String DISPONIBLE = "disponible";
+    private static final String AGOTADO = "agotado";
+
+    private final BigDecimal[] limitesPrecio;
+    private final BigDecimal[] limitesPeso;
+    private final ProductoResumenDTO[] productos;
+    private final Map<Long, Integer> posicionPorId;
+    private final BitSet activos;
+    private final BitSet disponibles;
+    private final Map<Integer, BitSet> porCategoria;
+    private final Map<Integer, String> nombresCategoria;
+    // Rango i: [limite[i-1], limite[i]); el último no tiene límite superior. En peso hay uno más: "sin peso"
+    private final BitSet[] porRangoPrecio;
+    private final BitSet[] porRangoPeso;
+
+    private IndiceFacetas(BigDecimal[] limitesPrecio, BigDecimal[] limitesPeso, ProductoResumenDTO[] productos,
+            Map<Long, Integer> posicionPorId, BitSet activos, BitSet disponibles, Map<Integer, BitSet> porCategoria,
+            Map<Integer, String> nombresCategoria, BitSet[] porRangoPrecio, BitSet[] porRangoPeso) {
+        this.limitesPrecio = limitesPrecio;
+        this.limitesPeso = limitesPeso;
+        this.productos = productos;
+        this.posicionPorId = posicionPorId;
+        this.activos = activos;
+        this.disponibles = disponibles;
+        this.porCategoria = porCategoria;
+        this.nombresCategoria = nombresCategoria;
+        this.porRangoPrecio = porRangoPrecio;
+        this.porRangoPeso = porRangoPeso;
+    }
+
+    public static IndiceFacetas vacio(BigDecimal[] limitesPrecio, BigDecimal[] limitesPeso) {
+        return construir(List.of(), limitesPrecio, limitesPeso);
+    }
+
+    /**
+     * Índice nuevo con los productos dados (activos), que se ordenan por ID.
+     */
+    public static IndiceFacetas construir(Collection<ProductoResumenDTO> activos, BigDecimal[] limitesPrecio, BigDecimal[] limitesPeso) {
+        ProductoResumenDTO[] productos = activos.toArray(new ProductoResumenDTO[0]);
+        Arrays.sort(productos, Comparator.comparing(ProductoResumenDTO::getIdProducto));
+
+        Edicion edicion = new Edicion(vacioSinProductos(limitesPrecio, limitesPeso), productos,
+            new HashMap<>(productos.length * 2));
+        for (int posicion = 0; posicion < productos.length; posicion++) {
+            edicion.posiciones.put(productos[posicion].getIdProducto(), posicion);
+            edicion.poner(posicion, productos[posicion]);
+        }
+        return edicion.terminar();
+    }
+
+    /**
+     * Índice nuevo con los productos dados (re)indexados y los eliminados fuera.
+     * Si aparece un producto con un ID menor que el último indexado (no ocurre con IDs crecientes), se reconstruye.
+     */
+    public IndiceFacetas conCambios(Collection<ProductoResumenDTO> actualizados, Collection<Long> eliminados) {
+        long ultimoId = productos.length == 0 ? Long.MIN_VALUE : productos[productos.length - 1].getIdProducto();
+        List<ProductoResumenDTO> nuevos = new ArrayList<>();
+        for (ProductoResumenDTO producto : actualizados) {
+            if (!posicionPorId.containsKey(producto.getIdProducto())) {
+                if (producto.getIdProducto() <= ultimoId) {
+                    return reconstruidoCon(actualizados, eliminados);
+                }
+                nuevos.add(producto);
+            }
+        }
+        nuevos.sort(Comparator.comparing(ProductoResumenDTO::getIdProducto));
+
+        // Solo se copian el array y el mapa de posiciones si llegan productos nuevos (altas, no ediciones)
+        ProductoResumenDTO[] copia = nuevos.isEmpty() ? productos : Arrays.copyOf(productos, productos.length + nuevos.size());
+        Map<Long, Integer> posiciones = nuevos.isEmpty() ? posicionPorId : new HashMap<>(posicionPorId);
+        Edicion edicion = new Edicion(this, copia, posiciones);
+
+        for (Long idProducto : eliminados) {
+            Integer posicion = posicionPorId.get(idProducto);
+            if (posicion != null && activos.get(posicion)) {
+                edicion.quitar(posicion, productos[posicion]);
+            }
+        }
+        for (ProductoResumenDTO producto : actualizados) {
+            Integer posicion = posicionPorId.get(producto.getIdProducto());
+            if (posicion == null) {
+                continue;
+            }
+            if (activos.get(posicion)) {
+                edicion.quitar(posicion, productos[posicion]);
+            }
+            edicion.sustituir(posicion, producto);
+            edicion.poner(posicion, producto);
+        }
+        int siguiente = productos.length;
+        for (ProductoResumenDTO producto : nuevos) {
+            copia[siguiente] = producto;
+            posiciones.put(producto.getIdProducto(), siguiente);
+            edicion.poner(siguiente++, producto);
+        }
+        return edicion.terminar();
+    }
+
+    /**
+     * Índice nuevo sin las posiciones de los productos dados de baja.
+     */
+    public IndiceFacetas compactado() {
+        return reconstruidoCon(List.of(), List.of());
+    }
+
+    // Posiciones ocupadas por productos dados de baja (lo que recupera compactado())
+    public int huecos() {
+        return productos.length - activos.cardinality();
+    }
+
+    public int totalActivos() {
+        return activos.cardinality();
+    }
+
+    /**
+     * Recuentos de cada faceta y una página de productos para la selección. El recuento de una faceta
+     * aplica los filtros de las demás pero no el suyo, para que elegir otro valor no deje la lista a cero.
+     */
+    public FacetasCatalogoDTO consultar(FiltroFacetas filtro, int tamano) {
+        BitSet categorias = union(filtro.categorias(), porCategoria::get);
+        BitSet precios = union(filtro.rangosPrecio(), rango -> rango >= 0 && rango < porRangoPrecio.length ? porRangoPrecio[rango] : null);
+        BitSet disponibilidad = filtro.disponible() == null ? null
+            : filtro.disponible() ? disponibles : diferencia(activos, disponibles);
+        BitSet pesos = union(filtro.rangosPeso(), rango -> rango >= 0 && rango < porRangoPeso.length ? porRangoPeso[rango] : null);
+
+        BitSet seleccion = interseccion(activos, categorias, precios, disponibilidad, pesos);
+
+        // Categorías: con algún producto en la selección (o elegidas), de más a menos productos
+        BitSet sinCategoria = interseccion(activos, precios, disponibilidad, pesos);
+        List<ValorFacetaDTO> valoresCategoria = new ArrayList<>();
+        for (Map.Entry<Integer, BitSet> categoria : porCategoria.entrySet()) {
+            int cantidad = contar(sinCategoria, categoria.getValue());
+            boolean elegida = contiene(filtro.categorias(), categoria.getKey());
+            if (cantidad > 0 || elegida) {
+                valoresCategoria.add(new ValorFacetaDTO(String.valueOf(categoria.getKey()),
+                    nombresCategoria.get(categoria.getKey()), cantidad, elegida));
+            }
+        }
+        valoresCategoria.sort(Comparator.comparingInt(ValorFacetaDTO::cantidad).reversed()
+            .thenComparing(ValorFacetaDTO::etiqueta, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        BitSet sinPrecio = interseccion(activos, categorias, disponibilidad, pesos);
+        List<ValorFacetaDTO> valoresPrecio = new ArrayList<>(porRangoPrecio.length);
+        for (int rango = 0; rango < porRangoPrecio.length; rango++) {
+            valoresPrecio.add(new ValorFacetaDTO(String.valueOf(rango), etiquetaRango(limitesPrecio, rango, ""),
+                contar(sinPrecio, porRangoPrecio[rango]), contiene(filtro.rangosPrecio(), rango)));
+        }
+
+        BitSet sinDisponibilidad = interseccion(activos, categorias, precios, pesos);
+        int conStock = contar(sinDisponibilidad, disponibles);
+        List<ValorFacetaDTO> valoresDisponibilidad = List.of(
+            new ValorFacetaDTO(DISPONIBLE, "Disponible", conStock, Boolean.TRUE.equals(filtro.disponible())),
+            new ValorFacetaDTO(AGOTADO, "Agotado", sinDisponibilidad.cardinality() - conStock, Boolean.FALSE.equals(filtro.disponible())));
+
+        BitSet sinPeso = interseccion(activos, categorias, precios, disponibilidad);
+        List<ValorFacetaDTO> valoresPeso = new ArrayList<>(porRangoPeso.length);
+        for (int rango = 0; rango < porRangoPeso.length; rango++) {
+            String etiqueta = rango == limitesPeso.length + 1 ? "Sin peso" : etiquetaRango(limitesPeso, rango, " kg");
+            valoresPeso.add(new ValorFacetaDTO(String.valueOf(rango), etiqueta,
+                contar(sinPeso, porRangoPeso[rango]), contiene(filtro.rangosPeso(), rango)));
+        }
+
+        // Página por ID ascendente a partir del cursor (las posiciones están en orden de ID)
+        List<ProductoResumenDTO> pagina = new ArrayList<>(tamano);
+        int desde = filtro.despuesDeId() == null ? 0 : primeraPosicionDespuesDe(filtro.despuesDeId());
+        int posicion = seleccion.nextSetBit(desde);
+        while (posicion >= 0 && pagina.size() < tamano) {
+            pagina.add(productos[posicion]);
+            posicion = seleccion.nextSetBit(posicion + 1);
+        }
+        boolean hayMas = posicion >= 0;
+        Long siguienteId = hayMas ? pagina.get(pagina.size() - 1).getIdProducto() : null;
+
+        return new FacetasCatalogoDTO(seleccion.cardinality(), valoresCategoria, valoresPrecio, valoresDisponibilidad,
+            valoresPeso, pagina, hayMas, siguienteId);
+    }
+
+    private IndiceFacetas reconstruidoCon(Collection<ProductoResumenDTO> actualizados, Collection<Long> eliminados) {
+        Map<Long, ProductoResumenDTO> vigentes = new HashMap<>(productos.length * 2);
+        for (int posicion = activos.nextSetBit(0); posicion >= 0; posicion = activos.nextSetBit(posicion + 1)) {
+            vigentes.put(productos[posicion].getIdProducto(), productos[posicion]);
+        }
+        eliminados.forEach(vigentes::remove);
+        actualizados.forEach(producto -> vigentes.put(producto.getIdProducto(), producto));
+        return construir(vigentes.values(), limitesPrecio, limitesPeso);
+    }
+
+    // Búsqueda binaria: primera posición con un ID mayor que el cursor
+    private int primeraPosicionDespuesDe(long idProducto) {
+        int bajo = 0;
+        int alto = productos.length;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (productos[medio].getIdProducto() <= idProducto) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+
+    private static IndiceFacetas vacioSinProductos(BigDecimal[] limitesPrecio, BigDecimal[] limitesPeso) {
+        BitSet[] porRangoPrecio = new BitSet[limitesPrecio.length + 1];
+        BitSet[] porRangoPeso = new BitSet[limitesPeso.length + 2];
+        Arrays.setAll(porRangoPrecio, i -> new BitSet());
+        Arrays.setAll(porRangoPeso, i -> new BitSet());
+        return new IndiceFacetas(limitesPrecio, limitesPeso, new ProductoResumenDTO[0], Map.of(), new BitSet(), new BitSet(),
+            Map.of(), Map.of(), porRangoPrecio, porRangoPeso);
+    }
+
+    private static int rango(BigDecimal valor, BigDecimal[] limites) {
+        int rango = 0;
+        while (rango < limites.length && valor.compareTo(limites[rango]) >= 0) {
+            rango++;
+        }
+        return rango;
+    }
+
+    private static String etiquetaRango(BigDecimal[] limites, int rango, String unidad) {
+        if (limites.length == 0) {
+            return "Todos";
+        }
+        if (rango == 0) {
+            return "Menos de " + limites[0].toPlainString() + unidad;
+        }
+        if (rango == limites.length) {
+            return limites[rango - 1].toPlainString() + unidad + " o más";
+        }
+        return limites[rango - 1].toPlainString() + " - " + limites[rango].toPlainString() + unidad;
+    }
+
+    private static <K> BitSet union(Set<K> valores, Function<K, BitSet> bitsetDe) {
+        if (valores == null || valores.isEmpty()) {
+            return null; // Sin filtro en esta faceta
+        }
+        BitSet union = new BitSet();
+        for (K valor : valores) {
+            BitSet bits = bitsetDe.apply(valor);
+            if (bits != null) {
+                union.or(bits);
+            }
+        }
+        return union;
+    }
+
+    private static BitSet interseccion(BitSet base, BitSet... filtros) {
+        BitSet resultado = (BitSet) base.clone();
+        for (BitSet filtro : filtros) {
+            if (filtro != null) {
+                resultado.and(filtro);
+            }
+        }
+        return resultado;
+    }
+
+    private static BitSet diferencia(BitSet a, BitSet b) {
+        BitSet resultado = (BitSet) a.clone();
+        resultado.andNot(b);
+        return resultado;
+    }
+
+    private static int contar(BitSet a, BitSet b) {
+        if (!a.intersects(b)) {
+            return 0;
+        }
+        BitSet resultado = (BitSet) a.clone();
+        resultado.and(b);
+        return resultado.cardinality();
+    }
+
+    private static <K> boolean contiene(Set<K> valores, K valor) {
+        return valores != null && valores.contains(valor);
+    }
+
+    /**
+     * Cambios sobre una versión del índice: cada bitset se copia la primera vez que se modifica,
+     * los que no se tocan se comparten tal cual.
+     */
+    private static final class Edicion {
+        private final IndiceFacetas origen;
+        private ProductoResumenDTO[] productos;
+        private final Map<Long, Integer> posiciones;
+        private final Set<BitSet> propios = Collections.newSetFromMap(new IdentityHashMap<>());
+        private BitSet activos;
+        private BitSet disponibles;
+        private final Map<Integer, BitSet> porCategoria;
+        private final Map<Integer, String> nombresCategoria;
+        private final BitSet[] porRangoPrecio;
+        private final BitSet[] porRangoPeso;
+
+        private Edicion(IndiceFacetas origen, ProductoResumenDTO[] productos, Map<Long, Integer> posiciones) {
+            this.origen = origen;
+            this.productos = productos;
+            this.posiciones = posiciones;
+            this.activos = origen.activos;
+            this.disponibles = origen.disponibles;
+            this.porCategoria = new HashMap<>(origen.porCategoria);
+            this.nombresCategoria = new HashMap<>(origen.nombresCategoria);
+            this.porRangoPrecio = origen.porRangoPrecio.clone();
+            this.porRangoPeso = origen.porRangoPeso.clone();
+        }
+
+        private void poner(int posicion, ProductoResumenDTO producto) {
+            cambiar(posicion, producto, true);
+            if (producto.getIdCategoria() != null && producto.getNombreCategoria() != null) {
+                nombresCategoria.put(producto.getIdCategoria(), producto.getNombreCategoria());
+            }
+        }
+
+        private void quitar(int posicion, ProductoResumenDTO producto) {
+            cambiar(posicion, producto, false);
+        }
+
+        private void sustituir(int posicion, ProductoResumenDTO producto) {
+            if (productos == origen.productos) {
+                productos = productos.clone();
+            }
+            productos[posicion] = producto;
+        }
+
+        private void cambiar(int posicion, ProductoResumenDTO producto, boolean valor) {
+            activos = escribible(activos);
+            activos.set(posicion, valor);
+            if (producto.getCantidadStock() != null && producto.getCantidadStock() > 0) {
+                disponibles = escribible(disponibles);
+                disponibles.set(posicion, valor);
+            }
+            if (producto.getIdCategoria() != null) {
+                BitSet actual = porCategoria.get(producto.getIdCategoria());
+                BitSet categoria = actual == null ? nuevo() : escribible(actual);
+                porCategoria.put(producto.getIdCategoria(), categoria);
+                categoria.set(posicion, valor);
+            }
+            int rangoPrecio = producto.getPrecio() == null ? 0 : rango(producto.getPrecio(), origen.limitesPrecio);
+            porRangoPrecio[rangoPrecio] = escribible(porRangoPrecio[rangoPrecio]);
+            porRangoPrecio[rangoPrecio].set(posicion, valor);
+            int rangoPeso = producto.getPesoKg() == null ? origen.limitesPeso.length + 1 : rango(producto.getPesoKg(), origen.limitesPeso);
+            porRangoPeso[rangoPeso] = escribible(porRangoPeso[rangoPeso]);
+            porRangoPeso[rangoPeso].set(posicion, valor);
+        }
+
+        private BitSet nuevo() {
+            BitSet bits = new BitSet();
+            propios.add(bits);
+            return bits;
+        }
+
+        // Copia al primer cambio; las siguientes modificaciones de esta edición usan la misma copia
+        private BitSet escribible(BitSet bits) {
+            if (propios.contains(bits)) {
+                return bits;
+            }
+            BitSet copia = (BitSet) bits.clone();
+            propios.add(copia);
+            return copia;
+        }
+
+        private IndiceFacetas terminar() {
+            return new IndiceFacetas(origen.limitesPrecio, origen.limitesPeso, productos, posiciones, activos, disponibles,
+                Map.copyOf(porCategoria), Map.copyOf(nombresCategoria), porRangoPrecio, porRangoPeso);
+        }
+    }
+}
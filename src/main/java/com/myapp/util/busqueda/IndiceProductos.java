@@ -0,0 +1,371 @@
+package com.myapp.util.busqueda;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import com.DTOs.ProductoEncontradoDTO;
+import com.DTOs.ProductoIndexableDTO;
+
+/**
+ * Índice de búsqueda de productos, inmutable: cada cambio devuelve un índice nuevo y las consultas en curso
+ * siguen usando el que tenían.
+ * Se compone de un segmento base grande y un segmento delta pequeño con los productos modificados desde la
+ * última fusión; las versiones antiguas de la base quedan ocultas con un bitset. Así un cambio solo
+ * reconstruye el delta, y fusionado() lo vuelca en la base cuando crece.
+ *
+ * Búsqueda: cada término de la consulta se compara exacto, por prefijo (solo el último, el que se está
+ * escribiendo) y con erratas (distancia de edición 1, o 2 en palabras largas) si no existe tal cual.
+ * Puntuación BM25; se ordena primero por nº de términos de la consulta encontrados y después por puntuación.
+ *
+ * No hay poda del top-k (WAND/MaxScore): cada término recorre todas sus postings, así el total de coincidencias
+ * es exacto. Con 100.000 productos (IndiceProductosBenchmark) una consulta selectiva tarda unos µs, pero una con
+ * términos presentes en gran parte del catálogo ("ropa", "modelo 12345") tarda de 0,5 a 6 ms: para esas consultas
+ * no se cumple el objetivo de menos de 1 ms.
+ */
+public final class IndiceProductos {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // Las coincidencias aproximadas puntúan menos que la exacta
+    private static final double FACTOR_PREFIJO = 0.7;
+    private static final double FACTOR_ERRATA = 0.5;
+    private static final int LONGITUD_MINIMA_PREFIJO = 2;
+    private static final int LONGITUD_MINIMA_ERRATA = 4;
+    // Cotas para que una consulta corta ("a", "co") no recorra medio vocabulario
+    private static final int MAXIMO_EXPANSIONES = 50;
+    private static final int MAXIMO_TERMINOS_REVISADOS = 5000;
+    private static final int MAXIMO_TERMINOS_CONSULTA = 10;
+
+    private final Segmento base;
+    private final BitSet ocultosEnBase;
+    private final Segmento delta;
+
+    private IndiceProductos(Segmento base, BitSet ocultosEnBase, Segmento delta) {
+        this.base = base;
+        this.ocultosEnBase = ocultosEnBase;
+        this.delta = delta;
+    }
+
+    public static IndiceProductos vacio() {
+        return new IndiceProductos(Segmento.VACIO, new BitSet(), Segmento.VACIO);
+    }
+
+    public static IndiceProductos construir(Collection<ProductoIndexableDTO> productos) {
+        List<DocumentoBusqueda> documentos = new ArrayList<>(productos.size());
+        for (ProductoIndexableDTO producto : productos) {
+            documentos.add(DocumentoBusqueda.de(producto));
+        }
+        return new IndiceProductos(Segmento.construir(documentos), new BitSet(), Segmento.VACIO);
+    }
+
+    /**
+     * Nuevo índice con los productos dados (re)indexados y los eliminados fuera. Coste proporcional al delta.
+     */
+    public IndiceProductos conCambios(Collection<ProductoIndexableDTO> actualizados, Collection<Long> eliminados) {
+        Map<Long, DocumentoBusqueda> documentosDelta = new LinkedHashMap<>();
+        for (DocumentoBusqueda documento : delta.documentos) {
+            documentosDelta.put(documento.id(), documento);
+        }
+        BitSet ocultos = (BitSet) ocultosEnBase.clone();
+        for (Long idProducto : eliminados) {
+            documentosDelta.remove(idProducto);
+            ocultar(ocultos, idProducto);
+        }
+        for (ProductoIndexableDTO producto : actualizados) {
+            documentosDelta.put(producto.idProducto(), DocumentoBusqueda.de(producto));
+            ocultar(ocultos, producto.idProducto());
+        }
+        return new IndiceProductos(base, ocultos, Segmento.construir(documentosDelta.values()));
+    }
+
+    /**
+     * Nuevo índice con el delta volcado en la base (sin retokenizar: reutiliza los documentos).
+     */
+    public IndiceProductos fusionado() {
+        List<DocumentoBusqueda> documentos = new ArrayList<>(totalDocumentos());
+        for (int i = 0; i < base.documentos.length; i++) {
+            if (!ocultosEnBase.get(i)) {
+                documentos.add(base.documentos[i]);
+            }
+        }
+        documentos.addAll(Arrays.asList(delta.documentos));
+        return new IndiceProductos(Segmento.construir(documentos), new BitSet(), Segmento.VACIO);
+    }
+
+    public int totalDocumentos() {
+        return base.documentos.length - ocultosEnBase.cardinality() + delta.documentos.length;
+    }
+
+    // Documentos en el delta más versiones ocultas en la base: lo que se ahorraría fusionando
+    public int pendientesDeFusion() {
+        return delta.documentos.length + ocultosEnBase.cardinality();
+    }
+
+    public int totalTerminos() {
+        return base.terminos.length + delta.terminos.length;
+    }
+
+    public Resultado buscar(String consulta, int limite) {
+        List<String> tokens = TokenizadorEspanol.tokenizar(consulta);
+        int total = totalDocumentos();
+        if (tokens.isEmpty() || total == 0 || limite <= 0) {
+            return new Resultado(List.of(), 0);
+        }
+        if (tokens.size() > MAXIMO_TERMINOS_CONSULTA) {
+            tokens = tokens.subList(0, MAXIMO_TERMINOS_CONSULTA);
+        }
+        // Estadísticas de BM25 aproximadas: incluyen las versiones ocultas de la base hasta la siguiente fusión
+        double longitudMedia = (base.longitudTotal + delta.longitudTotal)
+            / Math.max(1, base.documentos.length + delta.documentos.length);
+
+        // Variantes de cada término de la consulta y una cota del nº de documentos que pueden tocar
+        List<Map<String, Double>> candidatosPorToken = new ArrayList<>(tokens.size());
+        long postingsTotales = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            Map<String, Double> candidatos = candidatos(tokens.get(i), i == tokens.size() - 1);
+            candidatosPorToken.add(candidatos);
+            for (String termino : candidatos.keySet()) {
+                postingsTotales += base.documentosConTermino(base.termino(termino))
+                    + delta.documentosConTermino(delta.termino(termino));
+            }
+        }
+        if (postingsTotales == 0) {
+            return new Resultado(List.of(), 0);
+        }
+
+        Acumulador acumulador = new Acumulador((int) Math.min(postingsTotales, base.documentos.length + delta.documentos.length));
+        for (int i = 0; i < candidatosPorToken.size(); i++) {
+            for (Map.Entry<String, Double> candidato : candidatosPorToken.get(i).entrySet()) {
+                puntuar(candidato.getKey(), candidato.getValue(), i, total, longitudMedia, acumulador);
+            }
+        }
+        return acumulador.mejores(limite);
+    }
+
+    // Términos del índice que cuentan como coincidencia del token, con el factor que aplica a su puntuación
+    private Map<String, Double> candidatos(String token, boolean esUltimo) {
+        Map<String, Double> candidatos = new LinkedHashMap<>();
+        boolean existe = base.termino(token) >= 0 || delta.termino(token) >= 0;
+        if (existe) {
+            candidatos.put(token, 1.0);
+        }
+        if (esUltimo && token.length() >= LONGITUD_MINIMA_PREFIJO) {
+            expandirPrefijo(base, token, candidatos);
+            expandirPrefijo(delta, token, candidatos);
+        }
+        if (!existe && token.length() >= LONGITUD_MINIMA_ERRATA) {
+            int distanciaMaxima = token.length() >= 8 ? 2 : 1;
+            buscarErratas(base, token, distanciaMaxima, candidatos);
+            buscarErratas(delta, token, distanciaMaxima, candidatos);
+        }
+        return candidatos;
+    }
+
+    // Los términos más frecuentes que empiezan por el prefijo (son un tramo contiguo del vocabulario ordenado)
+    private static void expandirPrefijo(Segmento segmento, String prefijo, Map<String, Double> candidatos) {
+        PriorityQueue<Integer> masFrecuentes = new PriorityQueue<>(
+            Comparator.comparingInt(segmento::documentosConTermino));
+        int revisados = 0;
+        for (int k = segmento.inicioPrefijo(prefijo);
+                k < segmento.terminos.length && segmento.terminos[k].startsWith(prefijo) && revisados < MAXIMO_TERMINOS_REVISADOS;
+                k++, revisados++) {
+            if (segmento.terminos[k].length() == prefijo.length()) {
+                continue; // Es el propio token: ya se trata como coincidencia exacta
+            }
+            masFrecuentes.add(k);
+            if (masFrecuentes.size() > MAXIMO_EXPANSIONES) {
+                masFrecuentes.poll();
+            }
+        }
+        for (int k : masFrecuentes) {
+            candidatos.putIfAbsent(segmento.terminos[k], FACTOR_PREFIJO);
+        }
+    }
+
+    // Términos a poca distancia de edición. Se asume bien escrita la primera letra: solo se revisa su tramo
+    private static void buscarErratas(Segmento segmento, String token, int distanciaMaxima, Map<String, Double> candidatos) {
+        char primera = token.charAt(0);
+        int encontrados = 0;
+        int revisados = 0;
+        for (int k = segmento.inicioPrefijo(String.valueOf(primera));
+                k < segmento.terminos.length && segmento.terminos[k].charAt(0) == primera
+                    && encontrados < MAXIMO_EXPANSIONES && revisados < MAXIMO_TERMINOS_REVISADOS;
+                k++) {
+            String termino = segmento.terminos[k];
+            if (Math.abs(termino.length() - token.length()) > distanciaMaxima) {
+                continue;
+            }
+            revisados++;
+            int distancia = distancia(token, termino, distanciaMaxima);
+            if (distancia <= distanciaMaxima) {
+                candidatos.putIfAbsent(termino, FACTOR_ERRATA / distancia);
+                encontrados++;
+            }
+        }
+    }
+
+    private void puntuar(String termino, double factor, int token, int total, double longitudMedia, Acumulador acumulador) {
+        int enBase = base.termino(termino);
+        int enDelta = delta.termino(termino);
+        int documentosConTermino = base.documentosConTermino(enBase) + delta.documentosConTermino(enDelta);
+        int n = Math.max(total, documentosConTermino);
+        double idf = Math.log(1 + (n - documentosConTermino + 0.5) / (documentosConTermino + 0.5));
+        if (enBase >= 0) {
+            acumular(base, enBase, 0, ocultosEnBase, factor * idf, longitudMedia, token, acumulador);
+        }
+        if (enDelta >= 0) {
+            acumular(delta, enDelta, base.documentos.length, null, factor * idf, longitudMedia, token, acumulador);
+        }
+    }
+
+    private static void acumular(Segmento segmento, int posicionTermino, int desplazamiento, BitSet ocultos, double peso,
+            double longitudMedia, int token, Acumulador acumulador) {
+        int[] postings = segmento.postings[posicionTermino];
+        float[] frecuencias = segmento.frecuencias[posicionTermino];
+        float[] longitudes = segmento.longitudes;
+        for (int i = 0; i < postings.length; i++) {
+            if (ocultos != null && ocultos.get(postings[i])) {
+                continue;
+            }
+            double tf = frecuencias[i];
+            double normalizacion = K1 * (1 - B + B * longitudes[postings[i]] / longitudMedia);
+            acumulador.sumar(desplazamiento + postings[i], token, peso * tf * (K1 + 1) / (tf + normalizacion));
+        }
+    }
+
+    // Documento por posición global: primero los de la base y a continuación los del delta
+    private DocumentoBusqueda documento(int posicion) {
+        return posicion < base.documentos.length
+            ? base.documentos[posicion] : delta.documentos[posicion - base.documentos.length];
+    }
+
+    private void ocultar(BitSet ocultos, Long idProducto) {
+        Integer posicion = base.posicionPorId.get(idProducto);
+        if (posicion != null) {
+            ocultos.set(posicion);
+        }
+    }
+
+    // Distancia de Damerau-Levenshtein (con transposición de letras contiguas), cortando en cuanto supera el máximo
+    static int distancia(String a, String b, int maximo) {
+        int[] dosAtras = new int[b.length() + 1];
+        int[] anterior = new int[b.length() + 1];
+        int[] actual = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            anterior[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            actual[0] = i;
+            int minimoFila = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int coste = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int valor = Math.min(Math.min(anterior[j] + 1, actual[j - 1] + 1), anterior[j - 1] + coste);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    valor = Math.min(valor, dosAtras[j - 2] + 1);
+                }
+                actual[j] = valor;
+                minimoFila = Math.min(minimoFila, valor);
+            }
+            if (minimoFila > maximo) {
+                return maximo + 1;
+            }
+            int[] libre = dosAtras;
+            dosAtras = anterior;
+            anterior = actual;
+            actual = libre;
+        }
+        return anterior[b.length()];
+    }
+
+    public record Resultado(List<ProductoEncontradoDTO> productos, int totalCoincidencias) {
+    }
+
+    /**
+     * Puntuaciones de una consulta por posición de documento, en un mapa de direccionamiento abierto con arrays
+     * primitivos (sin un objeto por documento). Cada término de la consulta suma una sola vez por documento,
+     * la mejor de sus variantes (exacta, prefijo o errata): si aparece una mejor se corrige la diferencia.
+     */
+    private final class Acumulador {
+        private final int[] posiciones;
+        private final double[] puntuaciones;
+        private final double[] mejorDelToken;
+        private final int[] ultimoToken;
+        private final int[] terminos;
+        private final int mascara;
+        private int ocupados;
+
+        private Acumulador(int documentosEsperados) {
+            int capacidad = Integer.highestOneBit(Math.max(4, documentosEsperados) * 2 - 1) << 1;
+            posiciones = new int[capacidad];
+            Arrays.fill(posiciones, -1);
+            puntuaciones = new double[capacidad];
+            mejorDelToken = new double[capacidad];
+            ultimoToken = new int[capacidad];
+            terminos = new int[capacidad];
+            mascara = capacidad - 1;
+        }
+
+        private void sumar(int posicion, int token, double puntuacion) {
+            int hueco = (posicion * 0x9E3779B9) >>> 1 & mascara;
+            while (posiciones[hueco] != -1 && posiciones[hueco] != posicion) {
+                hueco = (hueco + 1) & mascara;
+            }
+            if (posiciones[hueco] == -1) {
+                posiciones[hueco] = posicion;
+                ultimoToken[hueco] = -1;
+                ocupados++;
+            }
+            if (ultimoToken[hueco] != token) {
+                ultimoToken[hueco] = token;
+                mejorDelToken[hueco] = puntuacion;
+                puntuaciones[hueco] += puntuacion;
+                terminos[hueco]++;
+            } else if (puntuacion > mejorDelToken[hueco]) {
+                puntuaciones[hueco] += puntuacion - mejorDelToken[hueco];
+                mejorDelToken[hueco] = puntuacion;
+            }
+        }
+
+        // Mejor primero: más términos encontrados, más puntuación y, a igualdad, el que entró antes en el índice
+        private int comparar(int a, int b) {
+            if (terminos[a] != terminos[b]) {
+                return Integer.compare(terminos[b], terminos[a]);
+            }
+            if (puntuaciones[a] != puntuaciones[b]) {
+                return Double.compare(puntuaciones[b], puntuaciones[a]);
+            }
+            return Integer.compare(posiciones[a], posiciones[b]);
+        }
+
+        // Top-k con un montículo acotado cuya cabeza es el peor de los que se conservan
+        private Resultado mejores(int limite) {
+            PriorityQueue<Integer> mejores = new PriorityQueue<>(Math.min(limite, ocupados) + 1, (a, b) -> comparar(b, a));
+            for (int hueco = 0; hueco < posiciones.length; hueco++) {
+                if (posiciones[hueco] == -1) {
+                    continue;
+                }
+                if (mejores.size() < limite) {
+                    mejores.add(hueco);
+                } else if (comparar(hueco, mejores.peek()) < 0) {
+                    mejores.poll();
+                    mejores.add(hueco);
+                }
+            }
+            List<Integer> ordenados = new ArrayList<>(mejores);
+            ordenados.sort(this::comparar);
+
+            List<ProductoEncontradoDTO> productos = new ArrayList<>(ordenados.size());
+            for (int hueco : ordenados) {
+                productos.add(new ProductoEncontradoDTO(documento(posiciones[hueco]).producto, puntuaciones[hueco], terminos[hueco]));
+            }
+            return new Resultado(productos, ocupados);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.myapp.util.busqueda;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice invertido inmutable sobre un conjunto de documentos. Los términos están ordenados, de modo que
+ * un término exacto es una búsqueda binaria y todos los que empiezan por un prefijo son un tramo contiguo.
+ * Cada término apunta a las posiciones (en 'documentos') de los documentos que lo contienen.
+ */
+final class Segmento {
+
+    static final Segmento VACIO = construir(List.of());
+
+    final DocumentoBusqueda[] documentos;
+    // Copia de la longitud de cada documento en un array primitivo: puntuar no tiene que visitar cada objeto
+    final float[] longitudes;
+    final Map<Long, Integer> posicionPorId;
+    final String[] terminos;
+    final int[][] postings;
+    final float[][] frecuencias;
+    final double longitudTotal;
+
+    private Segmento(DocumentoBusqueda[] documentos, float[] longitudes, Map<Long, Integer> posicionPorId, String[] terminos,
+            int[][] postings, float[][] frecuencias, double longitudTotal) {
+        this.documentos = documentos;
+        this.longitudes = longitudes;
+        this.posicionPorId = posicionPorId;
+        this.terminos = terminos;
+        this.postings = postings;
+        this.frecuencias = frecuencias;
+        this.longitudTotal = longitudTotal;
+    }
+
+    static Segmento construir(Collection<DocumentoBusqueda> documentosFuente) {
+        DocumentoBusqueda[] documentos = documentosFuente.toArray(new DocumentoBusqueda[0]);
+
+        // 1ª pasada: nº de documentos por término, para reservar cada lista con su tamaño exacto
+        float[] longitudes = new float[documentos.length];
+        Map<Long, Integer> posicionPorId = new HashMap<>(documentos.length * 2);
+        Map<String, Integer> documentosPorTermino = new HashMap<>();
+        double longitudTotal = 0;
+        for (int i = 0; i < documentos.length; i++) {
+            posicionPorId.put(documentos[i].id(), i);
+            longitudes[i] = documentos[i].longitud;
+            longitudTotal += documentos[i].longitud;
+            for (String termino : documentos[i].terminos) {
+                documentosPorTermino.merge(termino, 1, Integer::sum);
+            }
+        }
+
+        String[] terminos = documentosPorTermino.keySet().toArray(new String[0]);
+        Arrays.sort(terminos);
+        Map<String, Integer> posicionTermino = new HashMap<>(terminos.length * 2);
+        int[][] postings = new int[terminos.length][];
+        float[][] frecuencias = new float[terminos.length][];
+        for (int k = 0; k < terminos.length; k++) {
+            posicionTermino.put(terminos[k], k);
+            int total = documentosPorTermino.get(terminos[k]);
+            postings[k] = new int[total];
+            frecuencias[k] = new float[total];
+        }
+
+        // 2ª pasada: rellenar las listas (quedan ordenadas por posición de documento)
+        int[] ocupados = new int[terminos.length];
+        for (int i = 0; i < documentos.length; i++) {
+            DocumentoBusqueda documento = documentos[i];
+            for (int t = 0; t < documento.terminos.length; t++) {
+                int k = posicionTermino.get(documento.terminos[t]);
+                postings[k][ocupados[k]] = i;
+                frecuencias[k][ocupados[k]++] = documento.frecuencias[t];
+            }
+        }
+        return new Segmento(documentos, longitudes, posicionPorId, terminos, postings, frecuencias, longitudTotal);
+    }
+
+    // Posición del término, o negativa si no está
+    int termino(String termino) {
+        return Arrays.binarySearch(terminos, termino);
+    }
+
+    // Primera posición cuyo término es >= prefijo (el tramo del prefijo empieza aquí)
+    int inicioPrefijo(String prefijo) {
+        int posicion = Arrays.binarySearch(terminos, prefijo);
+        return posicion >= 0 ? posicion : -posicion - 1;
+    }
+
+    int documentosConTermino(int posicionTermino) {
+        return posicionTermino >= 0 ? postings[posicionTermino].length : 0;
+    }
+}
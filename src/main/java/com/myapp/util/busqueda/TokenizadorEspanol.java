@@ -0,0 +1,92 @@
+package com.myapp.util.busqueda;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Tokenizador para textos en español: sin acentos ni mayúsculas, sin palabras vacías y con un
+ * singular muy simple (quita la 's' final). Se aplica igual a los productos y a las consultas,
+ * así "Camión", "camion" y "CAMIONES" comparten término o, como mínimo, prefijo.
+ */
+public final class TokenizadorEspanol {
+
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+
+    private static final Set<String> PALABRAS_VACIAS = Set.of(
+        "a", "al", "ante", "con", "contra", "de", "del", "desde", "e", "el", "en", "entre", "es", "esta", "este",
+        "hacia", "hasta", "la", "las", "le", "lo", "los", "mas", "muy", "ni", "o", "para", "pero", "por", "que",
+        "se", "sin", "sobre", "su", "sus", "tras", "u", "un", "una", "unas", "unos", "y", "ya");
+
+    private TokenizadorEspanol() {
+    }
+
+    // "Camión Eléctrico" -> "camion electrico" (la ñ queda como n)
+    public static String normalizar(String texto) {
+        String sinAcentos = MARCAS_DIACRITICAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return sinAcentos.toLowerCase(Locale.ROOT);
+    }
+
+    static boolean esPalabraVacia(String palabra) {
+        return PALABRAS_VACIAS.contains(palabra);
+    }
+
+    /**
+     * Palabras normalizadas de un texto, sin quitar palabras vacías ni plurales (para mostrar y autocompletar).
+     */
+    public static List<String> palabras(String texto) {
+        List<String> palabras = new ArrayList<>();
+        if (texto == null || texto.isBlank()) {
+            return palabras;
+        }
+        String normalizado = normalizar(texto);
+        int inicio = -1;
+        for (int i = 0; i <= normalizado.length(); i++) {
+            boolean alfanumerico = i < normalizado.length() && Character.isLetterOrDigit(normalizado.charAt(i));
+            if (alfanumerico && inicio < 0) {
+                inicio = i;
+            } else if (!alfanumerico && inicio >= 0) {
+                palabras.add(normalizado.substring(inicio, i));
+                inicio = -1;
+            }
+        }
+        return palabras;
+    }
+
+    /**
+     * Términos de un texto libre (nombre, descripción, categoría o consulta).
+     */
+    public static List<String> tokenizar(String texto) {
+        List<String> terminos = new ArrayList<>();
+        for (String palabra : palabras(texto)) {
+            if (!PALABRAS_VACIAS.contains(palabra)) {
+                terminos.add(singular(palabra));
+            }
+        }
+        return terminos;
+    }
+
+    /**
+     * Términos de un código (SKU): sus partes tal cual y el código completo sin separadores,
+     * para que "ABC-123", "abc 123" y "abc123" lo encuentren.
+     */
+    public static List<String> tokenizarCodigo(String codigo) {
+        List<String> terminos = palabras(codigo);
+        if (terminos.size() > 1) {
+            terminos.add(String.join("", terminos));
+        }
+        return terminos;
+    }
+
+    // Plural -> singular solo en el caso fácil; el resto lo cubren la búsqueda por prefijo y la tolerancia a erratas
+    private static String singular(String palabra) {
+        int n = palabra.length();
+        if (n > 3 && palabra.charAt(n - 1) == 's' && palabra.charAt(n - 2) != 's' && Character.isLetter(palabra.charAt(n - 2))) {
+            return palabra.substring(0, n - 1);
+        }
+        return palabra;
+    }
+}
@@ -0,0 +1,263 @@
+package com.myapp.util.busqueda;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.DTOs.SugerenciaDTO;
+
+/**
+ * Trie compacto para autocompletar. Es un trie radix: una cadena de nodos con un solo hijo se guarda como un
+ * único nodo con una etiqueta de varios caracteres.
+ * Cada nodo tiene ya calculadas sus mejores sugerencias por popularidad. Por eso sugerir() solo recorre el
+ * prefijo escrito y no depende del tamaño del catálogo.
+ * Cada texto se indexa completo y también desde cada palabra significativa, así "algod" sugiere
+ * "Camiseta de algodón". Las coincidencias desde el principio del texto pesan el doble.
+ * El trie es inmutable y se guarda en arrays primitivos: se construye aparte y se publica de una vez.
+ */
+public final class TrieSugerencias {
+
+    private final SugerenciaDTO[] sugerencias;
+    // Etiquetas de todos los nodos, concatenadas
+    private final char[] etiquetas;
+    private final int[] inicioEtiqueta;
+    private final int[] longitudEtiqueta;
+    // Los hijos de cada nodo son contiguos y están ordenados por su primer carácter
+    private final int[] primerHijo;
+    private final int[] numeroHijos;
+    // Por nodo: índices en 'sugerencias', de más a menos popular
+    private final int[][] mejores;
+
+    private TrieSugerencias(SugerenciaDTO[] sugerencias, char[] etiquetas, int[] inicioEtiqueta, int[] longitudEtiqueta,
+            int[] primerHijo, int[] numeroHijos, int[][] mejores) {
+        this.sugerencias = sugerencias;
+        this.etiquetas = etiquetas;
+        this.inicioEtiqueta = inicioEtiqueta;
+        this.longitudEtiqueta = longitudEtiqueta;
+        this.primerHijo = primerHijo;
+        this.numeroHijos = numeroHijos;
+        this.mejores = mejores;
+    }
+
+    public static TrieSugerencias vacio() {
+        return construir(List.of(), 1);
+    }
+
+    /**
+     * Construye el trie. maximoPorNodo es el número de sugerencias que se guardan por prefijo, es decir,
+     * lo máximo que podrá devolver sugerir().
+     */
+    public static TrieSugerencias construir(List<SugerenciaDTO> sugerencias, int maximoPorNodo) {
+        List<Clave> claves = new ArrayList<>();
+        for (int s = 0; s < sugerencias.size(); s++) {
+            List<String> palabras = TokenizadorEspanol.palabras(sugerencias.get(s).texto());
+            if (palabras.isEmpty()) {
+                continue;
+            }
+            long peso = sugerencias.get(s).popularidad() + 1;
+            claves.add(new Clave(String.join(" ", palabras), s, peso * 2));
+            for (int p = 1; p < palabras.size(); p++) {
+                if (!TokenizadorEspanol.esPalabraVacia(palabras.get(p))) {
+                    claves.add(new Clave(String.join(" ", palabras.subList(p, palabras.size())), s, peso));
+                }
+            }
+        }
+        claves.sort(Comparator.comparing(Clave::texto));
+
+        Nodo raiz = claves.isEmpty()
+            ? new Nodo("", 0, 0, new int[0])
+            : construirNodo(claves, 0, claves.size(), 0, true, maximoPorNodo);
+
+        // Aplanado en anchura: así los hijos de cada nodo quedan contiguos
+        List<Nodo> nodos = new ArrayList<>();
+        nodos.add(raiz);
+        int[] primerHijoTemporal = new int[16];
+        for (int n = 0; n < nodos.size(); n++) {
+            if (n == primerHijoTemporal.length) {
+                primerHijoTemporal = Arrays.copyOf(primerHijoTemporal, n * 2);
+            }
+            primerHijoTemporal[n] = nodos.size();
+            nodos.addAll(nodos.get(n).hijos);
+        }
+
+        int total = nodos.size();
+        StringBuilder etiquetas = new StringBuilder();
+        int[] inicioEtiqueta = new int[total];
+        int[] longitudEtiqueta = new int[total];
+        int[] primerHijo = new int[total];
+        int[] numeroHijos = new int[total];
+        int[][] mejores = new int[total][];
+        // Las hojas suelen llevar una sola sugerencia: comparten el mismo array de un elemento
+        int[][] unitarios = new int[sugerencias.size()][];
+        for (int n = 0; n < total; n++) {
+            Nodo nodo = nodos.get(n);
+            inicioEtiqueta[n] = etiquetas.length();
+            longitudEtiqueta[n] = nodo.hasta - nodo.desde;
+            etiquetas.append(nodo.clave, nodo.desde, nodo.hasta);
+            primerHijo[n] = primerHijoTemporal[n];
+            numeroHijos[n] = nodo.hijos.size();
+
+            int[] indices = new int[nodo.mejores.length];
+            for (int k = 0; k < indices.length; k++) {
+                indices[k] = claves.get(nodo.mejores[k]).sugerencia();
+            }
+            if (indices.length == 1) {
+                if (unitarios[indices[0]] == null) {
+                    unitarios[indices[0]] = indices;
+                }
+                indices = unitarios[indices[0]];
+            }
+            mejores[n] = indices;
+        }
+        char[] caracteres = new char[etiquetas.length()];
+        etiquetas.getChars(0, etiquetas.length(), caracteres, 0);
+        return new TrieSugerencias(sugerencias.toArray(new SugerenciaDTO[0]), caracteres, inicioEtiqueta,
+            longitudEtiqueta, primerHijo, numeroHijos, mejores);
+    }
+
+    /**
+     * Las sugerencias más populares para lo que lleva escrito el usuario, sin distinguir acentos ni mayúsculas.
+     */
+    public List<SugerenciaDTO> sugerir(String consulta, int limite) {
+        String prefijo = claveConsulta(consulta);
+        if (prefijo.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+        int nodo = 0;
+        int i = 0;
+        while (i < prefijo.length()) {
+            int hijo = buscarHijo(nodo, prefijo.charAt(i));
+            if (hijo < 0) {
+                return List.of();
+            }
+            int fin = inicioEtiqueta[hijo] + longitudEtiqueta[hijo];
+            for (int j = inicioEtiqueta[hijo]; j < fin && i < prefijo.length(); j++, i++) {
+                if (etiquetas[j] != prefijo.charAt(i)) {
+                    return List.of();
+                }
+            }
+            nodo = hijo;
+        }
+
+        int[] indices = mejores[nodo];
+        List<SugerenciaDTO> resultado = new ArrayList<>(Math.min(limite, indices.length));
+        for (int k = 0; k < indices.length && k < limite; k++) {
+            resultado.add(sugerencias[indices[k]]);
+        }
+        return resultado;
+    }
+
+    public int totalSugerencias() {
+        return sugerencias.length;
+    }
+
+    public int totalNodos() {
+        return mejores.length;
+    }
+
+    // Búsqueda binaria entre los hijos por su primer carácter
+    private int buscarHijo(int nodo, char caracter) {
+        int bajo = primerHijo[nodo];
+        int alto = bajo + numeroHijos[nodo] - 1;
+        while (bajo <= alto) {
+            int medio = (bajo + alto) >>> 1;
+            char actual = etiquetas[inicioEtiqueta[medio]];
+            if (actual < caracter) {
+                bajo = medio + 1;
+            } else if (actual > caracter) {
+                alto = medio - 1;
+            } else {
+                return medio;
+            }
+        }
+        return -1;
+    }
+
+    // La consulta se normaliza igual que las claves. Si termina en espacio se conserva: la palabra está completa
+    private static String claveConsulta(String consulta) {
+        List<String> palabras = TokenizadorEspanol.palabras(consulta);
+        if (palabras.isEmpty()) {
+            return "";
+        }
+        String clave = String.join(" ", palabras);
+        return Character.isLetterOrDigit(consulta.charAt(consulta.length() - 1)) ? clave : clave + " ";
+    }
+
+    // Nodo del rango [desde, hasta) de claves ordenadas que comparten los 'desde' primeros caracteres
+    private static Nodo construirNodo(List<Clave> claves, int desde, int hasta, int profundidad, boolean raiz, int maximo) {
+        String primera = claves.get(desde).texto();
+        // En un rango ordenado, el prefijo común de la primera y la última clave es el de todo el rango
+        int finEtiqueta = raiz ? profundidad : prefijoComun(primera, claves.get(hasta - 1).texto(), profundidad);
+
+        List<Integer> candidatas = new ArrayList<>();
+        int i = desde;
+        // Las claves que terminan justo aquí van primero (un prefijo se ordena antes que sus extensiones)
+        while (i < hasta && claves.get(i).texto().length() == finEtiqueta) {
+            candidatas.add(i++);
+        }
+        List<Nodo> hijos = new ArrayList<>();
+        while (i < hasta) {
+            char caracter = claves.get(i).texto().charAt(finEtiqueta);
+            int fin = i;
+            while (fin < hasta && claves.get(fin).texto().charAt(finEtiqueta) == caracter) {
+                fin++;
+            }
+            Nodo hijo = construirNodo(claves, i, fin, finEtiqueta, false, maximo);
+            hijos.add(hijo);
+            for (int clave : hijo.mejores) {
+                candidatas.add(clave);
+            }
+            i = fin;
+        }
+
+        Nodo nodo = new Nodo(primera, profundidad, finEtiqueta, mejoresDe(candidatas, claves, maximo));
+        nodo.hijos.addAll(hijos);
+        return nodo;
+    }
+
+    // Las 'maximo' claves de más peso, sin repetir sugerencia (un texto puede llegar por varias palabras)
+    private static int[] mejoresDe(List<Integer> candidatas, List<Clave> claves, int maximo) {
+        candidatas.sort(Comparator.comparingLong((Integer c) -> claves.get(c).peso()).reversed()
+            .thenComparingInt(c -> claves.get(c).sugerencia()));
+        Set<Integer> vistas = new HashSet<>();
+        int[] mejores = new int[Math.min(maximo, candidatas.size())];
+        int total = 0;
+        for (int i = 0; i < candidatas.size() && total < mejores.length; i++) {
+            if (vistas.add(claves.get(candidatas.get(i)).sugerencia())) {
+                mejores[total++] = candidatas.get(i);
+            }
+        }
+        return total == mejores.length ? mejores : Arrays.copyOf(mejores, total);
+    }
+
+    private static int prefijoComun(String a, String b, int desde) {
+        int limite = Math.min(a.length(), b.length());
+        int i = desde;
+        while (i < limite && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private record Clave(String texto, int sugerencia, long peso) {
+    }
+
+    // Nodo temporal de la construcción; el trie final solo guarda arrays
+    private static final class Nodo {
+        private final String clave;
+        private final int desde;
+        private final int hasta;
+        private final int[] mejores;
+        private final List<Nodo> hijos = new ArrayList<>();
+
+        private Nodo(String clave, int desde, int hasta, int[] mejores) {
+            this.clave = clave;
+            this.desde = desde;
+            this.hasta = hasta;
+            this.mejores = mejores;
+        }
+    }
+}
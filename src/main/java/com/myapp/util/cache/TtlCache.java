@@ -0,0 +1,193 @@
+package com.myapp.util.cache;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Caché en memoria acotada por tamaño y con expiración por tiempo (TTL).
+ * Lleva contadores de aciertos, fallos y expulsiones para poder exponer métricas.
+ */
+public class TtlCache<K, V> {
+
+    private final String nombre;
+    private final int capacidadMaxima;
+    private final long ttlMillis;
+    private final ConcurrentHashMap<K, Entrada<V>> entradas = new ConcurrentHashMap<>();
+
+    // Se incrementa en cada invalidación para descartar cargas que empezaron antes
+    private final AtomicLong generacion = new AtomicLong();
+
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder expulsiones = new LongAdder();
+
+    public TtlCache(String nombre, int capacidadMaxima, Duration ttl) {
+        if (capacidadMaxima <= 0) {
+            throw new IllegalArgumentException("La capacidad de la caché '" + nombre + "' debe ser mayor que cero.");
+        }
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("El TTL de la caché '" + nombre + "' debe ser positivo.");
+        }
+        this.nombre = nombre;
+        this.capacidadMaxima = capacidadMaxima;
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    /**
+     * Devuelve el valor asociado a la clave si existe y no ha expirado.
+     */
+    public Optional<V> obtener(K clave) {
+        Entrada<V> entrada = entradas.get(clave);
+        if (entrada == null) {
+            fallos.increment();
+            return Optional.empty();
+        }
+        if (entrada.expirada(System.currentTimeMillis())) {
+            if (entradas.remove(clave, entrada)) {
+                expulsiones.increment();
+            }
+            fallos.increment();
+            return Optional.empty();
+        }
+        aciertos.increment();
+        return Optional.of(entrada.valor());
+    }
+
+    /**
+     * Devuelve el valor en caché o lo carga con la función indicada.
+     * Los valores nulos no se guardan. Si hubo una invalidación mientras se cargaba,
+     * el valor se devuelve pero no se guarda (podría estar obsoleto).
+     */
+    public V obtenerOCargar(K clave, Function<? super K, ? extends V> cargador) {
+        Optional<V> enCache = obtener(clave);
+        if (enCache.isPresent()) {
+            return enCache.get();
+        }
+
+        long generacionInicial = generacion.get();
+        V valor = cargador.apply(clave);
+        if (valor != null && generacion.get() == generacionInicial) {
+            poner(clave, valor);
+        }
+        return valor;
+    }
+
+    public void poner(K clave, V valor) {
+        if (entradas.size() >= capacidadMaxima && !entradas.containsKey(clave)) {
+            hacerEspacio();
+        }
+        entradas.put(clave, new Entrada<>(valor, System.currentTimeMillis() + ttlMillis));
+    }
+
+    /**
+     * Guarda el valor solo si la clave no tiene ya uno vigente, de forma atómica.
+     * Devuelve el valor existente (sin modificarlo) o vacío si se guardó el nuevo.
+     */
+    public Optional<V> ponerSiAusente(K clave, V valor) {
+        if (entradas.size() >= capacidadMaxima && !entradas.containsKey(clave)) {
+            hacerEspacio();
+        }
+        long ahora = System.currentTimeMillis();
+        AtomicReference<V> existente = new AtomicReference<>();
+        entradas.compute(clave, (k, actual) -> {
+            if (actual != null && !actual.expirada(ahora)) {
+                existente.set(actual.valor());
+                return actual;
+            }
+            return new Entrada<>(valor, ahora + ttlMillis);
+        });
+        return Optional.ofNullable(existente.get());
+    }
+
+    public void invalidar(K clave) {
+        generacion.incrementAndGet();
+        entradas.remove(clave);
+    }
+
+    public void invalidarSi(Predicate<? super K> condicion) {
+        generacion.incrementAndGet();
+        entradas.keySet().removeIf(condicion);
+    }
+
+    // Como invalidarSi, pero decidiendo también por el valor guardado
+    public void invalidarEntradasSi(BiPredicate<? super K, ? super V> condicion) {
+        generacion.incrementAndGet();
+        entradas.entrySet().removeIf(entrada -> condicion.test(entrada.getKey(), entrada.getValue().valor()));
+    }
+
+    public void invalidarTodo() {
+        generacion.incrementAndGet();
+        entradas.clear();
+    }
+
+    public int tamano() {
+        return entradas.size();
+    }
+
+    /**
+     * Métricas de la caché (para el endpoint de administración).
+     */
+    public Map<String, Object> estadisticas() {
+        long totalAciertos = aciertos.sum();
+        long totalFallos = fallos.sum();
+        long consultas = totalAciertos + totalFallos;
+
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("nombre", nombre);
+        datos.put("tamano", entradas.size());
+        datos.put("capacidadMaxima", capacidadMaxima);
+        datos.put("ttlSegundos", ttlMillis / 1000);
+        datos.put("aciertos", totalAciertos);
+        datos.put("fallos", totalFallos);
+        datos.put("ratioAciertos", consultas == 0 ? 0.0 : (double) totalAciertos / consultas);
+        datos.put("expulsiones", expulsiones.sum());
+        return datos;
+    }
+
+    // Primero elimina lo expirado; si sigue llena, expulsa el 10% más antiguo
+    private void hacerEspacio() {
+        long ahora = System.currentTimeMillis();
+        entradas.entrySet().removeIf(e -> {
+            boolean expirada = e.getValue().expirada(ahora);
+            if (expirada) {
+                expulsiones.increment();
+            }
+            return expirada;
+        });
+
+        if (entradas.size() < capacidadMaxima) {
+            return;
+        }
+
+        int aExpulsar = Math.max(1, capacidadMaxima / 10);
+        entradas.entrySet().stream()
+                .sorted(Comparator.comparingLong(e -> e.getValue().expiraEn()))
+                .limit(aExpulsar)
+                .toList()
+                .forEach(e -> {
+                    if (entradas.remove(e.getKey(), e.getValue())) {
+                        expulsiones.increment();
+                    }
+                });
+    }
+
+    private record Entrada<V>(V valor, long expiraEn) {
+        boolean expirada(long ahora) {
+            return ahora >= expiraEn;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.myapp.util.clavevalor;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Subconjunto de operaciones de un almacén clave-valor con hashes y TTL, con la misma semántica que
+ * los comandos de Redis (HGET, HGETALL, HSET, HINCRBY, HDEL, DEL, EXPIRE).
+ * Permite cambiar la implementación en memoria por un cliente Redis real sin tocar a quien lo usa.
+ */
+public interface ClienteClaveValor {
+
+    Optional<String> hget(String clave, String campo);
+
+    // Todos los campos del hash (vacío si la clave no existe o expiró)
+    Map<String, String> hgetAll(String clave);
+
+    void hset(String clave, String campo, String valor);
+
+    // Suma atómica sobre un campo numérico (lo crea con 0 si no existe) y devuelve el nuevo valor
+    long hincrBy(String clave, String campo, long incremento);
+
+    // Devuelve cuántos campos existían y se borraron
+    long hdel(String clave, String... campos);
+
+    boolean del(String clave);
+
+    // La clave (con todo su hash) desaparece pasado el TTL, contado desde la última llamada
+    void expire(String clave, Duration ttl);
+}
@@ -0,0 +1,131 @@
+package com.myapp.util.clavevalor;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Implementación embebida de ClienteClaveValor para un solo nodo (o pruebas): hashes en un ConcurrentHashMap.
+ * Las claves expiradas se ignoran al leerlas y se eliminan con purgarExpiradas().
+ * Cada operación sobre una clave es atómica, como en Redis.
+ */
+public class ClienteClaveValorEnMemoria implements ClienteClaveValor {
+
+    private final ConcurrentHashMap<String, Hash> hashes = new ConcurrentHashMap<>();
+
+    @Override
+    public Optional<String> hget(String clave, String campo) {
+        Hash hash = vigente(clave);
+        return hash == null ? Optional.empty() : Optional.ofNullable(hash.campos.get(campo));
+    }
+
+    @Override
+    public Map<String, String> hgetAll(String clave) {
+        Hash hash = vigente(clave);
+        return hash == null ? Map.of() : Map.copyOf(hash.campos);
+    }
+
+    @Override
+    public void hset(String clave, String campo, String valor) {
+        hashes.compute(clave, (k, hash) -> {
+            Hash destino = hash == null || hash.expirado(System.currentTimeMillis()) ? new Hash() : hash;
+            destino.campos.put(campo, valor);
+            return destino;
+        });
+    }
+
+    @Override
+    public long hincrBy(String clave, String campo, long incremento) {
+        long[] resultado = new long[1];
+        hashes.compute(clave, (k, hash) -> {
+            Hash destino = hash == null || hash.expirado(System.currentTimeMillis()) ? new Hash() : hash;
+            String actual = destino.campos.get(campo);
+            try {
+                resultado[0] = (actual == null ? 0 : Long.parseLong(actual)) + incremento;
+            } catch (NumberFormatException ex) {
+                throw new IllegalStateException("El campo '" + campo + "' de '" + clave + "' no es numérico.");
+            }
+            destino.campos.put(campo, Long.toString(resultado[0]));
+            return destino;
+        });
+        return resultado[0];
+    }
+
+    @Override
+    public long hdel(String clave, String... campos) {
+        long[] borrados = new long[1];
+        hashes.computeIfPresent(clave, (k, hash) -> {
+            if (hash.expirado(System.currentTimeMillis())) {
+                return null;
+            }
+            for (String campo : campos) {
+                if (hash.campos.remove(campo) != null) {
+                    borrados[0]++;
+                }
+            }
+            // Como en Redis, un hash sin campos deja de existir
+            return hash.campos.isEmpty() ? null : hash;
+        });
+        return borrados[0];
+    }
+
+    @Override
+    public boolean del(String clave) {
+        Hash hash = hashes.remove(clave);
+        return hash != null && !hash.expirado(System.currentTimeMillis());
+    }
+
+    @Override
+    public void expire(String clave, Duration ttl) {
+        hashes.computeIfPresent(clave, (k, hash) -> {
+            hash.expiraEn = System.currentTimeMillis() + ttl.toMillis();
+            return hash;
+        });
+    }
+
+    /**
+     * Tiempo que le queda a la clave (como TTL en Redis); vacío si no existe o no tiene expiración.
+     */
+    public Optional<Duration> ttl(String clave) {
+        Hash hash = vigente(clave);
+        if (hash == null || hash.expiraEn == Long.MAX_VALUE) {
+            return Optional.empty();
+        }
+        return Optional.of(Duration.ofMillis(Math.max(0, hash.expiraEn - System.currentTimeMillis())));
+    }
+
+    /**
+     * Elimina las claves expiradas que nadie ha vuelto a leer.
+     *
+     * @return número de claves eliminadas
+     */
+    public int purgarExpiradas() {
+        long ahora = System.currentTimeMillis();
+        int antes = hashes.size();
+        hashes.values().removeIf(hash -> hash.expirado(ahora));
+        return antes - hashes.size();
+    }
+
+    public int tamano() {
+        return hashes.size();
+    }
+
+    private Hash vigente(String clave) {
+        Hash hash = hashes.get(clave);
+        if (hash != null && hash.expirado(System.currentTimeMillis())) {
+            hashes.remove(clave, hash);
+            return null;
+        }
+        return hash;
+    }
+
+    private static final class Hash {
+        private final Map<String, String> campos = new ConcurrentHashMap<>();
+        private volatile long expiraEn = Long.MAX_VALUE;
+
+        boolean expirado(long ahora) {
+            return ahora >= expiraEn;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.myapp.util.concurrencia;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reintenta una operación cuando falla por concurrencia (interbloqueo, timeout de bloqueo, conflicto optimista),
+ * con espera exponencial y jitter para que las transacciones que chocaron no vuelvan a coincidir.
+ * La operación debe abrir su propia transacción: reintentar dentro de una transacción ya marcada para rollback no sirve.
+ */
+@Component
+public class EjecutorConReintentos {
+
+    private static final Logger log = LoggerFactory.getLogger(EjecutorConReintentos.class);
+
+    private final int intentosMaximos;
+    private final long esperaInicialMs;
+    private final long esperaMaximaMs;
+
+    public EjecutorConReintentos(
+            @Value("${concurrencia.reintentos.maximo:4}") int intentosMaximos,
+            @Value("${concurrencia.reintentos.espera-inicial-ms:20}") long esperaInicialMs,
+            @Value("${concurrencia.reintentos.espera-maxima-ms:500}") long esperaMaximaMs) {
+        if (intentosMaximos <= 0) {
+            throw new IllegalArgumentException("El número máximo de intentos debe ser mayor que cero.");
+        }
+        this.intentosMaximos = intentosMaximos;
+        this.esperaInicialMs = esperaInicialMs;
+        this.esperaMaximaMs = esperaMaximaMs;
+    }
+
+    public <T> T ejecutar(String operacion, Supplier<T> accion) {
+        long espera = esperaInicialMs;
+        for (int intento = 1; ; intento++) {
+            try {
+                return accion.get();
+            } catch (ConcurrencyFailureException ex) {
+                if (intento >= intentosMaximos) {
+                    log.warn("{}: conflicto de concurrencia tras {} intentos, se abandona", operacion, intento);
+                    throw ex;
+                }
+                // Jitter completo: espera aleatoria entre 0 y el tope actual
+                long pausa = ThreadLocalRandom.current().nextLong(espera + 1);
+                log.debug("{}: conflicto de concurrencia (intento {}), reintento en {} ms", operacion, intento, pausa);
+                dormir(pausa);
+                espera = Math.min(espera * 2, esperaMaximaMs);
+            }
+        }
+    }
+
+    private static void dormir(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reintento interrumpido.", ex);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.myapp.util.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.myapp.util.clavevalor.ClienteClaveValor;
+import com.myapp.util.clavevalor.ClienteClaveValorEnMemoria;
+
+// Almacén clave-valor de los carritos (carrito.almacen=clave-valor).
+// Si no hay otro ClienteClaveValor definido (ej. uno sobre Redis) se usa el embebido, válido para un solo nodo.
+@Configuration
+@ConditionalOnProperty(name = "carrito.almacen", havingValue = "clave-valor")
+public class AlmacenCarritoConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(AlmacenCarritoConfig.class);
+
+    private final ObjectProvider<ClienteClaveValorEnMemoria> clienteEnMemoria;
+
+    public AlmacenCarritoConfig(ObjectProvider<ClienteClaveValorEnMemoria> clienteEnMemoria) {
+        this.clienteEnMemoria = clienteEnMemoria;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(ClienteClaveValor.class)
+    public ClienteClaveValorEnMemoria clienteClaveValor() {
+        return new ClienteClaveValorEnMemoria();
+    }
+
+    // Los carritos abandonados expiran solos al leerlos; esta pasada libera la memoria de los que nadie vuelve a leer
+    @Scheduled(fixedDelayString = "${carrito.clave-valor.purga.intervalo-ms:60000}",
+            initialDelayString = "${carrito.clave-valor.purga.intervalo-ms:60000}")
+    public void purgarCarritosExpirados() {
+        clienteEnMemoria.ifAvailable(cliente -> {
+            int purgados = cliente.purgarExpiradas();
+            if (purgados > 0) {
+                log.debug("Purga del almacén clave-valor: {} carritos expirados eliminados", purgados);
+            }
+        });
+    }
+}
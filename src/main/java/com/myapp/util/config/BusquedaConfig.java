@@ -0,0 +1,20 @@
+package com.myapp.util.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class BusquedaConfig {
+
+    // Un solo hilo para construir y actualizar el índice de búsqueda: los cambios se aplican en orden y
+    // nunca hay dos versiones del índice construyéndose a la vez. Las consultas no pasan por aquí.
+    @Bean(name = "ejecutorBusqueda")
+    public ThreadPoolTaskExecutor ejecutorBusqueda() {
+        ThreadPoolTaskExecutor ejecutor = new ThreadPoolTaskExecutor();
+        ejecutor.setCorePoolSize(1);
+        ejecutor.setMaxPoolSize(1);
+        ejecutor.setThreadNamePrefix("busqueda-");
+        return ejecutor;
+    }
+}
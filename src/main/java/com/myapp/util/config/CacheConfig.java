@@ -0,0 +1,77 @@
+package com.myapp.util.config;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.DTOs.FiltroCatalogo;
+import com.DTOs.PaginaCatalogoDTO;
+import com.DTOs.VersionCatalogoDTO;
+import com.myapp.models.Producto;
+import com.myapp.util.cache.TtlCache;
+import com.myapp.util.http.RespuestaIdempotente;
+import com.myapp.util.security.CustomUserDetails;
+import com.myapp.util.security.jwt.JwtClaims;
+
+@Configuration
+public class CacheConfig {
+
+    // Principales autenticados por ID de usuario (evita ir a la BD en cada petición con JWT)
+    @Bean
+    public TtlCache<Long, CustomUserDetails> cachePrincipales(
+            @Value("${cache.principales.capacidad:10000}") int capacidad,
+            @Value("${cache.principales.ttl-segundos:300}") long ttlSegundos) {
+        return new TtlCache<>("principales", capacidad, Duration.ofSeconds(ttlSegundos));
+    }
+
+    // Tokens verificados recientemente, indexados por su SHA-256 (nunca se guarda el token en claro)
+    @Bean
+    public TtlCache<String, JwtClaims> cacheTokensVerificados(
+            @Value("${jwt.cache-verificados.capacidad:10000}") int capacidad,
+            @Value("${jwt.cache-verificados.ttl-segundos:30}") long ttlSegundos) {
+        return new TtlCache<>("tokensVerificados", capacidad, Duration.ofSeconds(ttlSegundos));
+    }
+
+    // Productos del catálogo público por ID (con su categoría ya inicializada)
+    @Bean
+    public TtlCache<Long, Producto> cacheProductos(
+            @Value("${cache.productos.capacidad:20000}") int capacidad,
+            @Value("${cache.productos.ttl-segundos:600}") long ttlSegundos) {
+        return new TtlCache<>("productos", capacidad, Duration.ofSeconds(ttlSegundos));
+    }
+
+    // Páginas del catálogo público por combinación de filtros, orden y cursor
+    @Bean
+    public TtlCache<FiltroCatalogo, PaginaCatalogoDTO> cachePaginasCatalogo(
+            @Value("${cache.paginas-catalogo.capacidad:2000}") int capacidad,
+            @Value("${cache.paginas-catalogo.ttl-segundos:120}") long ttlSegundos) {
+        return new TtlCache<>("paginasCatalogo", capacidad, Duration.ofSeconds(ttlSegundos));
+    }
+
+    // Versiones agregadas del catálogo (productos y categorías): evita las consultas de agregados en cada
+    // petición condicional. Capacidad 2: una entrada por cada clave de CatalogoCache, sin expulsarse entre sí
+    @Bean
+    public TtlCache<String, VersionCatalogoDTO> cacheVersionCatalogo(
+            @Value("${cache.version-catalogo.ttl-segundos:30}") long ttlSegundos) {
+        return new TtlCache<>("versionCatalogo", 2, Duration.ofSeconds(ttlSegundos));
+    }
+
+    // Stock disponible en memoria de los productos en "flash sale" (filtro de admisión, se relee de la BD al expirar)
+    @Bean
+    public TtlCache<Long, AtomicInteger> cacheStockFlash(
+            @Value("${stock.flash-sale.capacidad:1000}") int capacidad,
+            @Value("${stock.flash-sale.ttl-segundos:5}") long ttlSegundos) {
+        return new TtlCache<>("stockFlash", capacidad, Duration.ofSeconds(ttlSegundos));
+    }
+
+    // Respuestas ya enviadas por Idempotency-Key (usuario + ruta + clave); las repeticiones se responden desde aquí
+    @Bean
+    public TtlCache<String, RespuestaIdempotente> cacheIdempotencia(
+            @Value("${idempotencia.capacidad:50000}") int capacidad,
+            @Value("${idempotencia.ttl-segundos:86400}") long ttlSegundos) {
+        return new TtlCache<>("idempotencia", capacidad, Duration.ofSeconds(ttlSegundos));
+    }
+}
@@ -0,0 +1,23 @@
+package com.myapp.util.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class ImportacionConfig {
+
+    // Las importaciones masivas se ejecutan de una en una: dos a la vez competirían por las mismas filas y
+    // conexiones. Las que llegan mientras tanto esperan en una cola corta; con la cola llena se rechazan.
+    @Bean(name = "ejecutorImportacion")
+    public ThreadPoolTaskExecutor ejecutorImportacion(
+            @Value("${importacion.ejecutor.capacidad-cola:4}") int capacidadCola) {
+        ThreadPoolTaskExecutor ejecutor = new ThreadPoolTaskExecutor();
+        ejecutor.setCorePoolSize(1);
+        ejecutor.setMaxPoolSize(1);
+        ejecutor.setQueueCapacity(capacidadCola);
+        ejecutor.setThreadNamePrefix("importacion-");
+        return ejecutor;
+    }
+}
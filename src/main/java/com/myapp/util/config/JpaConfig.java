@@ -0,0 +1,25 @@
+package com.myapp.util.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JpaConfig {
+
+    // Agrupa INSERT/UPDATE en lotes JDBC (ej. las líneas de un pedido). El stock no pasa por aquí:
+    // ReservaStockService lo descuenta con un UPDATE condicional por producto.
+    // Ordenar por entidad permite que Hibernate junte en el mismo lote las sentencias del mismo tipo.
+    @Bean
+    public HibernatePropertiesCustomizer batchingHibernateCustomizer(
+            @Value("${jpa.batch-size:50}") int tamanoLote) {
+        return propiedades -> {
+            propiedades.putIfAbsent(AvailableSettings.STATEMENT_BATCH_SIZE, tamanoLote);
+            propiedades.putIfAbsent(AvailableSettings.ORDER_INSERTS, true);
+            propiedades.putIfAbsent(AvailableSettings.ORDER_UPDATES, true);
+            propiedades.putIfAbsent(AvailableSettings.BATCH_VERSIONED_DATA, true);
+        };
+    }
+}
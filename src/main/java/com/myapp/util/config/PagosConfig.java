@@ -0,0 +1,27 @@
+package com.myapp.util.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class PagosConfig {
+
+    // Pool acotado para las llamadas a la pasarela: la latencia externa ocupa estos hilos, no las conexiones
+    // de la BD ni los hilos de Tomcat. Con la cola llena se rechaza el pago (el cliente puede reintentar).
+    @Bean(name = "ejecutorPagos")
+    public ThreadPoolTaskExecutor ejecutorPagos(
+            @Value("${pagos.ejecutor.hilos:16}") int hilos,
+            @Value("${pagos.ejecutor.capacidad-cola:500}") int capacidadCola) {
+        ThreadPoolTaskExecutor ejecutor = new ThreadPoolTaskExecutor();
+        ejecutor.setCorePoolSize(hilos);
+        ejecutor.setMaxPoolSize(hilos);
+        ejecutor.setQueueCapacity(capacidadCola);
+        ejecutor.setThreadNamePrefix("pago-");
+        // Al apagar se terminan los pagos en curso para no dejarlos en 'Pendiente'
+        ejecutor.setWaitForTasksToCompleteOnShutdown(true);
+        ejecutor.setAwaitTerminationSeconds(30);
+        return ejecutor;
+    }
+}
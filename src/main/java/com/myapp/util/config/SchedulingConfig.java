@@ -0,0 +1,10 @@
+package com.myapp.util.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Habilita las tareas periódicas (@Scheduled), ej. el barrido de reservas de stock vencidas
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -5,6 +5,8 @@ import org.springframework.context.annotation.Bean;
 import java.util.Arrays;
 import java.util.List;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -25,6 +27,7 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import com.myapp.util.logging.LogMuestreado;
 import com.myapp.util.security.CustomUserDetailsService;
 import com.myapp.util.security.jwt.JwtAuthenticationFilter;
 import com.myapp.util.security.jwt.JwtTokenProvider;
@@ -36,6 +39,9 @@ import jakarta.servlet.http.HttpServletResponse;
 @EnableMethodSecurity(prePostEnabled = true) // Habilita @PreAuthorize
 public class SecurityConfig {
 
+    private static final Logger log = LoggerFactory.getLogger(SecurityConfig.class);
+    private static final LogMuestreado logMuestreado = new LogMuestreado(log, 50);
+
     private final JwtTokenProvider jwtTokenProvider;
 
     // Inyectar UserDetailsService para el AuthenticationManager
@@ -105,6 +111,10 @@ public class SecurityConfig {
                         .requestMatchers(AntPathRequestMatcher.antMatcher("/api/auth/**")).permitAll()
                         .requestMatchers(AntPathRequestMatcher.antMatcher(HttpMethod.POST, "/api/usuarios")).permitAll()
 
+                        // Endpoints de administración de productos: deben evaluarse antes que el GET público
+                        .requestMatchers(AntPathRequestMatcher.antMatcher("/api/productos/admin/**"))
+                        .hasRole("ADMINISTRADOR")
+
                         // Categorías (GET) - Permite sólo lectura a TODOS
                         .requestMatchers(AntPathRequestMatcher.antMatcher(HttpMethod.GET, "/api/categorias/**"))
                         .permitAll()
@@ -114,6 +124,8 @@ public class SecurityConfig {
                         // 4. ENDPOINTS ADMINISTRATIVOS (ROLE_ADMINISTRADOR) - PRIORIDAD
                         .requestMatchers(AntPathRequestMatcher.antMatcher("/api/pedidos/admin/**"))
                         .hasRole("ADMINISTRADOR")
+                        .requestMatchers(AntPathRequestMatcher.antMatcher("/api/admin/**"))
+                        .hasRole("ADMINISTRADOR")
 
                         // Categorías (CRUD)
                         .requestMatchers(AntPathRequestMatcher.antMatcher(HttpMethod.POST, "/api/categorias/**"))
@@ -130,8 +142,6 @@ public class SecurityConfig {
                         .hasRole("ADMINISTRADOR")
                         .requestMatchers(AntPathRequestMatcher.antMatcher(HttpMethod.DELETE, "/api/productos/**"))
                         .hasRole("ADMINISTRADOR")
-                        .requestMatchers(AntPathRequestMatcher.antMatcher("/api/productos/admin/**"))
-                        .hasRole("ADMINISTRADOR") // Si tienes endpoints específicos de admin
 
                         // Direcciones
                         .requestMatchers(AntPathRequestMatcher.antMatcher("/api/direcciones/admin/**"))
@@ -148,6 +158,8 @@ public class SecurityConfig {
                         // 3. ENDPOINTS DE USUARIO AUTENTICADO
                         .requestMatchers(AntPathRequestMatcher.antMatcher(HttpMethod.POST, "/api/pedidos"))
                         .hasAnyRole("CLIENTE", "ADMINISTRADOR")
+                        .requestMatchers(AntPathRequestMatcher.antMatcher(HttpMethod.POST, "/api/pedidos/checkout"))
+                        .hasAnyRole("CLIENTE", "ADMINISTRADOR")
                         .requestMatchers(AntPathRequestMatcher.antMatcher(HttpMethod.GET, "/api/pedidos"))
                         .hasAnyRole("CLIENTE", "ADMINISTRADOR")
                         .requestMatchers(AntPathRequestMatcher.antMatcher(HttpMethod.GET, "/api/pedidos/{id}"))
@@ -157,6 +169,7 @@ public class SecurityConfig {
                         .requestMatchers(AntPathRequestMatcher.antMatcher("/api/direcciones/**")).authenticated()
                         .requestMatchers(AntPathRequestMatcher.antMatcher("/api/carrito/**")).authenticated()
                         .requestMatchers(AntPathRequestMatcher.antMatcher("/api/pagos/process")).authenticated()
+                        .requestMatchers(AntPathRequestMatcher.antMatcher(HttpMethod.GET, "/api/pagos/{idPago}")).authenticated()
 
                         // 6. Todas las demás peticiones requieren autenticación
                         .anyRequest().authenticated())
@@ -164,9 +177,8 @@ public class SecurityConfig {
                          // Manejador de accesos denegados para depuración y respuesta clara
                         .exceptionHandling(ex -> ex
                         .accessDeniedHandler((request, response, accessDeniedException) -> {
-                            // log simple (usa logger en producción)
-                            System.out.println("ACCESS DENIED: " + request.getMethod() + " " + request.getRequestURI()
-                                    + " - Reason: " + accessDeniedException.getMessage());
+                            logMuestreado.warn("acceso.denegado", "Acceso denegado: {} {} - {}", request.getMethod(),
+                                    request.getRequestURI(), accessDeniedException.getMessage());
                             response.setStatus(HttpServletResponse.SC_FORBIDDEN);
                             response.setContentType("application/json");
                             response.getWriter().write("{\"error\":\"access_denied\",\"message\":\""
@@ -0,0 +1,20 @@
+package com.myapp.util.eventos;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Se publica cuando cambian productos del catálogo (altas, ediciones, bajas o stock).
+ * Lleva los productos y categorías afectados para que las cachés invaliden solo lo necesario;
+ * 'todo' indica que no se conoce el alcance y debe invalidarse todo el catálogo.
+ */
+public record CatalogoModificadoEvent(Set<Long> idsProducto, Set<Integer> idsCategoria, boolean todo) {
+
+    public static CatalogoModificadoEvent de(Collection<Long> idsProducto, Collection<Integer> idsCategoria) {
+        return new CatalogoModificadoEvent(Set.copyOf(idsProducto), Set.copyOf(idsCategoria), false);
+    }
+
+    public static CatalogoModificadoEvent completo() {
+        return new CatalogoModificadoEvent(Set.of(), Set.of(), true);
+    }
+}
@@ -0,0 +1,17 @@
+package com.myapp.util.eventos;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Se publica cuando cambia lo apartado en carritos (cantidadReservada) de unos productos.
+ * Solo cambia su disponible para la venta: el nombre, el precio, la categoría y cantidadStock siguen igual,
+ * así que los índices de búsqueda y sugerencias no lo escuchan; sí la caché del catálogo público y las facetas
+ * (la de disponibilidad se calcula con el disponible).
+ */
+public record StockReservadoModificadoEvent(Set<Long> idsProducto) {
+
+    public static StockReservadoModificadoEvent de(Collection<Long> idsProducto) {
+        return new StockReservadoModificadoEvent(Set.copyOf(idsProducto));
+    }
+}
@@ -0,0 +1,148 @@
+package com.myapp.util.http;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import com.myapp.util.cache.TtlCache;
+import com.myapp.util.security.CustomUserDetails;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Cabecera Idempotency-Key en las operaciones que el cliente reintenta tras un timeout
+ * (crear pedido, checkout y pago). La primera petición con una clave se ejecuta y su respuesta se guarda;
+ * las repeticiones reciben esa misma respuesta (con Idempotent-Replayed: true) sin llegar al controlador
+ * ni a la BD. Mientras la original sigue en curso, una repetición recibe 409.
+ * Con la clave se guarda el SHA-256 del cuerpo: reutilizar la clave con otro cuerpo es un error del cliente
+ * y recibe 422 en vez de la respuesta de otra operación.
+ * Las claves son por usuario y ruta. Los errores 5xx no se guardan, así el cliente puede reintentar.
+ * Se ejecuta después de Spring Security (necesita el usuario autenticado).
+ */
+@Component
+public class IdempotenciaFilter extends OncePerRequestFilter {
+
+    public static final String CABECERA = "Idempotency-Key";
+    public static final String CABECERA_REPETIDA = "Idempotent-Replayed";
+
+    private static final Set<String> RUTAS = Set.of("/api/pedidos", "/api/pedidos/checkout", "/api/pagos/process");
+    private static final Pattern CLAVE_VALIDA = Pattern.compile("[A-Za-z0-9._:-]{1,128}");
+
+    private final TtlCache<String, RespuestaIdempotente> cacheIdempotencia;
+    private final int maximoBytesRespuesta;
+
+    public IdempotenciaFilter(TtlCache<String, RespuestaIdempotente> cacheIdempotencia,
+            @Value("${idempotencia.maximo-bytes-respuesta:65536}") int maximoBytesRespuesta) {
+        this.cacheIdempotencia = cacheIdempotencia;
+        this.maximoBytesRespuesta = maximoBytesRespuesta;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || !RUTAS.contains(request.getRequestURI())
+                || request.getHeader(CABECERA) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        Long idUsuario = getAuthenticatedUserId();
+        if (idUsuario == null) {
+            // Sin usuario la petición será rechazada más adelante; no hay a quién asociar la clave
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String claveCliente = request.getHeader(CABECERA);
+        if (!CLAVE_VALIDA.matcher(claveCliente).matches()) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(),
+                    "La cabecera " + CABECERA + " debe tener entre 1 y 128 caracteres [A-Za-z0-9._:-].");
+            return;
+        }
+
+        // El cuerpo se lee entero para la huella y se le pasa al controlador desde memoria
+        byte[] cuerpoPeticion = request.getInputStream().readAllBytes();
+        String huella = calcularHuella(cuerpoPeticion);
+
+        String clave = idUsuario + "|" + request.getRequestURI() + "|" + claveCliente;
+        Optional<RespuestaIdempotente> existente = cacheIdempotencia.ponerSiAusente(clave, RespuestaIdempotente.enCurso(huella));
+        if (existente.isPresent()) {
+            if (!huella.equals(existente.get().huellaPeticion())) {
+                response.sendError(HttpStatus.UNPROCESSABLE_ENTITY.value(),
+                        "La " + CABECERA + " ya se usó con una petición distinta.");
+                return;
+            }
+            responderRepetida(existente.get(), response);
+            return;
+        }
+
+        ContentCachingResponseWrapper respuesta = new ContentCachingResponseWrapper(response);
+        boolean guardada = false;
+        try {
+            filterChain.doFilter(new PeticionConCuerpo(request, cuerpoPeticion), respuesta);
+
+            byte[] cuerpo = respuesta.getContentAsByteArray();
+            if (respuesta.getStatus() < 500 && cuerpo.length <= maximoBytesRespuesta) {
+                cacheIdempotencia.poner(clave, new RespuestaIdempotente(false, huella, respuesta.getStatus(),
+                        respuesta.getContentType(), respuesta.getHeader(HttpHeaders.LOCATION), cuerpo));
+                guardada = true;
+            }
+        } finally {
+            if (!guardada) {
+                cacheIdempotencia.invalidar(clave);
+            }
+            respuesta.copyBodyToResponse();
+        }
+    }
+
+    private void responderRepetida(RespuestaIdempotente guardada, HttpServletResponse response) throws IOException {
+        if (guardada.enCurso()) {
+            response.sendError(HttpStatus.CONFLICT.value(),
+                    "Ya se está procesando una petición con esta " + CABECERA + ".");
+            return;
+        }
+        response.setStatus(guardada.estado());
+        response.setHeader(CABECERA_REPETIDA, "true");
+        if (guardada.tipoContenido() != null) {
+            response.setContentType(guardada.tipoContenido());
+        }
+        if (guardada.location() != null) {
+            response.setHeader(HttpHeaders.LOCATION, guardada.location());
+        }
+        response.setContentLength(guardada.cuerpo().length);
+        response.getOutputStream().write(guardada.cuerpo());
+    }
+
+    private static String calcularHuella(byte[] cuerpo) {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MessageDigest.getInstance("SHA-256").digest(cuerpo));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible en la JVM.", e);
+        }
+    }
+
+    private Long getAuthenticatedUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof CustomUserDetails userDetails) {
+            return userDetails.getIdUsuario();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,73 @@
+package com.myapp.util.http;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+/**
+ * Petición cuyo cuerpo ya se leyó entero (para calcular su huella): lo sirve desde memoria
+ * para que el controlador lo pueda leer de nuevo.
+ */
+class PeticionConCuerpo extends HttpServletRequestWrapper {
+
+    private final byte[] cuerpo;
+
+    PeticionConCuerpo(HttpServletRequest request, byte[] cuerpo) {
+        super(request);
+        this.cuerpo = cuerpo;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+        ByteArrayInputStream entrada = new ByteArrayInputStream(cuerpo);
+        return new ServletInputStream() {
+            @Override
+            public int read() {
+                return entrada.read();
+            }
+
+            @Override
+            public int read(byte[] destino, int desde, int longitud) {
+                return entrada.read(destino, desde, longitud);
+            }
+
+            @Override
+            public boolean isFinished() {
+                return entrada.available() == 0;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setReadListener(ReadListener listener) {
+                throw new UnsupportedOperationException("El cuerpo ya está en memoria.");
+            }
+        };
+    }
+
+    @Override
+    public BufferedReader getReader() {
+        Charset charset = getCharacterEncoding() != null ? Charset.forName(getCharacterEncoding()) : StandardCharsets.UTF_8;
+        return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+    }
+
+    @Override
+    public int getContentLength() {
+        return cuerpo.length;
+    }
+
+    @Override
+    public long getContentLengthLong() {
+        return cuerpo.length;
+    }
+}
@@ -0,0 +1,15 @@
+package com.myapp.util.http;
+
+/**
+ * Respuesta guardada para una Idempotency-Key. Mientras la petición original se procesa solo existe
+ * el marcador enCurso; al terminar se sustituye por el estado, las cabeceras necesarias y el cuerpo.
+ * Ambos llevan la huella (SHA-256) del cuerpo de la petición original para rechazar reutilizaciones
+ * de la clave con otro cuerpo.
+ */
+public record RespuestaIdempotente(boolean enCurso, String huellaPeticion, int estado, String tipoContenido, String location,
+        byte[] cuerpo) {
+
+    public static RespuestaIdempotente enCurso(String huellaPeticion) {
+        return new RespuestaIdempotente(true, huellaPeticion, 0, null, null, null);
+    }
+}
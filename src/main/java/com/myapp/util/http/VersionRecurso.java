@@ -0,0 +1,36 @@
+package com.myapp.util.http;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Utilidades para construir ETag y Last-Modified a partir de las fechas de las entidades.
+ */
+public final class VersionRecurso {
+
+    private VersionRecurso() {
+    }
+
+    // ETag fuerte con las partes separadas por guiones, ej: "p-15-1718000000000"
+    public static String etag(String prefijo, Object... partes) {
+        StringBuilder valor = new StringBuilder("\"").append(prefijo);
+        for (Object parte : partes) {
+            // Las fechas (también las que faltan) van como epochMillis
+            valor.append('-').append(parte instanceof LocalDateTime || parte == null ? epochMillis((LocalDateTime) parte) : parte);
+        }
+        return valor.append('"').toString();
+    }
+
+    // La fecha más reciente (null solo si ambas lo son)
+    public static LocalDateTime masReciente(LocalDateTime una, LocalDateTime otra) {
+        if (una == null || (otra != null && otra.isAfter(una))) {
+            return otra;
+        }
+        return una;
+    }
+
+    // Milisegundos desde epoch (-1 si no hay fecha, que Spring interpreta como "sin Last-Modified")
+    public static long epochMillis(LocalDateTime fecha) {
+        return fecha == null ? -1 : fecha.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
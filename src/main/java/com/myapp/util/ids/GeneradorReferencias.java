@@ -0,0 +1,72 @@
+package com.myapp.util.ids;
+
+import java.security.SecureRandom;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Genera identificadores únicos ordenados por tiempo con el formato ULID: 26 caracteres en base32 de Crockford,
+ * 48 bits de milisegundos seguidos de 80 bits aleatorios. No necesitan coordinación entre nodos (la parte
+ * aleatoria hace despreciable la colisión) y se ordenan alfabéticamente por fecha de creación.
+ * Dentro de un mismo milisegundo la parte aleatoria se incrementa, así que en un nodo nunca se repiten.
+ */
+@Component
+public class GeneradorReferencias {
+
+    private static final char[] ALFABETO = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final long MASCARA_16_BITS = 0xFFFFL;
+
+    private final SecureRandom aleatorio = new SecureRandom();
+
+    // Estado del último ID emitido (80 bits aleatorios = 16 altos + 64 bajos)
+    private long ultimoMs = -1;
+    private long aleatorioAlto;
+    private long aleatorioBajo;
+
+    /**
+     * Nuevo identificador, ej. "01HF3Z6Q2V8N4W7K9C5XJ0M1TB".
+     */
+    public synchronized String nueva() {
+        long ahora = System.currentTimeMillis();
+        if (ahora > ultimoMs) {
+            ultimoMs = ahora;
+            aleatorioAlto = aleatorio.nextInt() & MASCARA_16_BITS;
+            aleatorioBajo = aleatorio.nextLong();
+        } else {
+            // Mismo milisegundo (o reloj atrasado): se mantiene el tiempo y se incrementa la parte aleatoria
+            aleatorioBajo++;
+            if (aleatorioBajo == 0) {
+                aleatorioAlto = (aleatorioAlto + 1) & MASCARA_16_BITS;
+                if (aleatorioAlto == 0) {
+                    // Desbordamiento (2^80 IDs en un milisegundo): se avanza al milisegundo siguiente
+                    ultimoMs++;
+                }
+            }
+        }
+        return codificar(ultimoMs, aleatorioAlto, aleatorioBajo);
+    }
+
+    /**
+     * Referencia con prefijo legible, ej. "REF-01HF3Z6Q2V8N4W7K9C5XJ0M1TB".
+     */
+    public String nueva(String prefijo) {
+        return prefijo + "-" + nueva();
+    }
+
+    private static String codificar(long milisegundos, long alto, long bajo) {
+        char[] caracteres = new char[26];
+        // 10 caracteres para el tiempo (48 bits)
+        long tiempo = milisegundos;
+        for (int i = 9; i >= 0; i--) {
+            caracteres[i] = ALFABETO[(int) (tiempo & 31)];
+            tiempo >>>= 5;
+        }
+        // 16 caracteres para los 80 bits aleatorios, desde el menos significativo
+        for (int i = 25; i >= 10; i--) {
+            caracteres[i] = ALFABETO[(int) (bajo & 31)];
+            bajo = (bajo >>> 5) | ((alto & 31) << 59);
+            alto >>>= 5;
+        }
+        return new String(caracteres);
+    }
+}
@@ -0,0 +1,141 @@
+package com.myapp.util.importacion;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lector CSV en streaming (RFC 4180): devuelve un registro cada vez sin cargar el fichero en memoria.
+ * Admite campos entre comillas con comas, comillas dobladas ("") y saltos de línea dentro, finales de línea
+ * \n o \r\n y la marca BOM de UTF-8. El separador es ',' o ';' (el de Excel en español), según la cabecera.
+ */
+public final class LectorCsv {
+
+    private static final int BOM = '\uFEFF';
+
+    private final Reader lector;
+    private char separador = ',';
+    private boolean separadorDetectado;
+    private boolean alInicio = true;
+    private int siguiente = -2; // Carácter leído por adelantado; -2 = ninguno
+    private long linea = 1;
+    private long lineaRegistro;
+
+    public LectorCsv(Reader lector) {
+        this.lector = lector;
+    }
+
+    /**
+     * Siguiente registro, o null al final del fichero. Las líneas vacías se saltan.
+     */
+    public List<String> siguienteRegistro() throws IOException {
+        while (true) {
+            int c = leer();
+            if (c < 0) {
+                return null;
+            }
+            if (c == '\n' || c == '\r') {
+                finDeLinea(c);
+                continue;
+            }
+            devolver(c);
+            lineaRegistro = linea;
+            return leerRegistro();
+        }
+    }
+
+    /**
+     * Línea del fichero en la que empieza el último registro devuelto.
+     */
+    public long lineaRegistro() {
+        return lineaRegistro;
+    }
+
+    private List<String> leerRegistro() throws IOException {
+        List<String> campos = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean entreComillas = false;
+        boolean campoConComillas = false;
+        while (true) {
+            int c = leer();
+            if (entreComillas) {
+                if (c < 0) {
+                    throw new IOException("Comillas sin cerrar en el registro que empieza en la línea " + lineaRegistro + ".");
+                }
+                if (c == '"') {
+                    int despues = leer();
+                    if (despues == '"') {
+                        campo.append('"');
+                    } else {
+                        entreComillas = false;
+                        devolver(despues);
+                    }
+                } else {
+                    if (c == '\n') {
+                        linea++;
+                    }
+                    campo.append((char) c);
+                }
+                continue;
+            }
+            if (!separadorDetectado && (c == ',' || c == ';')) {
+                // El primer separador fuera de comillas (el de la cabecera) fija el del fichero
+                separador = (char) c;
+                separadorDetectado = true;
+            }
+            if (c < 0 || c == '\n' || c == '\r') {
+                campos.add(valor(campo, campoConComillas));
+                if (c >= 0) {
+                    finDeLinea(c);
+                }
+                return campos;
+            }
+            if (c == separador) {
+                campos.add(valor(campo, campoConComillas));
+                campo.setLength(0);
+                campoConComillas = false;
+            } else if (c == '"' && campo.length() == 0 && !campoConComillas) {
+                entreComillas = true;
+                campoConComillas = true;
+            } else {
+                campo.append((char) c);
+            }
+        }
+    }
+
+    // Un campo vacío sin comillas es null; "" entre comillas es la cadena vacía
+    private static String valor(StringBuilder campo, boolean conComillas) {
+        return campo.length() == 0 && !conComillas ? null : campo.toString();
+    }
+
+    private void finDeLinea(int c) throws IOException {
+        if (c == '\r') {
+            int despues = leer();
+            if (despues != '\n') {
+                devolver(despues);
+            }
+        }
+        linea++;
+    }
+
+    private int leer() throws IOException {
+        if (siguiente != -2) {
+            int c = siguiente;
+            siguiente = -2;
+            return c;
+        }
+        int c = lector.read();
+        if (alInicio) {
+            alInicio = false;
+            if (c == BOM) {
+                c = lector.read();
+            }
+        }
+        return c;
+    }
+
+    private void devolver(int c) {
+        siguiente = c;
+    }
+}
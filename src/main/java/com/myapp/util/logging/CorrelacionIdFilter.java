@@ -0,0 +1,50 @@
+package com.myapp.util.logging;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Asigna un ID de correlación a cada petición (o reutiliza el del cliente en X-Request-Id)
+ * y lo deja en el MDC para que aparezca en todas las líneas de log de esa petición.
+ * Se ejecuta antes que la cadena de Spring Security.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CorrelacionIdFilter extends OncePerRequestFilter {
+
+    public static final String CABECERA = "X-Request-Id";
+    public static final String CLAVE_MDC = "idCorrelacion";
+
+    // Evita que un cliente inyecte texto arbitrario en los logs
+    private static final Pattern ID_VALIDO = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        String idCorrelacion = request.getHeader(CABECERA);
+        if (idCorrelacion == null || !ID_VALIDO.matcher(idCorrelacion).matches()) {
+            idCorrelacion = UUID.randomUUID().toString();
+        }
+
+        MDC.put(CLAVE_MDC, idCorrelacion);
+        response.setHeader(CABECERA, idCorrelacion);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(CLAVE_MDC);
+        }
+    }
+}
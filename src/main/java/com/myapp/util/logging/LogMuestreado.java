@@ -0,0 +1,39 @@
+package com.myapp.util.logging;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+
+/**
+ * Registra solo la primera ocurrencia y luego una de cada N de un evento ruidoso
+ * (tokens inválidos, accesos denegados...), indicando cuántas veces ha ocurrido.
+ */
+public class LogMuestreado {
+
+    private final Logger logger;
+    private final long cadaN;
+    private final ConcurrentHashMap<String, AtomicLong> contadores = new ConcurrentHashMap<>();
+
+    public LogMuestreado(Logger logger, long cadaN) {
+        if (cadaN <= 0) {
+            throw new IllegalArgumentException("La frecuencia de muestreo debe ser mayor que cero.");
+        }
+        this.logger = logger;
+        this.cadaN = cadaN;
+    }
+
+    // 'evento' debe ser una clave fija (no incluir datos de la petición) para mantener acotado el mapa
+    public void warn(String evento, String formato, Object... argumentos) {
+        if (!logger.isWarnEnabled()) {
+            return;
+        }
+        long ocurrencias = contadores.computeIfAbsent(evento, e -> new AtomicLong()).incrementAndGet();
+        if (ocurrencias == 1 || ocurrencias % cadaN == 0) {
+            Object[] conContador = Arrays.copyOf(argumentos, argumentos.length + 1);
+            conContador[argumentos.length] = ocurrencias;
+            logger.warn(formato + " (ocurrencias: {})", conContador);
+        }
+    }
+}
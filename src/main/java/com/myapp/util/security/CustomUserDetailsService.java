@@ -8,6 +8,7 @@ import org.springframework.stereotype.Service;
 
 import com.myapp.models.Usuario;
 import com.myapp.repositories.UsuarioRepository;
+import com.myapp.util.cache.TtlCache;
 
 import jakarta.transaction.Transactional;
 
@@ -15,9 +16,11 @@ import jakarta.transaction.Transactional;
 public class CustomUserDetailsService implements UserDetailsService{
 
     private final UsuarioRepository usuarioRepository;
+    private final TtlCache<Long, CustomUserDetails> cachePrincipales;
 
-    public CustomUserDetailsService(UsuarioRepository usuarioRepository) {
+    public CustomUserDetailsService(UsuarioRepository usuarioRepository, TtlCache<Long, CustomUserDetails> cachePrincipales) {
         this.usuarioRepository = usuarioRepository;
+        this.cachePrincipales = cachePrincipales;
     }
 
     @Override
@@ -25,19 +28,22 @@ public class CustomUserDetailsService implements UserDetailsService{
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         // En tu proyecto, el nombre de usuario es el email
         Usuario usuario = usuarioRepository.findByEmail(email);
-    
+
         return new CustomUserDetails(usuario);
     }
-    
-    // Método para cargar por ID (útil para el filtro JWT)
+
+    // Método para cargar por ID (útil para el filtro JWT).
+    // Se apoya en la caché de principales; UsuarioServices la invalida al modificar un usuario.
     @Transactional
     public UserDetails loadUserById(Long id) {
-        Usuario usuario = usuarioRepository.findById(id)
-        .orElseThrow(
-            () -> new UsernameNotFoundException("Usuario no encontrado con ID: " + id)
-        );
-
-        return new CustomUserDetails(usuario);
+        return cachePrincipales.obtenerOCargar(id, idUsuario -> {
+            Usuario usuario = usuarioRepository.findById(idUsuario)
+            .orElseThrow(
+                () -> new UsernameNotFoundException("Usuario no encontrado con ID: " + idUsuario)
+            );
+
+            return new CustomUserDetails(usuario);
+        });
     }
-    
+
 }
@@ -1,7 +1,10 @@
 package com.myapp.util.security.jwt;
 
 import java.io.IOException;
+import java.util.Optional;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -18,6 +21,8 @@ import jakarta.servlet.http.HttpServletResponse;
 
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
+
     private final JwtTokenProvider tokenProvider;
     private final CustomUserDetailsService customUserDetailsService;
 
@@ -29,7 +34,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
-        System.out.println("JWT FILTER: " + request.getServletPath());
         String path = request.getServletPath();
         // Si la ruta es de autenticación, no aplicamos el filtro y continuamos.
         if (path.startsWith("/api/auth")) {
@@ -39,22 +43,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         try {
             String jwt = getJwtFromRequest(request);
-            System.out.println("JWT recibido: " + jwt);
-            System.out.println("ServletPath: " + request.getServletPath());
-            
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                Long userId = tokenProvider.getUserIdFromJWT(jwt);
+
+            // Una única verificación de firma por petición; los claims ya vienen tipados
+            Optional<JwtClaims> claims = StringUtils.hasText(jwt) ? tokenProvider.verificarToken(jwt) : Optional.empty();
+            if (claims.isPresent()) {
+                Long userId = claims.get().idUsuario();
 
                 UserDetails userDetails = customUserDetailsService.loadUserById(userId);
-                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                if (userDetails.isEnabled()) {
+                    UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                System.out.println("Token válido, usuario: " + userId);
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+                    log.debug("Usuario {} autenticado por JWT en {}", userId, path);
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                }
             }
         } catch (Exception ex) {
-            // Log: No se pudo establecer la autenticación del usuario en el contexto
-            ex.printStackTrace();
+            // No se pudo establecer la autenticación: la petición sigue como anónima
+            log.warn("No se pudo establecer la autenticación del usuario: {}", ex.getMessage());
+            log.debug("Detalle del error de autenticación JWT", ex);
         }
 
         filterChain.doFilter(request, response);
@@ -0,0 +1,13 @@
+package com.myapp.util.security.jwt;
+
+import java.util.List;
+
+/**
+ * Datos ya verificados de un JWT: lo que el filtro necesita sin volver a parsear el token.
+ */
+public record JwtClaims(Long idUsuario, String email, List<String> roles, long expiraEnMillis) {
+
+    public boolean expirado(long ahoraMillis) {
+        return ahoraMillis >= expiraEnMillis;
+    }
+}
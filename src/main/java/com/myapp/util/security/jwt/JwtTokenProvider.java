@@ -1,32 +1,69 @@
 package com.myapp.util.security.jwt;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 import javax.crypto.SecretKey;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
+import com.myapp.util.cache.TtlCache;
+import com.myapp.util.logging.LogMuestreado;
 import com.myapp.util.security.CustomUserDetails;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 
 @Component
 public class JwtTokenProvider {
+    private static final Logger log = LoggerFactory.getLogger(JwtTokenProvider.class);
+    // Los tokens inválidos suelen llegar en ráfagas (bots, clientes mal configurados)
+    private static final LogMuestreado logMuestreado = new LogMuestreado(log, 100);
+
     @Value("${jwt.secret}")
     private String jwtSecret;
 
     @Value("${jwt.expiration}")
     private long jwtExpirationInMs;
 
+    // Permite saltarse la verificación HMAC para tokens verificados hace muy poco
+    @Value("${jwt.cache-verificados.habilitada:true}")
+    private boolean cacheVerificadosHabilitada;
+
+    private final TtlCache<String, JwtClaims> cacheTokensVerificados;
+
+    // Clave y parser inmutables: se construyen una sola vez al arrancar (ambos son thread-safe)
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+
+    public JwtTokenProvider(TtlCache<String, JwtClaims> cacheTokensVerificados) {
+        this.cacheTokensVerificados = cacheTokensVerificados;
+    }
+
     // Genera la clave secreta a partir de la cadena en application.properties
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    @PostConstruct
+    void inicializarClave() {
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
     }
 
     // Genera el JWT a partir de la autenticación del usuario
@@ -36,49 +73,100 @@ public class JwtTokenProvider {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationInMs);
 
+        List<String> roles = userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
+
         return Jwts.builder()
                 .setSubject(Long.toString(userDetails.getIdUsuario())) // ID del Usuario como Subject
                 .claim("email", userDetails.getUsername()) // Email como Claim
-                .claim("roles", userDetails.getAuthorities()) // Roles como Claim
-                .setIssuedAt(new Date())
+                .claim("roles", roles) // Roles como Claim (lista de cadenas "ROLE_...")
+                .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
 
-    // Obtiene el ID del usuario del token
-    public Long getUserIdFromJWT(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * Verifica la firma y la expiración del token una sola vez y devuelve sus claims tipados.
+     * Devuelve vacío si el token no es válido.
+     */
+    public Optional<JwtClaims> verificarToken(String authToken) {
+        if (authToken == null || authToken.isBlank()) {
+            return Optional.empty();
+        }
 
-        return Long.parseLong(claims.getSubject());
-    }
+        String digest = null;
+        if (cacheVerificadosHabilitada) {
+            digest = calcularDigest(authToken);
+            Optional<JwtClaims> verificado = cacheTokensVerificados.obtener(digest);
+            if (verificado.isPresent() && !verificado.get().expirado(System.currentTimeMillis())) {
+                return verificado;
+            }
+        }
 
-    // Valida el token
-    public boolean validateToken(String authToken) {
         try {
-            Jwts.parserBuilder()
-            .setSigningKey(getSigningKey())
-            .build().parseClaimsJws(authToken);
-            
-            System.out.println("JWT VALIDATION: Token válido ✔");
-            return true;
+            Claims claims = jwtParser.parseClaimsJws(authToken).getBody();
+            if (claims.getExpiration() == null) {
+                // Firmado con nuestra clave pero sin 'exp': no se acepta un token que no caduca
+                logMuestreado.warn("jwt.sin-expiracion", "JWT sin fecha de expiración (subject {})", claims.getSubject());
+                return Optional.empty();
+            }
+            JwtClaims jwtClaims = new JwtClaims(
+                    Long.parseLong(claims.getSubject()),
+                    claims.get("email", String.class),
+                    extraerRoles(claims),
+                    claims.getExpiration().getTime());
+
+            if (digest != null) {
+                cacheTokensVerificados.poner(digest, jwtClaims);
+            }
+            return Optional.of(jwtClaims);
         } catch (io.jsonwebtoken.security.SecurityException | MalformedJwtException ex) {
-            // Log: Token JWT inválido
-             System.out.println("JWT ERROR: Firma inválida o token corrupto ❌ → " + ex.getMessage());
+            logMuestreado.warn("jwt.invalido", "JWT con firma inválida o corrupto: {}", ex.getMessage());
         } catch (ExpiredJwtException ex) {
-            // Log: Token JWT expirado
-            System.out.println("JWT ERROR: Token expirado ⏳ → " + ex.getMessage());
+            // Caso normal (el cliente debe volver a iniciar sesión): no merece un warning
+            log.debug("JWT expirado: {}", ex.getMessage());
         } catch (UnsupportedJwtException ex) {
-            // Log: Token JWT no soportado
-             System.out.println("JWT ERROR: Token no soportado 🚫 → " + ex.getMessage());
+            logMuestreado.warn("jwt.no-soportado", "JWT no soportado: {}", ex.getMessage());
         } catch (IllegalArgumentException ex) {
-            // Log: Cadena de claims JWT vacía
-            System.out.println("JWT ERROR: Token vacío o cadena inválida ⚠️ → " + ex.getMessage());
+            // Cadena de claims vacía o subject no numérico (NumberFormatException)
+            logMuestreado.warn("jwt.vacio", "JWT vacío o con claims inválidos: {}", ex.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    // Obtiene el ID del usuario del token
+    public Long getUserIdFromJWT(String token) {
+        return verificarToken(token)
+                .map(JwtClaims::idUsuario)
+                .orElseThrow(() -> new IllegalArgumentException("Token JWT no válido."));
+    }
+
+    // Valida el token
+    public boolean validateToken(String authToken) {
+        return verificarToken(authToken).isPresent();
+    }
+
+    // Acepta tanto la lista de cadenas actual como el formato antiguo [{"authority": "ROLE_X"}]
+    private List<String> extraerRoles(Claims claims) {
+        Object roles = claims.get("roles");
+        if (!(roles instanceof List<?> lista)) {
+            return Collections.emptyList();
+        }
+        return lista.stream()
+                .map(rol -> rol instanceof Map<?, ?> mapa ? mapa.get("authority") : rol)
+                .filter(rol -> rol != null)
+                .map(Object::toString)
+                .toList();
+    }
+
+    private String calcularDigest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible en la JVM.", e);
         }
-        return false;
     }
 }
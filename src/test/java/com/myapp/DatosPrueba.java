@@ -0,0 +1,127 @@
+package com.myapp;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.myapp.models.Categoria;
+import com.myapp.models.DetallePedido;
+import com.myapp.models.Direccion;
+import com.myapp.models.EstadoPedidoTipo;
+import com.myapp.models.MetodoPago;
+import com.myapp.models.Pedido;
+import com.myapp.models.Producto;
+import com.myapp.models.Usuario;
+import com.myapp.repositories.CategoriaRepository;
+import com.myapp.repositories.DireccionRepository;
+import com.myapp.repositories.ProductoRepository;
+import com.myapp.repositories.UsuarioRepository;
+
+/**
+ * Alta de datos para las pruebas de integración. Cada llamada crea filas nuevas con nombres únicos,
+ * así las pruebas comparten la BD en memoria sin pisarse. Los estados de pedido y el método de pago 1
+ * vienen de data.sql.
+ */
+@TestComponent
+public class DatosPrueba {
+
+    public static final long ID_METODO_PAGO = 1L;
+
+    private final CategoriaRepository categoriaRepository;
+    private final ProductoRepository productoRepository;
+    private final UsuarioRepository usuarioRepository;
+    private final DireccionRepository direccionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ThreadPoolTaskExecutor ejecutorBusqueda;
+
+    public DatosPrueba(CategoriaRepository categoriaRepository, ProductoRepository productoRepository,
+            UsuarioRepository usuarioRepository, DireccionRepository direccionRepository, JdbcTemplate jdbcTemplate,
+            @Qualifier("ejecutorBusqueda") ThreadPoolTaskExecutor ejecutorBusqueda) {
+        this.categoriaRepository = categoriaRepository;
+        this.productoRepository = productoRepository;
+        this.usuarioRepository = usuarioRepository;
+        this.direccionRepository = direccionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.ejecutorBusqueda = ejecutorBusqueda;
+    }
+
+    public Categoria categoria() {
+        Categoria categoria = new Categoria();
+        categoria.setNombreCategoria("Categoría " + unico());
+        return categoriaRepository.save(categoria);
+    }
+
+    public Producto producto(Categoria categoria, int stock) {
+        String sufijo = unico();
+        return productoRepository.save(new Producto("SKU-" + sufijo, "Producto " + sufijo, null,
+            new BigDecimal("1000.00"), stock, null, null, null, true, categoria));
+    }
+
+    public Usuario usuario() {
+        Usuario usuario = new Usuario();
+        usuario.setNombre("Cliente");
+        usuario.setApellidos("Pruebas");
+        usuario.setEmail(unico() + "@pruebas.com");
+        usuario.setPassword("x");
+        return usuarioRepository.save(usuario);
+    }
+
+    public Direccion direccion(Usuario usuario) {
+        Direccion direccion = new Direccion();
+        direccion.setUsuario(usuario);
+        direccion.setNombreDestinatario("Cliente Pruebas");
+        direccion.setCallePrincipal("Calle 1");
+        direccion.setCiudad("Bogotá");
+        direccion.setEstado("Cundinamarca");
+        direccion.setCodigoPostal("110111");
+        direccion.setPais("Colombia");
+        return direccionRepository.save(direccion);
+    }
+
+    // Petición de pedido como la que llega al controlador: solo IDs de producto, dirección y método de pago
+    public Pedido peticionPedido(Direccion direccion, List<Producto> productos, int cantidad) {
+        Pedido pedido = new Pedido();
+        pedido.setDireccionEnvio(direccion);
+        MetodoPago metodoPago = new MetodoPago();
+        metodoPago.setIdMetodoPago(ID_METODO_PAGO);
+        pedido.setMetodoPago(metodoPago);
+        for (Producto producto : productos) {
+            Producto referencia = new Producto();
+            referencia.setIdProducto(producto.getIdProducto());
+            DetallePedido detalle = new DetallePedido();
+            detalle.setProducto(referencia);
+            detalle.setCantidad(cantidad);
+            pedido.getDetalles().add(detalle);
+        }
+        return pedido;
+    }
+
+    public void fijarEstadoPedido(Long idPedido, EstadoPedidoTipo estado) {
+        jdbcTemplate.update("UPDATE pedidos SET id_estado_pedido = ? WHERE id_pedido = ?", estado.getId(), idPedido);
+    }
+
+    public int stock(Long idProducto) {
+        return jdbcTemplate.queryForObject("SELECT cantidad_stock FROM productos WHERE id_producto = ?", Integer.class, idProducto);
+    }
+
+    /**
+     * Espera a que terminen las actualizaciones de los índices de búsqueda que lanzan los cambios del catálogo
+     * (van en otro hilo y sus consultas se sumarían a las estadísticas de Hibernate de la prueba).
+     */
+    public void esperarIndicesBusqueda() throws InterruptedException {
+        long limite = System.currentTimeMillis() + 10_000;
+        while ((ejecutorBusqueda.getActiveCount() > 0 || ejecutorBusqueda.getThreadPoolExecutor().getQueue().size() > 0)
+                && System.currentTimeMillis() < limite) {
+            Thread.sleep(20);
+        }
+    }
+
+    private static String unico() {
+        return UUID.randomUUID().toString();
+    }
+}
@@ -0,0 +1,75 @@
+package com.myapp.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.myapp.DatosPrueba;
+import com.myapp.models.Categoria;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * GET condicional del catálogo: la versión agregada sale de la caché (sin consultas de agregados en peticiones
+ * seguidas) y el ETag solo depende de los datos, así que se repite igual y permite responder 304.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(DatosPrueba.class)
+class ProductoControllerTest {
+
+    private static final String URL = "/api/productos?orden=PRECIO_ASC&tamano=5";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private DatosPrueba datos;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics estadisticas;
+
+    @BeforeEach
+    void crearDatos() throws InterruptedException {
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Categoria categoria = datos.categoria();
+        datos.producto(categoria, 3);
+        datos.producto(categoria, 0);
+        datos.esperarIndicesBusqueda();
+    }
+
+    @Test
+    void peticionesSeguidasNoRepitenLasConsultasDeVersion() throws Exception {
+        String etag = mockMvc.perform(get(URL)).andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        estadisticas.clear();
+        String segundo = mockMvc.perform(get(URL)).andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get(URL)).andExpect(status().isOk());
+
+        // Versión de productos, versión de categorías y página: todo desde la caché
+        assertThat(estadisticas.getPrepareStatementCount()).isZero();
+        assertThat(segundo).isEqualTo(etag);
+    }
+
+    @Test
+    void etagRepetidoRespondeNoModificado() throws Exception {
+        String etag = mockMvc.perform(get(URL)).andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertThat(etag).matches("\"c-[0-9-]+\"");
+        mockMvc.perform(get(URL).header(HttpHeaders.IF_NONE_MATCH, etag)).andExpect(status().isNotModified());
+    }
+}
@@ -0,0 +1,119 @@
+package com.myapp.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.DTOs.AjustePrecioStockDTO;
+import com.DTOs.AjusteRechazadoDTO;
+import com.DTOs.ResultadoActualizacionMasivaDTO;
+import com.myapp.DatosPrueba;
+import com.myapp.models.Categoria;
+import com.myapp.models.Producto;
+
+/**
+ * Actualización masiva de precio y stock: un ajuste que dejaría valores negativos o el stock por debajo de lo
+ * reservado en carritos se rechaza solo, y los ajustes repetidos de un mismo producto se aplican en el orden de la petición, cada uno sobre el resultado del anterior.
+ */
+@SpringBootTest
+@Import(DatosPrueba.class)
+class ActualizacionMasivaProductosServiceTest {
+
+    @Autowired
+    private ActualizacionMasivaProductosService actualizacionMasivaProductosService;
+    @Autowired
+    private DatosPrueba datos;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Producto primero;
+    private Producto segundo;
+
+    @BeforeEach
+    void crearDatos() {
+        Categoria categoria = datos.categoria();
+        primero = datos.producto(categoria, 5);
+        segundo = datos.producto(categoria, 5);
+    }
+
+    @Test
+    void variacionesQueDejarianValoresNegativosSeRechazanSinAfectarALasDemas() {
+        ResultadoActualizacionMasivaDTO resultado = actualizacionMasivaProductosService.actualizar(List.of(
+            porId(primero.getIdProducto(), null, -10),
+            porId(segundo.getIdProducto(), null, -3),
+            porId(primero.getIdProducto(), new BigDecimal("-2000"), null)));
+
+        assertThat(resultado.getAplicados()).isEqualTo(1);
+        assertThat(resultado.getRechazados()).isEqualTo(2);
+        assertThat(resultado.getRechazos()).extracting(AjusteRechazadoDTO::indice).containsExactly(0, 2);
+        assertThat(resultado.getRechazos()).allSatisfy(rechazo -> assertThat(rechazo.mensaje()).contains("negativo"));
+        assertThat(datos.stock(primero.getIdProducto())).isEqualTo(5);
+        assertThat(precio(primero)).isEqualByComparingTo("1000.00");
+        assertThat(datos.stock(segundo.getIdProducto())).isEqualTo(2);
+    }
+
+    @Test
+    void skuRepetidoRecibeLosAjustesEnOrden() {
+        ResultadoActualizacionMasivaDTO resultado = actualizacionMasivaProductosService.actualizar(List.of(
+            porSku(primero.getSku(), 5),
+            porSku(primero.getSku(), -8),
+            // Sobre el stock que dejó el anterior (2), no sobre el inicial
+            porSku(primero.getSku(), -8),
+            porId(primero.getIdProducto(), new BigDecimal("250.50"), null)));
+
+        assertThat(resultado.getAplicados()).isEqualTo(3);
+        assertThat(resultado.getRechazos()).extracting(AjusteRechazadoDTO::indice).containsExactly(2);
+        assertThat(resultado.getLotes()).isEqualTo(1);
+        assertThat(datos.stock(primero.getIdProducto())).isEqualTo(2);
+        assertThat(precio(primero)).isEqualByComparingTo("1250.50");
+    }
+
+    @Test
+    void stockPorDebajoDeLoReservadoEnCarritosSeRechaza() {
+        // 3 de las 5 unidades apartadas en carritos
+        jdbcTemplate.update("UPDATE productos SET cantidad_reservada = 3 WHERE id_producto = ?", primero.getIdProducto());
+        AjustePrecioStockDTO fijo = new AjustePrecioStockDTO();
+        fijo.setIdProducto(primero.getIdProducto());
+        fijo.setCantidadStock(2);
+
+        ResultadoActualizacionMasivaDTO resultado = actualizacionMasivaProductosService.actualizar(List.of(
+            porId(primero.getIdProducto(), null, -3),
+            fijo,
+            porId(primero.getIdProducto(), null, -2)));
+
+        assertThat(resultado.getRechazos()).extracting(AjusteRechazadoDTO::indice).containsExactly(0, 1);
+        assertThat(resultado.getRechazos()).allSatisfy(rechazo -> assertThat(rechazo.mensaje()).contains("reservadas"));
+        // Queda exactamente lo reservado; las reservas no se tocan
+        assertThat(datos.stock(primero.getIdProducto())).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForObject("SELECT cantidad_reservada FROM productos WHERE id_producto = ?",
+            Integer.class, primero.getIdProducto())).isEqualTo(3);
+    }
+
+    private BigDecimal precio(Producto producto) {
+        return jdbcTemplate.queryForObject("SELECT precio FROM productos WHERE id_producto = ?", BigDecimal.class,
+            producto.getIdProducto());
+    }
+
+    private static AjustePrecioStockDTO porId(Long idProducto, BigDecimal variacionPrecio, Integer variacionStock) {
+        AjustePrecioStockDTO ajuste = new AjustePrecioStockDTO();
+        ajuste.setIdProducto(idProducto);
+        ajuste.setVariacionPrecio(variacionPrecio);
+        ajuste.setVariacionStock(variacionStock);
+        return ajuste;
+    }
+
+    private static AjustePrecioStockDTO porSku(String sku, int variacionStock) {
+        AjustePrecioStockDTO ajuste = new AjustePrecioStockDTO();
+        ajuste.setSku(sku);
+        ajuste.setVariacionStock(variacionStock);
+        return ajuste;
+    }
+}
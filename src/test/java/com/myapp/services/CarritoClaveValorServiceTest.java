@@ -0,0 +1,77 @@
+package com.myapp.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import com.DTOs.CheckoutDTO;
+import com.DTOs.ReciboPedidoDTO;
+import com.myapp.DatosPrueba;
+import com.myapp.models.Producto;
+import com.myapp.models.Usuario;
+import com.myapp.util.clavevalor.ClienteClaveValorEnMemoria;
+
+/**
+ * Almacén de carritos clave-valor: un incremento rechazado por falta de stock no deja la clave sin expiración,
+ * y el checkout vuelca el hash a las tablas dentro de su propia transacción.
+ */
+@SpringBootTest(properties = "carrito.almacen=clave-valor")
+@Import(DatosPrueba.class)
+class CarritoClaveValorServiceTest {
+
+    @Autowired
+    private CarritoClaveValorService carritoService;
+    @Autowired
+    private PedidoService pedidoService;
+    @Autowired
+    private ClienteClaveValorEnMemoria clienteClaveValor;
+    @Autowired
+    private DatosPrueba datos;
+
+    @Test
+    void sinStockLaClaveCompensadaConservaElTtl() {
+        Usuario usuario = datos.usuario();
+        Producto producto = datos.producto(datos.categoria(), 2);
+        String clave = "carrito:" + usuario.getIdUsuario();
+
+        assertThatThrownBy(() -> carritoService.agregarOActualizarItem(usuario.getIdUsuario(), producto.getIdProducto(), 5))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("Solo hay 2 unidades");
+
+        assertThat(clienteClaveValor.ttl(clave)).hasValueSatisfying(ttl -> assertThat(ttl).isPositive().isLessThanOrEqualTo(Duration.ofDays(7)));
+        assertThat(carritoService.obtenerCarrito(usuario.getIdUsuario()).getItems()).isEmpty();
+    }
+
+    @Test
+    void agregarDentroDelStockRenuevaElTtl() {
+        Usuario usuario = datos.usuario();
+        Producto producto = datos.producto(datos.categoria(), 2);
+
+        carritoService.agregarOActualizarItem(usuario.getIdUsuario(), producto.getIdProducto(), 2);
+
+        assertThat(clienteClaveValor.ttl("carrito:" + usuario.getIdUsuario())).isPresent();
+        assertThat(carritoService.obtenerCarrito(usuario.getIdUsuario()).getCantidadUnidades()).isEqualTo(2);
+    }
+
+    @Test
+    void checkoutMaterializaElCarritoEnLaTransaccionDelPedido() {
+        Usuario usuario = datos.usuario();
+        Producto producto = datos.producto(datos.categoria(), 5);
+        carritoService.agregarOActualizarItem(usuario.getIdUsuario(), producto.getIdProducto(), 3);
+        CheckoutDTO checkout = new CheckoutDTO();
+        checkout.setIdDireccionEnvio(datos.direccion(usuario).getIdDireccion());
+        checkout.setIdMetodoPago(DatosPrueba.ID_METODO_PAGO);
+
+        ReciboPedidoDTO recibo = pedidoService.checkout(usuario.getIdUsuario(), checkout);
+
+        assertThat(recibo.getCantidadUnidades()).isEqualTo(3);
+        assertThat(datos.stock(producto.getIdProducto())).isEqualTo(2);
+        assertThat(carritoService.obtenerCarrito(usuario.getIdUsuario()).getItems()).isEmpty();
+    }
+}
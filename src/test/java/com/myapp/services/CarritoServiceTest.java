@@ -0,0 +1,125 @@
+package com.myapp.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.DTOs.CarritoDTO;
+import com.DTOs.OperacionCarritoDTO;
+import com.DTOs.ResultadoLoteCarritoDTO;
+import com.DTOs.ResultadoOperacionCarritoDTO;
+import com.DTOs.TipoOperacionCarrito;
+import com.myapp.DatosPrueba;
+import com.myapp.models.Producto;
+import com.myapp.models.Usuario;
+
+/**
+ * Lectura del carrito: muestra los precios actuales pero no escribe nada (ni totales ni carritos nuevos).
+ * Lote de operaciones: varias operaciones sobre el mismo producto se aplican en orden sobre la misma línea.
+ */
+@SpringBootTest
+@Import(DatosPrueba.class)
+class CarritoServiceTest {
+
+    @Autowired
+    private CarritoService carritoService;
+    @Autowired
+    private DatosPrueba datos;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Usuario usuario;
+    private Producto producto;
+
+    @BeforeEach
+    void crearDatos() {
+        usuario = datos.usuario();
+        producto = datos.producto(datos.categoria(), 10);
+    }
+
+    @Test
+    void obtenerCarritoUsaPreciosActualesSinGuardarlos() {
+        carritoService.agregarOActualizarItem(usuario.getIdUsuario(), producto.getIdProducto(), 2);
+        jdbcTemplate.update("UPDATE productos SET precio = 1500.00 WHERE id_producto = ?", producto.getIdProducto());
+
+        CarritoDTO carrito = carritoService.obtenerCarrito(usuario.getIdUsuario());
+
+        assertThat(carrito.getMontoTotal()).isEqualByComparingTo("3000.00");
+        assertThat(carrito.getCantidadUnidades()).isEqualTo(2);
+        assertThat(carrito.getItems()).singleElement().satisfies(item -> {
+            assertThat(item.getPrecioUnitario()).isEqualByComparingTo("1500.00");
+            assertThat(item.getSubtotal()).isEqualByComparingTo("3000.00");
+        });
+        // Lo guardado sigue siendo lo de la última modificación
+        assertThat(jdbcTemplate.queryForObject("SELECT monto_total FROM carrito_compra WHERE id_usuario = ?",
+            BigDecimal.class, usuario.getIdUsuario())).isEqualByComparingTo("2000.00");
+        assertThat(jdbcTemplate.queryForObject("SELECT precio_unitario FROM items_carrito WHERE id_carrito = ?",
+            BigDecimal.class, carrito.getIdCarrito())).isEqualByComparingTo("1000.00");
+    }
+
+    @Test
+    void obtenerCarritoSinCarritoNoLoCrea() {
+        CarritoDTO carrito = carritoService.obtenerCarrito(usuario.getIdUsuario());
+
+        assertThat(carrito.getIdCarrito()).isNull();
+        assertThat(carrito.getItems()).isEmpty();
+        assertThat(carrito.getMontoTotal()).isEqualByComparingTo(BigDecimal.ZERO);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM carrito_compra WHERE id_usuario = ?",
+            Integer.class, usuario.getIdUsuario())).isZero();
+    }
+
+    @Test
+    void eliminarYVolverAAgregarEnElMismoLoteReutilizaLaLinea() {
+        carritoService.agregarOActualizarItem(usuario.getIdUsuario(), producto.getIdProducto(), 2);
+
+        ResultadoLoteCarritoDTO resultado = carritoService.aplicarOperaciones(usuario.getIdUsuario(), List.of(
+            operacion(TipoOperacionCarrito.ELIMINAR, null),
+            operacion(TipoOperacionCarrito.AGREGAR, 3),
+            operacion(TipoOperacionCarrito.ELIMINAR, null),
+            operacion(TipoOperacionCarrito.AGREGAR, 4)));
+
+        assertThat(resultado.getResultados()).allSatisfy(r -> assertThat(r.isExito()).isTrue());
+        assertThat(resultado.getResultados()).extracting(ResultadoOperacionCarritoDTO::getItem)
+            .satisfies(items -> {
+                assertThat(items.get(0)).isNull();
+                assertThat(items.get(1).getCantidad()).isEqualTo(3);
+                assertThat(items.get(3).getCantidad()).isEqualTo(4);
+            });
+        assertThat(resultado.getCantidadUnidades()).isEqualTo(4);
+        assertThat(resultado.getMontoTotal()).isEqualByComparingTo("4000.00");
+        assertThat(jdbcTemplate.queryForObject("SELECT cantidad FROM items_carrito WHERE id_carrito = ?",
+            Integer.class, resultado.getIdCarrito())).isEqualTo(4);
+        assertThat(jdbcTemplate.queryForObject("SELECT cantidad FROM reservas_stock WHERE id_producto = ?",
+            Integer.class, producto.getIdProducto())).isEqualTo(4);
+    }
+
+    @Test
+    void agregarYEliminarEnElMismoLoteNoDejaLinea() {
+        ResultadoLoteCarritoDTO resultado = carritoService.aplicarOperaciones(usuario.getIdUsuario(), List.of(
+            operacion(TipoOperacionCarrito.AGREGAR, 3),
+            operacion(TipoOperacionCarrito.ELIMINAR, null)));
+
+        assertThat(resultado.getResultados()).allSatisfy(r -> assertThat(r.isExito()).isTrue());
+        assertThat(resultado.getCantidadUnidades()).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM items_carrito WHERE id_carrito = ?",
+            Integer.class, resultado.getIdCarrito())).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM reservas_stock WHERE id_producto = ?",
+            Integer.class, producto.getIdProducto())).isZero();
+    }
+
+    private OperacionCarritoDTO operacion(TipoOperacionCarrito tipo, Integer cantidad) {
+        OperacionCarritoDTO operacion = new OperacionCarritoDTO();
+        operacion.setTipo(tipo);
+        operacion.setIdProducto(producto.getIdProducto());
+        operacion.setCantidad(cantidad);
+        return operacion;
+    }
+}
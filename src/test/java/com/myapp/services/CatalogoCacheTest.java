@@ -0,0 +1,109 @@
+package com.myapp.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.DTOs.FiltroCatalogo;
+import com.DTOs.OrdenCatalogo;
+import com.DTOs.PaginaCatalogoDTO;
+import com.DTOs.ProductoResumenDTO;
+import com.DTOs.VersionCatalogoDTO;
+import com.myapp.models.Categoria;
+import com.myapp.models.Producto;
+import com.myapp.util.cache.TtlCache;
+import com.myapp.util.eventos.CatalogoModificadoEvent;
+import com.myapp.util.eventos.StockReservadoModificadoEvent;
+
+/**
+ * Invalidación de la caché del catálogo: un cambio de lo apartado en carritos solo tira las páginas que muestran
+ * esos productos o que filtran por disponibilidad. Los productos se entregan como copias de la entrada cacheada.
+ */
+class CatalogoCacheTest {
+
+    private static final FiltroCatalogo CATEGORIA_1 = filtro(1, false);
+    private static final FiltroCatalogo CATEGORIA_2 = filtro(2, false);
+    private static final FiltroCatalogo DISPONIBLES_CATEGORIA_2 = filtro(2, true);
+
+    private TtlCache<Long, Producto> cacheProductos;
+    private TtlCache<FiltroCatalogo, PaginaCatalogoDTO> cachePaginas;
+    private TtlCache<String, VersionCatalogoDTO> cacheVersion;
+    private CatalogoCache catalogoCache;
+
+    @BeforeEach
+    void preparar() {
+        cacheProductos = new TtlCache<>("productosPrueba", 100, Duration.ofMinutes(5));
+        cachePaginas = new TtlCache<>("paginasPrueba", 100, Duration.ofMinutes(5));
+        cacheVersion = new TtlCache<>("versionPrueba", 10, Duration.ofMinutes(5));
+        catalogoCache = new CatalogoCache(cacheProductos, cachePaginas, cacheVersion);
+
+        cachePaginas.poner(CATEGORIA_1, pagina(10L, 11L));
+        cachePaginas.poner(CATEGORIA_2, pagina(20L));
+        cachePaginas.poner(DISPONIBLES_CATEGORIA_2, pagina(20L));
+        cacheProductos.poner(10L, new Producto());
+        cacheProductos.poner(20L, new Producto());
+        cacheVersion.poner("catalogo", new VersionCatalogoDTO(3L, null, null));
+    }
+
+    @Test
+    void stockReservadoSoloInvalidaLasPaginasAfectadas() {
+        catalogoCache.alModificarStockReservado(StockReservadoModificadoEvent.de(Set.of(10L)));
+
+        assertThat(cachePaginas.obtener(CATEGORIA_1)).isEmpty();
+        assertThat(cachePaginas.obtener(DISPONIBLES_CATEGORIA_2)).isEmpty();
+        assertThat(cachePaginas.obtener(CATEGORIA_2)).isPresent();
+        assertThat(cacheProductos.obtener(10L)).isEmpty();
+        assertThat(cacheProductos.obtener(20L)).isPresent();
+        assertThat(cacheVersion.tamano()).isZero();
+    }
+
+    @Test
+    void cambioDeCatalogoInvalidaLasPaginasDeSusCategorias() {
+        catalogoCache.alModificarCatalogo(CatalogoModificadoEvent.de(Set.of(20L), Set.of(2)));
+
+        assertThat(cachePaginas.obtener(CATEGORIA_1)).isPresent();
+        assertThat(cachePaginas.obtener(CATEGORIA_2)).isEmpty();
+        assertThat(cachePaginas.obtener(DISPONIBLES_CATEGORIA_2)).isEmpty();
+    }
+
+    @Test
+    void cadaLectorRecibeSuCopiaDelProducto() {
+        Categoria categoria = new Categoria("Ropa", null);
+        categoria.setIdCategoria(1);
+        Producto cacheado = new Producto("SKU-30", "Producto 30", null, new BigDecimal("1000.00"), 5, null, null, null,
+            true, categoria);
+        cacheado.setIdProducto(30L);
+        cacheProductos.poner(30L, cacheado);
+
+        Producto leido = catalogoCache.obtenerProducto(30L, id -> Optional.empty()).orElseThrow();
+        leido.setPrecio(BigDecimal.ONE);
+        leido.setCantidadStock(0);
+        leido.getCategoria().setNombreCategoria("Otra");
+
+        Producto otraLectura = catalogoCache.obtenerProducto(30L, id -> Optional.empty()).orElseThrow();
+        assertThat(otraLectura).isNotSameAs(leido);
+        assertThat(otraLectura.getIdProducto()).isEqualTo(30L);
+        assertThat(otraLectura.getPrecio()).isEqualByComparingTo("1000.00");
+        assertThat(otraLectura.getCantidadDisponible()).isEqualTo(5);
+        assertThat(otraLectura.getCategoria().getNombreCategoria()).isEqualTo("Ropa");
+    }
+
+    private static FiltroCatalogo filtro(Integer idCategoria, boolean soloDisponibles) {
+        return new FiltroCatalogo(idCategoria, null, null, soloDisponibles, OrdenCatalogo.ID, null, null, 20);
+    }
+
+    private static PaginaCatalogoDTO pagina(Long... idsProducto) {
+        List<ProductoResumenDTO> productos = Arrays.stream(idsProducto)
+            .map(id -> new ProductoResumenDTO(id, "SKU-" + id, "Producto " + id, new BigDecimal("1000.00"), 5, null, null, null, null))
+            .toList();
+        return new PaginaCatalogoDTO(productos, false, null, null);
+    }
+}
@@ -0,0 +1,59 @@
+package com.myapp.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.DTOs.VersionCatalogoDTO;
+import com.myapp.DatosPrueba;
+import com.myapp.models.Categoria;
+
+/**
+ * Versión de las categorías para ETag / Last-Modified del catálogo: nunca sin fecha y cambia al renombrar.
+ */
+@SpringBootTest
+@Import(DatosPrueba.class)
+class CategoriaServiceTest {
+
+    @Autowired
+    private CategoriaService categoriaService;
+    @Autowired
+    private ProductoService productoService;
+    @Autowired
+    private DatosPrueba datos;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void categoriasSinFechasSeCompletanAlArrancar() {
+        Categoria categoria = datos.categoria();
+        jdbcTemplate.update("UPDATE categorias SET fecha_creacion = NULL, fecha_actualizacion = NULL WHERE id_categoria = ?",
+            categoria.getIdCategoria());
+
+        categoriaService.completarFechasVersion();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM categorias WHERE fecha_creacion IS NULL OR fecha_actualizacion IS NULL",
+            Integer.class)).isZero();
+        VersionCatalogoDTO version = categoriaService.obtenerVersionCategorias();
+        assertThat(version.ultimaCreacion()).isNotNull();
+        assertThat(version.ultimaModificacion()).isNotNull();
+    }
+
+    @Test
+    void renombrarUnaCategoriaCambiaLaVersionDelCatalogo() throws InterruptedException {
+        Categoria categoria = datos.categoria();
+        datos.producto(categoria, 5);
+        VersionCatalogoDTO antes = productoService.obtenerVersionCategorias();
+
+        Thread.sleep(5);
+        categoriaService.actualizarCategoria(categoria.getIdCategoria(),
+            new Categoria(categoria.getNombreCategoria() + " renombrada", null));
+
+        VersionCatalogoDTO despues = productoService.obtenerVersionCategorias();
+        assertThat(despues.ultimaActualizacion()).isAfter(antes.ultimaActualizacion());
+    }
+}
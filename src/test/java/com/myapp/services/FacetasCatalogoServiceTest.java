@@ -0,0 +1,76 @@
+package com.myapp.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import com.DTOs.FiltroFacetas;
+import com.myapp.DatosPrueba;
+import com.myapp.models.Categoria;
+import com.myapp.models.Producto;
+import com.myapp.models.Usuario;
+
+/**
+ * Las facetas siguen al disponible (stock menos lo apartado): apartar y liberar en un carrito cambia la faceta
+ * de disponibilidad sin que haya que editar el producto.
+ */
+@SpringBootTest
+@Import(DatosPrueba.class)
+class FacetasCatalogoServiceTest {
+
+    @Autowired
+    private FacetasCatalogoService facetasCatalogoService;
+    @Autowired
+    private ProductoService productoService;
+    @Autowired
+    private CarritoService carritoService;
+    @Autowired
+    private DatosPrueba datos;
+
+    private Categoria categoria;
+    private Producto producto;
+
+    @BeforeEach
+    void crearDatos() throws InterruptedException {
+        long limite = System.currentTimeMillis() + 10_000;
+        while (!facetasCatalogoService.isListo() && System.currentTimeMillis() < limite) {
+            Thread.sleep(20);
+        }
+        categoria = datos.categoria();
+        String sufijo = UUID.randomUUID().toString();
+        // Por el servicio (no el repositorio) para que el alta llegue a las facetas
+        producto = productoService.crearProducto(new Producto("SKU-" + sufijo, "Producto " + sufijo, null,
+            new BigDecimal("1000.00"), 2, null, null, null, true, categoria));
+        datos.esperarIndicesBusqueda();
+    }
+
+    @Test
+    void apartarYLiberarEnElCarritoActualizaLaDisponibilidad() throws InterruptedException {
+        Usuario usuario = datos.usuario();
+        assertThat(total(true)).isEqualTo(1);
+
+        carritoService.agregarOActualizarItem(usuario.getIdUsuario(), producto.getIdProducto(), 2);
+        datos.esperarIndicesBusqueda();
+
+        assertThat(total(true)).isZero();
+        assertThat(total(false)).isEqualTo(1);
+
+        carritoService.limpiarCarrito(usuario.getIdUsuario());
+        datos.esperarIndicesBusqueda();
+
+        assertThat(total(true)).isEqualTo(1);
+    }
+
+    private int total(Boolean disponible) {
+        return facetasCatalogoService.consultar(
+            new FiltroFacetas(Set.of(categoria.getIdCategoria()), Set.of(), disponible, Set.of(), null, 10)).total();
+    }
+}
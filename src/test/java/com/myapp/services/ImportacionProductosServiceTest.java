@@ -0,0 +1,109 @@
+package com.myapp.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.DTOs.ErrorFilaImportacionDTO;
+import com.DTOs.EstadoImportacionDTO;
+import com.DTOs.FormatoImportacion;
+import com.myapp.DatosPrueba;
+import com.myapp.models.Categoria;
+import com.myapp.models.Producto;
+
+/**
+ * Importación masiva: si la BD rechaza un lote entero, se repite fila a fila y solo la fila culpable queda con error;
+ * una actualización que dejaría el stock por debajo de lo reservado en carritos se rechaza.
+ */
+@SpringBootTest
+@Import(DatosPrueba.class)
+class ImportacionProductosServiceTest {
+
+    // Restricción solo de la prueba: hace que la BD rechace una fila que la validación da por buena
+    private static final String NOMBRE_RECHAZADO = "Rechazado por la BD";
+
+    @Autowired
+    private ImportacionProductosService importacionProductosService;
+    @Autowired
+    private DatosPrueba datos;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Categoria categoria;
+    private Producto existente;
+
+    @BeforeEach
+    void crearDatos() {
+        categoria = datos.categoria();
+        existente = datos.producto(categoria, 10);
+        jdbcTemplate.execute("ALTER TABLE productos ADD CONSTRAINT chk_prueba_importacion CHECK (nombre_producto <> '"
+            + NOMBRE_RECHAZADO + "')");
+    }
+
+    @AfterEach
+    void quitarRestriccion() {
+        jdbcTemplate.execute("ALTER TABLE productos DROP CONSTRAINT chk_prueba_importacion");
+    }
+
+    @Test
+    void loteRechazadoSeRepiteFilaAFila() throws Exception {
+        String prefijo = UUID.randomUUID().toString();
+        String csv = "sku;nombre_producto;precio;cantidad_stock;id_categoria\n"
+            + prefijo + "-1;Alta válida;1000;5;" + categoria.getIdCategoria() + "\n"
+            + prefijo + "-2;" + NOMBRE_RECHAZADO + ";1000;5;" + categoria.getIdCategoria() + "\n"
+            + existente.getSku() + ";;2500.00;;\n"
+            + prefijo + "-3;Otra alta;3000;1;" + categoria.getIdCategoria() + "\n";
+
+        EstadoImportacionDTO estado = esperarFin(importacionProductosService.iniciarImportacion(FormatoImportacion.CSV,
+            new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8))).idTrabajo());
+
+        assertThat(estado.estado()).isEqualTo(EstadoImportacionDTO.Estado.COMPLETADA);
+        assertThat(estado.filasLeidas()).isEqualTo(4);
+        assertThat(estado.insertados()).isEqualTo(2);
+        assertThat(estado.actualizados()).isEqualTo(1);
+        assertThat(estado.filasConError()).isEqualTo(1);
+        assertThat(estado.errores()).singleElement().extracting(ErrorFilaImportacionDTO::sku).isEqualTo(prefijo + "-2");
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM productos WHERE sku LIKE ?", Integer.class, prefijo + "%"))
+            .isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("SELECT precio FROM productos WHERE id_producto = ?", BigDecimal.class,
+            existente.getIdProducto())).isEqualByComparingTo("2500.00");
+    }
+
+    @Test
+    void stockMenorQueLoReservadoNoSeImporta() throws Exception {
+        jdbcTemplate.update("UPDATE productos SET cantidad_reservada = 4 WHERE id_producto = ?", existente.getIdProducto());
+        String csv = "sku;precio;cantidad_stock\n" + existente.getSku() + ";2500.00;3\n";
+
+        EstadoImportacionDTO estado = esperarFin(importacionProductosService.iniciarImportacion(FormatoImportacion.CSV,
+            new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8))).idTrabajo());
+
+        assertThat(estado.actualizados()).isZero();
+        assertThat(estado.errores()).singleElement().extracting(ErrorFilaImportacionDTO::mensaje).asString()
+            .contains("reservadas");
+        assertThat(datos.stock(existente.getIdProducto())).isEqualTo(10);
+        assertThat(jdbcTemplate.queryForObject("SELECT precio FROM productos WHERE id_producto = ?", BigDecimal.class,
+            existente.getIdProducto())).isEqualByComparingTo("1000.00");
+    }
+
+    private EstadoImportacionDTO esperarFin(String idTrabajo) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 10_000;
+        EstadoImportacionDTO estado = importacionProductosService.obtenerEstado(idTrabajo).orElseThrow();
+        while (estado.fin() == null && System.currentTimeMillis() < limite) {
+            Thread.sleep(20);
+            estado = importacionProductosService.obtenerEstado(idTrabajo).orElseThrow();
+        }
+        return estado;
+    }
+}
@@ -0,0 +1,163 @@
+package com.myapp.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.myapp.DatosPrueba;
+import com.myapp.models.EstadoPedidoTipo;
+import com.myapp.models.MetodoPago;
+import com.myapp.models.Pago;
+import com.myapp.models.Pedido;
+import com.myapp.models.Producto;
+import com.myapp.models.Usuario;
+import com.myapp.repositories.PagoRepository;
+
+/**
+ * Conciliación de los pagos que se quedaron en 'Pendiente' sin respuesta de la pasarela, y reembolso
+ * de los cobros de pedidos que se cancelan.
+ */
+@SpringBootTest(properties = "pagos.pasarela.simulada.porcentaje-aprobados=100")
+@Import(DatosPrueba.class)
+class PagoServiceTest {
+
+    @Autowired
+    private PagoService pagoService;
+    @Autowired
+    private PedidoService pedidoService;
+    @Autowired
+    private PasarelaPago pasarelaPago;
+    @Autowired
+    private PagoRepository pagoRepository;
+    @Autowired
+    private DatosPrueba datos;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Usuario usuario;
+    private Long idProducto;
+    private Pedido pedido;
+    private Long idPago;
+
+    @BeforeEach
+    void crearPagoPendiente() {
+        usuario = datos.usuario();
+        Producto producto = datos.producto(datos.categoria(), 10);
+        idProducto = producto.getIdProducto();
+        pedido = pedidoService.crearPedido(usuario.getIdUsuario(),
+            datos.peticionPedido(datos.direccion(usuario), List.of(producto), 1));
+        datos.fijarEstadoPedido(pedido.getIdPedido(), EstadoPedidoTipo.PENDIENTE_PAGO);
+
+        MetodoPago metodoPago = new MetodoPago();
+        metodoPago.setIdMetodoPago(DatosPrueba.ID_METODO_PAGO);
+        Pago pago = new Pago();
+        pago.setPedido(pedido);
+        pago.setMetodoPago(metodoPago);
+        pago.setMonto(pedido.getMontoTotal());
+        pago.setEstado("Pendiente");
+        idPago = pagoRepository.save(pago).getIdPago();
+        // Sin respuesta desde hace más que el tiempo de espera de la pasarela
+        jdbcTemplate.update("UPDATE pagos SET fecha_pago = DATEADD('MINUTE', -10, CURRENT_TIMESTAMP) WHERE id_pago = ?", idPago);
+    }
+
+    @Test
+    void pagoQueNoLlegoALaPasarelaSeRechazaYElPedidoAdmiteOtro() {
+        pagoService.conciliarPendientes(100);
+
+        Pago pago = pagoRepository.findById(idPago).orElseThrow();
+        assertThat(pago.getEstado()).isEqualTo("Rechazado");
+        assertThat(pago.getDatosAdicionales()).contains("no llegó");
+        assertThat(pagoRepository.existsByPedido_IdPedidoAndEstado(pedido.getIdPedido(), "Pendiente")).isFalse();
+        assertThat(estadoPedido()).isEqualTo(EstadoPedidoTipo.PENDIENTE_PAGO.getId());
+    }
+
+    @Test
+    void cobroAprobadoCuyaRespuestaSePerdioSeAplica() {
+        PasarelaPago.Resultado cobro = pasarelaPago.autorizar(idPago, pedido.getIdPedido(), pedido.getMontoTotal(), "tok");
+
+        pagoService.conciliarPendientes(100);
+
+        Pago pago = pagoRepository.findById(idPago).orElseThrow();
+        assertThat(pago.getEstado()).isEqualTo("Aprobado");
+        assertThat(pago.getReferenciaTransaccion()).isEqualTo(cobro.referencia());
+        assertThat(estadoPedido()).isEqualTo(EstadoPedidoTipo.PAGADO.getId());
+    }
+
+    @Test
+    void pagoRecienteSigueEsperandoLaRespuesta() {
+        jdbcTemplate.update("UPDATE pagos SET fecha_pago = CURRENT_TIMESTAMP WHERE id_pago = ?", idPago);
+
+        pagoService.conciliarPendientes(100);
+
+        assertThat(pagoRepository.findById(idPago).orElseThrow().getEstado()).isEqualTo("Pendiente");
+    }
+
+    @Test
+    void elClienteNoCancelaUnPedidoConElPagoEnCurso() {
+        assertThatThrownBy(() -> pedidoService.cancelarPedido(pedido.getIdPedido(), usuario.getIdUsuario()))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("pago en proceso");
+        assertThat(estadoPedido()).isEqualTo(EstadoPedidoTipo.PENDIENTE_PAGO.getId());
+    }
+
+    @Test
+    void elClienteNoCancelaUnPedidoPagado() {
+        pasarelaPago.autorizar(idPago, pedido.getIdPedido(), pedido.getMontoTotal(), "tok");
+        pagoService.conciliarPendientes(100);
+
+        assertThatThrownBy(() -> pedidoService.cancelarPedido(pedido.getIdPedido(), usuario.getIdUsuario()))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("contacte con la tienda");
+        assertThat(estadoPedido()).isEqualTo(EstadoPedidoTipo.PAGADO.getId());
+        assertThat(datos.stock(idProducto)).isEqualTo(9);
+    }
+
+    @Test
+    void pedidoPagadoCanceladoPorLaTiendaSeReembolsa() {
+        pasarelaPago.autorizar(idPago, pedido.getIdPedido(), pedido.getMontoTotal(), "tok");
+        pagoService.conciliarPendientes(100);
+
+        pedidoService.actualizarEstado(pedido.getIdPedido(), EstadoPedidoTipo.CANCELADO.getId());
+
+        assertThat(pagoRepository.findById(idPago).orElseThrow().getEstado()).isEqualTo(Pago.REEMBOLSO_PENDIENTE);
+        assertThat(estadoPagoPedido()).isEqualTo(Pago.REEMBOLSO_PENDIENTE);
+        assertThat(datos.stock(idProducto)).isEqualTo(10);
+
+        pagoService.reembolsarPendientes(100);
+
+        assertThat(pagoRepository.findById(idPago).orElseThrow().getEstado()).isEqualTo(Pago.REEMBOLSADO);
+        assertThat(estadoPagoPedido()).isEqualTo(Pago.REEMBOLSADO);
+        assertThat(pasarelaPago.consultar(idPago)).hasValueSatisfying(cobro -> assertThat(cobro.aprobado()).isFalse());
+    }
+
+    @Test
+    void cobroAprobadoDespuesDeCancelarElPedidoQuedaParaReembolso() {
+        pasarelaPago.autorizar(idPago, pedido.getIdPedido(), pedido.getMontoTotal(), "tok");
+        pedidoService.actualizarEstado(pedido.getIdPedido(), EstadoPedidoTipo.CANCELADO.getId());
+
+        pagoService.conciliarPendientes(100);
+
+        Pago pago = pagoRepository.findById(idPago).orElseThrow();
+        assertThat(pago.getEstado()).isEqualTo(Pago.REEMBOLSO_PENDIENTE);
+        assertThat(pago.getDatosAdicionales()).contains("Cancelado");
+        assertThat(estadoPedido()).isEqualTo(EstadoPedidoTipo.CANCELADO.getId());
+    }
+
+    private String estadoPagoPedido() {
+        return jdbcTemplate.queryForObject("SELECT estado_pago FROM pedidos WHERE id_pedido = ?", String.class,
+            pedido.getIdPedido());
+    }
+
+    private int estadoPedido() {
+        return jdbcTemplate.queryForObject("SELECT id_estado_pedido FROM pedidos WHERE id_pedido = ?", Integer.class,
+            pedido.getIdPedido());
+    }
+}
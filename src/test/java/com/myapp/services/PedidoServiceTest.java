@@ -0,0 +1,123 @@
+package com.myapp.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import com.DTOs.PaginaPedidosDTO;
+import com.DTOs.PedidoResumenDTO;
+import com.myapp.DatosPrueba;
+import com.myapp.models.Categoria;
+import com.myapp.models.Direccion;
+import com.myapp.models.Producto;
+import com.myapp.models.Usuario;
+import com.myapp.repositories.ProductoRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Operaciones de pedidos. El número de consultas (estadísticas de Hibernate) no debe crecer con el número
+ * de pedidos ni de líneas.
+ */
+@SpringBootTest
+@Import(DatosPrueba.class)
+class PedidoServiceTest {
+
+    @Autowired
+    private PedidoService pedidoService;
+    @Autowired
+    private DatosPrueba datos;
+    @Autowired
+    private ProductoRepository productoRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics estadisticas;
+    private Usuario usuario;
+    private Direccion direccion;
+    private List<Producto> productos;
+
+    @BeforeEach
+    void crearDatos() {
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        usuario = datos.usuario();
+        direccion = datos.direccion(usuario);
+        Categoria categoria = datos.categoria();
+        productos = List.of(datos.producto(categoria, 100), datos.producto(categoria, 100), datos.producto(categoria, 100));
+    }
+
+    @Test
+    void historialPaginadoEnDosConsultasPorPagina() throws InterruptedException {
+        for (int i = 0; i < 5; i++) {
+            pedidoService.crearPedido(usuario.getIdUsuario(), datos.peticionPedido(direccion, productos, 1));
+        }
+        datos.esperarIndicesBusqueda();
+
+        estadisticas.clear();
+        PaginaPedidosDTO primera = pedidoService.obtenerMisPedidos(usuario.getIdUsuario(), null, null, 3);
+
+        assertThat(estadisticas.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(primera.getPedidos()).hasSize(3).allSatisfy(pedido -> assertThat(pedido.getDetalles()).hasSize(3));
+        assertThat(primera.isHayMas()).isTrue();
+
+        estadisticas.clear();
+        PaginaPedidosDTO segunda = pedidoService.obtenerMisPedidos(usuario.getIdUsuario(),
+            primera.getSiguienteFecha(), primera.getSiguienteId(), 3);
+
+        assertThat(estadisticas.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(segunda.getPedidos()).hasSize(2);
+        assertThat(segunda.isHayMas()).isFalse();
+        assertThat(segunda.getPedidos()).extracting(PedidoResumenDTO::getIdPedido)
+            .doesNotContainAnyElementsOf(primera.getPedidos().stream().map(PedidoResumenDTO::getIdPedido).toList());
+    }
+
+    @Test
+    void historialSoloDelUsuario() {
+        pedidoService.crearPedido(usuario.getIdUsuario(), datos.peticionPedido(direccion, productos, 1));
+        Usuario otro = datos.usuario();
+
+        assertThat(pedidoService.obtenerMisPedidos(otro.getIdUsuario(), null, null, 10).getPedidos()).isEmpty();
+    }
+
+    @Test
+    void crearPedidoNoHaceConsultasPorLinea() throws InterruptedException {
+        Categoria categoria = datos.categoria();
+        List<Producto> seis = List.of(datos.producto(categoria, 100), datos.producto(categoria, 100),
+            datos.producto(categoria, 100), datos.producto(categoria, 100), datos.producto(categoria, 100),
+            datos.producto(categoria, 100));
+
+        long conTres = sentenciasAlCrear(seis.subList(0, 3));
+        long conSeis = sentenciasAlCrear(seis);
+
+        // Cada línea más solo añade su descuento de stock y el INSERT de su detalle
+        assertThat(conSeis - conTres).isLessThanOrEqualTo(3 * 2);
+    }
+
+    @Test
+    void noSeCreanPedidosDeProductosInactivos() {
+        Producto inactivo = productos.get(0);
+        inactivo.setActivo(false);
+        productoRepository.save(inactivo);
+
+        assertThatThrownBy(() -> pedidoService.crearPedido(usuario.getIdUsuario(), datos.peticionPedido(direccion, productos, 1)))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("ya no está disponible");
+        assertThat(productos).allSatisfy(producto -> assertThat(datos.stock(producto.getIdProducto())).isEqualTo(100));
+    }
+
+    private long sentenciasAlCrear(List<Producto> lineas) throws InterruptedException {
+        datos.esperarIndicesBusqueda();
+        estadisticas.clear();
+        pedidoService.crearPedido(usuario.getIdUsuario(), datos.peticionPedido(direccion, lineas, 1));
+        return estadisticas.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,121 @@
+package com.myapp.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.myapp.models.Categoria;
+import com.myapp.models.Producto;
+import com.myapp.models.Usuario;
+import com.myapp.repositories.CategoriaRepository;
+import com.myapp.repositories.ProductoRepository;
+import com.myapp.repositories.UsuarioRepository;
+
+/**
+ * Las reservas del carrito apartan unidades sin tocar cantidad_stock: un stock fijado a mano
+ * mientras hay reservas no se infla cuando después se liberan o vencen.
+ */
+@SpringBootTest
+class ReservaCarritoServiceTest {
+
+    @Autowired
+    private CarritoService carritoService;
+    @Autowired
+    private ProductoService productoService;
+    @Autowired
+    private ReservaCarritoService reservaCarritoService;
+    @Autowired
+    private ProductoRepository productoRepository;
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long idUsuario;
+    private Long idProducto;
+
+    @BeforeEach
+    void crearDatos() {
+        String sufijo = UUID.randomUUID().toString();
+
+        Categoria categoria = new Categoria();
+        categoria.setNombreCategoria("Reservas " + sufijo);
+        categoria = categoriaRepository.save(categoria);
+
+        Producto producto = new Producto("SKU-" + sufijo, "Producto reservable", null, new BigDecimal("1000.00"), 10,
+            null, null, null, true, categoria);
+        idProducto = productoRepository.save(producto).getIdProducto();
+
+        Usuario usuario = new Usuario();
+        usuario.setNombre("Cliente");
+        usuario.setApellidos("Pruebas");
+        usuario.setEmail(sufijo + "@pruebas.com");
+        usuario.setPassword("x");
+        idUsuario = usuarioRepository.save(usuario).getIdUsuario();
+    }
+
+    @Test
+    void reservarApartaSinDescontarDelStock() {
+        carritoService.agregarOActualizarItem(idUsuario, idProducto, 4);
+
+        assertThat(stock()).isEqualTo(10);
+        assertThat(reservada()).isEqualTo(4);
+        assertThat(productoRepository.findDisponibleByIdProducto(idProducto)).contains(6);
+    }
+
+    @Test
+    void noSeApartaMasDeLoDisponible() {
+        carritoService.agregarOActualizarItem(idUsuario, idProducto, 8);
+
+        assertThatThrownBy(() -> carritoService.agregarOActualizarItem(idUsuario, idProducto, 3))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("Solo hay 10 unidades");
+        assertThat(reservada()).isEqualTo(8);
+    }
+
+    @Test
+    void stockFijadoPorAdminNoSeInflaAlLiberarLaReserva() {
+        carritoService.agregarOActualizarItem(idUsuario, idProducto, 4);
+
+        Producto detalles = new Producto();
+        detalles.setCantidadStock(7);
+        productoService.actualizarProducto(idProducto, detalles);
+        assertThat(reservada()).isEqualTo(4);
+
+        carritoService.limpiarCarrito(idUsuario);
+
+        assertThat(stock()).isEqualTo(7);
+        assertThat(reservada()).isZero();
+    }
+
+    @Test
+    void barridoDeVencidasSoloLiberaLoApartado() {
+        carritoService.agregarOActualizarItem(idUsuario, idProducto, 3);
+        jdbcTemplate.update("UPDATE productos SET cantidad_stock = 5 WHERE id_producto = ?", idProducto);
+        jdbcTemplate.update("UPDATE reservas_stock SET expira_en = DATEADD('MINUTE', -1, CURRENT_TIMESTAMP) WHERE id_producto = ?",
+            idProducto);
+
+        assertThat(reservaCarritoService.barrerVencidas(100)).isEqualTo(1);
+
+        assertThat(stock()).isEqualTo(5);
+        assertThat(reservada()).isZero();
+    }
+
+    private int stock() {
+        return jdbcTemplate.queryForObject("SELECT cantidad_stock FROM productos WHERE id_producto = ?", Integer.class, idProducto);
+    }
+
+    private int reservada() {
+        return jdbcTemplate.queryForObject("SELECT cantidad_reservada FROM productos WHERE id_producto = ?", Integer.class, idProducto);
+    }
+}
@@ -0,0 +1,146 @@
+package com.myapp.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.myapp.DatosPrueba;
+import com.myapp.repositories.ProductoRepository;
+import com.myapp.util.cache.TtlCache;
+
+/**
+ * Compras simultáneas del mismo producto contra la BD: el UPDATE condicional nunca deja el stock en negativo
+ * y, en "flash sale", el contador en memoria termina igual que lo disponible en la BD (también con rollbacks).
+ */
+@SpringBootTest
+@Import(DatosPrueba.class)
+class ReservaStockServiceTest {
+
+    private static final int HILOS = 16;
+    private static final int COMPRAS = 60;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+    @Autowired
+    private DatosPrueba datos;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private ExecutorService ejecutor;
+
+    @BeforeEach
+    void preparar() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        ejecutor = Executors.newFixedThreadPool(HILOS);
+    }
+
+    @AfterEach
+    void cerrar() {
+        ejecutor.shutdownNow();
+    }
+
+    @Test
+    void comprasSimultaneasNoDejanElStockEnNegativo() throws Exception {
+        Long idProducto = datos.producto(datos.categoria(), 10).getIdProducto();
+        ReservaStockService servicio = new ReservaStockService(productoRepository, cacheDePrueba(), Set.of());
+
+        int vendidas = comprarEnParalelo(servicio, idProducto, i -> 1, i -> false);
+
+        assertThat(vendidas).isEqualTo(10);
+        assertThat(datos.stock(idProducto)).isZero();
+    }
+
+    @Test
+    void contadorFlashSaleCoincideConLaBd() throws Exception {
+        Long idProducto = datos.producto(datos.categoria(), 25).getIdProducto();
+        TtlCache<Long, AtomicInteger> contadores = cacheDePrueba();
+        ReservaStockService servicio = new ReservaStockService(productoRepository, contadores, Set.of(idProducto));
+
+        // Compras de 1 y 2 unidades; una de cada tres se deshace después de descontar
+        int vendidas = comprarEnParalelo(servicio, idProducto, i -> 1 + i % 2, i -> i % 3 == 0);
+
+        int stock = datos.stock(idProducto);
+        assertThat(stock).isGreaterThanOrEqualTo(0).isEqualTo(25 - vendidas);
+        assertThat(contadores.obtener(idProducto)).hasValueSatisfying(contador -> assertThat(contador.get()).isEqualTo(stock));
+    }
+
+    @Test
+    void contadorFlashSaleAgotadoQuedaACero() throws Exception {
+        Long idProducto = datos.producto(datos.categoria(), 3).getIdProducto();
+        TtlCache<Long, AtomicInteger> contadores = cacheDePrueba();
+        ReservaStockService servicio = new ReservaStockService(productoRepository, contadores, Set.of(idProducto));
+
+        assertThat(comprarEnParalelo(servicio, idProducto, i -> 1, i -> false)).isEqualTo(3);
+
+        assertThat(contadores.obtener(idProducto)).hasValueSatisfying(contador -> assertThat(contador.get()).isZero());
+        assertThat(datos.stock(idProducto)).isZero();
+    }
+
+    /**
+     * Lanza COMPRAS transacciones a la vez, cada una con su cantidad; las marcadas se deshacen tras descontar.
+     *
+     * @return unidades vendidas (solo las de transacciones confirmadas)
+     */
+    private int comprarEnParalelo(ReservaStockService servicio, Long idProducto,
+            IntUnaryOperator cantidad, IntPredicate deshacer) throws Exception {
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<Integer>> compras = new ArrayList<>();
+        for (int i = 0; i < COMPRAS; i++) {
+            int n = cantidad.applyAsInt(i);
+            boolean rollback = deshacer.test(i);
+            compras.add(ejecutor.submit(() -> {
+                salida.await();
+                return comprar(servicio, idProducto, n, rollback);
+            }));
+        }
+        salida.countDown();
+
+        int vendidas = 0;
+        for (Future<Integer> compra : compras) {
+            vendidas += compra.get(60, TimeUnit.SECONDS);
+        }
+        return vendidas;
+    }
+
+    private int comprar(ReservaStockService servicio, Long idProducto, int cantidad, boolean rollback) {
+        try {
+            return transactionTemplate.execute(estado -> {
+                servicio.reservar(Map.of(idProducto, cantidad));
+                if (rollback) {
+                    estado.setRollbackOnly();
+                    return 0;
+                }
+                return cantidad;
+            });
+        } catch (IllegalStateException sinStock) {
+            return 0;
+        }
+    }
+
+    // Caché propia para leer el contador; el TTL largo evita que se relea de la BD a mitad de la prueba
+    private static TtlCache<Long, AtomicInteger> cacheDePrueba() {
+        return new TtlCache<>("stockFlashPrueba", 10, Duration.ofHours(1));
+    }
+}
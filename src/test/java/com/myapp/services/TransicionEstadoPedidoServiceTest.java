@@ -0,0 +1,158 @@
+package com.myapp.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.DTOs.ResultadoTransicionLoteDTO;
+import com.DTOs.ResultadoTransicionPedidoDTO;
+import com.myapp.DatosPrueba;
+import com.myapp.models.Direccion;
+import com.myapp.models.EstadoPedidoTipo;
+import com.myapp.models.MetodoPago;
+import com.myapp.models.Pago;
+import com.myapp.models.Pedido;
+import com.myapp.models.Producto;
+import com.myapp.models.Usuario;
+import com.myapp.repositories.PagoRepository;
+
+/**
+ * Cambio de estado en lote: pedidos con distintos orígenes en el mismo lote, transiciones no permitidas que no
+ * anulan a las demás y los efectos de cancelar (reponer stock y, si estaba pagado, dejar el cobro para reembolso).
+ */
+@SpringBootTest
+@Import(DatosPrueba.class)
+class TransicionEstadoPedidoServiceTest {
+
+    private static final Long PEDIDO_INEXISTENTE = -1L;
+
+    @Autowired
+    private TransicionEstadoPedidoService transicionEstadoPedidoService;
+    @Autowired
+    private PedidoService pedidoService;
+    @Autowired
+    private PagoRepository pagoRepository;
+    @Autowired
+    private DatosPrueba datos;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Usuario usuario;
+    private Direccion direccion;
+    private Producto producto;
+
+    @BeforeEach
+    void crearDatos() {
+        usuario = datos.usuario();
+        direccion = datos.direccion(usuario);
+        producto = datos.producto(datos.categoria(), 100);
+    }
+
+    @Test
+    void loteConOrigenesMezcladosCancelaLosPermitidosYReponeSuStock() {
+        Long pendiente = pedido(EstadoPedidoTipo.PENDIENTE);
+        Long pendientePago = pedido(EstadoPedidoTipo.PENDIENTE_PAGO);
+        Long enviado = pedido(EstadoPedidoTipo.ENVIADO);
+        assertThat(datos.stock(producto.getIdProducto())).isEqualTo(97);
+
+        ResultadoTransicionLoteDTO resultado = transicionEstadoPedidoService.transicionarLote(
+            List.of(pendiente, enviado, PEDIDO_INEXISTENTE, pendientePago), EstadoPedidoTipo.CANCELADO);
+
+        assertThat(resultado.getAplicados()).isEqualTo(2);
+        assertThat(resultado.getRechazados()).isEqualTo(2);
+        assertThat(resultado.getResultados()).extracting(ResultadoTransicionPedidoDTO::getIdPedido)
+            .containsExactly(pendiente, enviado, PEDIDO_INEXISTENTE, pendientePago);
+        assertThat(resultado.getResultados().get(0).getEstadoAnterior()).isEqualTo(EstadoPedidoTipo.PENDIENTE);
+        assertThat(resultado.getResultados().get(3).getEstadoAnterior()).isEqualTo(EstadoPedidoTipo.PENDIENTE_PAGO);
+        assertThat(resultado.getResultados().get(1)).satisfies(rechazado -> {
+            assertThat(rechazado.isExito()).isFalse();
+            assertThat(rechazado.getEstadoAnterior()).isEqualTo(EstadoPedidoTipo.ENVIADO);
+            assertThat(rechazado.getMensaje()).contains("No se puede pasar");
+        });
+        assertThat(resultado.getResultados().get(2).getMensaje()).isEqualTo("Pedido no encontrado.");
+
+        assertThat(estadoPedido(pendiente)).isEqualTo(EstadoPedidoTipo.CANCELADO.getId());
+        assertThat(estadoPedido(pendientePago)).isEqualTo(EstadoPedidoTipo.CANCELADO.getId());
+        assertThat(estadoPedido(enviado)).isEqualTo(EstadoPedidoTipo.ENVIADO.getId());
+        // Solo vuelven las unidades de los dos pedidos cancelados
+        assertThat(datos.stock(producto.getIdProducto())).isEqualTo(99);
+    }
+
+    @Test
+    void repetirElLoteNoReponeElStockDosVeces() {
+        Long pendiente = pedido(EstadoPedidoTipo.PENDIENTE);
+        transicionEstadoPedidoService.transicionarLote(List.of(pendiente), EstadoPedidoTipo.CANCELADO);
+
+        ResultadoTransicionLoteDTO repetido = transicionEstadoPedidoService.transicionarLote(List.of(pendiente),
+            EstadoPedidoTipo.CANCELADO);
+
+        assertThat(repetido.getAplicados()).isEqualTo(1);
+        assertThat(datos.stock(producto.getIdProducto())).isEqualTo(100);
+    }
+
+    @Test
+    void cancelarEnLoteUnPedidoPagadoDejaSuCobroParaReembolso() {
+        Long pagado = pedido(EstadoPedidoTipo.PAGADO);
+        Long idPago = pagoAprobado(pagado);
+
+        ResultadoTransicionLoteDTO resultado = transicionEstadoPedidoService.transicionarLote(List.of(pagado),
+            EstadoPedidoTipo.CANCELADO);
+
+        assertThat(resultado.getAplicados()).isEqualTo(1);
+        assertThat(pagoRepository.findById(idPago).orElseThrow().getEstado()).isEqualTo(Pago.REEMBOLSO_PENDIENTE);
+        assertThat(jdbcTemplate.queryForObject("SELECT estado_pago FROM pedidos WHERE id_pedido = ?", String.class, pagado))
+            .isEqualTo(Pago.REEMBOLSO_PENDIENTE);
+        assertThat(datos.stock(producto.getIdProducto())).isEqualTo(100);
+    }
+
+    @Test
+    void enviarEnLoteNoTocaStockNiPagos() {
+        List<Long> pagados = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            pagados.add(pedido(EstadoPedidoTipo.PAGADO));
+        }
+        Long idPago = pagoAprobado(pagados.get(0));
+
+        ResultadoTransicionLoteDTO resultado = transicionEstadoPedidoService.transicionarLote(pagados, EstadoPedidoTipo.ENVIADO);
+
+        assertThat(resultado.getAplicados()).isEqualTo(3);
+        assertThat(pagados).allSatisfy(id -> assertThat(estadoPedido(id)).isEqualTo(EstadoPedidoTipo.ENVIADO.getId()));
+        assertThat(pagoRepository.findById(idPago).orElseThrow().getEstado()).isEqualTo(Pago.APROBADO);
+        assertThat(datos.stock(producto.getIdProducto())).isEqualTo(97);
+    }
+
+    // Pedido de una unidad del producto, llevado directamente al estado indicado
+    private Long pedido(EstadoPedidoTipo estado) {
+        Pedido pedido = pedidoService.crearPedido(usuario.getIdUsuario(), datos.peticionPedido(direccion, List.of(producto), 1));
+        datos.fijarEstadoPedido(pedido.getIdPedido(), estado);
+        return pedido.getIdPedido();
+    }
+
+    private Long pagoAprobado(Long idPedido) {
+        Pedido pedido = new Pedido();
+        pedido.setIdPedido(idPedido);
+        MetodoPago metodoPago = new MetodoPago();
+        metodoPago.setIdMetodoPago(DatosPrueba.ID_METODO_PAGO);
+        Pago pago = new Pago();
+        pago.setPedido(pedido);
+        pago.setMetodoPago(metodoPago);
+        pago.setMonto(jdbcTemplate.queryForObject("SELECT monto_total FROM pedidos WHERE id_pedido = ?",
+            BigDecimal.class, idPedido));
+        pago.setEstado(Pago.APROBADO);
+        jdbcTemplate.update("UPDATE pedidos SET estado_pago = ? WHERE id_pedido = ?", Pago.APROBADO, idPedido);
+        return pagoRepository.save(pago).getIdPago();
+    }
+
+    private int estadoPedido(Long idPedido) {
+        return jdbcTemplate.queryForObject("SELECT id_estado_pedido FROM pedidos WHERE id_pedido = ?", Integer.class, idPedido);
+    }
+}
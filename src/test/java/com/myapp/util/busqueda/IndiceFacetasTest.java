@@ -0,0 +1,123 @@
+package com.myapp.util.busqueda;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.DTOs.FacetasCatalogoDTO;
+import com.DTOs.FiltroFacetas;
+import com.DTOs.ProductoResumenDTO;
+import com.DTOs.ValorFacetaDTO;
+
+/**
+ * Facetas con bitsets: la selección es la intersección entre facetas (unión dentro de cada una), cada recuento
+ * ignora su propio filtro, y conCambios/compactado dan índices nuevos sin tocar el anterior.
+ */
+class IndiceFacetasTest {
+
+    // Precio: 0 = menos de 1000, 1 = 1000 - 5000, 2 = 5000 o más. Peso: 0 = menos de 1 kg, 1 = 1 kg o más, 2 = sin peso
+    private static final BigDecimal[] LIMITES_PRECIO = { new BigDecimal("1000"), new BigDecimal("5000") };
+    private static final BigDecimal[] LIMITES_PESO = { BigDecimal.ONE };
+    private static final int ROPA = 1;
+    private static final int HOGAR = 2;
+
+    private final IndiceFacetas indice = IndiceFacetas.construir(List.of(
+        producto(4L, HOGAR, "8000", 1, "2"),
+        producto(1L, ROPA, "500", 5, "0.5"),
+        producto(2L, ROPA, "2000", 0, null),
+        producto(3L, HOGAR, "2000", 3, "2"),
+        producto(5L, ROPA, "1500", 2, "0.5")), LIMITES_PRECIO, LIMITES_PESO);
+
+    @Test
+    void seleccionEsLaInterseccionYCadaRecuentoIgnoraSuPropioFiltro() {
+        FacetasCatalogoDTO facetas = indice.consultar(filtro(Set.of(ROPA), Set.of(1), null, null), 20);
+
+        assertThat(facetas.total()).isEqualTo(2);
+        assertThat(facetas.productos()).extracting(ProductoResumenDTO::getIdProducto).containsExactly(2L, 5L);
+        // Categorías con el filtro de precio aplicado, pero no el de categoría
+        assertThat(facetas.categorias()).extracting(ValorFacetaDTO::clave, ValorFacetaDTO::cantidad, ValorFacetaDTO::seleccionado)
+            .containsExactly(tuple("1", 2, true), tuple("2", 1, false));
+        assertThat(facetas.precios()).extracting(ValorFacetaDTO::cantidad).containsExactly(1, 2, 0);
+        assertThat(facetas.disponibilidad()).extracting(ValorFacetaDTO::cantidad).containsExactly(1, 1);
+        assertThat(facetas.pesos()).extracting(ValorFacetaDTO::cantidad).containsExactly(1, 0, 1);
+
+        FacetasCatalogoDTO disponibles = indice.consultar(filtro(Set.of(ROPA), Set.of(1), true, null), 20);
+
+        assertThat(disponibles.total()).isEqualTo(1);
+        assertThat(disponibles.productos()).extracting(ProductoResumenDTO::getIdProducto).containsExactly(5L);
+    }
+
+    @Test
+    void valoresDeUnaFacetaSeUnen() {
+        FacetasCatalogoDTO facetas = indice.consultar(filtro(null, Set.of(0, 2), null, null), 20);
+
+        assertThat(facetas.productos()).extracting(ProductoResumenDTO::getIdProducto).containsExactly(1L, 4L);
+        assertThat(indice.consultar(filtro(null, null, null, Set.of(2)), 20).productos())
+            .extracting(ProductoResumenDTO::getIdProducto).containsExactly(2L);
+    }
+
+    @Test
+    void paginaPorCursorEnOrdenDeId() {
+        FacetasCatalogoDTO primera = indice.consultar(filtro(null, null, null, null), 2);
+
+        assertThat(primera.productos()).extracting(ProductoResumenDTO::getIdProducto).containsExactly(1L, 2L);
+        assertThat(primera.hayMas()).isTrue();
+        assertThat(primera.siguienteId()).isEqualTo(2L);
+
+        FacetasCatalogoDTO ultima = indice.consultar(new FiltroFacetas(null, null, null, null, 4L, 2), 2);
+
+        assertThat(ultima.productos()).extracting(ProductoResumenDTO::getIdProducto).containsExactly(5L);
+        assertThat(ultima.hayMas()).isFalse();
+    }
+
+    @Test
+    void conCambiosYCompactadoNoTocanElIndiceAnterior() {
+        // El 3 cambia de categoría y se agota, el 4 se da de baja y llega el 6
+        IndiceFacetas cambiado = indice.conCambios(
+            List.of(producto(3L, ROPA, "2000", 0, "2"), producto(6L, HOGAR, "9000", 4, null)), List.of(4L));
+
+        assertThat(cambiado.totalActivos()).isEqualTo(5);
+        assertThat(cambiado.huecos()).isEqualTo(1);
+        FacetasCatalogoDTO facetas = cambiado.consultar(filtro(null, null, null, null), 20);
+        assertThat(facetas.productos()).extracting(ProductoResumenDTO::getIdProducto).containsExactly(1L, 2L, 3L, 5L, 6L);
+        assertThat(facetas.categorias()).extracting(ValorFacetaDTO::clave, ValorFacetaDTO::cantidad)
+            .containsExactly(tuple("1", 4), tuple("2", 1));
+        assertThat(facetas.disponibilidad()).extracting(ValorFacetaDTO::cantidad).containsExactly(3, 2);
+        assertThat(cambiado.consultar(filtro(Set.of(HOGAR), null, null, null), 20).productos())
+            .extracting(ProductoResumenDTO::getIdProducto).containsExactly(6L);
+
+        // La versión anterior sigue igual (los lectores que la tengan no ven cambios a medias)
+        FacetasCatalogoDTO anterior = indice.consultar(filtro(Set.of(HOGAR), null, null, null), 20);
+        assertThat(anterior.productos()).extracting(ProductoResumenDTO::getIdProducto).containsExactly(3L, 4L);
+        assertThat(indice.huecos()).isZero();
+
+        IndiceFacetas compactado = cambiado.compactado();
+
+        assertThat(compactado.huecos()).isZero();
+        assertThat(compactado.totalActivos()).isEqualTo(5);
+        assertThat(compactado.consultar(filtro(null, null, null, null), 20)).isEqualTo(facetas);
+    }
+
+    @Test
+    void altaConIdMenorQueElUltimoReconstruyeElIndice() {
+        IndiceFacetas cambiado = indice.conCambios(List.of(producto(0L, HOGAR, "100", 1, null)), List.of());
+
+        assertThat(cambiado.huecos()).isZero();
+        assertThat(cambiado.consultar(filtro(Set.of(HOGAR), null, null, null), 20).productos())
+            .extracting(ProductoResumenDTO::getIdProducto).containsExactly(0L, 3L, 4L);
+    }
+
+    private static FiltroFacetas filtro(Set<Integer> categorias, Set<Integer> rangosPrecio, Boolean disponible, Set<Integer> rangosPeso) {
+        return new FiltroFacetas(categorias, rangosPrecio, disponible, rangosPeso, null, 20);
+    }
+
+    private static ProductoResumenDTO producto(Long id, int idCategoria, String precio, int stock, String pesoKg) {
+        return new ProductoResumenDTO(id, "SKU-" + id, "Producto " + id, new BigDecimal(precio), stock, null,
+            pesoKg == null ? null : new BigDecimal(pesoKg), idCategoria, idCategoria == ROPA ? "Ropa" : "Hogar");
+    }
+}
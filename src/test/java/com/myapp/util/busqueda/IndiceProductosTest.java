@@ -0,0 +1,100 @@
+package com.myapp.util.busqueda;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.DTOs.ProductoEncontradoDTO;
+import com.DTOs.ProductoIndexableDTO;
+
+/**
+ * Búsqueda sobre un catálogo sintético de 50.000 productos: coincidencia exacta, por prefijo y con erratas,
+ * y cambios en el delta. La latencia se mide con JMH en IndiceProductosBenchmark.
+ */
+class IndiceProductosTest {
+
+    private static final int PRODUCTOS = 50_000;
+    private static final long ID_BUSCADO = 1_000_001L;
+
+    private static final String[] PRENDAS = { "Camiseta", "Pantalón", "Chaqueta", "Mochila", "Gorra", "Bolso",
+        "Reloj", "Lámpara", "Silla", "Mesa", "Cojín", "Bufanda" };
+    private static final String[] COLORES = { "rojo", "azul", "verde", "negro", "blanco", "gris", "amarillo" };
+    private static final String[] MATERIALES = { "algodón", "cuero", "lana", "madera", "metal", "lino" };
+    private static final String[] CATEGORIAS = { "Ropa", "Hogar", "Accesorios", "Deporte" };
+
+    private static IndiceProductos indice;
+
+    @BeforeAll
+    static void construirCatalogo() {
+        Random aleatorio = new Random(42);
+        List<ProductoIndexableDTO> productos = new ArrayList<>(PRODUCTOS + 1);
+        for (int i = 0; i < PRODUCTOS; i++) {
+            String nombre = PRENDAS[aleatorio.nextInt(PRENDAS.length)] + " " + COLORES[aleatorio.nextInt(COLORES.length)]
+                + " de " + MATERIALES[aleatorio.nextInt(MATERIALES.length)] + " modelo " + i;
+            productos.add(producto((long) i + 1, "GEN-" + i, nombre, "Artículo generado número " + i,
+                CATEGORIAS[aleatorio.nextInt(CATEGORIAS.length)]));
+        }
+        productos.add(producto(ID_BUSCADO, "ZAP-TRL-001", "Zapatillas running Trail Pro",
+            "Zapatillas de montaña con suela de tacos", "Calzado"));
+        indice = IndiceProductos.construir(productos);
+    }
+
+    @Test
+    void encuentraPorTerminosExactosYPrefijoDelUltimo() {
+        assertThat(primero("zapatillas trail")).isEqualTo(ID_BUSCADO);
+        assertThat(primero("trail zapat")).isEqualTo(ID_BUSCADO);
+        assertThat(primero("ZAP-TRL-001")).isEqualTo(ID_BUSCADO);
+    }
+
+    @Test
+    void toleraErratasAcentosYPlurales() {
+        assertThat(primero("zapatila trail")).isEqualTo(ID_BUSCADO);
+        assertThat(primero("montaña")).isEqualTo(ID_BUSCADO);
+        assertThat(primero("MONTANA zapatilla")).isEqualTo(ID_BUSCADO);
+    }
+
+    @Test
+    void cuentaTodasLasCoincidenciasAunqueDevuelvaPocas() {
+        IndiceProductos.Resultado resultado = indice.buscar("camiseta", 10);
+
+        assertThat(resultado.productos()).hasSize(10);
+        assertThat(resultado.totalCoincidencias()).isGreaterThan(PRODUCTOS / PRENDAS.length / 2);
+    }
+
+    @Test
+    void losCambiosDelDeltaOcultanLaVersionAnterior() {
+        IndiceProductos cambiado = indice.conCambios(
+            List.of(producto(ID_BUSCADO, "ZAP-TRL-001", "Botas impermeables Trail Pro", "Botas de montaña", "Calzado")),
+            List.of(1L));
+
+        assertThat(cambiado.buscar("zapatillas running", 10).productos())
+            .extracting(encontrado -> encontrado.producto().getIdProducto()).doesNotContain(ID_BUSCADO);
+        assertThat(cambiado.buscar("botas impermeables", 1).productos().get(0).producto().getIdProducto()).isEqualTo(ID_BUSCADO);
+        assertThat(cambiado.buscar("modelo 0", 50).productos())
+            .extracting(encontrado -> encontrado.producto().getIdProducto()).doesNotContain(1L);
+        assertThat(cambiado.totalDocumentos()).isEqualTo(PRODUCTOS);
+
+        IndiceProductos fusionado = cambiado.fusionado();
+        assertThat(fusionado.pendientesDeFusion()).isZero();
+        assertThat(fusionado.buscar("botas impermeables", 1).productos().get(0).producto().getIdProducto()).isEqualTo(ID_BUSCADO);
+        // El índice original no cambia: las consultas en curso siguen viendo su versión
+        assertThat(primero("zapatillas trail")).isEqualTo(ID_BUSCADO);
+    }
+
+    private static Long primero(String consulta) {
+        List<ProductoEncontradoDTO> productos = indice.buscar(consulta, 5).productos();
+        assertThat(productos).as("resultados de '%s'", consulta).isNotEmpty();
+        return productos.get(0).producto().getIdProducto();
+    }
+
+    private static ProductoIndexableDTO producto(Long id, String sku, String nombre, String descripcion, String categoria) {
+        return new ProductoIndexableDTO(id, sku, nombre, descripcion, new BigDecimal("1000.00"), 10, null, null,
+            categoria.hashCode(), categoria);
+    }
+}
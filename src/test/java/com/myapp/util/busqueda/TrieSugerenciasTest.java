@@ -0,0 +1,82 @@
+package com.myapp.util.busqueda;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.DTOs.SugerenciaDTO;
+import com.DTOs.SugerenciaDTO.Tipo;
+
+/**
+ * Autocompletado sobre 100.000 nombres: orden por popularidad, coincidencia desde cualquier palabra,
+ * sin acentos ni mayúsculas, y latencia por consulta.
+ */
+class TrieSugerenciasTest {
+
+    private static final int NOMBRES = 100_000;
+    private static final int MAXIMO_POR_NODO = 10;
+
+    private static TrieSugerencias trie;
+
+    @BeforeAll
+    static void construir() {
+        List<SugerenciaDTO> sugerencias = new ArrayList<>(NOMBRES + 4);
+        for (int i = 0; i < NOMBRES; i++) {
+            sugerencias.add(new SugerenciaDTO("Artículo genérico " + i, Tipo.PRODUCTO, (long) i, i % 100));
+        }
+        sugerencias.add(new SugerenciaDTO("Zapatillas running Trail", Tipo.PRODUCTO, 1_000_001L, 500));
+        sugerencias.add(new SugerenciaDTO("Zapatos de cuero", Tipo.PRODUCTO, 1_000_002L, 50));
+        sugerencias.add(new SugerenciaDTO("Zapatería", Tipo.CATEGORIA, 7L, 900));
+        sugerencias.add(new SugerenciaDTO("Camión de juguete", Tipo.PRODUCTO, 1_000_003L, 5));
+        trie = TrieSugerencias.construir(sugerencias, MAXIMO_POR_NODO);
+    }
+
+    @Test
+    void ordenaPorPopularidad() {
+        assertThat(trie.sugerir("zapat", 10)).extracting(SugerenciaDTO::texto)
+            .containsExactly("Zapatería", "Zapatillas running Trail", "Zapatos de cuero");
+    }
+
+    @Test
+    void sugiereDesdeCualquierPalabraSinAcentosNiMayusculas() {
+        assertThat(trie.sugerir("RUNN", 5)).extracting(SugerenciaDTO::id).containsExactly(1_000_001L);
+        assertThat(trie.sugerir("camion de jug", 5)).extracting(SugerenciaDTO::id).containsExactly(1_000_003L);
+        assertThat(trie.sugerir("juguete", 5)).extracting(SugerenciaDTO::id).containsExactly(1_000_003L);
+        assertThat(trie.sugerir("zapateria", 5)).extracting(SugerenciaDTO::tipo).containsExactly(Tipo.CATEGORIA);
+    }
+
+    @Test
+    void respetaElLimiteYElMaximoPorNodo() {
+        assertThat(trie.sugerir("articulo", 3)).hasSize(3);
+        assertThat(trie.sugerir("articulo", 50)).hasSize(MAXIMO_POR_NODO);
+        assertThat(trie.sugerir("xyz", 5)).isEmpty();
+        assertThat(trie.sugerir("  ", 5)).isEmpty();
+    }
+
+    @Test
+    void latenciaPorConsulta() {
+        String[] consultas = { "z", "zapat", "articulo generico 4", "art", "camion", "running tr", "nada" };
+        medir(consultas, 20_000); // calentamiento del JIT
+
+        int repeticiones = 50_000;
+        Duration total = medir(consultas, repeticiones);
+
+        // La consulta solo recorre el prefijo escrito: en local son ~1 µs. Cota holgada para CI
+        assertThat(total.dividedBy((long) repeticiones * consultas.length)).isLessThan(Duration.ofNanos(50_000));
+    }
+
+    private static Duration medir(String[] consultas, int repeticiones) {
+        long inicio = System.nanoTime();
+        int encontradas = 0;
+        for (int r = 0; r < repeticiones; r++) {
+            encontradas += trie.sugerir(consultas[r % consultas.length], MAXIMO_POR_NODO).size();
+        }
+        assertThat(encontradas).isPositive();
+        return Duration.ofNanos(System.nanoTime() - inicio);
+    }
+}
@@ -0,0 +1,94 @@
+package com.myapp.util.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.myapp.models.Usuario;
+import com.myapp.util.cache.TtlCache;
+import com.myapp.util.security.CustomUserDetails;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Idempotency-Key: la repetición con el mismo cuerpo recibe la respuesta guardada sin volver al controlador,
+ * y la misma clave con otro cuerpo se rechaza con 422.
+ */
+class IdempotenciaFilterTest {
+
+    private static final String CUERPO = "{\"idPedido\":1,\"monto\":1000}";
+
+    private final AtomicInteger ejecuciones = new AtomicInteger();
+    private IdempotenciaFilter filtro;
+
+    @BeforeEach
+    void preparar() {
+        filtro = new IdempotenciaFilter(new TtlCache<>("idempotenciaPrueba", 100, Duration.ofMinutes(5)), 65536);
+        Usuario usuario = new Usuario();
+        usuario.setIdUsuario(7L);
+        usuario.setEmail("cliente@pruebas.com");
+        usuario.setPassword("x");
+        CustomUserDetails detalles = new CustomUserDetails(usuario);
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken(detalles, null, detalles.getAuthorities()));
+    }
+
+    @AfterEach
+    void limpiar() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void repeticionConElMismoCuerpoDevuelveLaRespuestaGuardada() throws Exception {
+        MockHttpServletResponse primera = filtrar(CUERPO);
+        MockHttpServletResponse repetida = filtrar(CUERPO);
+
+        assertThat(ejecuciones.get()).isEqualTo(1);
+        assertThat(primera.getStatus()).isEqualTo(202);
+        assertThat(primera.getContentAsString()).isEqualTo("recibido " + CUERPO);
+        assertThat(repetida.getStatus()).isEqualTo(202);
+        assertThat(repetida.getHeader(IdempotenciaFilter.CABECERA_REPETIDA)).isEqualTo("true");
+        assertThat(repetida.getContentAsString()).isEqualTo(primera.getContentAsString());
+    }
+
+    @Test
+    void mismaClaveConOtroCuerpoSeRechaza() throws Exception {
+        filtrar(CUERPO);
+
+        MockHttpServletResponse distinta = filtrar("{\"idPedido\":2,\"monto\":1000}");
+
+        assertThat(distinta.getStatus()).isEqualTo(422);
+        assertThat(distinta.getHeader(IdempotenciaFilter.CABECERA_REPETIDA)).isNull();
+        assertThat(ejecuciones.get()).isEqualTo(1);
+    }
+
+    private MockHttpServletResponse filtrar(String cuerpo) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/pagos/process");
+        request.addHeader(IdempotenciaFilter.CABECERA, "pago-123");
+        request.setContentType("application/json");
+        request.setContent(cuerpo.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Hace de controlador: lee el cuerpo (que el filtro ya consumió para la huella) y lo devuelve
+        FilterChain cadena = (req, res) -> {
+            ejecuciones.incrementAndGet();
+            String leido = new String(req.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            ((HttpServletResponse) res).setStatus(202);
+            res.setContentType("text/plain");
+            res.getWriter().write("recibido " + leido);
+        };
+        filtro.doFilter(request, response, cadena);
+        return response;
+    }
+}
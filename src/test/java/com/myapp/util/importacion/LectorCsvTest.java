@@ -0,0 +1,81 @@
+package com.myapp.util.importacion;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Lectura de CSV según RFC 4180 y las variantes de Excel: comillas, separador ';', CRLF y BOM.
+ */
+class LectorCsvTest {
+
+    @Test
+    void comaEntreComillasNoSeparaCampos() throws IOException {
+        assertThat(leer("sku,nombre\nA-1,\"Camiseta, talla M\"\n"))
+            .containsExactly(List.of("sku", "nombre"), List.of("A-1", "Camiseta, talla M"));
+    }
+
+    @Test
+    void comillasDobladasSonUnaComilla() throws IOException {
+        assertThat(leer("sku,nombre\nA-1,\"Pantalla 27\"\" \"\"4K\"\"\"\n"))
+            .containsExactly(List.of("sku", "nombre"), List.of("A-1", "Pantalla 27\" \"4K\""));
+    }
+
+    @Test
+    void saltoDeLineaCrlfDentroDeComillasSeConserva() throws IOException {
+        LectorCsv lector = new LectorCsv(new StringReader("sku,descripcion\r\nA-1,\"Línea 1\r\nLínea 2\"\r\nA-2,Otra\r\n"));
+
+        assertThat(lector.siguienteRegistro()).containsExactly("sku", "descripcion");
+        assertThat(lector.siguienteRegistro()).containsExactly("A-1", "Línea 1\r\nLínea 2");
+        assertThat(lector.lineaRegistro()).isEqualTo(2);
+        assertThat(lector.siguienteRegistro()).containsExactly("A-2", "Otra");
+        // El registro anterior ocupaba dos líneas del fichero
+        assertThat(lector.lineaRegistro()).isEqualTo(4);
+        assertThat(lector.siguienteRegistro()).isNull();
+    }
+
+    @Test
+    void separadorPuntoYComaSeDetectaEnLaCabecera() throws IOException {
+        assertThat(leer("sku;precio;nombre\nA-1;1000,50;\"Mesa; roble\"\n"))
+            .containsExactly(List.of("sku", "precio", "nombre"), List.of("A-1", "1000,50", "Mesa; roble"));
+    }
+
+    @Test
+    void marcaBomSeDescarta() throws IOException {
+        assertThat(leer("\uFEFFsku,nombre\nA-1,Gorra"))
+            .containsExactly(List.of("sku", "nombre"), List.of("A-1", "Gorra"));
+    }
+
+    @Test
+    void campoVacioEsNullYEntreComillasEsCadenaVacia() throws IOException {
+        assertThat(leer("sku,nombre,imagen\n\nA-1,,\"\"\n")).containsExactly(
+            List.of("sku", "nombre", "imagen"), Arrays.asList("A-1", null, ""));
+    }
+
+    @Test
+    void comillasSinCerrarFallanConLaLineaDelRegistro() throws IOException {
+        LectorCsv lector = new LectorCsv(new StringReader("sku,nombre\nA-1,\"sin cerrar\n"));
+        lector.siguienteRegistro();
+
+        assertThatThrownBy(lector::siguienteRegistro)
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("línea 2");
+    }
+
+    private static List<List<String>> leer(String contenido) throws IOException {
+        LectorCsv lector = new LectorCsv(new StringReader(contenido));
+        List<List<String>> registros = new ArrayList<>();
+        List<String> registro;
+        while ((registro = lector.siguienteRegistro()) != null) {
+            registros.add(registro);
+        }
+        return registros;
+    }
+}
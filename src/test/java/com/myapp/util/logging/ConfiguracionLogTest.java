@@ -0,0 +1,30 @@
+package com.myapp.util.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.core.Appender;
+
+/**
+ * logback-spring.xml: los hilos de las peticiones solo encolan el evento y nunca se bloquean con la cola llena.
+ */
+@SpringBootTest
+class ConfiguracionLogTest {
+
+    @Test
+    void elLogRaizEsAsincronoYNoBloquea() {
+        Logger raiz = (Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+
+        Appender<?> appender = raiz.getAppender("ASYNC_CONSOLE");
+
+        assertThat(appender).isInstanceOf(AsyncAppender.class);
+        AsyncAppender asincrono = (AsyncAppender) appender;
+        assertThat(asincrono.isNeverBlock()).isTrue();
+        assertThat(asincrono.getAppender("CONSOLE")).isNotNull();
+    }
+}
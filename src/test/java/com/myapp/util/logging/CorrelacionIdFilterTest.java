@@ -0,0 +1,64 @@
+package com.myapp.util.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import jakarta.servlet.FilterChain;
+
+/**
+ * El ID de correlación está en el MDC durante la petición, vuelve en la respuesta y no se filtra a la siguiente
+ * petición del mismo hilo. Un X-Request-Id con caracteres no permitidos se sustituye.
+ */
+class CorrelacionIdFilterTest {
+
+    private final CorrelacionIdFilter filtro = new CorrelacionIdFilter();
+
+    @Test
+    void reutilizaElIdValidoDelCliente() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/productos");
+        request.addHeader(CorrelacionIdFilter.CABECERA, "peticion-123");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        String enElMdc = filtrar(request, response);
+
+        assertThat(enElMdc).isEqualTo("peticion-123");
+        assertThat(response.getHeader(CorrelacionIdFilter.CABECERA)).isEqualTo("peticion-123");
+        assertThat(MDC.get(CorrelacionIdFilter.CLAVE_MDC)).isNull();
+    }
+
+    @Test
+    void sustituyeUnIdQueInyectariaTextoEnLosLogs() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/productos");
+        request.addHeader(CorrelacionIdFilter.CABECERA, "x\n2026-01-01 ERROR falso");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        String enElMdc = filtrar(request, response);
+
+        assertThat(enElMdc).matches("[0-9a-f-]{36}");
+        assertThat(response.getHeader(CorrelacionIdFilter.CABECERA)).isEqualTo(enElMdc);
+    }
+
+    @Test
+    void generaUnIdSiNoLlegaNinguno() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        String enElMdc = filtrar(new MockHttpServletRequest("GET", "/api/productos"), response);
+
+        assertThat(enElMdc).isNotBlank();
+        assertThat(response.getHeader(CorrelacionIdFilter.CABECERA)).isEqualTo(enElMdc);
+    }
+
+    // Valor del MDC visto por el resto de la cadena de filtros
+    private String filtrar(MockHttpServletRequest request, MockHttpServletResponse response) throws Exception {
+        AtomicReference<String> visto = new AtomicReference<>();
+        FilterChain cadena = (req, res) -> visto.set(MDC.get(CorrelacionIdFilter.CLAVE_MDC));
+        filtro.doFilter(request, response, cadena);
+        return visto.get();
+    }
+}
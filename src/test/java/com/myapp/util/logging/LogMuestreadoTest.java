@@ -0,0 +1,65 @@
+package com.myapp.util.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+
+/**
+ * Un evento ruidoso se registra la primera vez y luego una de cada N, con el número de ocurrencias.
+ */
+class LogMuestreadoTest {
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(LogMuestreadoTest.class);
+    private final ListAppender<ILoggingEvent> registrados = new ListAppender<>();
+
+    @BeforeEach
+    void capturar() {
+        registrados.start();
+        logger.addAppender(registrados);
+    }
+
+    @AfterEach
+    void soltar() {
+        logger.detachAppender(registrados);
+    }
+
+    @Test
+    void registraLaPrimeraYLuegoUnaDeCadaN() {
+        LogMuestreado log = new LogMuestreado(logger, 100);
+
+        for (int i = 0; i < 250; i++) {
+            log.warn("jwt.invalido", "JWT inválido: {}", "firma");
+        }
+
+        assertThat(registrados.list).extracting(ILoggingEvent::getFormattedMessage).containsExactly(
+            "JWT inválido: firma (ocurrencias: 1)",
+            "JWT inválido: firma (ocurrencias: 100)",
+            "JWT inválido: firma (ocurrencias: 200)");
+    }
+
+    @Test
+    void cadaEventoLlevaSuPropioContador() {
+        LogMuestreado log = new LogMuestreado(logger, 10);
+
+        log.warn("jwt.invalido", "JWT inválido");
+        log.warn("acceso.denegado", "Acceso denegado");
+        log.warn("jwt.invalido", "JWT inválido");
+
+        assertThat(registrados.list).extracting(ILoggingEvent::getFormattedMessage).containsExactly(
+            "JWT inválido (ocurrencias: 1)",
+            "Acceso denegado (ocurrencias: 1)");
+    }
+
+    @Test
+    void laFrecuenciaDebeSerPositiva() {
+        assertThatThrownBy(() -> new LogMuestreado(logger, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,93 @@
+package com.myapp.util.security.jwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+
+import javax.crypto.SecretKey;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.myapp.util.cache.TtlCache;
+
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Verificación de JWT: claims tipados y tokens rechazados sin excepciones.
+ * El coste frente a la verificación anterior se mide con JMH en JwtVerificacionBenchmark.
+ */
+class JwtTokenProviderTest {
+
+    private static final String SECRETO = "clave-de-pruebas-solo-para-tests-no-usar-en-produccion-0123456789abcdef";
+
+    private final SecretKey clave = Keys.hmacShaKeyFor(SECRETO.getBytes(StandardCharsets.UTF_8));
+
+    private TtlCache<String, JwtClaims> cacheVerificados;
+
+    @BeforeEach
+    void preparar() {
+        cacheVerificados = new TtlCache<>("tokensVerificadosPrueba", 100, Duration.ofMinutes(5));
+    }
+
+    @Test
+    void tokenValidoDevuelveSusClaims() {
+        JwtTokenProvider proveedor = proveedor(true);
+
+        assertThat(proveedor.verificarToken(token(true))).hasValueSatisfying(claims -> {
+            assertThat(claims.idUsuario()).isEqualTo(42L);
+            assertThat(claims.email()).isEqualTo("cliente@pruebas.com");
+            assertThat(claims.roles()).containsExactly("ROLE_CLIENTE");
+        });
+    }
+
+    @Test
+    void tokenSinExpiracionSeRechazaSinCachearlo() {
+        JwtTokenProvider proveedor = proveedor(true);
+
+        assertThat(proveedor.verificarToken(token(false))).isEmpty();
+        assertThat(cacheVerificados.tamano()).isZero();
+    }
+
+    @Test
+    void tokenFirmadoConOtraClaveSeRechaza() {
+        JwtTokenProvider proveedor = proveedor(true);
+        String ajeno = Jwts.builder()
+                .setSubject("42")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor("otra-clave-distinta-de-la-de-pruebas-0123456789abcdef-0123456789ab"
+                        .getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS512)
+                .compact();
+
+        assertThat(proveedor.verificarToken(ajeno)).isEmpty();
+        assertThat(proveedor.verificarToken("no-es-un-jwt")).isEmpty();
+    }
+
+    private JwtTokenProvider proveedor(boolean cacheHabilitada) {
+        JwtTokenProvider proveedor = new JwtTokenProvider(cacheVerificados);
+        ReflectionTestUtils.setField(proveedor, "jwtSecret", SECRETO);
+        ReflectionTestUtils.setField(proveedor, "jwtExpirationInMs", 3_600_000L);
+        ReflectionTestUtils.setField(proveedor, "cacheVerificadosHabilitada", cacheHabilitada);
+        proveedor.inicializarClave();
+        return proveedor;
+    }
+
+    private String token(boolean conExpiracion) {
+        JwtBuilder builder = Jwts.builder()
+                .setSubject("42")
+                .claim("email", "cliente@pruebas.com")
+                .claim("roles", List.of("ROLE_CLIENTE"))
+                .setIssuedAt(new Date());
+        if (conExpiracion) {
+            builder.setExpiration(new Date(System.currentTimeMillis() + 3_600_000));
+        }
+        return builder.signWith(clave, SignatureAlgorithm.HS512).compact();
+    }
+}
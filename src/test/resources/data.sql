@@ -0,0 +1,5 @@
+-- Datos de referencia con los IDs que espera EstadoPedidoTipo
+INSERT INTO estados_pedido (id_estado_pedido, nombre_estado) VALUES
+    (0, 'Pendiente'), (1, 'Pendiente Pago'), (2, 'Pagado'), (3, 'Cancelado'), (4, 'Enviado'), (5, 'Entregado');
+
+INSERT INTO metodos_pago (id_metodo_pago, nombre, activo) VALUES (1, 'Tarjeta', TRUE);